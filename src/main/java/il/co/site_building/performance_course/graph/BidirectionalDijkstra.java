@@ -0,0 +1,148 @@
+package il.co.site_building.performance_course.graph;
+
+import java.util.Arrays;
+
+import gnu.trove.list.TIntList;
+import gnu.trove.list.array.TIntArrayList;
+
+/**
+ * Bidirectional Dijkstra for a single source to destination query on an undirected graph with non-negative weights.
+ * A forward search grows from the source and a backward search grows from the destination, each time the one whose
+ * next vertex is closer is advanced. Every scanned edge which reaches a vertex labeled by the other search is a
+ * candidate path, and the shortest candidate, mu, is the shortest path once the sum of the minimal keys of both
+ * searches reaches mu. So both balls stop at about half of the distance, instead of a single ball of the whole
+ * distance.
+ * <p>
+ * The graph is accessed only through a {@link NeighborsScanner}, so any representation which can iterate the
+ * neighbors of a vertex with their weights can use it.
+ */
+class BidirectionalDijkstra {
+
+  private static final int UNDEFINED = -1;
+  private static final int HEAP_ARITY = 4;
+
+  /**
+   * Iterates the neighbors of a vertex, with the weights of the edges.
+   */
+  interface NeighborsScanner {
+    void forEachNeighbor(int vertex, UndirectedWeightedNeighborsMatrixGraph.WeightedNeighborConsumer neighborConsumer);
+  }
+
+  private final int numberOfVertices;
+  private final NeighborsScanner neighborsScanner;
+  private double shortestDistance; //mu, the shortest path found so far
+  private int forwardMeetingVertex; //The shortest path found so far goes through the edge of the meeting vertices
+  private int backwardMeetingVertex;
+  private double meetingWeight; //The weight of the edge between the meeting vertices
+  private int numberOfSettledVertices;
+
+  /**
+   * @param numberOfVertices All vertices are in the range [0..numberOfVertices)
+   * @param neighborsScanner Iterates the neighbors of the graph vertices.
+   */
+  BidirectionalDijkstra(int numberOfVertices, NeighborsScanner neighborsScanner) {
+    this.numberOfVertices = numberOfVertices;
+    this.neighborsScanner = neighborsScanner;
+  }
+
+  /**
+   * @param source Source vertex, which exists in the graph.
+   * @param dest   Destination vertex, which exists in the graph.
+   * @return The shortest path as an object of the path and its total length.
+   */
+  PathResult findShortestPath(int source, int dest) {
+    PathResult result = new PathResult();
+    numberOfSettledVertices = 0;
+    if (source == dest) {
+      result.distances = 0.0;
+      result.path.add(source);
+      return result;
+    }
+    Search forward = new Search(source);
+    Search backward = new Search(dest);
+    shortestDistance = Double.POSITIVE_INFINITY;
+    while (!forward.queue.isEmpty() && !backward.queue.isEmpty() &&
+        forward.queue.minKey() + backward.queue.minKey() < shortestDistance) {
+      if (forward.queue.minKey() <= backward.queue.minKey()) {
+        scan(forward, backward, true);
+      } else {
+        scan(backward, forward, false);
+      }
+    }
+    if (shortestDistance < Double.POSITIVE_INFINITY) {
+      //The distance is summed again from the source, in the same order as a single search from the source
+      double distance = forward.distances[forwardMeetingVertex] + meetingWeight;
+      TIntList backwardPath = new TIntArrayList(); //From the meeting vertex to the destination
+      for (int vertex = backwardMeetingVertex; vertex != dest; vertex = backward.previousNodes[vertex]) {
+        backwardPath.add(vertex);
+        distance += backward.previousWeights[vertex];
+      }
+      result.distances = distance;
+      result.path.add(dest);
+      for (int index = backwardPath.size() - 1; index >= 0; index--) {
+        result.path.add(backwardPath.get(index));
+      }
+      for (int vertex = forwardMeetingVertex; vertex != source; vertex = forward.previousNodes[vertex]) {
+        result.path.add(vertex);
+      }
+      result.path.add(source);
+    }
+    return result;
+  }
+
+  /**
+   * @return Number of vertices settled by both searches of the last query.
+   */
+  int getNumberOfSettledVertices() {
+    return numberOfSettledVertices;
+  }
+
+  /**
+   * Settles the closest vertex of the search, and relaxes its edges. Every edge to a vertex with a distance from the
+   * other search is a candidate for the shortest path.
+   */
+  private void scan(Search search, Search other, boolean isForward) {
+    int vertex = search.queue.extractMin();
+    numberOfSettledVertices++;
+    double vertexDistance = search.distances[vertex];
+    neighborsScanner.forEachNeighbor(vertex, (neighbor, weight) -> {
+      double alternativeDistance = vertexDistance + weight;
+      if (alternativeDistance < search.distances[neighbor]) {
+        if (search.distances[neighbor] == Double.POSITIVE_INFINITY) {
+          search.queue.insert(neighbor, alternativeDistance);
+        } else {
+          search.queue.decreaseKey(neighbor, alternativeDistance);
+        }
+        search.distances[neighbor] = alternativeDistance;
+        search.previousNodes[neighbor] = vertex;
+        search.previousWeights[neighbor] = weight;
+      }
+      double pathDistance = alternativeDistance + other.distances[neighbor];
+      if (pathDistance < shortestDistance) {
+        shortestDistance = pathDistance;
+        forwardMeetingVertex = isForward ? vertex : neighbor;
+        backwardMeetingVertex = isForward ? neighbor : vertex;
+        meetingWeight = weight;
+      }
+    });
+  }
+
+  /**
+   * The state of a single direction.
+   */
+  private class Search {
+
+    private final double[] distances = new double[numberOfVertices];
+    private final int[] previousNodes = new int[numberOfVertices]; //The previous node towards the root of the search
+    private final double[] previousWeights = new double[numberOfVertices]; //The weight of the edge to previous node
+    private final IndexedDaryHeap queue = new IndexedDaryHeap(numberOfVertices, HEAP_ARITY);
+
+    private Search(int root) {
+      Arrays.fill(distances, Double.POSITIVE_INFINITY);
+      Arrays.fill(previousNodes, UNDEFINED);
+      distances[root] = 0.0;
+      previousNodes[root] = root;
+      queue.insert(root, 0.0);
+    }
+  }
+}
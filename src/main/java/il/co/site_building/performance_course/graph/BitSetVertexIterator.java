@@ -0,0 +1,48 @@
+package il.co.site_building.performance_course.graph;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Primitive iterator over the set bits of a bitwise vertices array, in ascending order.
+ * Words are scanned with number of trailing zeros, so empty words are skipped at once.
+ */
+class BitSetVertexIterator implements PrimitiveIterator.OfInt {
+
+  private final long[] bitSet;
+  private final int firstBucketEntry;
+  private int bucketEntry;
+  private long word;
+
+  BitSetVertexIterator(long[] bitSet) {
+    this(bitSet, 0);
+  }
+
+  /**
+   * @param bitSet           A bitwise vertices array, which starts at a word offset.
+   * @param firstBucketEntry The word offset of the first word in the array.
+   */
+  BitSetVertexIterator(long[] bitSet, int firstBucketEntry) {
+    this.bitSet = bitSet;
+    this.firstBucketEntry = firstBucketEntry;
+    bucketEntry = 0;
+    word = bitSet.length == 0 ? 0 : bitSet[0];
+  }
+
+  @Override public boolean hasNext() {
+    while (word == 0 && bucketEntry + 1 < bitSet.length) {
+      bucketEntry++;
+      word = bitSet[bucketEntry];
+    }
+    return word != 0;
+  }
+
+  @Override public int nextInt() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    int vertex = (firstBucketEntry + bucketEntry) * Long.SIZE + Long.numberOfTrailingZeros(word);
+    word &= word - 1;
+    return vertex;
+  }
+}
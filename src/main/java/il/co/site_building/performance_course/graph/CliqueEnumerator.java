@@ -0,0 +1,345 @@
+package il.co.site_building.performance_course.graph;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+
+/**
+ * Maximal cliques enumeration over a symmetric bit level neighbors matrix, by Bron-Kerbosch with pivoting.
+ * The candidates set P and the excluded set X are bitsets, so their intersections with the neighbors of v are computed
+ * a word at a time from the row of v, and the pivot is the vertex of P or X whose row covers the most of P, by
+ * popcount.
+ * <p>
+ * The outer level follows a degeneracy ordering (Eppstein, Loffler and Strash): each vertex starts a search with its
+ * later neighbors as P and its earlier neighbors as X, so P has at most degeneracy vertices. These searches are
+ * independent, and are run in parallel over ranges of the ordering.
+ */
+class CliqueEnumerator {
+
+  private static final int MIN_RANGE_SIZE = 16;
+
+  private final long[][] neighborsMatrix;
+  private final long[] vertices;
+  private final int numberOfVertices;
+  private int[] order; //Existing vertices in degeneracy order
+  private int[] positions; //Position of each vertex in the order
+
+  /**
+   * @param neighborsMatrix  Bitwise neighbors matrix, where each row holds all of the vertex neighbors. A self loop may
+   *                         be marked on the diagonal, and is ignored.
+   * @param vertices         Bitwise array of all existing vertices.
+   * @param numberOfVertices Number of rows, all vertices are in the range [0..numberOfVertices)
+   */
+  CliqueEnumerator(long[][] neighborsMatrix, long[] vertices, int numberOfVertices) {
+    this.neighborsMatrix = neighborsMatrix;
+    this.vertices = vertices;
+    this.numberOfVertices = numberOfVertices;
+  }
+
+  /**
+   * @param cliqueConsumer Receives each maximal clique, may be null to only count them.
+   * @return The number of maximal cliques.
+   */
+  long enumerate(Consumer<int[]> cliqueConsumer) {
+    computeDegeneracyOrder();
+    return new CliqueSearch(cliqueConsumer).search(0, order.length);
+  }
+
+  /**
+   * Same as {@link #enumerate(Consumer)}, searching from ranges of the ordering in parallel.
+   *
+   * @param cliqueConsumer Receives each maximal clique from multiple threads, so it should be thread safe. May be null.
+   */
+  long enumerate(Consumer<int[]> cliqueConsumer, int parallelism) {
+    computeDegeneracyOrder();
+    int rangeSize = Math.max(MIN_RANGE_SIZE, order.length / (parallelism * 16) + 1);
+    ForkJoinPool forkJoinPool = new ForkJoinPool(parallelism);
+    try {
+      return forkJoinPool.invoke(new CliquesTask(cliqueConsumer, 0, order.length, rangeSize));
+    } finally {
+      forkJoinPool.shutdown();
+    }
+  }
+
+  /**
+   * @return The degeneracy of the graph, the maximal degree of a vertex when it's removed from the graph by repeatedly
+   * removing a vertex of minimal degree.
+   */
+  int degeneracy() {
+    return computeDegeneracyOrder();
+  }
+
+  /**
+   * Orders the vertices by repeatedly removing a vertex of minimal degree, using bins of vertices by their current
+   * degree (Batagelj and Zaversnik).
+   *
+   * @return The degeneracy of the graph.
+   */
+  private int computeDegeneracyOrder() {
+    int[] degrees = new int[numberOfVertices];
+    int numberOfExistingVertices = 0;
+    int maxDegree = 0;
+    for (int vertex = 0; vertex < numberOfVertices; vertex++) {
+      if (vertexExists(vertex)) {
+        long[] row = neighborsMatrix[vertex];
+        for (int wordIndex = 0; wordIndex < vertices.length; wordIndex++) {
+          degrees[vertex] += Long.bitCount(getNeighborsWord(vertex, row, wordIndex));
+        }
+        maxDegree = Math.max(maxDegree, degrees[vertex]);
+        numberOfExistingVertices++;
+      }
+    }
+    //Sorting the vertices by degree, binStarts[d] is the position of the first vertex with degree d
+    int[] binStarts = new int[maxDegree + 1];
+    for (int vertex = 0; vertex < numberOfVertices; vertex++) {
+      if (vertexExists(vertex)) {
+        binStarts[degrees[vertex]]++;
+      }
+    }
+    int start = 0;
+    for (int degree = 0; degree <= maxDegree; degree++) {
+      int binSize = binStarts[degree];
+      binStarts[degree] = start;
+      start += binSize;
+    }
+    order = new int[numberOfExistingVertices];
+    positions = new int[numberOfVertices];
+    for (int vertex = 0; vertex < numberOfVertices; vertex++) {
+      if (vertexExists(vertex)) {
+        positions[vertex] = binStarts[degrees[vertex]]++;
+        order[positions[vertex]] = vertex;
+      }
+    }
+    for (int degree = maxDegree; degree > 0; degree--) {
+      binStarts[degree] = binStarts[degree - 1];
+    }
+    binStarts[0] = 0;
+    int degeneracy = 0;
+    for (int position = 0; position < order.length; position++) {
+      int vertex = order[position];
+      degeneracy = Math.max(degeneracy, degrees[vertex]);
+      long[] row = neighborsMatrix[vertex];
+      for (int bucketEntry = 0; bucketEntry < vertices.length; bucketEntry++) {
+        long neighbors = getNeighborsWord(vertex, row, bucketEntry);
+        while (neighbors != 0) {
+          int neighbor = bucketEntry * Long.SIZE + Long.numberOfTrailingZeros(neighbors);
+          int neighborDegree = degrees[neighbor];
+          if (neighborDegree > degrees[vertex]) {
+            //Moving the neighbor to the start of its bin, and the bin start after it
+            int binStart = binStarts[neighborDegree];
+            int swappedVertex = order[binStart];
+            if (swappedVertex != neighbor) {
+              int neighborPosition = positions[neighbor];
+              order[neighborPosition] = swappedVertex;
+              positions[swappedVertex] = neighborPosition;
+              order[binStart] = neighbor;
+              positions[neighbor] = binStart;
+            }
+            binStarts[neighborDegree]++;
+            degrees[neighbor]--;
+          }
+          neighbors &= neighbors - 1;
+        }
+      }
+    }
+    return degeneracy;
+  }
+
+  /**
+   * @return The existing neighbors of the vertex in a word of its row, without the vertex itself.
+   */
+  private long getNeighborsWord(int vertex, long[] row, int bucketEntry) {
+    return row[bucketEntry] & vertices[bucketEntry] & ~maskOf(vertex, bucketEntry);
+  }
+
+  /**
+   * @return The mask of the vertex if it's in the word, 0 otherwise.
+   */
+  private static long maskOf(int vertex, int bucketEntry) {
+    return getBucketEntry(vertex) == bucketEntry ? createMask(vertex) : 0;
+  }
+
+  private boolean vertexExists(int vertex) {
+    return (vertices[getBucketEntry(vertex)] & createMask(vertex)) != 0;
+  }
+
+  private static long createMask(int vertex) {
+    return 1L << (vertex % Long.SIZE);
+  }
+
+  private static int getBucketEntry(int vertex) {
+    return vertex / Long.SIZE;
+  }
+
+  /**
+   * The state of a single thread search. The sets of each recursion depth are allocated once and reused.
+   */
+  private class CliqueSearch {
+
+    private final Consumer<int[]> cliqueConsumer;
+    private int[] clique; //The current clique R, as a stack
+    private long[][] candidates; //P per depth
+    private long[][] excluded; //X per depth
+    private long cliques;
+
+    private CliqueSearch(Consumer<int[]> cliqueConsumer) {
+      this.cliqueConsumer = cliqueConsumer;
+      clique = new int[1];
+      candidates = new long[1][vertices.length];
+      excluded = new long[1][vertices.length];
+    }
+
+    private long search(int from, int to) {
+      for (int position = from; position < to; position++) {
+        int vertex = order[position];
+        long[] row = neighborsMatrix[vertex];
+        long[] vertexCandidates = candidates[0];
+        long[] vertexExcluded = excluded[0];
+        Arrays.fill(vertexCandidates, 0);
+        Arrays.fill(vertexExcluded, 0);
+        for (int bucketEntry = 0; bucketEntry < vertices.length; bucketEntry++) {
+          long neighbors = getNeighborsWord(vertex, row, bucketEntry);
+          while (neighbors != 0) {
+            int neighbor = bucketEntry * Long.SIZE + Long.numberOfTrailingZeros(neighbors);
+            if (positions[neighbor] > position) {
+              vertexCandidates[bucketEntry] |= createMask(neighbor);
+            } else {
+              vertexExcluded[bucketEntry] |= createMask(neighbor);
+            }
+            neighbors &= neighbors - 1;
+          }
+        }
+        clique[0] = vertex;
+        extend(1);
+      }
+      return cliques;
+    }
+
+    /**
+     * Extends the clique of the given size with the candidates of the depth, excluding the ones already searched.
+     */
+    private void extend(int cliqueSize) {
+      int depth = cliqueSize - 1;
+      long[] depthCandidates = candidates[depth];
+      long[] depthExcluded = excluded[depth];
+      int pivot = choosePivot(depthCandidates, depthExcluded);
+      if (pivot == -1) {
+        if (isEmpty(depthExcluded)) {
+          reportClique(cliqueSize);
+        }
+        return;
+      }
+      ensureDepth(depth + 1);
+      long[] pivotRow = neighborsMatrix[pivot];
+      int pivotBucketEntry = getBucketEntry(pivot);
+      for (int bucketEntry = 0; bucketEntry < vertices.length; bucketEntry++) {
+        //Only candidates which aren't neighbors of the pivot, the pivot itself is not its own neighbor
+        long branches = depthCandidates[bucketEntry] & ~pivotRow[bucketEntry];
+        if (bucketEntry == pivotBucketEntry) {
+          branches |= depthCandidates[bucketEntry] & createMask(pivot);
+        }
+        while (branches != 0) {
+          int vertex = bucketEntry * Long.SIZE + Long.numberOfTrailingZeros(branches);
+          long[] row = neighborsMatrix[vertex];
+          long[] nextCandidates = candidates[depth + 1];
+          long[] nextExcluded = excluded[depth + 1];
+          for (int wordIndex = 0; wordIndex < vertices.length; wordIndex++) {
+            long neighbors = row[wordIndex] & ~maskOf(vertex, wordIndex);
+            nextCandidates[wordIndex] = depthCandidates[wordIndex] & neighbors;
+            nextExcluded[wordIndex] = depthExcluded[wordIndex] & neighbors;
+          }
+          clique[cliqueSize] = vertex;
+          extend(cliqueSize + 1);
+          depthCandidates[bucketEntry] &= ~createMask(vertex);
+          depthExcluded[bucketEntry] |= createMask(vertex);
+          branches &= branches - 1;
+        }
+      }
+    }
+
+    /**
+     * @return The vertex of P or X with the most neighbors in P, or -1 if P is empty.
+     */
+    private int choosePivot(long[] depthCandidates, long[] depthExcluded) {
+      int pivot = -1;
+      int maxCoveredCandidates = -1;
+      for (int bucketEntry = 0; bucketEntry < vertices.length; bucketEntry++) {
+        long pivotCandidates = depthCandidates[bucketEntry] | depthExcluded[bucketEntry];
+        while (pivotCandidates != 0) {
+          int vertex = bucketEntry * Long.SIZE + Long.numberOfTrailingZeros(pivotCandidates);
+          long[] row = neighborsMatrix[vertex];
+          int coveredCandidates = 0;
+          for (int wordIndex = 0; wordIndex < vertices.length; wordIndex++) {
+            coveredCandidates +=
+                Long.bitCount(depthCandidates[wordIndex] & row[wordIndex] & ~maskOf(vertex, wordIndex));
+          }
+          if (coveredCandidates > maxCoveredCandidates) {
+            maxCoveredCandidates = coveredCandidates;
+            pivot = vertex;
+          }
+          pivotCandidates &= pivotCandidates - 1;
+        }
+      }
+      return isEmpty(depthCandidates) ? -1 : pivot;
+    }
+
+    private void reportClique(int cliqueSize) {
+      cliques++;
+      if (cliqueConsumer != null) {
+        cliqueConsumer.accept(Arrays.copyOf(clique, cliqueSize));
+      }
+    }
+
+    private void ensureDepth(int depth) {
+      if (depth >= candidates.length) {
+        int newLength = Math.max(depth + 1, candidates.length * 2);
+        int oldLength = candidates.length;
+        clique = Arrays.copyOf(clique, newLength);
+        candidates = Arrays.copyOf(candidates, newLength);
+        excluded = Arrays.copyOf(excluded, newLength);
+        for (int newDepth = oldLength; newDepth < newLength; newDepth++) {
+          candidates[newDepth] = new long[vertices.length];
+          excluded[newDepth] = new long[vertices.length];
+        }
+      }
+    }
+
+    private static boolean isEmpty(long[] set) {
+      for (long word : set) {
+        if (word != 0) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  private class CliquesTask extends RecursiveTask<Long> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Consumer<int[]> cliqueConsumer;
+    private final int from;
+    private final int to;
+    private final int rangeSize;
+
+    private CliquesTask(Consumer<int[]> cliqueConsumer, int from, int to, int rangeSize) {
+      this.cliqueConsumer = cliqueConsumer;
+      this.from = from;
+      this.to = to;
+      this.rangeSize = rangeSize;
+    }
+
+    @Override protected Long compute() {
+      if (to - from <= rangeSize) {
+        return new CliqueSearch(cliqueConsumer).search(from, to);
+      }
+      int middle = (from + to) >>> 1;
+      CliquesTask lowerTask = new CliquesTask(cliqueConsumer, from, middle, rangeSize);
+      lowerTask.fork();
+      long upperCliques = new CliquesTask(cliqueConsumer, middle, to, rangeSize).compute();
+      return upperCliques + lowerTask.join();
+    }
+  }
+}
@@ -0,0 +1,285 @@
+package il.co.site_building.performance_course.graph;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.IntConsumer;
+
+/**
+ * Thread safe bit level neighbors matrix graph, with the same semantics as {@link NeighborsMatrixGraph}.
+ * All words are updated with atomic bitwise operations through a {@link VarHandle} (getAndBitwiseOr / And), so any number
+ * of threads may add and remove vertices and edges concurrently without locks, and a word update never loses a
+ * concurrent update of another bit in the same word. Reads use acquire semantics, so a reader sees an edge once both of
+ * its words were published, without locking.
+ * <p>
+ * The capacity is fixed on construction, so the matrix is never reallocated under concurrent writers. Adding a vertex
+ * beyond the capacity throws an {@link IllegalArgumentException}.
+ * An edge is marked in the rows of both of its vertices by two separate atomic updates, so a concurrent reader may see an
+ * edge from one of its vertices shortly before the other. Traversals which run concurrently with writers are weakly
+ * consistent: they see all updates which completed before they started, and maybe some of the later ones.
+ */
+public class ConcurrentNeighborsMatrixGraph implements SimpleGraph {
+
+  private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+
+  private final long[] vertices; //Bitwise array of all vertices. 1 in the relevant position indicates that the vertex exist.
+  private final long[][] neighborsMatrix; //Bitwise neighbors matrix. Each edge is marked in the rows of both of its vertices.
+  private final int capacity;
+
+  /**
+   * Creates an empty graph.
+   *
+   * @param capacity Maximal number of vertices, in the range [0..capacity).
+   */
+  public ConcurrentNeighborsMatrixGraph(int capacity) {
+    this.capacity = capacity;
+    int rowLongs = getBucketEntry(Math.max(capacity, 1) - 1) + 1;
+    vertices = new long[rowLongs];
+    neighborsMatrix = new long[capacity][rowLongs];
+  }
+
+  /**
+   * Creates a graph where all vertices in the range of [0..numberOfVertices) exist, without edges.
+   *
+   * @param capacity         Maximal number of vertices, at least numberOfVertices.
+   * @param numberOfVertices Number of vertices.
+   */
+  public ConcurrentNeighborsMatrixGraph(int capacity, int numberOfVertices) {
+    this(capacity);
+    if (numberOfVertices > capacity) {
+      throw new IllegalArgumentException("Number of vertices " + numberOfVertices + " exceeds capacity " + capacity);
+    }
+    for (int vertex = 0; vertex < numberOfVertices; vertex++) {
+      vertices[getBucketEntry(vertex)] |= createMask(vertex);
+    }
+    VarHandle.releaseFence(); //Publishing the vertices to the threads which receive the graph
+  }
+
+  /**
+   * @throws IllegalArgumentException If the vertex is negative or not below the capacity.
+   */
+  @Override public void addVertex(int vertex) {
+    if (vertex < 0 || vertex >= capacity) {
+      throw new IllegalArgumentException("Vertex " + vertex + " is out of the graph capacity " + capacity);
+    }
+    WORDS.getAndBitwiseOr(vertices, getBucketEntry(vertex), createMask(vertex));
+  }
+
+  @Override public void removeVertex(int vertex) {
+    if (!vertexExists(vertex)) {
+      return; //Nothing to do
+    }
+    WORDS.getAndBitwiseAnd(vertices, getBucketEntry(vertex), ~createMask(vertex));
+  }
+
+  @Override public boolean vertexExists(int vertex) {
+    if (vertex < 0 || vertex >= capacity) {
+      return false;
+    }
+    return (getWord(vertices, getBucketEntry(vertex)) & createMask(vertex)) != 0;
+  }
+
+  @Override public void addEdge(int v1, int v2) {
+    if (!vertexExists(v1) || !vertexExists(v2)) {
+      return;
+    }
+    WORDS.getAndBitwiseOr(neighborsMatrix[v1], getBucketEntry(v2), createMask(v2));
+    WORDS.getAndBitwiseOr(neighborsMatrix[v2], getBucketEntry(v1), createMask(v1));
+  }
+
+  @Override public void removeEdge(int v1, int v2) {
+    if (!vertexExists(v1) || !vertexExists(v2)) {
+      return;
+    }
+    WORDS.getAndBitwiseAnd(neighborsMatrix[v1], getBucketEntry(v2), ~createMask(v2));
+    WORDS.getAndBitwiseAnd(neighborsMatrix[v2], getBucketEntry(v1), ~createMask(v1));
+  }
+
+  @Override public boolean edgeExists(int v1, int v2) {
+    if (v1 == v2) {
+      return true;
+    }
+    if (!vertexExists(v1) || !vertexExists(v2)) {
+      return false;
+    }
+    return (getWord(neighborsMatrix[v1], getBucketEntry(v2)) & createMask(v2)) != 0;
+  }
+
+  /**
+   * Creates all connected components sub graphs of this graph.
+   * The components are single threaded {@link NeighborsMatrixGraph} instances.
+   *
+   * @return A collection of the connected components.
+   */
+  @Override public Collection<SimpleGraph> createConnectedComponents() {
+    ConnectedComponentsLabels labels = labelConnectedComponents();
+    Collection<SimpleGraph> connectedComponents = new ArrayList<>(labels.numberOfComponents());
+    labels.forEachComponent((componentsVertices, from, to) -> {
+      NeighborsMatrixGraph connectedComponent = new NeighborsMatrixGraph();
+      connectedComponent.addVertex(componentsVertices[to - 1]); //Vertices are sorted, allocating the matrix at once
+      for (int index = from; index < to; index++) {
+        connectedComponent.addVertex(componentsVertices[index]);
+      }
+      for (int index = from; index < to; index++) {
+        int vertex = componentsVertices[index];
+        forEachNeighbor(vertex, neighbor -> {
+          if (neighbor < vertex) {
+            connectedComponent.addEdge(vertex, neighbor);
+          }
+        });
+      }
+      connectedComponents.add(connectedComponent);
+    });
+    return connectedComponents;
+  }
+
+  /**
+   * Labels the components of a snapshot of the vertices. Edges which are added concurrently may be partially seen.
+   */
+  @Override public ConnectedComponentsLabels labelConnectedComponents() {
+    long[] verticesSnapshot = snapshotVertices();
+    int[] labels = new int[capacity];
+    Arrays.fill(labels, ConnectedComponentsLabels.NO_COMPONENT);
+    int[] componentSizes = new int[Math.max(capacity, 1)];
+    int numberOfComponents = 0;
+    long[] visited = new long[verticesSnapshot.length]; // A bit wise boolean visited array used for DFS traversal
+    int[] verticesStack = new int[capacity];
+    for (int bucketEntry = 0; bucketEntry < verticesSnapshot.length; bucketEntry++) {
+      long undiscovered = verticesSnapshot[bucketEntry] & ~visited[bucketEntry];
+      while (undiscovered != 0) {
+        int nextVertex = bucketEntry * Long.SIZE + Long.numberOfTrailingZeros(undiscovered);
+        componentSizes[numberOfComponents] =
+            runDfs(nextVertex, verticesSnapshot, visited, verticesStack, labels, numberOfComponents);
+        numberOfComponents++;
+        undiscovered = verticesSnapshot[bucketEntry] & ~visited[bucketEntry];
+      }
+    }
+    return new ConnectedComponentsLabels(labels, Arrays.copyOf(componentSizes, numberOfComponents));
+  }
+
+  @Override public Set<Integer> vertexSet() {
+    Set<Integer> vertexSet = new HashSet<>();
+    forEachVertex(vertexSet::add);
+    return vertexSet;
+  }
+
+  @Override public void forEachVertex(IntConsumer vertexConsumer) {
+    for (int bucketEntry = 0; bucketEntry < vertices.length; bucketEntry++) {
+      long word = getWord(vertices, bucketEntry);
+      while (word != 0) {
+        vertexConsumer.accept(bucketEntry * Long.SIZE + Long.numberOfTrailingZeros(word));
+        word &= word - 1;
+      }
+    }
+  }
+
+  @Override public void forEachNeighbor(int vertex, IntConsumer neighborConsumer) {
+    if (!vertexExists(vertex)) {
+      return;
+    }
+    for (int bucketEntry = 0; bucketEntry < vertices.length; bucketEntry++) {
+      long neighbors = getNeighborsWord(vertex, bucketEntry);
+      while (neighbors != 0) {
+        neighborConsumer.accept(bucketEntry * Long.SIZE + Long.numberOfTrailingZeros(neighbors));
+        neighbors &= neighbors - 1;
+      }
+    }
+  }
+
+  @Override public int degree(int vertex) {
+    if (!vertexExists(vertex)) {
+      return 0;
+    }
+    int degree = 0;
+    for (int bucketEntry = 0; bucketEntry < vertices.length; bucketEntry++) {
+      degree += Long.bitCount(getNeighborsWord(vertex, bucketEntry));
+    }
+    return degree;
+  }
+
+  /**
+   * Iterates over a snapshot of the vertices.
+   */
+  @Override public PrimitiveIterator.OfInt vertexIterator() {
+    return new BitSetVertexIterator(snapshotVertices());
+  }
+
+  @Override public void randomizeEdges(Random random, int maxVertex, double loadFactor) {
+    for (int vertex = 0; vertex < maxVertex; vertex++) {
+      for (int neighbor = vertex; neighbor < maxVertex; neighbor++) {
+        double lucky = random.nextDouble();
+        if (lucky <= loadFactor) {
+          addEdge(vertex, neighbor);
+        }
+      }
+    }
+  }
+
+  public int getCapacity() {
+    return capacity;
+  }
+
+  private int runDfs(int firstVertex, long[] verticesSnapshot, long[] visited, int[] verticesStack, int[] labels,
+                     int label) {
+    int stackSize = 0;
+    int componentSize = 0;
+    visited[getBucketEntry(firstVertex)] |= createMask(firstVertex);
+    verticesStack[stackSize++] = firstVertex;
+    while (stackSize > 0) {
+      int vertex = verticesStack[--stackSize];
+      labels[vertex] = label;
+      componentSize++;
+      long[] row = neighborsMatrix[vertex];
+      for (int bucketEntry = 0; bucketEntry < verticesSnapshot.length; bucketEntry++) {
+        long undiscoveredNeighbors = getWord(row, bucketEntry) & verticesSnapshot[bucketEntry] & ~visited[bucketEntry];
+        visited[bucketEntry] |= undiscoveredNeighbors;
+        while (undiscoveredNeighbors != 0) {
+          verticesStack[stackSize++] = bucketEntry * Long.SIZE + Long.numberOfTrailingZeros(undiscoveredNeighbors);
+          undiscoveredNeighbors &= undiscoveredNeighbors - 1;
+        }
+      }
+    }
+    return componentSize;
+  }
+
+  /**
+   * @return The existing neighbors of the vertex in a word of its row, without the vertex itself.
+   */
+  private long getNeighborsWord(int vertex, int bucketEntry) {
+    long neighbors = getWord(neighborsMatrix[vertex], bucketEntry) & getWord(vertices, bucketEntry);
+    if (bucketEntry == getBucketEntry(vertex)) {
+      neighbors &= ~createMask(vertex); //A self loop may be marked on the diagonal
+    }
+    return neighbors;
+  }
+
+  private long[] snapshotVertices() {
+    long[] verticesSnapshot = new long[vertices.length];
+    for (int bucketEntry = 0; bucketEntry < vertices.length; bucketEntry++) {
+      verticesSnapshot[bucketEntry] = getWord(vertices, bucketEntry);
+    }
+    return verticesSnapshot;
+  }
+
+  private static long getWord(long[] words, int bucketEntry) {
+    return (long) WORDS.getAcquire(words, bucketEntry);
+  }
+
+  private static long createMask(int vertex) {
+    return 1L << getBucketOffset(vertex);
+  }
+
+  private static int getBucketOffset(int vertex) {
+    return vertex % Long.SIZE;
+  }
+
+  private static int getBucketEntry(int vertex) {
+    return vertex / Long.SIZE;
+  }
+}
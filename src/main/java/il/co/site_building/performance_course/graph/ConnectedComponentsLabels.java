@@ -0,0 +1,113 @@
+package il.co.site_building.performance_course.graph;
+
+import java.util.Arrays;
+
+/**
+ * Connected components of a graph as primitive labels, without building a sub graph per component.
+ *
+ * @param labels         labels[v] is the index of the component of vertex v, in the range [0..numberOfComponents), or
+ *                       {@link #NO_COMPONENT} if the vertex doesn't exist. If vertices isn't null, labels[i] is the index
+ *                       of the component of vertices[i] instead.
+ * @param componentSizes Number of vertices in each component.
+ * @param vertices       All the vertices, sorted, for graphs with negative or sparse vertices. Null if the labels are
+ *                       indexed by the vertices themselves.
+ */
+public record ConnectedComponentsLabels(int[] labels, int[] componentSizes, int[] vertices) {
+
+  public static final int NO_COMPONENT = -1;
+
+  /**
+   * Labels indexed by the vertices themselves.
+   */
+  public ConnectedComponentsLabels(int[] labels, int[] componentSizes) {
+    this(labels, componentSizes, null);
+  }
+
+  public int numberOfComponents() {
+    return componentSizes.length;
+  }
+
+  /**
+   * @param vertex A vertex.
+   * @return The index of the component of the vertex, or {@link #NO_COMPONENT} if the vertex doesn't exist.
+   */
+  public int componentOf(int vertex) {
+    int index = vertices == null ? vertex : Arrays.binarySearch(vertices, vertex);
+    if (index < 0 || index >= labels.length) {
+      return NO_COMPONENT;
+    }
+    return labels[index];
+  }
+
+  /**
+   * @return A bound above all the labeled vertices, the length of an array indexed by the vertices.
+   */
+  public int vertexBound() {
+    if (vertices == null) {
+      return labels.length;
+    }
+    return vertices.length == 0 ? 0 : vertices[vertices.length - 1] + 1;
+  }
+
+  /**
+   * @return True if both vertices exist and are in the same component, false otherwise.
+   */
+  public boolean sameComponent(int v1, int v2) {
+    int component = componentOf(v1);
+    return component != NO_COMPONENT && component == componentOf(v2);
+  }
+
+  /**
+   * Groups the vertices by their components, and calls the consumer once per component, in components order.
+   *
+   * @param componentConsumer Receives an array and the range of the component vertices in it. Vertices are sorted within
+   *                          each component.
+   */
+  void forEachComponent(ComponentConsumer componentConsumer) {
+    int[] componentStarts = new int[componentSizes.length + 1];
+    for (int component = 0; component < componentSizes.length; component++) {
+      componentStarts[component + 1] = componentStarts[component] + componentSizes[component];
+    }
+    int[] groupedVertices = new int[componentStarts[componentSizes.length]];
+    int[] nextEntries = Arrays.copyOf(componentStarts, componentSizes.length);
+    for (int index = 0; index < labels.length; index++) {
+      if (labels[index] != NO_COMPONENT) {
+        groupedVertices[nextEntries[labels[index]]++] = vertices == null ? index : vertices[index];
+      }
+    }
+    for (int component = 0; component < componentSizes.length; component++) {
+      componentConsumer.accept(groupedVertices, componentStarts[component], componentStarts[component + 1]);
+    }
+  }
+
+  /**
+   * Creates labels from an array of component representatives.
+   *
+   * @param roots roots[v] is a vertex which represents the component of v, or {@link #NO_COMPONENT} if v doesn't exist.
+   * @return Labels with component indices, ordered by the first vertex of each component.
+   */
+  static ConnectedComponentsLabels fromRoots(int[] roots) {
+    int[] componentIndices = new int[roots.length];
+    Arrays.fill(componentIndices, NO_COMPONENT);
+    int[] labels = new int[roots.length];
+    int[] componentSizes = new int[Math.max(roots.length, 1)];
+    int numberOfComponents = 0;
+    for (int vertex = 0; vertex < roots.length; vertex++) {
+      int root = roots[vertex];
+      if (root == NO_COMPONENT) {
+        labels[vertex] = NO_COMPONENT;
+        continue;
+      }
+      if (componentIndices[root] == NO_COMPONENT) {
+        componentIndices[root] = numberOfComponents++;
+      }
+      labels[vertex] = componentIndices[root];
+      componentSizes[labels[vertex]]++;
+    }
+    return new ConnectedComponentsLabels(labels, Arrays.copyOf(componentSizes, numberOfComponents));
+  }
+
+  interface ComponentConsumer {
+    void accept(int[] componentsVertices, int from, int to);
+  }
+}
@@ -0,0 +1,112 @@
+package il.co.site_building.performance_course.graph;
+
+import java.util.Arrays;
+
+/**
+ * Disjoint set forest of vertices, used to answer connectivity queries without traversing the graph.
+ * Based on primitive arrays, with path compression and union by rank, so all operations are nearly constant.
+ * Union find can't split components, so removals only mark the tracker as dirty, and the owning graph should rebuild it
+ * before the next query.
+ */
+class ConnectivityTracker {
+
+  private static final int ABSENT = -1; //Parent value of a vertex which isn't tracked
+
+  private int[] parents;
+  private byte[] ranks;
+  private int componentCount;
+  private boolean dirty;
+
+  ConnectivityTracker(int capacity) {
+    parents = new int[Math.max(capacity, 1)];
+    ranks = new byte[parents.length];
+    reset();
+  }
+
+  /**
+   * Removes all vertices, and marks the tracker as up to date.
+   */
+  void reset() {
+    Arrays.fill(parents, ABSENT);
+    Arrays.fill(ranks, (byte) 0);
+    componentCount = 0;
+    dirty = false;
+  }
+
+  void addVertex(int vertex) {
+    if (vertex >= parents.length) {
+      int newLength = Math.max(vertex + 1, parents.length * 2);
+      int oldLength = parents.length;
+      parents = Arrays.copyOf(parents, newLength);
+      ranks = Arrays.copyOf(ranks, newLength);
+      Arrays.fill(parents, oldLength, newLength, ABSENT);
+    }
+    if (parents[vertex] == ABSENT) {
+      parents[vertex] = vertex;
+      componentCount++;
+    }
+  }
+
+  /**
+   * Merges the components of both vertices. Does nothing if one of the vertices isn't tracked.
+   */
+  void union(int v1, int v2) {
+    if (!contains(v1) || !contains(v2)) {
+      return;
+    }
+    int root1 = find(v1);
+    int root2 = find(v2);
+    if (root1 == root2) {
+      return;
+    }
+    if (ranks[root1] < ranks[root2]) {
+      parents[root1] = root2;
+    } else if (ranks[root1] > ranks[root2]) {
+      parents[root2] = root1;
+    } else {
+      parents[root2] = root1;
+      ranks[root1]++;
+    }
+    componentCount--;
+  }
+
+  boolean connected(int v1, int v2) {
+    if (!contains(v1) || !contains(v2)) {
+      return false;
+    }
+    return find(v1) == find(v2);
+  }
+
+  int componentCount() {
+    return componentCount;
+  }
+
+  void markDirty() {
+    dirty = true;
+  }
+
+  boolean isDirty() {
+    return dirty;
+  }
+
+  private boolean contains(int vertex) {
+    return 0 <= vertex && vertex < parents.length && parents[vertex] != ABSENT;
+  }
+
+  /**
+   * @param vertex A tracked vertex.
+   * @return The representative of the vertex component.
+   */
+  int find(int vertex) {
+    int root = vertex;
+    while (parents[root] != root) {
+      root = parents[root];
+    }
+    while (parents[vertex] != root) { //Path compression
+      int parent = parents[vertex];
+      parents[vertex] = root;
+      vertex = parent;
+    }
+    return root;
+  }
+}
@@ -0,0 +1,482 @@
+package il.co.site_building.performance_course.graph;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.IntConsumer;
+
+/**
+ * Compressed sparse row (CSR) graph, intended for sparse graphs.
+ * The graph has two stages:
+ * <ul>
+ *   <li>Builder stage: new edges are appended to a pending edges list, without any lookup.</li>
+ *   <li>Frozen stage: all edges are kept in two primitive arrays. The neighbors of vertex v are
+ *   targets[offsets[v]..offsets[v + 1]), sorted, and each edge is kept in the rows of both of its vertices.</li>
+ * </ul>
+ * Any read freezes the graph (O(V + E)), and {@link #freeze()} may be called explicitly at the end of a bulk build.
+ * Removals are linear in the number of edges, so the graph is meant for bulk building followed by reads.
+ */
+public class CsrSimpleGraph implements SimpleGraph {
+
+  private static final int INITIAL_PENDING_EDGES = 1024;
+
+  private long[] vertices; //Bitwise array of all vertices. 1 in the relevant position indicates that the vertex exist.
+  private int maxVertex; //Highest vertex ever added (inclusive), -1 for an empty graph.
+  private int[] offsets; //offsets[v] is the first entry of v's neighbors in targets. Covers the frozen vertices only.
+  private int[] targets;
+  private int[] pendingSources; //Edges added since the last freeze. May contain duplicates.
+  private int[] pendingTargets;
+  private int numberOfPendingEdges;
+  private boolean frozen;
+
+  /**
+   * Creates an empty graph.
+   */
+  public CsrSimpleGraph() {
+    this(0);
+  }
+
+  /**
+   * Creates a graph where all vertices between 0 (inc.) and numberOfVertices (exc.) exist, without edges.
+   *
+   * @param numberOfVertices Number of vertices
+   */
+  public CsrSimpleGraph(int numberOfVertices) {
+    vertices = new long[getBucketEntry(numberOfVertices) + 1];
+    for (int vertex = 0; vertex < numberOfVertices; vertex++) {
+      vertices[getBucketEntry(vertex)] |= createMask(vertex);
+    }
+    maxVertex = numberOfVertices - 1;
+    offsets = new int[numberOfVertices + 1];
+    targets = new int[0];
+    pendingSources = new int[INITIAL_PENDING_EDGES];
+    pendingTargets = new int[INITIAL_PENDING_EDGES];
+    numberOfPendingEdges = 0;
+    frozen = true;
+  }
+
+  /**
+   * Creates a graph in the builder stage from a list of vertices and edges.
+   */
+  private CsrSimpleGraph(int[] graphVertices, int from, int to, int[] sources, int[] edgeTargets,
+                         int numberOfEdges) {
+    this();
+    for (int index = from; index < to; index++) {
+      addVertex(graphVertices[index]);
+    }
+    pendingSources = sources;
+    pendingTargets = edgeTargets;
+    numberOfPendingEdges = numberOfEdges;
+    frozen = false;
+  }
+
+  @Override public void addVertex(int vertex) {
+    if (vertex > maxVertex) {
+      int bucketEntry = getBucketEntry(vertex);
+      if (bucketEntry >= vertices.length) {
+        vertices = Arrays.copyOf(vertices, Math.max(bucketEntry + 1, vertices.length * 2));
+      }
+      maxVertex = vertex;
+      frozen = false; //The rows array should cover the new vertex
+    }
+    vertices[getBucketEntry(vertex)] |= createMask(vertex);
+  }
+
+  @Override public void removeVertex(int vertex) {
+    if (!vertexExists(vertex)) {
+      return; //Nothing to do
+    }
+    vertices[getBucketEntry(vertex)] &= ~createMask(vertex);
+    //Dropping the vertex edges right away, so they won't be back if the vertex is added again.
+    frozen = false;
+    freeze();
+  }
+
+  @Override public boolean vertexExists(int vertex) {
+    if (vertex < 0 || vertex > maxVertex) {
+      return false;
+    }
+    return (vertices[getBucketEntry(vertex)] & createMask(vertex)) != 0;
+  }
+
+  @Override public void addEdge(int v1, int v2) {
+    if (v1 == v2 || !vertexExists(v1) || !vertexExists(v2)) {
+      return; //A vertex is always connected to itself
+    }
+    if (numberOfPendingEdges == pendingSources.length) {
+      pendingSources = Arrays.copyOf(pendingSources, pendingSources.length * 2);
+      pendingTargets = Arrays.copyOf(pendingTargets, pendingTargets.length * 2);
+    }
+    pendingSources[numberOfPendingEdges] = v1;
+    pendingTargets[numberOfPendingEdges] = v2;
+    numberOfPendingEdges++;
+    frozen = false;
+  }
+
+  @Override public void removeEdge(int v1, int v2) {
+    if (!edgeExists(v1, v2) || v1 == v2) {
+      return; //Nothing to do
+    }
+    thaw();
+    int edge = 0;
+    while (edge < numberOfPendingEdges) {
+      boolean sameEdge = (pendingSources[edge] == v1 && pendingTargets[edge] == v2) ||
+                         (pendingSources[edge] == v2 && pendingTargets[edge] == v1);
+      if (sameEdge) {
+        numberOfPendingEdges--;
+        pendingSources[edge] = pendingSources[numberOfPendingEdges];
+        pendingTargets[edge] = pendingTargets[numberOfPendingEdges];
+      } else {
+        edge++;
+      }
+    }
+  }
+
+  @Override public boolean edgeExists(int v1, int v2) {
+    if (v1 == v2) {
+      return true;
+    }
+    if (!vertexExists(v1) || !vertexExists(v2)) {
+      return false;
+    }
+    freeze();
+    return Arrays.binarySearch(targets, offsets[v1], offsets[v1 + 1], v2) >= 0;
+  }
+
+  @Override public Collection<SimpleGraph> createConnectedComponents() {
+    return buildConnectedComponents(labelConnectedComponents());
+  }
+
+  @Override public ConnectedComponentsLabels labelConnectedComponents() {
+    freeze();
+    int[] labels = new int[maxVertex + 1];
+    Arrays.fill(labels, ConnectedComponentsLabels.NO_COMPONENT);
+    int[] componentSizes = new int[Math.max(maxVertex + 1, 1)];
+    int numberOfComponents = 0;
+    long[] visited = new long[vertices.length]; // A bit wise boolean visited array used for DFS traversal
+    int[] verticesStack = new int[maxVertex + 1];
+    for (int bucketEntry = 0; bucketEntry < vertices.length; bucketEntry++) {
+      long undiscovered = vertices[bucketEntry] & ~visited[bucketEntry];
+      while (undiscovered != 0) {
+        int nextVertex = bucketEntry * Long.SIZE + Long.numberOfTrailingZeros(undiscovered);
+        componentSizes[numberOfComponents] = runDfs(nextVertex, visited, verticesStack, labels, numberOfComponents);
+        numberOfComponents++;
+        undiscovered = vertices[bucketEntry] & ~visited[bucketEntry];
+      }
+    }
+    return new ConnectedComponentsLabels(labels, Arrays.copyOf(componentSizes, numberOfComponents));
+  }
+
+  /**
+   * Creates all connected components sub graphs of this graph, using multiple threads for finding the components.
+   *
+   * @param parallelism Number of threads to use.
+   * @return A collection of the connected components.
+   */
+  public Collection<SimpleGraph> createConnectedComponents(int parallelism) {
+    return buildConnectedComponents(labelConnectedComponents(parallelism));
+  }
+
+  /**
+   * Labels all vertices by their connected component, using multiple threads.
+   * Components are found by a lock-free union find over the rows, see {@link ParallelUnionFind}.
+   *
+   * @param parallelism Number of threads to use.
+   * @return The component of each vertex, and the size of each component.
+   */
+  public ConnectedComponentsLabels labelConnectedComponents(int parallelism) {
+    freeze();
+    return new ParallelUnionFind(maxVertex + 1, vertices) {
+      @Override protected void unionNeighbors(int vertex) {
+        //Rows are sorted, so the lower neighbors are at the beginning of the row
+        for (int entry = offsets[vertex]; entry < offsets[vertex + 1] && targets[entry] < vertex; entry++) {
+          union(vertex, targets[entry]);
+        }
+      }
+    }.label(parallelism);
+  }
+
+  private Collection<SimpleGraph> buildConnectedComponents(ConnectedComponentsLabels labels) {
+    Collection<SimpleGraph> connectedComponents = new HashSet<>();
+    labels.forEachComponent((componentsVertices, from, to) ->
+                                connectedComponents.add(buildConnectedComponent(componentsVertices, from, to)));
+    return connectedComponents;
+  }
+
+  /**
+   * Returns a snapshot of the vertices, backed by a copy of the vertices bit set instead of boxed entries.
+   *
+   * @return A set of all vertices.
+   */
+  @Override public Set<Integer> vertexSet() {
+    return new BitSetVertexSet(vertices.clone());
+  }
+
+  @Override public void forEachVertex(IntConsumer vertexConsumer) {
+    for (int bucketEntry = 0; bucketEntry < vertices.length; bucketEntry++) {
+      long word = vertices[bucketEntry];
+      while (word != 0) {
+        vertexConsumer.accept(bucketEntry * Long.SIZE + Long.numberOfTrailingZeros(word));
+        word &= word - 1;
+      }
+    }
+  }
+
+  @Override public void forEachNeighbor(int vertex, IntConsumer neighborConsumer) {
+    if (!vertexExists(vertex)) {
+      return;
+    }
+    freeze();
+    for (int entry = offsets[vertex]; entry < offsets[vertex + 1]; entry++) {
+      neighborConsumer.accept(targets[entry]);
+    }
+  }
+
+  @Override public int degree(int vertex) {
+    if (!vertexExists(vertex)) {
+      return 0;
+    }
+    freeze();
+    return offsets[vertex + 1] - offsets[vertex];
+  }
+
+  @Override public PrimitiveIterator.OfInt vertexIterator() {
+    return new BitSetVertexIterator(vertices);
+  }
+
+  @Override public void randomizeEdges(Random random, int maxVertex, double loadFactor) {
+    for (int vertex = 0; vertex < maxVertex; vertex++) {
+      for (int neighbor = vertex; neighbor < maxVertex; neighbor++) {
+        double lucky = random.nextDouble();
+        if (lucky <= loadFactor) {
+          addEdge(vertex, neighbor);
+        }
+      }
+    }
+  }
+
+  /**
+   * Moves the graph to its frozen stage: merges the pending edges into the CSR arrays, drops duplicate edges and edges
+   * of removed vertices. Does nothing if the graph is already frozen.
+   */
+  public void freeze() {
+    if (frozen) {
+      return;
+    }
+    int numberOfRows = maxVertex + 1;
+    int[] degrees = new int[numberOfRows + 1];
+    forEachExistingEdge((source, target) -> {
+      degrees[source]++;
+      degrees[target]++;
+    });
+    int[] newOffsets = new int[numberOfRows + 1];
+    for (int vertex = 0; vertex < numberOfRows; vertex++) {
+      newOffsets[vertex + 1] = newOffsets[vertex] + degrees[vertex];
+    }
+    int[] newTargets = new int[newOffsets[numberOfRows]];
+    int[] nextEntries = Arrays.copyOf(newOffsets, numberOfRows);
+    forEachExistingEdge((source, target) -> {
+      newTargets[nextEntries[source]++] = target;
+      newTargets[nextEntries[target]++] = source;
+    });
+    //Sorting each row and compacting it to remove duplicate edges
+    int nextEntry = 0;
+    for (int vertex = 0; vertex < numberOfRows; vertex++) {
+      int rowStart = newOffsets[vertex];
+      int rowEnd = newOffsets[vertex + 1];
+      Arrays.sort(newTargets, rowStart, rowEnd);
+      newOffsets[vertex] = nextEntry;
+      for (int entry = rowStart; entry < rowEnd; entry++) {
+        if (entry == rowStart || newTargets[entry] != newTargets[entry - 1]) {
+          newTargets[nextEntry++] = newTargets[entry];
+        }
+      }
+    }
+    newOffsets[numberOfRows] = nextEntry;
+    offsets = newOffsets;
+    targets = nextEntry == newTargets.length ? newTargets : Arrays.copyOf(newTargets, nextEntry);
+    numberOfPendingEdges = 0;
+    frozen = true;
+  }
+
+  /**
+   * Moves all frozen edges back to the pending edges list, so they can be edited.
+   */
+  private void thaw() {
+    freeze();
+    int numberOfEdges = targets.length / 2;
+    if (pendingSources.length < numberOfEdges) {
+      pendingSources = new int[numberOfEdges];
+      pendingTargets = new int[numberOfEdges];
+    }
+    numberOfPendingEdges = 0;
+    for (int vertex = 0; vertex + 1 < offsets.length; vertex++) {
+      for (int entry = offsets[vertex]; entry < offsets[vertex + 1]; entry++) {
+        if (targets[entry] > vertex) {
+          pendingSources[numberOfPendingEdges] = vertex;
+          pendingTargets[numberOfPendingEdges] = targets[entry];
+          numberOfPendingEdges++;
+        }
+      }
+    }
+    offsets = new int[1];
+    targets = new int[0];
+    frozen = false;
+  }
+
+  /**
+   * Iterates over the frozen and pending edges, whose both vertices exist. Each frozen edge is visited once.
+   */
+  private void forEachExistingEdge(EdgeConsumer edgeConsumer) {
+    for (int vertex = 0; vertex + 1 < offsets.length; vertex++) {
+      if (!vertexExists(vertex)) {
+        continue;
+      }
+      for (int entry = offsets[vertex]; entry < offsets[vertex + 1]; entry++) {
+        int target = targets[entry];
+        if (target > vertex && vertexExists(target)) {
+          edgeConsumer.accept(vertex, target);
+        }
+      }
+    }
+    for (int edge = 0; edge < numberOfPendingEdges; edge++) {
+      if (vertexExists(pendingSources[edge]) && vertexExists(pendingTargets[edge])) {
+        edgeConsumer.accept(pendingSources[edge], pendingTargets[edge]);
+      }
+    }
+  }
+
+  private int runDfs(int firstVertex, long[] visited, int[] verticesStack, int[] labels, int label) {
+    int stackSize = 0;
+    int componentSize = 0;
+    visited[getBucketEntry(firstVertex)] |= createMask(firstVertex);
+    verticesStack[stackSize++] = firstVertex;
+    while (stackSize > 0) {
+      int vertex = verticesStack[--stackSize];
+      labels[vertex] = label;
+      componentSize++;
+      for (int entry = offsets[vertex]; entry < offsets[vertex + 1]; entry++) {
+        int neighbor = targets[entry];
+        int bucketEntry = getBucketEntry(neighbor);
+        long mask = createMask(neighbor);
+        if ((visited[bucketEntry] & mask) == 0) {
+          visited[bucketEntry] |= mask;
+          verticesStack[stackSize++] = neighbor;
+        }
+      }
+    }
+    return componentSize;
+  }
+
+  private SimpleGraph buildConnectedComponent(int[] componentVertices, int from, int to) {
+    int numberOfEntries = 0;
+    for (int index = from; index < to; index++) {
+      int vertex = componentVertices[index];
+      numberOfEntries += offsets[vertex + 1] - offsets[vertex];
+    }
+    int[] sources = new int[Math.max(numberOfEntries / 2, 1)];
+    int[] edgeTargets = new int[sources.length];
+    int numberOfEdges = 0;
+    for (int index = from; index < to; index++) {
+      int vertex = componentVertices[index];
+      for (int entry = offsets[vertex]; entry < offsets[vertex + 1]; entry++) {
+        if (targets[entry] > vertex) {
+          sources[numberOfEdges] = vertex;
+          edgeTargets[numberOfEdges] = targets[entry];
+          numberOfEdges++;
+        }
+      }
+    }
+    return new CsrSimpleGraph(componentVertices, from, to, sources, edgeTargets, numberOfEdges);
+  }
+
+  long[] getVertices() {
+    return vertices;
+  }
+
+  int[] getOffsets() {
+    freeze();
+    return offsets;
+  }
+
+  int[] getTargets() {
+    freeze();
+    return targets;
+  }
+
+  int getMaxVertex() {
+    return maxVertex;
+  }
+
+  private static long createMask(int vertex) {
+    return 1L << getBucketOffset(vertex);
+  }
+
+  private static int getBucketOffset(int vertex) {
+    return vertex % Long.SIZE;
+  }
+
+  private static int getBucketEntry(int vertex) {
+    return vertex / Long.SIZE;
+  }
+
+  private interface EdgeConsumer {
+    void accept(int source, int target);
+  }
+
+  /**
+   * An immutable set view of a vertices bit set. Membership checks don't allocate, and only iteration boxes the values.
+   */
+  private static class BitSetVertexSet extends AbstractSet<Integer> {
+
+    private final long[] bitSet;
+    private final int size;
+
+    private BitSetVertexSet(long[] bitSet) {
+      this.bitSet = bitSet;
+      int count = 0;
+      for (long word : bitSet) {
+        count += Long.bitCount(word);
+      }
+      this.size = count;
+    }
+
+    @Override public boolean contains(Object o) {
+      if (!(o instanceof Integer vertex) || vertex < 0 || getBucketEntry(vertex) >= bitSet.length) {
+        return false;
+      }
+      return (bitSet[getBucketEntry(vertex)] & createMask(vertex)) != 0;
+    }
+
+    @Override public Iterator<Integer> iterator() {
+      return new BitSetVertexIterator(bitSet);
+    }
+
+    @Override public int size() {
+      return size;
+    }
+  }
+
+  public static CsrSimpleGraph createRandomGraph(Random random, int numberOfVertices, double loadFactor) {
+    CsrSimpleGraph graph = new CsrSimpleGraph(numberOfVertices);
+    graph.randomizeEdges(random, numberOfVertices, loadFactor);
+    graph.freeze();
+    return graph;
+  }
+
+  /**
+   * Creates a random graph, where the edges are generated in parallel by a {@link RandomGraphGenerator}.
+   */
+  public static CsrSimpleGraph createRandomGraph(long seed, int numberOfVertices, double loadFactor, int parallelism) {
+    CsrSimpleGraph graph = new CsrSimpleGraph(numberOfVertices);
+    new RandomGraphGenerator(seed, loadFactor, parallelism)
+        .generateEdges(numberOfVertices, false, EdgeListLoader.simpleGraphConsumer(graph));
+    graph.freeze();
+    return graph;
+  }
+}
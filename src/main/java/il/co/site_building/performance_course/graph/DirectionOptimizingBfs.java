@@ -0,0 +1,137 @@
+package il.co.site_building.performance_course.graph;
+
+import java.util.Arrays;
+
+/**
+ * Direction optimizing breadth first search (Beamer et al.) over a symmetric bit level neighbors matrix.
+ * Each level is expanded in one of two directions:
+ * <ul>
+ *   <li>Top down: the rows of all frontier vertices are OR-ed into the next frontier, which costs a full row per
+ *   frontier vertex. Best while the frontier is small.</li>
+ *   <li>Bottom up: each unvisited vertex checks if its row intersects the frontier (row &amp; frontier != 0), and stops at
+ *   the first intersecting word. Best once the frontier is large, since most unvisited vertices find a parent quickly.</li>
+ * </ul>
+ * The direction is switched automatically by comparing the frontier to the unvisited vertices.
+ */
+class DirectionOptimizingBfs {
+
+  //Switching to bottom up once the frontier is larger than unvisited / TOP_DOWN_FACTOR
+  private static final int TOP_DOWN_FACTOR = 14;
+  //Switching back to top down once the frontier is smaller than vertices / BOTTOM_UP_FACTOR
+  private static final int BOTTOM_UP_FACTOR = 24;
+
+  private final long[][] neighborsMatrix;
+  private final long[] vertices;
+  private final int numberOfVertices;
+  private int unvisitedSize;
+  private long[] frontier;
+  private long[] nextFrontier;
+
+  /**
+   * @param neighborsMatrix Bitwise neighbors matrix, where each row holds all of the vertex neighbors.
+   * @param vertices        Bitwise array of all existing vertices.
+   */
+  DirectionOptimizingBfs(long[][] neighborsMatrix, long[] vertices) {
+    this.neighborsMatrix = neighborsMatrix;
+    this.vertices = vertices;
+    int count = 0;
+    for (long word : vertices) {
+      count += Long.bitCount(word);
+    }
+    this.numberOfVertices = count;
+    this.unvisitedSize = count;
+    this.frontier = new long[vertices.length];
+    this.nextFrontier = new long[vertices.length];
+  }
+
+  /**
+   * Visits all unvisited vertices reachable from the source, level by level.
+   *
+   * @param source       An existing and unvisited vertex to start from.
+   * @param visited      Bitwise visited set, updated with all reached vertices. Vertices which are already visited are
+   *                     not traversed. The set should start empty, and be updated only by the runs of this instance.
+   * @param levelVisitor Called once per reached vertex, with its hop distance from the source.
+   * @return The number of reached vertices, including the source.
+   */
+  int run(int source, long[] visited, LevelVisitor levelVisitor) {
+    Arrays.fill(frontier, 0);
+    frontier[source / Long.SIZE] |= 1L << (source % Long.SIZE);
+    visited[source / Long.SIZE] |= 1L << (source % Long.SIZE);
+    levelVisitor.visit(source, 0);
+    unvisitedSize--;
+    int frontierSize = 1;
+    int reached = 1;
+    boolean bottomUp = false;
+    for (int level = 1; frontierSize > 0; level++) {
+      if (!bottomUp && frontierSize > unvisitedSize / TOP_DOWN_FACTOR) {
+        bottomUp = true;
+      } else if (bottomUp && frontierSize < numberOfVertices / BOTTOM_UP_FACTOR) {
+        bottomUp = false;
+      }
+      Arrays.fill(nextFrontier, 0);
+      if (bottomUp) {
+        bottomUpStep(visited);
+      } else {
+        topDownStep(visited);
+      }
+      frontierSize = 0;
+      for (int bucketEntry = 0; bucketEntry < nextFrontier.length; bucketEntry++) {
+        long discovered = nextFrontier[bucketEntry];
+        visited[bucketEntry] |= discovered;
+        frontierSize += Long.bitCount(discovered);
+        while (discovered != 0) {
+          levelVisitor.visit(bucketEntry * Long.SIZE + Long.numberOfTrailingZeros(discovered), level);
+          discovered &= discovered - 1;
+        }
+      }
+      reached += frontierSize;
+      unvisitedSize -= frontierSize;
+      long[] temp = frontier;
+      frontier = nextFrontier;
+      nextFrontier = temp;
+    }
+    return reached;
+  }
+
+  private void topDownStep(long[] visited) {
+    for (int bucketEntry = 0; bucketEntry < frontier.length; bucketEntry++) {
+      long frontierWord = frontier[bucketEntry];
+      while (frontierWord != 0) {
+        long[] row = neighborsMatrix[bucketEntry * Long.SIZE + Long.numberOfTrailingZeros(frontierWord)];
+        for (int neighborsEntry = 0; neighborsEntry < row.length; neighborsEntry++) {
+          nextFrontier[neighborsEntry] |= row[neighborsEntry];
+        }
+        frontierWord &= frontierWord - 1;
+      }
+    }
+    for (int bucketEntry = 0; bucketEntry < nextFrontier.length; bucketEntry++) {
+      nextFrontier[bucketEntry] &= vertices[bucketEntry] & ~visited[bucketEntry];
+    }
+  }
+
+  private void bottomUpStep(long[] visited) {
+    for (int bucketEntry = 0; bucketEntry < vertices.length; bucketEntry++) {
+      long unvisited = vertices[bucketEntry] & ~visited[bucketEntry];
+      while (unvisited != 0) {
+        int offset = Long.numberOfTrailingZeros(unvisited);
+        if (hasNeighborInFrontier(neighborsMatrix[bucketEntry * Long.SIZE + offset])) {
+          nextFrontier[bucketEntry] |= 1L << offset;
+        }
+        unvisited &= unvisited - 1;
+      }
+    }
+  }
+
+  private boolean hasNeighborInFrontier(long[] row) {
+    for (int bucketEntry = 0; bucketEntry < row.length; bucketEntry++) {
+      if ((row[bucketEntry] & frontier[bucketEntry]) != 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  interface LevelVisitor {
+    void visit(int vertex, int level);
+  }
+}
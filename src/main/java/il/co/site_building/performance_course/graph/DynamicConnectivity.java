@@ -0,0 +1,511 @@
+package il.co.site_building.performance_course.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import gnu.trove.map.hash.TLongObjectHashMap;
+
+/**
+ * Fully dynamic connectivity (Holm, de Lichtenberg and Thorup), supporting edge insertions and deletions in O(log^2 n)
+ * amortized time, and connectivity queries in O(log n) amortized time.
+ * <p>
+ * Each edge has a level, starting at 0, which only increases. Level i keeps an Euler tour forest F_i of the spanning
+ * tree edges with level &gt;= i, so F_0 is a spanning forest of the graph, and the trees of F_i have at most n / 2^i
+ * vertices. The non tree edges are kept per level and vertex.
+ * Deleting a tree edge of level l cuts it from F_0..F_l, and looks for a replacement edge from level l down to 0: the
+ * tree edges of the smaller of the two trees are pushed to level i + 1, and then its non tree edges of level i are
+ * scanned. An edge which reconnects the trees becomes a tree edge, and all other scanned edges are pushed to level
+ * i + 1. The pushes pay for the scans, as an edge is pushed at most log n times.
+ * <p>
+ * The Euler tours are kept in splay trees. Each vertex has a node in the tour, and each tree edge has a node per
+ * direction. Nodes aggregate the number of vertices, and flags for finding the tree edges and the vertices with non tree
+ * edges of their level in a tree.
+ */
+public class DynamicConnectivity {
+
+  private final List<Level> levels;
+  private final TLongObjectHashMap<Edge> edges;
+
+  public DynamicConnectivity() {
+    levels = new ArrayList<>();
+    levels.add(new Level(0));
+    edges = new TLongObjectHashMap<>();
+  }
+
+  /**
+   * Inserts an edge. Does nothing for a self loop or an edge which already exists.
+   *
+   * @return True if the edge was inserted.
+   */
+  public boolean insertEdge(int v1, int v2) {
+    if (v1 == v2) {
+      return false;
+    }
+    long key = getKey(v1, v2);
+    if (edges.containsKey(key)) {
+      return false;
+    }
+    Edge edge = new Edge(v1, v2);
+    edges.put(key, edge);
+    Level level = levels.get(0);
+    if (level.connected(v1, v2)) {
+      addNonTreeEdge(edge, 0);
+    } else {
+      edge.tree = true;
+      level.link(edge, true);
+    }
+    return true;
+  }
+
+  /**
+   * Deletes an edge. If it's a spanning tree edge, a replacement edge is searched for.
+   *
+   * @return True if the edge existed.
+   */
+  public boolean deleteEdge(int v1, int v2) {
+    Edge edge = edges.remove(getKey(v1, v2));
+    if (edge == null) {
+      return false;
+    }
+    if (!edge.tree) {
+      removeNonTreeEdge(edge);
+      return true;
+    }
+    for (int levelIndex = 0; levelIndex <= edge.level; levelIndex++) {
+      levels.get(levelIndex).cut(edge);
+    }
+    for (int levelIndex = edge.level; levelIndex >= 0; levelIndex--) {
+      if (replace(edge.v1, edge.v2, levelIndex)) {
+        break;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return True if there is a path between the vertices. A vertex is always connected to itself.
+   */
+  public boolean connected(int v1, int v2) {
+    return v1 == v2 || levels.get(0).connected(v1, v2);
+  }
+
+  /**
+   * @return The number of vertices which are connected to the vertex, including itself.
+   */
+  public int componentSize(int vertex) {
+    return levels.get(0).treeSize(vertex);
+  }
+
+  public boolean edgeExists(int v1, int v2) {
+    return edges.containsKey(getKey(v1, v2));
+  }
+
+  public int numberOfEdges() {
+    return edges.size();
+  }
+
+  /**
+   * Looks for an edge which reconnects the trees of the vertices in F_i, after a tree edge between them was cut.
+   *
+   * @return True if a replacement edge was found, and linked in F_0..F_i.
+   */
+  private boolean replace(int v1, int v2, int levelIndex) {
+    Level level = levels.get(levelIndex);
+    Node node1 = level.getVertexNode(v1);
+    Node node2 = level.getVertexNode(v2);
+    Node smallerTree = level.size(node1) <= level.size(node2) ? node1 : node2;
+    //Pushing the tree edges of the smaller tree, it is at most half of the tree it was a part of
+    Node treeEdgeNode;
+    while ((treeEdgeNode = level.findTreeEdge(smallerTree)) != null) {
+      Edge edge = treeEdgeNode.edge;
+      level.setTreeEdgeFlag(treeEdgeNode, false);
+      edge.level = levelIndex + 1;
+      getLevel(levelIndex + 1).link(edge, true);
+    }
+    Node vertexNode;
+    while ((vertexNode = level.findNonTreeEdges(smallerTree)) != null) {
+      int vertex = vertexNode.vertex;
+      Set<Edge> nonTreeEdges = level.getNonTreeEdges(vertex);
+      while (!nonTreeEdges.isEmpty()) {
+        Edge edge = nonTreeEdges.iterator().next();
+        removeNonTreeEdge(edge);
+        int neighbor = edge.v1 == vertex ? edge.v2 : edge.v1;
+        if (level.connected(vertex, neighbor)) {
+          addNonTreeEdge(edge, levelIndex + 1); //Both vertices are in the smaller tree
+        } else {
+          edge.tree = true;
+          for (int linkLevel = 0; linkLevel <= levelIndex; linkLevel++) {
+            levels.get(linkLevel).link(edge, linkLevel == levelIndex);
+          }
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private void addNonTreeEdge(Edge edge, int levelIndex) {
+    edge.level = levelIndex;
+    Level level = getLevel(levelIndex);
+    level.addNonTreeEdge(edge.v1, edge);
+    level.addNonTreeEdge(edge.v2, edge);
+  }
+
+  private void removeNonTreeEdge(Edge edge) {
+    Level level = levels.get(edge.level);
+    level.removeNonTreeEdge(edge.v1, edge);
+    level.removeNonTreeEdge(edge.v2, edge);
+  }
+
+  private Level getLevel(int levelIndex) {
+    while (levels.size() <= levelIndex) {
+      levels.add(new Level(levels.size()));
+    }
+    return levels.get(levelIndex);
+  }
+
+  private static long getKey(int v1, int v2) {
+    return ((long) Math.min(v1, v2) << Integer.SIZE) | (Math.max(v1, v2) & 0xFFFFFFFFL);
+  }
+
+  private static class Edge {
+
+    private final int v1;
+    private final int v2;
+    private int level;
+    private boolean tree;
+    private final List<Node> arcs; //Tour nodes of a tree edge, (v1, v2) and (v2, v1) per level
+
+    private Edge(int v1, int v2) {
+      this.v1 = v1;
+      this.v2 = v2;
+      arcs = new ArrayList<>(2);
+    }
+  }
+
+  /**
+   * The Euler tour forest and the non tree edges of a single level.
+   */
+  private static class Level {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final int index;
+    private Node[] vertexNodes;
+    private final List<Set<Edge>> nonTreeEdges; //Per vertex, as long as vertexNodes
+
+    private Level(int index) {
+      this.index = index;
+      vertexNodes = new Node[INITIAL_CAPACITY];
+      nonTreeEdges = new ArrayList<>(Collections.nCopies(INITIAL_CAPACITY, null));
+    }
+
+    private boolean connected(int v1, int v2) {
+      if (v1 >= vertexNodes.length || v2 >= vertexNodes.length) {
+        return false;
+      }
+      Node node1 = vertexNodes[v1];
+      Node node2 = vertexNodes[v2];
+      if (node1 == null || node2 == null) {
+        return false; //A vertex without a node doesn't have tree edges
+      }
+      Node.splay(node1);
+      Node.splay(node2);
+      return node1.parent != null; //Splaying the second node moves the first one down only if they share a tree
+    }
+
+    private int treeSize(int vertex) {
+      if (vertex >= vertexNodes.length || vertexNodes[vertex] == null) {
+        return 1;
+      }
+      return size(vertexNodes[vertex]);
+    }
+
+    private int size(Node node) {
+      Node.splay(node);
+      return node.size;
+    }
+
+    /**
+     * Links the trees of the edge vertices: tour(v1) + (v1, v2) + tour(v2) + (v2, v1)
+     *
+     * @param ownLevel True if this is the level of the edge.
+     */
+    private void link(Edge edge, boolean ownLevel) {
+      Node arc = new Node(Node.NO_VERTEX, edge);
+      Node reverseArc = new Node(Node.NO_VERTEX, edge);
+      arc.treeEdge = ownLevel;
+      arc.update();
+      edge.arcs.add(arc);
+      edge.arcs.add(reverseArc);
+      Node tour1 = reroot(getVertexNode(edge.v1));
+      Node tour2 = reroot(getVertexNode(edge.v2));
+      Node.join(Node.join(Node.join(tour1, arc), tour2), reverseArc);
+    }
+
+    /**
+     * Cuts the edge out of its tree: A + (v1, v2) + B + (v2, v1) + C is split into A + C and B (or the other way around
+     * if the reverse arc is first).
+     */
+    private void cut(Edge edge) {
+      Node arc = edge.arcs.get(2 * index);
+      Node reverseArc = edge.arcs.get(2 * index + 1);
+      Node.splay(arc);
+      Node before = Node.detachLeft(arc);
+      Node after = Node.detachRight(arc);
+      if (Node.findRoot(reverseArc) == after) {
+        Node.splay(reverseArc);
+        Node.detachLeft(reverseArc);
+        Node.join(before, Node.detachRight(reverseArc));
+      } else {
+        Node.splay(reverseArc);
+        Node.detachRight(reverseArc);
+        Node.join(Node.detachLeft(reverseArc), after);
+      }
+    }
+
+    /**
+     * Rotates the tour to start at the vertex. The tour is cyclic, so it stays a valid Euler tour.
+     *
+     * @return The root of the rotated tour.
+     */
+    private Node reroot(Node vertexNode) {
+      Node.splay(vertexNode);
+      Node before = Node.detachLeft(vertexNode);
+      return Node.join(vertexNode, before);
+    }
+
+    /**
+     * @return A node of a tree edge of this level in the tree of the node, or null if there is none.
+     */
+    private Node findTreeEdge(Node node) {
+      Node.splay(node);
+      if (!node.subtreeTreeEdge) {
+        return null;
+      }
+      Node current = node;
+      while (!current.treeEdge) {
+        current = current.left != null && current.left.subtreeTreeEdge ? current.left : current.right;
+      }
+      Node.splay(current);
+      return current;
+    }
+
+    /**
+     * @return A vertex node with non tree edges of this level in the tree of the node, or null if there is none.
+     */
+    private Node findNonTreeEdges(Node node) {
+      Node.splay(node);
+      if (!node.subtreeNonTreeEdges) {
+        return null;
+      }
+      Node current = node;
+      while (!current.nonTreeEdges) {
+        current = current.left != null && current.left.subtreeNonTreeEdges ? current.left : current.right;
+      }
+      Node.splay(current);
+      return current;
+    }
+
+    private void setTreeEdgeFlag(Node node, boolean treeEdge) {
+      Node.splay(node);
+      node.treeEdge = treeEdge;
+      node.update();
+    }
+
+    private Set<Edge> getNonTreeEdges(int vertex) {
+      return nonTreeEdges.get(vertex);
+    }
+
+    private void addNonTreeEdge(int vertex, Edge edge) {
+      Node vertexNode = getVertexNode(vertex);
+      Set<Edge> vertexEdges = nonTreeEdges.get(vertex);
+      if (vertexEdges == null) {
+        vertexEdges = new LinkedHashSet<>();
+        nonTreeEdges.set(vertex, vertexEdges);
+      }
+      vertexEdges.add(edge);
+      if (!vertexNode.nonTreeEdges) {
+        Node.splay(vertexNode);
+        vertexNode.nonTreeEdges = true;
+        vertexNode.update();
+      }
+    }
+
+    private void removeNonTreeEdge(int vertex, Edge edge) {
+      Set<Edge> vertexEdges = nonTreeEdges.get(vertex);
+      vertexEdges.remove(edge);
+      if (vertexEdges.isEmpty()) {
+        Node vertexNode = vertexNodes[vertex];
+        Node.splay(vertexNode);
+        vertexNode.nonTreeEdges = false;
+        vertexNode.update();
+      }
+    }
+
+    private Node getVertexNode(int vertex) {
+      if (vertex >= vertexNodes.length) {
+        int newCapacity = Math.max(vertex + 1, vertexNodes.length * 2);
+        vertexNodes = Arrays.copyOf(vertexNodes, newCapacity);
+        nonTreeEdges.addAll(Collections.nCopies(newCapacity - nonTreeEdges.size(), null));
+      }
+      if (vertexNodes[vertex] == null) {
+        vertexNodes[vertex] = new Node(vertex, null);
+      }
+      return vertexNodes[vertex];
+    }
+  }
+
+  /**
+   * A node of a splay tree which holds an Euler tour in its in-order sequence.
+   */
+  private static class Node {
+
+    private static final int NO_VERTEX = -1;
+
+    private final int vertex; //The vertex of a vertex node, NO_VERTEX for an edge node
+    private final Edge edge; //The edge of an edge node, null for a vertex node
+    private Node left;
+    private Node right;
+    private Node parent;
+    private boolean treeEdge; //An edge node of a tree edge of this level
+    private boolean nonTreeEdges; //A vertex node of a vertex with non tree edges of this level
+    private int size; //Number of vertex nodes in the subtree
+    private boolean subtreeTreeEdge;
+    private boolean subtreeNonTreeEdges;
+
+    private Node(int vertex, Edge edge) {
+      this.vertex = vertex;
+      this.edge = edge;
+      update();
+    }
+
+    private void update() {
+      size = vertex == NO_VERTEX ? 0 : 1;
+      subtreeTreeEdge = treeEdge;
+      subtreeNonTreeEdges = nonTreeEdges;
+      if (left != null) {
+        size += left.size;
+        subtreeTreeEdge |= left.subtreeTreeEdge;
+        subtreeNonTreeEdges |= left.subtreeNonTreeEdges;
+      }
+      if (right != null) {
+        size += right.size;
+        subtreeTreeEdge |= right.subtreeTreeEdge;
+        subtreeNonTreeEdges |= right.subtreeNonTreeEdges;
+      }
+    }
+
+    private static void rotate(Node node) {
+      Node parent = node.parent;
+      Node grandParent = parent.parent;
+      if (parent.left == node) {
+        parent.left = node.right;
+        if (node.right != null) {
+          node.right.parent = parent;
+        }
+        node.right = parent;
+      } else {
+        parent.right = node.left;
+        if (node.left != null) {
+          node.left.parent = parent;
+        }
+        node.left = parent;
+      }
+      parent.parent = node;
+      node.parent = grandParent;
+      if (grandParent != null) {
+        if (grandParent.left == parent) {
+          grandParent.left = node;
+        } else {
+          grandParent.right = node;
+        }
+      }
+      parent.update();
+      node.update();
+    }
+
+    /**
+     * Moves the node to the root of its splay tree.
+     */
+    private static void splay(Node node) {
+      while (node.parent != null) {
+        Node parent = node.parent;
+        Node grandParent = parent.parent;
+        if (grandParent != null) {
+          boolean zigZig = (grandParent.left == parent) == (parent.left == node);
+          rotate(zigZig ? parent : node);
+        }
+        rotate(node);
+      }
+    }
+
+    /**
+     * @return The root of the splay tree of the node, without splaying.
+     */
+    private static Node findRoot(Node node) {
+      while (node.parent != null) {
+        node = node.parent;
+      }
+      return node;
+    }
+
+    /**
+     * Detaches the left subtree of a root node.
+     *
+     * @return The root of the detached subtree, or null.
+     */
+    private static Node detachLeft(Node root) {
+      Node left = root.left;
+      if (left != null) {
+        left.parent = null;
+        root.left = null;
+        root.update();
+      }
+      return left;
+    }
+
+    /**
+     * Detaches the right subtree of a root node.
+     *
+     * @return The root of the detached subtree, or null.
+     */
+    private static Node detachRight(Node root) {
+      Node right = root.right;
+      if (right != null) {
+        right.parent = null;
+        root.right = null;
+        root.update();
+      }
+      return right;
+    }
+
+    /**
+     * Concatenates two tours.
+     *
+     * @return The root of the concatenated tour.
+     */
+    private static Node join(Node first, Node second) {
+      if (first == null) {
+        return second;
+      }
+      if (second == null) {
+        return first;
+      }
+      Node last = findRoot(first);
+      while (last.right != null) {
+        last = last.right;
+      }
+      splay(last);
+      Node secondRoot = findRoot(second);
+      last.right = secondRoot;
+      secondRoot.parent = last;
+      last.update();
+      return last;
+    }
+  }
+}
@@ -0,0 +1,126 @@
+package il.co.site_building.performance_course.graph;
+
+import java.util.Collection;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.IntConsumer;
+
+/**
+ * A {@link SimpleGraph} decorator which keeps a {@link DynamicConnectivity} structure up to date with every
+ * modification, so connectivity queries never rebuild anything, even after edges or vertices are removed.
+ * All modifications should go through the decorator.
+ * <p>
+ * A removed vertex has its edges deleted from the structure. Some graphs keep the edges of a removed vertex, and they
+ * are inserted back once it is added again.
+ */
+public class DynamicConnectivityGraph implements SimpleGraph {
+
+  private final SimpleGraph graph;
+  private final DynamicConnectivity connectivity;
+
+  /**
+   * @param graph The graph to decorate, its existing edges are inserted. It shouldn't be modified directly from now on.
+   */
+  public DynamicConnectivityGraph(SimpleGraph graph) {
+    this.graph = graph;
+    connectivity = new DynamicConnectivity();
+    graph.forEachVertex(vertex -> graph.forEachNeighbor(vertex, neighbor -> {
+      if (neighbor < vertex) {
+        connectivity.insertEdge(vertex, neighbor);
+      }
+    }));
+  }
+
+  /**
+   * Checks if there is a path between two vertices.
+   *
+   * @param v1 First vertex
+   * @param v2 Second vertex
+   * @return True if both vertices exist and there is a path between them, false otherwise.
+   */
+  public boolean connected(int v1, int v2) {
+    return graph.vertexExists(v1) && graph.vertexExists(v2) && connectivity.connected(v1, v2);
+  }
+
+  /**
+   * @return The number of vertices in the component of the vertex, 0 if it doesn't exist.
+   */
+  public int componentSize(int vertex) {
+    return graph.vertexExists(vertex) ? connectivity.componentSize(vertex) : 0;
+  }
+
+  @Override public void addVertex(int vertex) {
+    boolean existed = graph.vertexExists(vertex);
+    graph.addVertex(vertex);
+    if (!existed && graph.vertexExists(vertex)) {
+      graph.forEachNeighbor(vertex, neighbor -> connectivity.insertEdge(vertex, neighbor));
+    }
+  }
+
+  @Override public void removeVertex(int vertex) {
+    if (graph.vertexExists(vertex)) {
+      graph.forEachNeighbor(vertex, neighbor -> connectivity.deleteEdge(vertex, neighbor));
+    }
+    graph.removeVertex(vertex);
+  }
+
+  @Override public boolean vertexExists(int vertex) {
+    return graph.vertexExists(vertex);
+  }
+
+  @Override public void addEdge(int v1, int v2) {
+    graph.addEdge(v1, v2);
+    if (v1 != v2 && graph.vertexExists(v1) && graph.vertexExists(v2)) {
+      connectivity.insertEdge(v1, v2);
+    }
+  }
+
+  @Override public void removeEdge(int v1, int v2) {
+    graph.removeEdge(v1, v2);
+    connectivity.deleteEdge(v1, v2);
+  }
+
+  @Override public boolean edgeExists(int v1, int v2) {
+    return graph.edgeExists(v1, v2);
+  }
+
+  @Override public Collection<SimpleGraph> createConnectedComponents() {
+    return graph.createConnectedComponents();
+  }
+
+  @Override public ConnectedComponentsLabels labelConnectedComponents() {
+    return graph.labelConnectedComponents();
+  }
+
+  @Override public Set<Integer> vertexSet() {
+    return graph.vertexSet();
+  }
+
+  @Override public void forEachVertex(IntConsumer vertexConsumer) {
+    graph.forEachVertex(vertexConsumer);
+  }
+
+  @Override public void forEachNeighbor(int vertex, IntConsumer neighborConsumer) {
+    graph.forEachNeighbor(vertex, neighborConsumer);
+  }
+
+  @Override public int degree(int vertex) {
+    return graph.degree(vertex);
+  }
+
+  @Override public PrimitiveIterator.OfInt vertexIterator() {
+    return graph.vertexIterator();
+  }
+
+  @Override public void randomizeEdges(Random random, int maxVertex, double loadFactor) {
+    for (int vertex = 0; vertex < maxVertex; vertex++) {
+      for (int neighbor = vertex; neighbor < maxVertex; neighbor++) {
+        double lucky = random.nextDouble();
+        if (lucky <= loadFactor) {
+          addEdge(vertex, neighbor);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,335 @@
+package il.co.site_building.performance_course.graph;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.apache.commons.csv.CSVFormat;
+
+/**
+ * Streams edges from edge list files into graphs, without holding the file in memory.
+ * The file is read through a {@link FileChannel} into a single reusable direct buffer, and edges are passed to the graph
+ * in primitive batches, so nothing is allocated per edge.
+ * Two formats are supported:
+ * <ul>
+ *   <li>Text: one edge per line, "v1,v2" or "v1,v2,weight". The delimiter, comment marker and header line are taken from
+ *   a commons-csv {@link CSVFormat}, and whitespace around values is ignored. Quoted values aren't supported, since
+ *   edge lists are numeric. The weight defaults to {@link #DEFAULT_WEIGHT}.</li>
+ *   <li>Binary: consecutive little endian int pairs (v1, v2), without a header. All weights are {@link #DEFAULT_WEIGHT}.</li>
+ * </ul>
+ */
+public class EdgeListLoader {
+
+  public static final double DEFAULT_WEIGHT = 1;
+
+  private static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+  private static final int DEFAULT_BATCH_SIZE = 1 << 12;
+  private static final int NO_VALUE = -1; //Field index before any value of a line was read
+
+  private final int bufferSize;
+  private final int batchSize;
+
+  public EdgeListLoader() {
+    this(DEFAULT_BUFFER_SIZE, DEFAULT_BATCH_SIZE);
+  }
+
+  /**
+   * @param bufferSize Size of the read buffer in bytes, at least 8.
+   * @param batchSize  Maximal number of edges passed to the graph at once.
+   */
+  public EdgeListLoader(int bufferSize, int batchSize) {
+    if (bufferSize < 2 * Integer.BYTES || batchSize < 1) {
+      throw new IllegalArgumentException("Buffer size must be at least 8, and batch size must be positive");
+    }
+    this.bufferSize = bufferSize;
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * Loads a text edge list, where all vertices and edges are added to the graph.
+   *
+   * @param path   The edge list file.
+   * @param format Delimiter, comment marker and header skipping of the file.
+   * @param graph  The graph to add the edges to.
+   * @return Statistics of the load.
+   * @throws IOException If the file can't be read, or a line isn't a valid edge.
+   */
+  public LoadStatistics loadCsv(Path path, CSVFormat format, SimpleGraph graph) throws IOException {
+    return loadCsv(path, format, simpleGraphConsumer(graph));
+  }
+
+  /**
+   * Loads a weighted text edge list, where all vertices and edges are added to the graph.
+   *
+   * @see #loadCsv(Path, CSVFormat, SimpleGraph)
+   */
+  public LoadStatistics loadCsv(Path path, CSVFormat format, UndirectedWeightedNeighborsMatrixGraph graph)
+      throws IOException {
+    return loadCsv(path, format, weightedGraphConsumer(graph));
+  }
+
+  /**
+   * Loads a binary edge list, where all vertices and edges are added to the graph.
+   *
+   * @param path  The edge list file.
+   * @param graph The graph to add the edges to.
+   * @return Statistics of the load.
+   * @throws IOException If the file can't be read, or its size isn't a multiple of an edge size.
+   */
+  public LoadStatistics loadBinary(Path path, SimpleGraph graph) throws IOException {
+    return loadBinary(path, simpleGraphConsumer(graph));
+  }
+
+  /**
+   * Loads a binary edge list into a weighted graph, see {@link #loadBinary(Path, SimpleGraph)}.
+   */
+  public LoadStatistics loadBinary(Path path, UndirectedWeightedNeighborsMatrixGraph graph) throws IOException {
+    return loadBinary(path, weightedGraphConsumer(graph));
+  }
+
+  /**
+   * Loads a text edge list into any consumer of edge batches.
+   */
+  public LoadStatistics loadCsv(Path path, CSVFormat format, EdgeBatchConsumer consumer) throws IOException {
+    long startTime = System.nanoTime();
+    byte delimiter = (byte) format.getDelimiterString().charAt(0);
+    byte commentMarker = format.isCommentMarkerSet() ? (byte) format.getCommentMarker().charValue() : (byte) '\n';
+    EdgeBatch batch = new EdgeBatch(batchSize, consumer);
+    long numberOfBytes = 0;
+    long lineNumber = 1;
+    boolean skipLine = format.getSkipHeaderRecord();
+    int fieldIndex = NO_VALUE; //Index of the field being parsed in the current line
+    boolean inValue = false;
+    boolean negative = false;
+    long integerPart = 0;
+    long fraction = 0;
+    long fractionScale = 0; //0 while there is no decimal point, otherwise 10 ^ number of fraction digits
+    long source = 0;
+    long target = 0;
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      ByteBuffer buffer = ByteBuffer.allocateDirect(bufferSize);
+      boolean endOfFile = false;
+      while (!endOfFile) {
+        buffer.clear();
+        int read = channel.read(buffer);
+        endOfFile = read < 0;
+        buffer.flip();
+        numberOfBytes += Math.max(read, 0);
+        int limit = endOfFile ? buffer.limit() + 1 : buffer.limit();
+        for (int position = 0; position < limit; position++) {
+          byte current = position < buffer.limit() ? buffer.get(position) : (byte) '\n'; //Ending the last line
+          if (current == '\n') {
+            if (!skipLine && fieldIndex != NO_VALUE) {
+              if (fieldIndex < 1 || fieldIndex > 2) {
+                throw new IOException("Expected 2 or 3 values in line " + lineNumber + " of " + path);
+              }
+              double weight = DEFAULT_WEIGHT;
+              if (fieldIndex == 2) {
+                weight = toDouble(negative, integerPart, fraction, fractionScale);
+              } else if (inValue) {
+                target = toVertex(negative, integerPart, fractionScale, lineNumber);
+              }
+              batch.add((int) source, (int) target, weight);
+            }
+            skipLine = false;
+            fieldIndex = NO_VALUE;
+            inValue = false;
+            lineNumber++;
+          } else if (skipLine || current == '\r') {
+            continue;
+          } else if (current == delimiter) {
+            if (!inValue && (delimiter == ' ' || delimiter == '\t')) {
+              continue; //Repeated whitespace delimiters
+            }
+            if (fieldIndex == NO_VALUE) {
+              throw new IOException("Missing value in line " + lineNumber + " of " + path);
+            }
+            if (fieldIndex == 0) {
+              source = toVertex(negative, integerPart, fractionScale, lineNumber);
+            } else if (fieldIndex == 1) {
+              target = toVertex(negative, integerPart, fractionScale, lineNumber);
+            }
+            inValue = false;
+          } else if (current == ' ' || current == '\t') {
+            continue;
+          } else if (fieldIndex == NO_VALUE && current == commentMarker) {
+            skipLine = true;
+          } else {
+            if (!inValue) { //Starting a new value
+              fieldIndex++;
+              inValue = true;
+              negative = false;
+              integerPart = 0;
+              fraction = 0;
+              fractionScale = 0;
+              if (current == '-') {
+                negative = true;
+                continue;
+              }
+            }
+            if (current == '.' && fractionScale == 0) {
+              fractionScale = 1;
+            } else if ('0' <= current && current <= '9') {
+              if (fractionScale == 0) {
+                integerPart = integerPart * 10 + (current - '0');
+              } else if (fractionScale < 1_000_000_000_000_000L) { //Ignoring digits beyond the precision of a long
+                fraction = fraction * 10 + (current - '0');
+                fractionScale *= 10;
+              }
+            } else {
+              throw new IOException("Unexpected character '" + (char) current + "' in line " + lineNumber + " of " +
+                                    path);
+            }
+          }
+        }
+      }
+    }
+    batch.flush();
+    return new LoadStatistics(batch.getNumberOfEdges(), numberOfBytes, System.nanoTime() - startTime);
+  }
+
+  /**
+   * Loads a binary edge list into any consumer of edge batches.
+   */
+  public LoadStatistics loadBinary(Path path, EdgeBatchConsumer consumer) throws IOException {
+    long startTime = System.nanoTime();
+    EdgeBatch batch = new EdgeBatch(batchSize, consumer);
+    long numberOfBytes = 0;
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      ByteBuffer buffer = ByteBuffer.allocateDirect(bufferSize).order(ByteOrder.LITTLE_ENDIAN);
+      while (channel.read(buffer) >= 0) {
+        buffer.flip();
+        numberOfBytes += buffer.remaining();
+        while (buffer.remaining() >= 2 * Integer.BYTES) {
+          int source = buffer.getInt();
+          int target = buffer.getInt();
+          if (source < 0 || target < 0) {
+            throw new IOException("Negative vertex in edge " + batch.getNumberOfEdges() + " of " + path);
+          }
+          batch.add(source, target, DEFAULT_WEIGHT);
+        }
+        numberOfBytes -= buffer.remaining(); //A partial edge is counted once it's complete
+        buffer.compact();
+      }
+      if (buffer.position() != 0) {
+        throw new IOException("Truncated edge at the end of " + path);
+      }
+    }
+    batch.flush();
+    return new LoadStatistics(batch.getNumberOfEdges(), numberOfBytes, System.nanoTime() - startTime);
+  }
+
+  /**
+   * Adds each batch to a simple graph. The highest vertex of the batch is added first, so graphs which grow per vertex
+   * grow once per batch.
+   */
+  public static EdgeBatchConsumer simpleGraphConsumer(SimpleGraph graph) {
+    return (sources, targets, weights, numberOfEdges) -> {
+      graph.addVertex(maxVertex(sources, targets, numberOfEdges));
+      for (int edge = 0; edge < numberOfEdges; edge++) {
+        graph.addVertex(sources[edge]);
+        graph.addVertex(targets[edge]);
+        graph.addEdge(sources[edge], targets[edge]);
+      }
+    };
+  }
+
+  /**
+   * Adds each batch to a weighted graph, see {@link #simpleGraphConsumer(SimpleGraph)}.
+   */
+  public static EdgeBatchConsumer weightedGraphConsumer(UndirectedWeightedNeighborsMatrixGraph graph) {
+    return (sources, targets, weights, numberOfEdges) -> {
+      graph.addVertex(maxVertex(sources, targets, numberOfEdges));
+      for (int edge = 0; edge < numberOfEdges; edge++) {
+        graph.addVertex(sources[edge]);
+        graph.addVertex(targets[edge]);
+        graph.setEdge(sources[edge], targets[edge], weights[edge]);
+      }
+    };
+  }
+
+  private static int maxVertex(int[] sources, int[] targets, int numberOfEdges) {
+    int maxVertex = 0;
+    for (int edge = 0; edge < numberOfEdges; edge++) {
+      maxVertex = Math.max(maxVertex, Math.max(sources[edge], targets[edge]));
+    }
+    return maxVertex;
+  }
+
+  private static int toVertex(boolean negative, long value, long fractionScale, long lineNumber) throws IOException {
+    if (negative || fractionScale != 0 || value > Integer.MAX_VALUE) {
+      throw new IOException("Invalid vertex in line " + lineNumber);
+    }
+    return (int) value;
+  }
+
+  private static double toDouble(boolean negative, long integerPart, long fraction, long fractionScale) {
+    double value = fractionScale == 0 ? integerPart : integerPart + (double) fraction / fractionScale;
+    return negative ? -value : value;
+  }
+
+  /**
+   * Receives edges in batches. The arrays are reused between batches, so they shouldn't be kept.
+   */
+  public interface EdgeBatchConsumer {
+    void accept(int[] sources, int[] targets, double[] weights, int numberOfEdges);
+  }
+
+  /**
+   * @param numberOfEdges Number of loaded edges, including duplicates.
+   * @param numberOfBytes Number of bytes read from the file.
+   * @param nanos         Load duration.
+   */
+  public record LoadStatistics(long numberOfEdges, long numberOfBytes, long nanos) {
+
+    public double edgesPerSecond() {
+      return nanos == 0 ? 0 : numberOfEdges * 1E9 / nanos;
+    }
+
+    public double megabytesPerSecond() {
+      return nanos == 0 ? 0 : numberOfBytes * 1E9 / nanos / (1 << 20);
+    }
+  }
+
+  private static class EdgeBatch {
+
+    private final int[] sources;
+    private final int[] targets;
+    private final double[] weights;
+    private final EdgeBatchConsumer consumer;
+    private int size;
+    private long numberOfEdges;
+
+    EdgeBatch(int capacity, EdgeBatchConsumer consumer) {
+      sources = new int[capacity];
+      targets = new int[capacity];
+      weights = new double[capacity];
+      this.consumer = consumer;
+    }
+
+    void add(int source, int target, double weight) {
+      sources[size] = source;
+      targets[size] = target;
+      weights[size] = weight;
+      size++;
+      if (size == sources.length) {
+        flush();
+      }
+    }
+
+    void flush() {
+      if (size > 0) {
+        consumer.accept(sources, targets, weights, size);
+        numberOfEdges += size;
+        size = 0;
+      }
+    }
+
+    long getNumberOfEdges() {
+      return numberOfEdges;
+    }
+  }
+}
@@ -0,0 +1,85 @@
+package il.co.site_building.performance_course.graph;
+
+import java.util.Arrays;
+
+/**
+ * The same layout as {@link MirroredRowsStorage}, with the weights rounded to float, so a sequential scan of a row
+ * reads half of the bytes. A weight which is too large for a float becomes POSITIVE_INFINITY, a missing edge.
+ */
+final class FloatMirroredRowsStorage implements WeightStorage {
+
+  private float[][] rows;
+  private boolean shared; //True if the rows array is shared with a snapshot
+  private int version; //Increased on every snapshot
+  private int[] rowVersions; //A row belongs only to this storage if its version is the current version
+
+  FloatMirroredRowsStorage(int capacity) {
+    rows = new float[capacity][capacity];
+    for (float[] row : rows) {
+      Arrays.fill(row, Float.POSITIVE_INFINITY);
+    }
+    rowVersions = new int[capacity];
+  }
+
+  /**
+   * A read only snapshot.
+   */
+  private FloatMirroredRowsStorage(float[][] rows) {
+    this.rows = rows;
+  }
+
+  @Override public int capacity() {
+    return rows.length;
+  }
+
+  @Override public double getWeight(int v1, int v2) {
+    return rows[v1][v2];
+  }
+
+  /**
+   * @return All the weights of the vertex edges, indexed by the neighbor. Shouldn't be modified.
+   */
+  float[] getRow(int vertex) {
+    return rows[vertex];
+  }
+
+  @Override public void setWeight(int v1, int v2, double weight) {
+    if (shared) {
+      rows = rows.clone(); //Only the rows references, the rows are copied once modified
+      shared = false;
+    }
+    getWritableRow(v1)[v2] = (float) weight;
+    getWritableRow(v2)[v1] = (float) weight;
+  }
+
+  @Override public void ensureCapacity(int numberOfVertices) {
+    if (numberOfVertices <= rows.length) {
+      return;
+    }
+    int newCapacity = Math.max(numberOfVertices, rows.length * 2);
+    float[][] newRows = new float[newCapacity][];
+    for (int row = 0; row < newCapacity; row++) {
+      int length = row < rows.length ? rows[row].length : 0;
+      newRows[row] = row < rows.length ? Arrays.copyOf(rows[row], newCapacity) : new float[newCapacity];
+      Arrays.fill(newRows[row], length, newCapacity, Float.POSITIVE_INFINITY);
+    }
+    rows = newRows;
+    rowVersions = new int[newCapacity];
+    Arrays.fill(rowVersions, version); //All rows are new
+    shared = false;
+  }
+
+  @Override public WeightStorage snapshot() {
+    shared = true;
+    version++; //All current rows are now shared with the snapshot
+    return new FloatMirroredRowsStorage(rows);
+  }
+
+  private float[] getWritableRow(int row) {
+    if (rowVersions[row] != version) {
+      rows[row] = rows[row].clone();
+      rowVersions[row] = version;
+    }
+    return rows[row];
+  }
+}
@@ -0,0 +1,87 @@
+package il.co.site_building.performance_course.graph;
+
+import java.util.Arrays;
+
+/**
+ * The same layout as {@link PackedTriangleStorage}, with the weights rounded to float. It takes half of the memory,
+ * and half of the memory bandwidth of reading the weights, for weights which don't need more than float precision.
+ * A weight which is too large for a float becomes POSITIVE_INFINITY, a missing edge.
+ */
+final class FloatPackedTriangleStorage implements WeightStorage {
+
+  private float[][] blocks;
+  private int capacity;
+  private boolean shared; //True if the blocks array is shared with a snapshot
+  private int version; //Increased on every snapshot
+  private int[] blockVersions; //A block belongs only to this storage if its version is the current version
+
+  FloatPackedTriangleStorage(int capacity) {
+    this.capacity = capacity;
+    blocks = new float[PackedTriangleStorage.numberOfBlocks(capacity)][];
+    for (int block = 0; block < blocks.length; block++) {
+      blocks[block] = new float[PackedTriangleStorage.blockLength(block, capacity)];
+      Arrays.fill(blocks[block], Float.POSITIVE_INFINITY);
+    }
+    blockVersions = new int[blocks.length];
+  }
+
+  /**
+   * A read only snapshot.
+   */
+  private FloatPackedTriangleStorage(float[][] blocks, int capacity) {
+    this.blocks = blocks;
+    this.capacity = capacity;
+  }
+
+  @Override public int capacity() {
+    return capacity;
+  }
+
+  @Override public double getWeight(int v1, int v2) {
+    int upper = Math.max(v1, v2);
+    return blocks[upper >>> PackedTriangleStorage.BLOCK_SHIFT][PackedTriangleStorage.index(upper, Math.min(v1, v2))];
+  }
+
+  @Override public void setWeight(int v1, int v2, double weight) {
+    if (shared) {
+      blocks = blocks.clone(); //Only the blocks references, the blocks are copied once modified
+      shared = false;
+    }
+    int upper = Math.max(v1, v2);
+    float[] block = getWritableBlock(upper >>> PackedTriangleStorage.BLOCK_SHIFT);
+    block[PackedTriangleStorage.index(upper, Math.min(v1, v2))] = (float) weight;
+  }
+
+  @Override public void ensureCapacity(int numberOfVertices) {
+    if (numberOfVertices <= capacity) {
+      return;
+    }
+    int newCapacity = Math.max(numberOfVertices, capacity * 2);
+    int numberOfBlocks = blocks.length;
+    blocks = Arrays.copyOf(blocks, PackedTriangleStorage.numberOfBlocks(newCapacity));
+    blockVersions = Arrays.copyOf(blockVersions, blocks.length);
+    for (int block = capacity >>> PackedTriangleStorage.BLOCK_SHIFT; block < blocks.length; block++) {
+      int length = block < numberOfBlocks ? blocks[block].length : 0;
+      int newLength = PackedTriangleStorage.blockLength(block, newCapacity);
+      blocks[block] = block < numberOfBlocks ? Arrays.copyOf(blocks[block], newLength) : new float[newLength];
+      Arrays.fill(blocks[block], length, blocks[block].length, Float.POSITIVE_INFINITY);
+      blockVersions[block] = version;
+    }
+    capacity = newCapacity;
+    shared = false;
+  }
+
+  @Override public WeightStorage snapshot() {
+    shared = true;
+    version++; //All current blocks are now shared with the snapshot
+    return new FloatPackedTriangleStorage(blocks, capacity);
+  }
+
+  private float[] getWritableBlock(int block) {
+    if (blockVersions[block] != version) {
+      blocks[block] = blocks[block].clone();
+      blockVersions[block] = version;
+    }
+    return blocks[block];
+  }
+}
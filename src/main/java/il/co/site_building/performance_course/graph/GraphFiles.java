@@ -0,0 +1,229 @@
+package il.co.site_building.performance_course.graph;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes graphs to a binary file, and opens such files as read only graphs which are memory mapped, without parsing or
+ * copying the file into the heap. Opening is constant in the file size, and pages are loaded by the OS on first access.
+ * <p>
+ * The file is little endian:
+ * <ul>
+ *   <li>Header (32 bytes): magic (int), version (int), layout (int), number of vertices (int, highest vertex + 1),
+ *   number of edges (long), reserved (long).</li>
+ *   <li>Vertices: a bitwise array of ceil(numberOfVertices / 64) longs.</li>
+ *   <li>{@link #NEIGHBORS_MATRIX_LAYOUT}: the lower triangle of the neighbors matrix, without the diagonal, as a single
+ *   bit stream of longs. Edge (r, c) where c &lt; r is at bit r * (r - 1) / 2 + c.</li>
+ *   <li>{@link #CSR_LAYOUT}: offsets (numberOfVertices + 1 ints), followed by targets (ints). The neighbors of vertex v
+ *   are targets[offsets[v]..offsets[v + 1]), sorted.</li>
+ * </ul>
+ */
+public class GraphFiles {
+
+  static final int MAGIC = 0x53475246; //"SGRF"
+  static final int VERSION = 1;
+  static final int NEIGHBORS_MATRIX_LAYOUT = 0;
+  static final int CSR_LAYOUT = 1;
+
+  static final int MAGIC_OFFSET = 0;
+  static final int VERSION_OFFSET = 4;
+  static final int LAYOUT_OFFSET = 8;
+  static final int NUMBER_OF_VERTICES_OFFSET = 12;
+  static final int NUMBER_OF_EDGES_OFFSET = 16;
+  static final int HEADER_SIZE = 32;
+
+  private static final int WRITE_BUFFER_SIZE = 1 << 16;
+
+  private GraphFiles() {
+  }
+
+  /**
+   * Writes a neighbors matrix graph. Only the edges between existing vertices are written.
+   *
+   * @param graph The graph to write.
+   * @param path  The file to create or overwrite.
+   */
+  public static void write(NeighborsMatrixGraph graph, Path path) throws IOException {
+    int numberOfVertices = graph.getMaxVertex() + 1;
+    long[] vertices = graph.getVertices();
+    try (FileWriter writer = new FileWriter(path)) {
+      writer.putHeader(NEIGHBORS_MATRIX_LAYOUT, numberOfVertices, 0);
+      writer.putVertices(vertices, numberOfVertices);
+      long numberOfEdges = 0;
+      BitWriter bitWriter = new BitWriter(writer);
+      for (int row = 1; row < numberOfVertices; row++) {
+        long[] neighbors = graph.getNeighborsRow(row);
+        boolean rowExists = (vertices[row / Long.SIZE] & (1L << (row % Long.SIZE))) != 0;
+        for (int bucketEntry = 0; bucketEntry * Long.SIZE < row; bucketEntry++) {
+          int bits = Math.min(Long.SIZE, row - bucketEntry * Long.SIZE);
+          long word = rowExists ? neighbors[bucketEntry] & vertices[bucketEntry] : 0;
+          if (bits < Long.SIZE) {
+            word &= (1L << bits) - 1; //Dropping the diagonal and the upper triangle
+          }
+          numberOfEdges += Long.bitCount(word);
+          bitWriter.put(word, bits);
+        }
+      }
+      bitWriter.flush();
+      writer.putHeader(NEIGHBORS_MATRIX_LAYOUT, numberOfVertices, numberOfEdges);
+    }
+  }
+
+  /**
+   * Writes a CSR graph. The graph is frozen first.
+   *
+   * @param graph The graph to write.
+   * @param path  The file to create or overwrite.
+   */
+  public static void write(CsrSimpleGraph graph, Path path) throws IOException {
+    int[] offsets = graph.getOffsets();
+    int[] targets = graph.getTargets();
+    int numberOfVertices = graph.getMaxVertex() + 1;
+    try (FileWriter writer = new FileWriter(path)) {
+      writer.putHeader(CSR_LAYOUT, numberOfVertices, targets.length / 2);
+      writer.putVertices(graph.getVertices(), numberOfVertices);
+      for (int vertex = 0; vertex <= numberOfVertices; vertex++) {
+        writer.putInt(offsets[vertex]);
+      }
+      for (int target : targets) {
+        writer.putInt(target);
+      }
+    }
+  }
+
+  /**
+   * Opens a graph file as a read only graph. The graph should be closed once it isn't needed anymore.
+   *
+   * @param path A file created by one of the write methods.
+   * @return A read only graph, backed by the file.
+   * @throws IOException If the file can't be read, or isn't a graph file.
+   */
+  public static MappedSimpleGraph open(Path path) throws IOException {
+    MappedGraphFile file = new MappedGraphFile(path);
+    switch (file.getLayout()) {
+      case NEIGHBORS_MATRIX_LAYOUT:
+        return new MappedNeighborsMatrixGraph(file);
+      case CSR_LAYOUT:
+        return new MappedCsrGraph(file);
+      default:
+        file.close();
+        throw new IOException("Unknown graph file layout " + file.getLayout() + ": " + path);
+    }
+  }
+
+  static int getVerticesLongs(int numberOfVertices) {
+    return (numberOfVertices + Long.SIZE - 1) / Long.SIZE;
+  }
+
+  /**
+   * Buffered sequential writer of little endian values.
+   */
+  private static class FileWriter implements AutoCloseable {
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+
+    FileWriter(Path path) throws IOException {
+      channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                 StandardOpenOption.TRUNCATE_EXISTING);
+      buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Writes the header at the beginning of the file, regardless of the current position.
+     */
+    void putHeader(int layout, int numberOfVertices, long numberOfEdges) throws IOException {
+      flush();
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+      header.putInt(MAGIC_OFFSET, MAGIC)
+            .putInt(VERSION_OFFSET, VERSION)
+            .putInt(LAYOUT_OFFSET, layout)
+            .putInt(NUMBER_OF_VERTICES_OFFSET, numberOfVertices)
+            .putLong(NUMBER_OF_EDGES_OFFSET, numberOfEdges);
+      long position = channel.position();
+      channel.position(0);
+      while (header.hasRemaining()) {
+        channel.write(header);
+      }
+      channel.position(Math.max(position, HEADER_SIZE));
+    }
+
+    void putVertices(long[] vertices, int numberOfVertices) throws IOException {
+      for (int bucketEntry = 0; bucketEntry < getVerticesLongs(numberOfVertices); bucketEntry++) {
+        putLong(vertices[bucketEntry]);
+      }
+    }
+
+    void putLong(long value) throws IOException {
+      if (buffer.remaining() < Long.BYTES) {
+        flush();
+      }
+      buffer.putLong(value);
+    }
+
+    void putInt(int value) throws IOException {
+      if (buffer.remaining() < Integer.BYTES) {
+        flush();
+      }
+      buffer.putInt(value);
+    }
+
+    private void flush() throws IOException {
+      buffer.flip();
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+      buffer.clear();
+    }
+
+    @Override public void close() throws IOException {
+      try {
+        flush();
+      } finally {
+        channel.close();
+      }
+    }
+  }
+
+  /**
+   * Appends words of up to 64 bits into a continuous bit stream.
+   */
+  private static class BitWriter {
+
+    private final FileWriter writer;
+    private long currentWord;
+    private int currentBits; //Number of bits already used in the current word
+
+    BitWriter(FileWriter writer) {
+      this.writer = writer;
+    }
+
+    /**
+     * @param word The bits to append, where all bits from position bits and up are 0.
+     * @param bits Number of bits to append, between 1 and 64.
+     */
+    void put(long word, int bits) throws IOException {
+      currentWord |= word << currentBits;
+      int freeBits = Long.SIZE - currentBits;
+      if (bits < freeBits) {
+        currentBits += bits;
+        return;
+      }
+      writer.putLong(currentWord);
+      currentWord = freeBits == Long.SIZE ? 0 : word >>> freeBits;
+      currentBits = bits - freeBits;
+    }
+
+    void flush() throws IOException {
+      if (currentBits > 0) {
+        writer.putLong(currentWord);
+        currentWord = 0;
+        currentBits = 0;
+      }
+    }
+  }
+}
@@ -0,0 +1,34 @@
+package il.co.site_building.performance_course.graph;
+
+/**
+ * Hashes for 64 bit graph content fingerprints.
+ * A fingerprint is the XOR of the hashes of all vertices and all edges (self loops excluded), so it doesn't depend on
+ * the order of insertion or on the implementation, and it's updated in O(1) by XOR-ing the hash of an added or removed
+ * vertex or edge.
+ */
+final class GraphFingerprint {
+
+  private static final long VERTEX_SEED = 0x9E3779B97F4A7C15L;
+  private static final long EDGE_SEED = 0xC2B2AE3D27D4EB4FL;
+
+  private GraphFingerprint() {
+  }
+
+  static long vertexHash(int vertex) {
+    return mix(vertex ^ VERTEX_SEED);
+  }
+
+  static long edgeHash(int v1, int v2) {
+    long key = ((long) Math.max(v1, v2) << Integer.SIZE) | Math.min(v1, v2);
+    return mix(key ^ EDGE_SEED);
+  }
+
+  /**
+   * The SplitMix64 finalizer, so close vertices and edges have unrelated hashes.
+   */
+  private static long mix(long value) {
+    value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+    value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+    return value ^ (value >>> 31);
+  }
+}
@@ -0,0 +1,129 @@
+package il.co.site_building.performance_course.graph;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongConsumer;
+
+import gnu.trove.list.array.TIntArrayList;
+
+/**
+ * Simple graph with sparse 64 bit vertex ids.
+ * The ids are mapped to dense indexes by a {@link VertexIdMap}, and the underlying graph stores only the indexes, so
+ * its memory is proportional to the number of vertices instead of the maximal id. Ids are translated back at the
+ * boundaries of this class.
+ * <p>
+ * Indexes of removed vertices are reused, so the edges of a vertex are removed with it, unlike the underlying graphs
+ * where the edges of a removed vertex are back once it is added again.
+ */
+public class IdMappedSimpleGraph {
+
+  private final SimpleGraph graph;
+  private final VertexIdMap idMap;
+
+  /**
+   * Creates an empty graph, backed by a {@link NeighborsMatrixGraph}.
+   */
+  public IdMappedSimpleGraph() {
+    this(new NeighborsMatrixGraph());
+  }
+
+  /**
+   * @param graph An empty graph to store the indexes in. It shouldn't be modified directly from now on.
+   */
+  public IdMappedSimpleGraph(SimpleGraph graph) {
+    this.graph = graph;
+    this.idMap = new VertexIdMap();
+  }
+
+  public void addVertex(long id) {
+    graph.addVertex(idMap.add(id));
+  }
+
+  public void removeVertex(long id) {
+    int index = idMap.indexOf(id);
+    if (index == VertexIdMap.NO_INDEX) {
+      return; //Nothing to do
+    }
+    TIntArrayList neighbors = new TIntArrayList();
+    graph.forEachNeighbor(index, neighbors::add);
+    for (int neighborEntry = 0; neighborEntry < neighbors.size(); neighborEntry++) {
+      graph.removeEdge(index, neighbors.getQuick(neighborEntry));
+    }
+    graph.removeVertex(index);
+    idMap.remove(id);
+  }
+
+  public boolean vertexExists(long id) {
+    return idMap.indexOf(id) != VertexIdMap.NO_INDEX;
+  }
+
+  public void addEdge(long id1, long id2) {
+    int index1 = idMap.indexOf(id1);
+    int index2 = idMap.indexOf(id2);
+    if (index1 != VertexIdMap.NO_INDEX && index2 != VertexIdMap.NO_INDEX) {
+      graph.addEdge(index1, index2);
+    }
+  }
+
+  public void removeEdge(long id1, long id2) {
+    int index1 = idMap.indexOf(id1);
+    int index2 = idMap.indexOf(id2);
+    if (index1 != VertexIdMap.NO_INDEX && index2 != VertexIdMap.NO_INDEX) {
+      graph.removeEdge(index1, index2);
+    }
+  }
+
+  /**
+   * Same as {@link SimpleGraph#edgeExists(int, int)}, a vertex is always connected to itself.
+   */
+  public boolean edgeExists(long id1, long id2) {
+    if (id1 == id2) {
+      return true;
+    }
+    int index1 = idMap.indexOf(id1);
+    int index2 = idMap.indexOf(id2);
+    return index1 != VertexIdMap.NO_INDEX && index2 != VertexIdMap.NO_INDEX && graph.edgeExists(index1, index2);
+  }
+
+  public void forEachVertex(LongConsumer vertexConsumer) {
+    graph.forEachVertex(index -> vertexConsumer.accept(idMap.idOf(index)));
+  }
+
+  public void forEachNeighbor(long id, LongConsumer neighborConsumer) {
+    int index = idMap.indexOf(id);
+    if (index != VertexIdMap.NO_INDEX) {
+      graph.forEachNeighbor(index, neighbor -> neighborConsumer.accept(idMap.idOf(neighbor)));
+    }
+  }
+
+  public int degree(long id) {
+    int index = idMap.indexOf(id);
+    return index == VertexIdMap.NO_INDEX ? 0 : graph.degree(index);
+  }
+
+  public int numberOfVertices() {
+    return idMap.size();
+  }
+
+  /**
+   * Finds the connected components, by labeling the indexes of the underlying graph.
+   *
+   * @return The ids of each component.
+   */
+  public List<long[]> connectedComponents() {
+    ConnectedComponentsLabels labels = graph.labelConnectedComponents();
+    List<long[]> connectedComponents = new ArrayList<>(labels.numberOfComponents());
+    labels.forEachComponent((componentsVertices, from, to) -> {
+      long[] componentIds = new long[to - from];
+      for (int index = from; index < to; index++) {
+        componentIds[index - from] = idMap.idOf(componentsVertices[index]);
+      }
+      connectedComponents.add(componentIds);
+    });
+    return connectedComponents;
+  }
+
+  public VertexIdMap getIdMap() {
+    return idMap;
+  }
+}
@@ -0,0 +1,117 @@
+package il.co.site_building.performance_course.graph;
+
+/**
+ * Weighted undirected graph with sparse 64 bit vertex ids.
+ * The ids are mapped to dense indexes by a {@link VertexIdMap}, and the underlying
+ * {@link UndirectedWeightedNeighborsMatrixGraph} stores only the indexes, so its matrix is proportional to the number of
+ * vertices instead of the maximal id. Ids are translated back at the boundaries of this class.
+ * <p>
+ * Indexes of removed vertices are reused, so the edges of a vertex are removed with it.
+ */
+public class IdMappedWeightedGraph {
+
+  private final UndirectedWeightedNeighborsMatrixGraph graph;
+  private final VertexIdMap idMap;
+
+  /**
+   * Creates an empty graph, backed by a {@link UndirectedWeightedNeighborsMatrixGraphImpl}.
+   */
+  public IdMappedWeightedGraph() {
+    this(new UndirectedWeightedNeighborsMatrixGraphImpl());
+  }
+
+  /**
+   * @param graph An empty graph to store the indexes in. It shouldn't be modified directly from now on.
+   */
+  public IdMappedWeightedGraph(UndirectedWeightedNeighborsMatrixGraph graph) {
+    this.graph = graph;
+    this.idMap = new VertexIdMap();
+  }
+
+  public void addVertex(long id) {
+    graph.addVertex(idMap.add(id));
+  }
+
+  public void removeVertex(long id) {
+    int index = idMap.indexOf(id);
+    if (index == VertexIdMap.NO_INDEX) {
+      return; //Nothing to do
+    }
+    for (int neighbor = 0; neighbor < idMap.getIndexBound(); neighbor++) {
+      graph.setEdge(index, neighbor, Double.POSITIVE_INFINITY); //Does nothing for indexes which aren't used
+    }
+    graph.removeVertex(index);
+    idMap.remove(id);
+  }
+
+  public boolean vertexExists(long id) {
+    return idMap.indexOf(id) != VertexIdMap.NO_INDEX;
+  }
+
+  /**
+   * Sets the weight of an edge, see {@link UndirectedWeightedNeighborsMatrixGraph#setEdge(int, int, double)}.
+   * Does nothing if one of the vertices doesn't exist.
+   */
+  public void setEdge(long id1, long id2, double weight) {
+    int index1 = idMap.indexOf(id1);
+    int index2 = idMap.indexOf(id2);
+    if (index1 != VertexIdMap.NO_INDEX && index2 != VertexIdMap.NO_INDEX) {
+      graph.setEdge(index1, index2, weight);
+    }
+  }
+
+  public boolean containsEdge(long id1, long id2) {
+    int index1 = idMap.indexOf(id1);
+    int index2 = idMap.indexOf(id2);
+    return index1 != VertexIdMap.NO_INDEX && index2 != VertexIdMap.NO_INDEX && graph.containsEdge(index1, index2);
+  }
+
+  /**
+   * @return The weight of the edge, or NaN if one of the vertices doesn't exist.
+   */
+  public double getEdgeWeight(long id1, long id2) {
+    int index1 = idMap.indexOf(id1);
+    int index2 = idMap.indexOf(id2);
+    if (index1 == VertexIdMap.NO_INDEX || index2 == VertexIdMap.NO_INDEX) {
+      return Double.NaN;
+    }
+    return graph.getEdgeWeight(index1, index2);
+  }
+
+  /**
+   * Finds the shortest path with the underlying graph, and translates it back to ids.
+   *
+   * @param source Source vertex.
+   * @param dest   Destination vertex.
+   * @return The shortest path ids, from the destination back to the source as in {@link PathResult}, and its length.
+   * An empty path with an infinite length if there is no path or one of the vertices doesn't exist.
+   */
+  public IdPathResult findShortestPath(long source, long dest) {
+    int sourceIndex = idMap.indexOf(source);
+    int destIndex = idMap.indexOf(dest);
+    if (sourceIndex == VertexIdMap.NO_INDEX || destIndex == VertexIdMap.NO_INDEX) {
+      return new IdPathResult(new long[0], Double.POSITIVE_INFINITY);
+    }
+    PathResult pathResult = graph.findShortestPath(sourceIndex, destIndex);
+    long[] path = new long[pathResult.path.size()];
+    for (int pathEntry = 0; pathEntry < path.length; pathEntry++) {
+      path[pathEntry] = idMap.idOf(pathResult.path.get(pathEntry));
+    }
+    return new IdPathResult(path, pathResult.distances);
+  }
+
+  public int numberOfVertices() {
+    return idMap.size();
+  }
+
+  public VertexIdMap getIdMap() {
+    return idMap;
+  }
+
+  /**
+   * @param path     The ids on the path, from the destination back to the source.
+   * @param distance The length of the path.
+   */
+  public record IdPathResult(long[] path, double distance) {
+  }
+}
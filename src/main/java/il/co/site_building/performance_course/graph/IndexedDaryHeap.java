@@ -0,0 +1,96 @@
+package il.co.site_building.performance_course.graph;
+
+/**
+ * An indexed d-ary min heap with decrease key. The keys are kept in an array parallel to the heap, so the children of a
+ * node, which are compared on sift down, are adjacent in memory. A larger arity makes the heap shallower, which makes
+ * decrease key cheaper and extract min more expensive.
+ */
+final class IndexedDaryHeap implements VertexPriorityQueue {
+
+  private final int arity;
+  private final int[] heap; //Vertices in heap order
+  private final double[] heapKeys; //heapKeys[i] is the key of heap[i]
+  private final int[] positions; //positions[v] is the index of vertex v in the heap, if it's in the heap
+  private int size;
+
+  IndexedDaryHeap(int capacity, int arity) {
+    this.arity = arity;
+    heap = new int[capacity];
+    heapKeys = new double[capacity];
+    positions = new int[capacity];
+  }
+
+  @Override public void insert(int vertex, double key) {
+    siftUp(size++, vertex, key);
+  }
+
+  @Override public void decreaseKey(int vertex, double key) {
+    siftUp(positions[vertex], vertex, key);
+  }
+
+  @Override public int extractMin() {
+    int minVertex = heap[0];
+    size--;
+    if (size > 0) {
+      siftDown(0, heap[size], heapKeys[size]);
+    }
+    return minVertex;
+  }
+
+  @Override public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * @return The minimal key, the heap shouldn't be empty.
+   */
+  double minKey() {
+    return heapKeys[0];
+  }
+
+  /**
+   * Moves the vertex up from the position, shifting larger parents down, and places it.
+   */
+  private void siftUp(int position, int vertex, double key) {
+    while (position > 0) {
+      int parent = (position - 1) / arity;
+      if (heapKeys[parent] <= key) {
+        break;
+      }
+      place(position, heap[parent], heapKeys[parent]);
+      position = parent;
+    }
+    place(position, vertex, key);
+  }
+
+  /**
+   * Moves the vertex down from the position, shifting smaller children up, and places it.
+   */
+  private void siftDown(int position, int vertex, double key) {
+    while (true) {
+      int firstChild = position * arity + 1;
+      if (firstChild >= size) {
+        break;
+      }
+      int lastChild = Math.min(firstChild + arity, size);
+      int minChild = firstChild;
+      for (int child = firstChild + 1; child < lastChild; child++) {
+        if (heapKeys[child] < heapKeys[minChild]) {
+          minChild = child;
+        }
+      }
+      if (key <= heapKeys[minChild]) {
+        break;
+      }
+      place(position, heap[minChild], heapKeys[minChild]);
+      position = minChild;
+    }
+    place(position, vertex, key);
+  }
+
+  private void place(int position, int vertex, double key) {
+    heap[position] = vertex;
+    heapKeys[position] = key;
+    positions[vertex] = position;
+  }
+}
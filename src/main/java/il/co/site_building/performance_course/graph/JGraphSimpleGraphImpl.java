@@ -1,13 +1,24 @@
 package il.co.site_building.performance_course.graph;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.PrimitiveIterator;
 import java.util.Random;
 import java.util.Set;
+import java.util.function.IntConsumer;
+
+import gnu.trove.impl.Constants;
+import gnu.trove.map.hash.TIntIntHashMap;
 
 import org.jgrapht.Graph;
+import org.jgrapht.GraphMetrics;
+import org.jgrapht.Graphs;
+import org.jgrapht.alg.clique.DegeneracyBronKerboschCliqueFinder;
 import org.jgrapht.alg.connectivity.ConnectivityInspector;
+import org.jgrapht.alg.scoring.ClusteringCoefficient;
 import org.jgrapht.graph.DefaultEdge;
 import org.jgrapht.graph.DefaultUndirectedGraph;
 
@@ -17,7 +28,13 @@ import org.jgrapht.graph.DefaultUndirectedGraph;
  */
 public class JGraphSimpleGraphImpl implements SimpleGraph {
 
+  private static final int NOT_TRACKED = -1;
+
   private final Graph<Integer, DefaultEdge> graph;
+  private ConnectivityTracker connectivityTracker; //Null until the first connectivity query.
+  //JGraphT accepts any int vertex, so the tracker is indexed by a dense index per vertex
+  private final TIntIntHashMap trackerIndexes =
+      new TIntIntHashMap(Constants.DEFAULT_CAPACITY, Constants.DEFAULT_LOAD_FACTOR, 0, NOT_TRACKED);
 
   /**
    * Creates an empty graph.
@@ -39,10 +56,15 @@ public class JGraphSimpleGraphImpl implements SimpleGraph {
 
   @Override public void addVertex(int vertex) {
     graph.addVertex(vertex);
+    if (connectivityTracker != null && !connectivityTracker.isDirty()) {
+      connectivityTracker.addVertex(trackVertex(vertex));
+    }
   }
 
   @Override public void removeVertex(int vertex) {
-    graph.removeVertex(vertex);
+    if (graph.removeVertex(vertex) && connectivityTracker != null) {
+      connectivityTracker.markDirty();
+    }
   }
 
   @Override public boolean vertexExists(int vertex) {
@@ -51,10 +73,117 @@ public class JGraphSimpleGraphImpl implements SimpleGraph {
 
   @Override public void addEdge(int v1, int v2) {
     graph.addEdge(v1, v2);
+    if (connectivityTracker != null && !connectivityTracker.isDirty()) {
+      connectivityTracker.union(trackerIndexes.get(v1), trackerIndexes.get(v2));
+    }
   }
 
   @Override public void removeEdge(int v1, int v2) {
-    graph.removeEdge(v1, v2);
+    if (graph.removeEdge(v1, v2) != null && connectivityTracker != null) {
+      connectivityTracker.markDirty();
+    }
+  }
+
+  /**
+   * Checks if two vertices are in the same connected component.
+   * Connectivity tracking starts on the first query: from then on additions are applied incrementally to a union find
+   * forest, and removals trigger a lazy rebuild on the next query.
+   *
+   * @param v1 First vertex
+   * @param v2 Second vertex
+   * @return True if both vertices exist and there is a path between them, false otherwise.
+   */
+  public boolean connected(int v1, int v2) {
+    ConnectivityTracker tracker = updatedConnectivityTracker();
+    return tracker.connected(trackerIndexes.get(v1), trackerIndexes.get(v2));
+  }
+
+  /**
+   * Counts the connected components. See {@link #connected(int, int)} for the tracking details.
+   *
+   * @return The number of connected components.
+   */
+  public int componentCount() {
+    return updatedConnectivityTracker().componentCount();
+  }
+
+  private ConnectivityTracker updatedConnectivityTracker() {
+    if (connectivityTracker == null) {
+      connectivityTracker = new ConnectivityTracker(graph.vertexSet().size());
+      connectivityTracker.markDirty();
+    }
+    if (connectivityTracker.isDirty()) {
+      connectivityTracker.reset();
+      trackerIndexes.clear();
+      graph.vertexSet().forEach(vertex -> connectivityTracker.addVertex(trackVertex(vertex)));
+      graph.edgeSet().forEach(edge -> connectivityTracker.union(trackerIndexes.get(graph.getEdgeSource(edge)),
+                                                                trackerIndexes.get(graph.getEdgeTarget(edge))));
+    }
+    return connectivityTracker;
+  }
+
+  /**
+   * @return The tracker index of the vertex, which is allocated on its first call.
+   */
+  private int trackVertex(int vertex) {
+    int index = trackerIndexes.get(vertex);
+    if (index == NOT_TRACKED) {
+      index = trackerIndexes.size();
+      trackerIndexes.put(vertex, index);
+    }
+    return index;
+  }
+
+  /**
+   * Counts the triangles using JGraphT's {@link GraphMetrics}.
+   */
+  public long countTriangles() {
+    return GraphMetrics.getNumberOfTriangles(graph);
+  }
+
+  /**
+   * Computes the content fingerprint in O(V + E), by iterating the vertices and the edges.
+   * Equals {@link NeighborsMatrixGraph#fingerprint()} of a graph with the same vertices and edges, so graphs of both
+   * implementations can be compared without an edge lookup per pair.
+   */
+  public long fingerprint() {
+    long fingerprint = 0;
+    for (int vertex : graph.vertexSet()) {
+      fingerprint ^= GraphFingerprint.vertexHash(vertex);
+    }
+    for (DefaultEdge edge : graph.edgeSet()) {
+      int source = graph.getEdgeSource(edge);
+      int target = graph.getEdgeTarget(edge);
+      if (source != target) {
+        fingerprint ^= GraphFingerprint.edgeHash(source, target);
+      }
+    }
+    return fingerprint;
+  }
+
+  /**
+   * Counts the maximal cliques using JGraphT's {@link DegeneracyBronKerboschCliqueFinder}.
+   */
+  public long countMaximalCliques() {
+    long cliques = 0;
+    for (Set<Integer> ignored : new DegeneracyBronKerboschCliqueFinder<>(graph)) {
+      cliques++;
+    }
+    return cliques;
+  }
+
+  /**
+   * Calculates the local clustering coefficient using JGraphT's {@link ClusteringCoefficient}.
+   */
+  public double localClusteringCoefficient(int vertex) {
+    return new ClusteringCoefficient<>(graph).getVertexScore(vertex);
+  }
+
+  /**
+   * Calculates the global clustering coefficient using JGraphT's {@link ClusteringCoefficient}.
+   */
+  public double globalClusteringCoefficient() {
+    return new ClusteringCoefficient<>(graph).getGlobalClusteringCoefficient();
   }
 
   @Override public boolean edgeExists(int v1, int v2) {
@@ -62,17 +191,81 @@ public class JGraphSimpleGraphImpl implements SimpleGraph {
   }
 
   @Override public Collection<SimpleGraph> createConnectedComponents() {
+    ConnectedComponentsLabels labels = labelConnectedComponents();
+    Collection<SimpleGraph> connectedComponents = new HashSet<>(labels.numberOfComponents());
+    labels.forEachComponent((componentsVertices, from, to) ->
+                                connectedComponents.add(createConnectedComponent(componentsVertices, from, to)));
+    return connectedComponents;
+  }
+
+  /**
+   * JGraphT accepts any int vertex, so the labels are indexed by the vertices themselves only if they are dense in
+   * [0..2 * numberOfVertices), and otherwise by the index of each vertex in the sorted vertices.
+   */
+  @Override public ConnectedComponentsLabels labelConnectedComponents() {
     ConnectivityInspector<Integer, DefaultEdge> connectivityInspector = new ConnectivityInspector<>(graph);
     List<Set<Integer>> connectivitySets = connectivityInspector.connectedSets();
-    Collection<SimpleGraph> connectedComponents = new HashSet<>(connectivitySets.size());
-    connectivitySets.forEach(connectivitySet -> connectedComponents.add(createConnectedComponent(connectivitySet)));
-    return connectedComponents;
+    int[] vertices = graph.vertexSet().stream().mapToInt(Integer::intValue).sorted().toArray();
+    boolean dense = vertices.length == 0 || (vertices[0] >= 0 && vertices[vertices.length - 1] < 2L * vertices.length);
+    int[] labels = new int[dense && vertices.length > 0 ? vertices[vertices.length - 1] + 1 : vertices.length];
+    Arrays.fill(labels, ConnectedComponentsLabels.NO_COMPONENT);
+    int[] componentSizes = new int[connectivitySets.size()];
+    for (int component = 0; component < componentSizes.length; component++) {
+      Set<Integer> connectivitySet = connectivitySets.get(component);
+      componentSizes[component] = connectivitySet.size();
+      for (Integer vertex : connectivitySet) {
+        labels[dense ? vertex : Arrays.binarySearch(vertices, vertex)] = component;
+      }
+    }
+    return new ConnectedComponentsLabels(labels, componentSizes, dense ? null : vertices);
   }
 
   @Override public Set<Integer> vertexSet() {
     return graph.vertexSet();
   }
 
+  /**
+   * Visits all vertices in their insertion order.
+   */
+  @Override public void forEachVertex(IntConsumer vertexConsumer) {
+    for (Integer vertex : graph.vertexSet()) {
+      vertexConsumer.accept(vertex);
+    }
+  }
+
+  @Override public void forEachNeighbor(int vertex, IntConsumer neighborConsumer) {
+    if (!graph.containsVertex(vertex)) {
+      return;
+    }
+    for (DefaultEdge edge : graph.edgesOf(vertex)) {
+      int neighbor = Graphs.getOppositeVertex(graph, edge, vertex);
+      if (neighbor != vertex) {
+        neighborConsumer.accept(neighbor);
+      }
+    }
+  }
+
+  @Override public int degree(int vertex) {
+    if (!graph.containsVertex(vertex)) {
+      return 0;
+    }
+    //JGraphT counts a self loop twice, while it isn't a neighbor here
+    return graph.containsEdge(vertex, vertex) ? graph.degreeOf(vertex) - 2 : graph.degreeOf(vertex);
+  }
+
+  @Override public PrimitiveIterator.OfInt vertexIterator() {
+    Iterator<Integer> vertexIterator = graph.vertexSet().iterator();
+    return new PrimitiveIterator.OfInt() {
+      @Override public boolean hasNext() {
+        return vertexIterator.hasNext();
+      }
+
+      @Override public int nextInt() {
+        return vertexIterator.next();
+      }
+    };
+  }
+
   @Override public void randomizeEdges(Random random, int maxVertex, double loadFactor) {
     for (int vertex = 0; vertex < maxVertex; vertex++) {
       for (int neighbor = vertex; neighbor < maxVertex; neighbor++) {
@@ -84,16 +277,20 @@ public class JGraphSimpleGraphImpl implements SimpleGraph {
     }
   }
 
-  private SimpleGraph createConnectedComponent(Set<Integer> connectivitySet) {
+  private SimpleGraph createConnectedComponent(int[] componentVertices, int from, int to) {
     SimpleGraph connectedComponent = new JGraphSimpleGraphImpl();
-    for (Integer integer : connectivitySet) {
-      connectedComponent.addVertex(integer);
+    for (int index = from; index < to; index++) {
+      connectedComponent.addVertex(componentVertices[index]);
+    }
+    for (int index = from; index < to; index++) {
+      int vertex = componentVertices[index];
+      graph.edgesOf(vertex).forEach(edge -> {
+        //Each edge is reached from both of its vertices, adding it once from its source
+        if (graph.getEdgeSource(edge) == vertex) {
+          connectedComponent.addEdge(vertex, graph.getEdgeTarget(edge));
+        }
+      });
     }
-    graph.edgeSet().forEach(edge -> {
-      if (graph.containsEdge(edge)) {
-        connectedComponent.addEdge(graph.getEdgeSource(edge), graph.getEdgeTarget(edge));
-      }
-    });
     return connectedComponent;
   }
 
@@ -103,4 +300,15 @@ public class JGraphSimpleGraphImpl implements SimpleGraph {
     return graph;
   }
 
+  /**
+   * Creates a random graph, where the edges are generated in parallel by a {@link RandomGraphGenerator}.
+   */
+  public static JGraphSimpleGraphImpl createRandomGraph(long seed, int numberOfVertices, double loadFactor,
+                                                        int parallelism) {
+    JGraphSimpleGraphImpl graph = new JGraphSimpleGraphImpl(numberOfVertices);
+    new RandomGraphGenerator(seed, loadFactor, parallelism)
+        .generateEdges(numberOfVertices, false, EdgeListLoader.simpleGraphConsumer(graph));
+    return graph;
+  }
+
 }
@@ -0,0 +1,45 @@
+package il.co.site_building.performance_course.graph;
+
+import java.util.Arrays;
+
+/**
+ * The classic queue of Dijkstra over a neighbors matrix: O(1) insert and decrease key, and O(V) extract min by scanning
+ * the keys of all vertices. Best for dense graphs, where there's a decrease key for almost every matrix entry.
+ */
+final class LinearScanQueue implements VertexPriorityQueue {
+
+  private final double[] keys; //POSITIVE_INFINITY for vertices which aren't in the queue
+  private int size;
+
+  LinearScanQueue(int capacity) {
+    keys = new double[capacity];
+    Arrays.fill(keys, Double.POSITIVE_INFINITY);
+  }
+
+  @Override public void insert(int vertex, double key) {
+    keys[vertex] = key;
+    size++;
+  }
+
+  @Override public void decreaseKey(int vertex, double key) {
+    keys[vertex] = key;
+  }
+
+  @Override public int extractMin() {
+    int minVertex = 0;
+    double minKey = Double.POSITIVE_INFINITY;
+    for (int vertex = 0; vertex < keys.length; vertex++) {
+      if (keys[vertex] < minKey) {
+        minKey = keys[vertex];
+        minVertex = vertex;
+      }
+    }
+    keys[minVertex] = Double.POSITIVE_INFINITY;
+    size--;
+    return minVertex;
+  }
+
+  @Override public boolean isEmpty() {
+    return size == 0;
+  }
+}
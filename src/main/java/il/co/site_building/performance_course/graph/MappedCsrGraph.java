@@ -0,0 +1,143 @@
+package il.co.site_building.performance_course.graph;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.function.IntConsumer;
+
+/**
+ * Read only CSR graph, mapped from a {@link GraphFiles#CSR_LAYOUT} file.
+ * The offsets and targets are read directly from the mapping, and each row is sorted, so edge lookups are a binary search.
+ */
+public class MappedCsrGraph extends MappedSimpleGraph {
+
+  private final long offsetsOffset;
+  private final long targetsOffset;
+
+  MappedCsrGraph(MappedGraphFile file) {
+    super(file);
+    offsetsOffset = dataOffset;
+    targetsOffset = offsetsOffset + (long) (maxVertex + 2) * Integer.BYTES;
+  }
+
+  @Override public boolean edgeExists(int v1, int v2) {
+    if (v1 == v2) {
+      return true;
+    }
+    if (!vertexExists(v1) || !vertexExists(v2)) {
+      return false;
+    }
+    int low = getOffset(v1);
+    int high = getOffset(v1 + 1) - 1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      int target = getTarget(middle);
+      if (target < v2) {
+        low = middle + 1;
+      } else if (target > v2) {
+        high = middle - 1;
+      } else {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override public void forEachNeighbor(int vertex, IntConsumer neighborConsumer) {
+    if (!vertexExists(vertex)) {
+      return;
+    }
+    int rowEnd = getOffset(vertex + 1);
+    for (int entry = getOffset(vertex); entry < rowEnd; entry++) {
+      neighborConsumer.accept(getTarget(entry));
+    }
+  }
+
+  @Override public int degree(int vertex) {
+    if (!vertexExists(vertex)) {
+      return 0;
+    }
+    return getOffset(vertex + 1) - getOffset(vertex);
+  }
+
+  /**
+   * Creates all connected components sub graphs of this graph.
+   * The components are on heap {@link CsrSimpleGraph} instances.
+   *
+   * @return A collection of the connected components.
+   */
+  @Override public Collection<SimpleGraph> createConnectedComponents() {
+    ConnectedComponentsLabels labels = labelConnectedComponents();
+    Collection<SimpleGraph> connectedComponents = new HashSet<>();
+    labels.forEachComponent((componentsVertices, from, to) -> {
+      CsrSimpleGraph connectedComponent = new CsrSimpleGraph();
+      for (int index = from; index < to; index++) {
+        connectedComponent.addVertex(componentsVertices[index]);
+      }
+      for (int index = from; index < to; index++) {
+        int vertex = componentsVertices[index];
+        int rowEnd = getOffset(vertex + 1);
+        for (int entry = getOffset(vertex); entry < rowEnd; entry++) {
+          int neighbor = getTarget(entry);
+          if (neighbor > vertex) {
+            connectedComponent.addEdge(vertex, neighbor);
+          }
+        }
+      }
+      connectedComponent.freeze();
+      connectedComponents.add(connectedComponent);
+    });
+    return connectedComponents;
+  }
+
+  @Override public ConnectedComponentsLabels labelConnectedComponents() {
+    long[] vertices = readVertices();
+    int[] labels = new int[maxVertex + 1];
+    Arrays.fill(labels, ConnectedComponentsLabels.NO_COMPONENT);
+    int[] componentSizes = new int[Math.max(maxVertex + 1, 1)];
+    int numberOfComponents = 0;
+    long[] visited = new long[vertices.length]; // A bit wise boolean visited array used for DFS traversal
+    int[] verticesStack = new int[maxVertex + 1];
+    for (int bucketEntry = 0; bucketEntry < vertices.length; bucketEntry++) {
+      long undiscovered = vertices[bucketEntry] & ~visited[bucketEntry];
+      while (undiscovered != 0) {
+        int nextVertex = bucketEntry * Long.SIZE + Long.numberOfTrailingZeros(undiscovered);
+        componentSizes[numberOfComponents] = runDfs(nextVertex, visited, verticesStack, labels, numberOfComponents);
+        numberOfComponents++;
+        undiscovered = vertices[bucketEntry] & ~visited[bucketEntry];
+      }
+    }
+    return new ConnectedComponentsLabels(labels, Arrays.copyOf(componentSizes, numberOfComponents));
+  }
+
+  private int runDfs(int firstVertex, long[] visited, int[] verticesStack, int[] labels, int label) {
+    int stackSize = 0;
+    int componentSize = 0;
+    visited[firstVertex / Long.SIZE] |= 1L << (firstVertex % Long.SIZE);
+    verticesStack[stackSize++] = firstVertex;
+    while (stackSize > 0) {
+      int vertex = verticesStack[--stackSize];
+      labels[vertex] = label;
+      componentSize++;
+      int rowEnd = getOffset(vertex + 1);
+      for (int entry = getOffset(vertex); entry < rowEnd; entry++) {
+        int neighbor = getTarget(entry);
+        int bucketEntry = neighbor / Long.SIZE;
+        long mask = 1L << (neighbor % Long.SIZE);
+        if ((visited[bucketEntry] & mask) == 0) {
+          visited[bucketEntry] |= mask;
+          verticesStack[stackSize++] = neighbor;
+        }
+      }
+    }
+    return componentSize;
+  }
+
+  private int getOffset(int vertex) {
+    return file.getInt(offsetsOffset + (long) vertex * Integer.BYTES);
+  }
+
+  private int getTarget(int entry) {
+    return file.getInt(targetsOffset + (long) entry * Integer.BYTES);
+  }
+}
@@ -0,0 +1,78 @@
+package il.co.site_building.performance_course.graph;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A read only memory mapping of a graph file, see {@link GraphFiles} for the format.
+ * A single mapping is limited to 2GB, so the file is mapped in chunks. Chunk sizes are a multiple of 8 bytes, and all
+ * values in the file are aligned to their size, so a value never crosses chunks.
+ */
+class MappedGraphFile implements AutoCloseable {
+
+  private static final int CHUNK_SHIFT = 30; //1GB chunks
+  private static final long CHUNK_SIZE = 1L << CHUNK_SHIFT;
+
+  private final FileChannel channel;
+  private final MappedByteBuffer[] chunks;
+  private final int layout;
+  private final int numberOfVertices;
+  private final long numberOfEdges;
+
+  MappedGraphFile(Path path) throws IOException {
+    channel = FileChannel.open(path, StandardOpenOption.READ);
+    try {
+      long size = channel.size();
+      if (size < GraphFiles.HEADER_SIZE) {
+        throw new IOException("Not a graph file: " + path);
+      }
+      chunks = new MappedByteBuffer[(int) ((size + CHUNK_SIZE - 1) >>> CHUNK_SHIFT)];
+      for (int chunk = 0; chunk < chunks.length; chunk++) {
+        long position = chunk * CHUNK_SIZE;
+        chunks[chunk] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(CHUNK_SIZE, size - position));
+        chunks[chunk].order(ByteOrder.LITTLE_ENDIAN);
+      }
+      if (getInt(GraphFiles.MAGIC_OFFSET) != GraphFiles.MAGIC ||
+          getInt(GraphFiles.VERSION_OFFSET) != GraphFiles.VERSION) {
+        throw new IOException("Not a graph file, or an unsupported version: " + path);
+      }
+      layout = getInt(GraphFiles.LAYOUT_OFFSET);
+      numberOfVertices = getInt(GraphFiles.NUMBER_OF_VERTICES_OFFSET);
+      numberOfEdges = getLong(GraphFiles.NUMBER_OF_EDGES_OFFSET);
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  long getLong(long position) {
+    return chunks[(int) (position >>> CHUNK_SHIFT)].getLong((int) (position & (CHUNK_SIZE - 1)));
+  }
+
+  int getInt(long position) {
+    return chunks[(int) (position >>> CHUNK_SHIFT)].getInt((int) (position & (CHUNK_SIZE - 1)));
+  }
+
+  int getLayout() {
+    return layout;
+  }
+
+  int getNumberOfVertices() {
+    return numberOfVertices;
+  }
+
+  long getNumberOfEdges() {
+    return numberOfEdges;
+  }
+
+  /**
+   * Closes the file. The mapping itself is released once the buffers are garbage collected.
+   */
+  @Override public void close() throws IOException {
+    channel.close();
+  }
+}
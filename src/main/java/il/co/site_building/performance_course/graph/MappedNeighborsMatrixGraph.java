@@ -0,0 +1,129 @@
+package il.co.site_building.performance_course.graph;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.function.IntConsumer;
+
+/**
+ * Read only neighbors matrix graph, mapped from a {@link GraphFiles#NEIGHBORS_MATRIX_LAYOUT} file.
+ * Only the lower triangle of the matrix is stored, so a row isn't word aligned in the file, and the neighbors of a vertex
+ * above it are spread over the rows of those neighbors. The components are labeled with a union find over the triangle,
+ * which reads each stored bit once, sequentially.
+ */
+public class MappedNeighborsMatrixGraph extends MappedSimpleGraph {
+
+  MappedNeighborsMatrixGraph(MappedGraphFile file) {
+    super(file);
+  }
+
+  @Override public boolean edgeExists(int v1, int v2) {
+    if (v1 == v2) {
+      return true;
+    }
+    if (!vertexExists(v1) || !vertexExists(v2)) {
+      return false;
+    }
+    int row = Math.max(v1, v2);
+    long bit = getRowStart(row) + Math.min(v1, v2);
+    return (getTriangleWord(bit / Long.SIZE) & (1L << (bit % Long.SIZE))) != 0;
+  }
+
+  /**
+   * Visits the lower neighbors by scanning the vertex row, and the higher neighbors by probing one bit in each of their
+   * rows.
+   */
+  @Override public void forEachNeighbor(int vertex, IntConsumer neighborConsumer) {
+    forEachLowerNeighbor(vertex, neighborConsumer);
+    if (!vertexExists(vertex)) {
+      return;
+    }
+    for (int neighbor = vertex + 1; neighbor <= maxVertex; neighbor++) {
+      long bit = getRowStart(neighbor) + vertex;
+      if ((getTriangleWord(bit / Long.SIZE) & (1L << (bit % Long.SIZE))) != 0 && vertexExists(neighbor)) {
+        neighborConsumer.accept(neighbor);
+      }
+    }
+  }
+
+  /**
+   * Creates all connected components sub graphs of this graph.
+   * The components are on heap {@link NeighborsMatrixGraph} instances.
+   *
+   * @return A collection of the connected components.
+   */
+  @Override public Collection<SimpleGraph> createConnectedComponents() {
+    ConnectedComponentsLabels labels = labelConnectedComponents();
+    Collection<SimpleGraph> connectedComponents = new ArrayList<>(labels.numberOfComponents());
+    labels.forEachComponent((componentsVertices, from, to) -> {
+      NeighborsMatrixGraph connectedComponent = new NeighborsMatrixGraph();
+      connectedComponent.addVertex(componentsVertices[to - 1]); //Vertices are sorted, allocating the matrix at once
+      for (int index = from; index < to; index++) {
+        connectedComponent.addVertex(componentsVertices[index]);
+      }
+      for (int index = from; index < to; index++) {
+        int vertex = componentsVertices[index];
+        forEachLowerNeighbor(vertex, neighbor -> connectedComponent.addEdge(vertex, neighbor));
+      }
+      connectedComponents.add(connectedComponent);
+    });
+    return connectedComponents;
+  }
+
+  @Override public ConnectedComponentsLabels labelConnectedComponents() {
+    ConnectivityTracker tracker = new ConnectivityTracker(maxVertex + 1);
+    for (int vertex = 0; vertex <= maxVertex; vertex++) {
+      if (vertexExists(vertex)) {
+        tracker.addVertex(vertex);
+      }
+    }
+    for (int vertex = 1; vertex <= maxVertex; vertex++) {
+      int row = vertex;
+      forEachLowerNeighbor(row, neighbor -> tracker.union(row, neighbor));
+    }
+    int[] roots = new int[maxVertex + 1];
+    for (int vertex = 0; vertex <= maxVertex; vertex++) {
+      roots[vertex] = vertexExists(vertex) ? tracker.find(vertex) : ConnectedComponentsLabels.NO_COMPONENT;
+    }
+    return ConnectedComponentsLabels.fromRoots(roots);
+  }
+
+  /**
+   * Visits all neighbors of an existing vertex which are lower than it, by scanning its row of the triangle.
+   * Neighbors which don't exist are skipped.
+   */
+  private void forEachLowerNeighbor(int vertex, IntConsumer neighborConsumer) {
+    if (!vertexExists(vertex)) {
+      return;
+    }
+    long rowStart = getRowStart(vertex);
+    long rowEnd = rowStart + vertex;
+    long bit = rowStart;
+    while (bit < rowEnd) {
+      int offset = (int) (bit % Long.SIZE);
+      int bits = (int) Math.min(Long.SIZE - offset, rowEnd - bit);
+      long neighbors = getTriangleWord(bit / Long.SIZE) >>> offset;
+      if (bits < Long.SIZE) {
+        neighbors &= (1L << bits) - 1;
+      }
+      while (neighbors != 0) {
+        int neighbor = (int) (bit - rowStart) + Long.numberOfTrailingZeros(neighbors);
+        if (vertexExists(neighbor)) {
+          neighborConsumer.accept(neighbor);
+        }
+        neighbors &= neighbors - 1;
+      }
+      bit += bits;
+    }
+  }
+
+  private long getTriangleWord(long wordIndex) {
+    return file.getLong(dataOffset + wordIndex * Long.BYTES);
+  }
+
+  /**
+   * @return The index of the first bit of the row in the triangle bit stream.
+   */
+  private static long getRowStart(int row) {
+    return (long) row * (row - 1) / 2;
+  }
+}
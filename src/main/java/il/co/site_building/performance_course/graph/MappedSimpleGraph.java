@@ -0,0 +1,118 @@
+package il.co.site_building.performance_course.graph;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashSet;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.IntConsumer;
+
+/**
+ * Read only graph backed by a memory mapped graph file, see {@link GraphFiles}.
+ * All mutations throw an {@link UnsupportedOperationException}. Connected components are built on the heap, so they
+ * remain valid after the graph is closed.
+ */
+public abstract class MappedSimpleGraph implements SimpleGraph, AutoCloseable {
+
+  final MappedGraphFile file;
+  final int maxVertex; //Highest vertex in the file (inclusive), -1 for an empty graph.
+  final long verticesOffset;
+  final long dataOffset; //Position of the layout specific data, right after the vertices
+
+  MappedSimpleGraph(MappedGraphFile file) {
+    this.file = file;
+    this.maxVertex = file.getNumberOfVertices() - 1;
+    this.verticesOffset = GraphFiles.HEADER_SIZE;
+    this.dataOffset = verticesOffset + (long) GraphFiles.getVerticesLongs(file.getNumberOfVertices()) * Long.BYTES;
+  }
+
+  @Override public void addVertex(int vertex) {
+    throw new UnsupportedOperationException("A mapped graph is read only");
+  }
+
+  @Override public void removeVertex(int vertex) {
+    throw new UnsupportedOperationException("A mapped graph is read only");
+  }
+
+  @Override public void addEdge(int v1, int v2) {
+    throw new UnsupportedOperationException("A mapped graph is read only");
+  }
+
+  @Override public void removeEdge(int v1, int v2) {
+    throw new UnsupportedOperationException("A mapped graph is read only");
+  }
+
+  @Override public void randomizeEdges(Random random, int maxVertex, double loadFactor) {
+    throw new UnsupportedOperationException("A mapped graph is read only");
+  }
+
+  @Override public boolean vertexExists(int vertex) {
+    if (vertex < 0 || vertex > maxVertex) {
+      return false;
+    }
+    return (getVerticesWord(vertex / Long.SIZE) & (1L << (vertex % Long.SIZE))) != 0;
+  }
+
+  @Override public Set<Integer> vertexSet() {
+    Set<Integer> vertexSet = new HashSet<>();
+    forEachVertex(vertexSet::add);
+    return vertexSet;
+  }
+
+  @Override public void forEachVertex(IntConsumer vertexConsumer) {
+    for (int bucketEntry = 0; bucketEntry * Long.SIZE <= maxVertex; bucketEntry++) {
+      long word = getVerticesWord(bucketEntry);
+      while (word != 0) {
+        vertexConsumer.accept(bucketEntry * Long.SIZE + Long.numberOfTrailingZeros(word));
+        word &= word - 1;
+      }
+    }
+  }
+
+  @Override public int degree(int vertex) {
+    int[] degree = new int[1];
+    forEachNeighbor(vertex, neighbor -> degree[0]++);
+    return degree[0];
+  }
+
+  /**
+   * Iterates over a heap copy of the vertices bitwise array.
+   */
+  @Override public PrimitiveIterator.OfInt vertexIterator() {
+    return new BitSetVertexIterator(readVertices());
+  }
+
+  /**
+   * @return The number of edges in the graph.
+   */
+  public long numberOfEdges() {
+    return file.getNumberOfEdges();
+  }
+
+  /**
+   * Closes the file. The mapping itself is released once the graph is garbage collected.
+   */
+  @Override public void close() {
+    try {
+      file.close();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Copies the vertices bitwise array to the heap.
+   */
+  long[] readVertices() {
+    long[] vertices = new long[GraphFiles.getVerticesLongs(maxVertex + 1)];
+    for (int bucketEntry = 0; bucketEntry < vertices.length; bucketEntry++) {
+      vertices[bucketEntry] = getVerticesWord(bucketEntry);
+    }
+    return vertices;
+  }
+
+  private long getVerticesWord(int bucketEntry) {
+    return file.getLong(verticesOffset + (long) bucketEntry * Long.BYTES);
+  }
+}
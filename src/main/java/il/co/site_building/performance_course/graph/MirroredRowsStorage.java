@@ -0,0 +1,92 @@
+package il.co.site_building.performance_course.graph;
+
+import java.util.Arrays;
+
+/**
+ * A full square weights matrix, where each edge is written to the rows of both of its vertices. It takes twice the
+ * memory of {@link PackedTriangleStorage}, but all the neighbors of a vertex are sequential in its row, which makes
+ * the relaxation of a vertex in Dijkstra's algorithm a sequential scan.
+ * <p>
+ * The rows are copied on write after a snapshot, like in {@link NeighborsMatrixGraph}.
+ */
+final class MirroredRowsStorage implements WeightStorage {
+
+  private double[][] rows;
+  private boolean shared; //True if the rows array is shared with a snapshot
+  private int version; //Increased on every snapshot
+  private int[] rowVersions; //A row belongs only to this storage if its version is the current version
+
+  MirroredRowsStorage(int capacity) {
+    rows = new double[capacity][capacity];
+    for (double[] row : rows) {
+      Arrays.fill(row, Double.POSITIVE_INFINITY);
+    }
+    rowVersions = new int[capacity];
+  }
+
+  /**
+   * A read only snapshot.
+   */
+  private MirroredRowsStorage(double[][] rows) {
+    this.rows = rows;
+  }
+
+  @Override public int capacity() {
+    return rows.length;
+  }
+
+  @Override public double getWeight(int v1, int v2) {
+    return rows[v1][v2];
+  }
+
+  /**
+   * @return All the weights of the vertex edges, indexed by the neighbor. Shouldn't be modified.
+   */
+  double[] getRow(int vertex) {
+    return rows[vertex];
+  }
+
+  @Override public void setWeight(int v1, int v2, double weight) {
+    if (shared) {
+      rows = rows.clone(); //Only the rows references, the rows are copied once modified
+      shared = false;
+    }
+    getWritableRow(v1)[v2] = weight;
+    getWritableRow(v2)[v1] = weight;
+  }
+
+  /**
+   * The capacity is at least doubled, so adding vertices in ascending order copies the matrix only a logarithmic number
+   * of times.
+   */
+  @Override public void ensureCapacity(int numberOfVertices) {
+    if (numberOfVertices <= rows.length) {
+      return;
+    }
+    int newCapacity = Math.max(numberOfVertices, rows.length * 2);
+    double[][] newRows = new double[newCapacity][];
+    for (int row = 0; row < newCapacity; row++) {
+      int length = row < rows.length ? rows[row].length : 0;
+      newRows[row] = row < rows.length ? Arrays.copyOf(rows[row], newCapacity) : new double[newCapacity];
+      Arrays.fill(newRows[row], length, newCapacity, Double.POSITIVE_INFINITY);
+    }
+    rows = newRows;
+    rowVersions = new int[newCapacity];
+    Arrays.fill(rowVersions, version); //All rows are new
+    shared = false;
+  }
+
+  @Override public WeightStorage snapshot() {
+    shared = true;
+    version++; //All current rows are now shared with the snapshot
+    return new MirroredRowsStorage(rows);
+  }
+
+  private double[] getWritableRow(int row) {
+    if (rowVersions[row] != version) {
+      rows[row] = rows[row].clone();
+      rowVersions[row] = version;
+    }
+    return rows[row];
+  }
+}
@@ -0,0 +1,177 @@
+package il.co.site_building.performance_course.graph;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.IntConsumer;
+
+/**
+ * A read only view of a single connected component of a {@link NeighborsMatrixGraph}, without copying its edges.
+ * The view references the rows of a snapshot of the graph (see {@link NeighborsMatrixGraph#snapshot()}), and applies a
+ * bitwise membership mask of the component vertices on reads. So it keeps seeing the component as it was when the view
+ * was created, and its own cost is a mask over the words range of its vertices, instead of a matrix.
+ * <p>
+ * Any modification throws {@link UnsupportedOperationException}, {@link #materialize()} creates an independent
+ * modifiable copy.
+ */
+public class NeighborsMatrixComponentView implements SimpleGraph {
+
+  private final NeighborsMatrixGraph graph; //A snapshot
+  private final long[] members; //Bitwise membership mask, starting at the word of the first vertex
+  private final int firstBucketEntry;
+  private final int numberOfVertices;
+
+  /**
+   * @param graph              A read only snapshot of the graph.
+   * @param componentsVertices An array holding the component vertices, sorted, in the range [from..to)
+   */
+  NeighborsMatrixComponentView(NeighborsMatrixGraph graph, int[] componentsVertices, int from, int to) {
+    this.graph = graph;
+    firstBucketEntry = getBucketEntry(componentsVertices[from]);
+    members = new long[getBucketEntry(componentsVertices[to - 1]) - firstBucketEntry + 1];
+    for (int index = from; index < to; index++) {
+      int vertex = componentsVertices[index];
+      members[getBucketEntry(vertex) - firstBucketEntry] |= createMask(vertex);
+    }
+    numberOfVertices = to - from;
+  }
+
+  public int numberOfVertices() {
+    return numberOfVertices;
+  }
+
+  /**
+   * Copies the component into a new modifiable graph, independent of the view and of the original graph.
+   *
+   * @return A graph with the component vertices and edges.
+   */
+  public NeighborsMatrixGraph materialize() {
+    NeighborsMatrixGraph materialized = new NeighborsMatrixGraph();
+    int lastVertex = (firstBucketEntry + members.length) * Long.SIZE - 1 -
+        Long.numberOfLeadingZeros(members[members.length - 1]);
+    materialized.addVertex(lastVertex); //Allocating the whole matrix at once
+    forEachVertex(materialized::addVertex);
+    forEachVertex(vertex -> forEachNeighbor(vertex, neighbor -> {
+      if (neighbor < vertex) {
+        materialized.addEdge(vertex, neighbor);
+      }
+    }));
+    return materialized;
+  }
+
+  @Override public void addVertex(int vertex) {
+    throw new UnsupportedOperationException("Component views are read only");
+  }
+
+  @Override public void removeVertex(int vertex) {
+    throw new UnsupportedOperationException("Component views are read only");
+  }
+
+  @Override public boolean vertexExists(int vertex) {
+    if (vertex < 0) {
+      return false;
+    }
+    int wordIndex = getBucketEntry(vertex) - firstBucketEntry;
+    return wordIndex >= 0 && wordIndex < members.length && (members[wordIndex] & createMask(vertex)) != 0;
+  }
+
+  @Override public void addEdge(int v1, int v2) {
+    throw new UnsupportedOperationException("Component views are read only");
+  }
+
+  @Override public void removeEdge(int v1, int v2) {
+    throw new UnsupportedOperationException("Component views are read only");
+  }
+
+  @Override public boolean edgeExists(int v1, int v2) {
+    return vertexExists(v1) && vertexExists(v2) && graph.edgeExists(v1, v2);
+  }
+
+  /**
+   * @return The view itself, which is a single connected component.
+   */
+  @Override public Collection<SimpleGraph> createConnectedComponents() {
+    return List.of(this);
+  }
+
+  @Override public ConnectedComponentsLabels labelConnectedComponents() {
+    int[] labels = new int[(firstBucketEntry + members.length) * Long.SIZE];
+    Arrays.fill(labels, ConnectedComponentsLabels.NO_COMPONENT);
+    forEachVertex(vertex -> labels[vertex] = 0);
+    return new ConnectedComponentsLabels(labels, new int[]{numberOfVertices});
+  }
+
+  @Override public Set<Integer> vertexSet() {
+    Set<Integer> vertexSet = new HashSet<>();
+    forEachVertex(vertexSet::add);
+    return vertexSet;
+  }
+
+  @Override public void forEachVertex(IntConsumer vertexConsumer) {
+    for (int wordIndex = 0; wordIndex < members.length; wordIndex++) {
+      long word = members[wordIndex];
+      while (word != 0) {
+        vertexConsumer.accept((firstBucketEntry + wordIndex) * Long.SIZE + Long.numberOfTrailingZeros(word));
+        word &= word - 1;
+      }
+    }
+  }
+
+  @Override public void forEachNeighbor(int vertex, IntConsumer neighborConsumer) {
+    if (!vertexExists(vertex)) {
+      return;
+    }
+    long[] row = graph.getNeighborsRow(vertex);
+    for (int wordIndex = 0; wordIndex < members.length; wordIndex++) {
+      long neighbors = getNeighborsWord(vertex, row, wordIndex);
+      while (neighbors != 0) {
+        neighborConsumer.accept((firstBucketEntry + wordIndex) * Long.SIZE + Long.numberOfTrailingZeros(neighbors));
+        neighbors &= neighbors - 1;
+      }
+    }
+  }
+
+  @Override public int degree(int vertex) {
+    if (!vertexExists(vertex)) {
+      return 0;
+    }
+    long[] row = graph.getNeighborsRow(vertex);
+    int degree = 0;
+    for (int wordIndex = 0; wordIndex < members.length; wordIndex++) {
+      degree += Long.bitCount(getNeighborsWord(vertex, row, wordIndex));
+    }
+    return degree;
+  }
+
+  @Override public PrimitiveIterator.OfInt vertexIterator() {
+    return new BitSetVertexIterator(members, firstBucketEntry);
+  }
+
+  @Override public void randomizeEdges(Random random, int maxVertex, double loadFactor) {
+    throw new UnsupportedOperationException("Component views are read only");
+  }
+
+  /**
+   * @return The neighbors of the vertex in a word of the mask, without the vertex itself.
+   */
+  private long getNeighborsWord(int vertex, long[] row, int wordIndex) {
+    int bucketEntry = firstBucketEntry + wordIndex;
+    long neighbors = row[bucketEntry] & members[wordIndex];
+    if (bucketEntry == getBucketEntry(vertex)) {
+      neighbors &= ~createMask(vertex); //A self loop may be marked on the diagonal
+    }
+    return neighbors;
+  }
+
+  private static long createMask(int vertex) {
+    return 1L << (vertex % Long.SIZE);
+  }
+
+  private static int getBucketEntry(int vertex) {
+    return vertex / Long.SIZE;
+  }
+}
@@ -1,20 +1,41 @@
 package il.co.site_building.performance_course.graph;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
+import java.util.PrimitiveIterator;
 import java.util.Random;
 import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
 
 /**
  * Distance matrix based graph.
  * The neighbors' matrix is based on bit level matrix;
+ * <p>
+ * Supports O(1) read only snapshots, see {@link #snapshot()}. The rows are copied on write: after a snapshot the graph
+ * copies a row only before its first modification, so unmodified rows stay shared with all the snapshots.
+ * <p>
+ * Equality is structural: the same vertices and the same edges between them, compared a word at a time. The hash code
+ * is a 64 bit content fingerprint which is updated on every modification, see {@link #fingerprint()}.
  */
 public class NeighborsMatrixGraph implements SimpleGraph {
 
+  public static final int UNREACHABLE = -1; //Level of vertices which can't be reached by a breadth first search
+
   private long[] vertices; //Bitwise array of all vertices. 1 in the relevant position indicates that the vertex exist.
   private long[][] neighborsMatrix;
   //Bitwise neighbors matrix implementation. 1 in the relevant position indicates that an edge exists.
-  private int maxVertex;
+  //Each edge is marked both in the lower triangle and in its mirrored upper triangle entry, so a single row holds all of the vertex neighbors.
+  private int maxVertex; //Highest vertex that has a row in the neighbors matrix (inclusive).
+  private ConnectivityTracker connectivityTracker; //Null until the first connectivity query.
+  private final boolean readOnly; //True for snapshots
+  private boolean shared; //True if the vertices and the rows array are shared with a snapshot
+  private int version; //Increased on every snapshot
+  private int[] rowVersions; //A row belongs only to this graph if its version is the current version, otherwise it's shared
+  private long fingerprint; //XOR of the hashes of the existing vertices and the edges between them, see GraphFingerprint
 
   /**
    * Initializes an empty distance matrix with minimum of 8 entries
@@ -23,6 +44,8 @@ public class NeighborsMatrixGraph implements SimpleGraph {
     vertices = new long[1];
     neighborsMatrix = new long[1][1];
     maxVertex = 0;
+    readOnly = false;
+    rowVersions = new int[1];
   }
 
   /**
@@ -35,7 +58,20 @@ public class NeighborsMatrixGraph implements SimpleGraph {
     int lastBucketOffset = getBucketOffset(numberOfVertices);
     buildVertices(lastBucketEntry, lastBucketOffset);
     buildMatrix(lastBucketEntry, lastBucketOffset);
-    maxVertex = numberOfVertices;
+    maxVertex = numberOfVertices - 1;
+    readOnly = false;
+    rowVersions = new int[neighborsMatrix.length];
+    for (int vertex = 0; vertex < numberOfVertices; vertex++) {
+      fingerprint ^= GraphFingerprint.vertexHash(vertex);
+    }
+  }
+
+  private NeighborsMatrixGraph(long[] vertices, long[][] neighborsMatrix, int maxVertex, long fingerprint) {
+    this.vertices = vertices;
+    this.neighborsMatrix = neighborsMatrix;
+    this.maxVertex = maxVertex;
+    this.fingerprint = fingerprint;
+    readOnly = true;
   }
 
   private void buildMatrix(int lastBucketEntry, int lastBucketOffset) {
@@ -59,24 +95,38 @@ public class NeighborsMatrixGraph implements SimpleGraph {
   }
 
   @Override public void addVertex(int vertex) {
+    ensureWritable();
     verifyEntryExists(vertex);
+    if (!vertexExists(vertex)) {
+      fingerprint ^= GraphFingerprint.vertexHash(vertex) ^ incidentEdgesHash(vertex);
+    }
     int bucketEntry = getBucketEntry(vertex);
     long mask = createMask(vertex);
     vertices[bucketEntry] |= mask;
+    if (connectivityTracker != null && !connectivityTracker.isDirty()) {
+      connectivityTracker.addVertex(vertex);
+      unionNeighbors(vertex); //Edges of a removed vertex are back once it is added again
+    }
   }
 
+  /**
+   * Grows the matrix if the vertex doesn't have a row. The number of rows is at least doubled, so adding vertices in
+   * ascending order copies the matrix only a logarithmic number of times.
+   */
   private void verifyEntryExists(int vertex) {
     if (vertex > maxVertex) {
-      int bucketEntry = getBucketEntry(vertex);
-      int bucketOffset = getBucketOffset(vertex);
-      increaseVerticesArray(bucketEntry);
-      increaseNeighborsMatrix(bucketEntry, bucketOffset);
+      if (vertex >= neighborsMatrix.length) {
+        int numberOfRows = Math.max(vertex + 1, neighborsMatrix.length * 2);
+        int lastBucketEntry = getBucketEntry(numberOfRows - 1);
+        increaseVerticesArray(lastBucketEntry);
+        increaseNeighborsMatrix(numberOfRows, lastBucketEntry);
+      }
       maxVertex = vertex;
     }
   }
 
-  private void increaseNeighborsMatrix(int bucketEntry, int bucketOffset) {
-    long[][] newNeighborsMatrix = new long[bucketEntry * Long.SIZE + bucketOffset][bucketEntry + 1];
+  private void increaseNeighborsMatrix(int numberOfRows, int lastBucketEntry) {
+    long[][] newNeighborsMatrix = new long[numberOfRows][lastBucketEntry + 1];
     for (int rowIndex = 0; rowIndex < neighborsMatrix.length; rowIndex++) {
       System.arraycopy(neighborsMatrix[rowIndex],
                        0,
@@ -85,6 +135,8 @@ public class NeighborsMatrixGraph implements SimpleGraph {
                        neighborsMatrix[rowIndex].length);
     }
     neighborsMatrix = newNeighborsMatrix;
+    rowVersions = new int[newNeighborsMatrix.length];
+    Arrays.fill(rowVersions, version); //All rows are new
   }
 
   private void increaseVerticesArray(int bucketEntry) {
@@ -94,13 +146,18 @@ public class NeighborsMatrixGraph implements SimpleGraph {
   }
 
   @Override public void removeVertex(int vertex) {
+    ensureWritable();
     if (!vertexExists(vertex)) {
       return; //Nothing to do
     }
+    fingerprint ^= GraphFingerprint.vertexHash(vertex) ^ incidentEdgesHash(vertex);
     int bucketEntry = getBucketEntry(vertex);
     long mask = createMask(vertex);
     mask = ~mask; //Negating to remove the vertex
     vertices[bucketEntry] &= mask;
+    if (connectivityTracker != null) {
+      connectivityTracker.markDirty();
+    }
   }
 
   @Override public boolean vertexExists(int vertex) {
@@ -114,17 +171,108 @@ public class NeighborsMatrixGraph implements SimpleGraph {
   }
 
   @Override public void addEdge(int v1, int v2) {
-    handleEdge(v1, v2, ((rowIndex, bucketEntry, mask) -> {
-      neighborsMatrix[rowIndex][bucketEntry] |= mask;
+    ensureWritable();
+    if (v1 != v2 && vertexExists(v1) && vertexExists(v2) && !isEdgeMarked(v1, v2)) {
+      fingerprint ^= GraphFingerprint.edgeHash(v1, v2);
+    }
+    boolean edgeAdded = handleSymmetricEdge(v1, v2, ((rowIndex, bucketEntry, mask) -> {
+      getWritableRow(rowIndex)[bucketEntry] |= mask;
       return true;
     }));
+    if (edgeAdded && connectivityTracker != null && !connectivityTracker.isDirty()) {
+      connectivityTracker.union(v1, v2);
+    }
   }
 
   @Override public void removeEdge(int v1, int v2) {
-    handleEdge(v1, v2, ((rowIndex, bucketEntry, mask) -> {
-      neighborsMatrix[rowIndex][bucketEntry] &= ~mask;
+    ensureWritable();
+    if (v1 != v2 && vertexExists(v1) && vertexExists(v2) && isEdgeMarked(v1, v2)) {
+      fingerprint ^= GraphFingerprint.edgeHash(v1, v2);
+    }
+    boolean edgeRemoved = handleSymmetricEdge(v1, v2, ((rowIndex, bucketEntry, mask) -> {
+      getWritableRow(rowIndex)[bucketEntry] &= ~mask;
       return true;
     }));
+    if (edgeRemoved && connectivityTracker != null) {
+      connectivityTracker.markDirty();
+    }
+  }
+
+  /**
+   * Creates a read only snapshot of the graph in O(1), without copying the matrix.
+   * The snapshot shares the vertices and the rows with this graph. Following modifications of this graph copy the rows
+   * array and each modified row once, so the snapshot keeps seeing the graph as it was when the snapshot was taken.
+   * <p>
+   * Should be called by the thread which modifies the graph. The snapshot may then be passed to other threads, and read
+   * by any number of them concurrently with the modifications, except for {@link #connected(int, int)} and
+   * {@link #componentCount()} which lazily build their state.
+   *
+   * @return A read only graph, which throws {@link UnsupportedOperationException} on any modification. A snapshot of a
+   * snapshot is the snapshot itself.
+   */
+  public NeighborsMatrixGraph snapshot() {
+    if (readOnly) {
+      return this;
+    }
+    shared = true;
+    version++; //All current rows are now shared with the snapshot
+    return new NeighborsMatrixGraph(vertices, neighborsMatrix, maxVertex, fingerprint);
+  }
+
+  public boolean isReadOnly() {
+    return readOnly;
+  }
+
+  private void ensureWritable() {
+    if (readOnly) {
+      throw new UnsupportedOperationException("Snapshots are read only");
+    }
+    if (shared) {
+      vertices = vertices.clone();
+      neighborsMatrix = neighborsMatrix.clone(); //Only the rows references, the rows are copied once modified
+      shared = false;
+    }
+  }
+
+  private long[] getWritableRow(int rowIndex) {
+    if (rowVersions[rowIndex] != version) {
+      neighborsMatrix[rowIndex] = neighborsMatrix[rowIndex].clone();
+      rowVersions[rowIndex] = version;
+    }
+    return neighborsMatrix[rowIndex];
+  }
+
+  /**
+   * @return True if the edge is marked in the lower triangle, regardless of the vertices existence.
+   */
+  private boolean isEdgeMarked(int v1, int v2) {
+    int row = Math.max(v1, v2);
+    int column = Math.min(v1, v2);
+    return (neighborsMatrix[row][getBucketEntry(column)] & createMask(column)) != 0;
+  }
+
+  /**
+   * @return XOR of the hashes of the edges between the vertex and the other existing vertices.
+   */
+  private long incidentEdgesHash(int vertex) {
+    long hash = 0;
+    long[] row = neighborsMatrix[vertex];
+    for (int bucketEntry = 0; bucketEntry < vertices.length; bucketEntry++) {
+      long neighbors = getNeighborsWord(vertex, row, bucketEntry);
+      while (neighbors != 0) {
+        hash ^= GraphFingerprint.edgeHash(vertex, bucketEntry * Long.SIZE + Long.numberOfTrailingZeros(neighbors));
+        neighbors &= neighbors - 1;
+      }
+    }
+    return hash;
+  }
+
+  private boolean handleSymmetricEdge(int v1, int v2, EntryMarker entryMarker) {
+    if (!handleEdge(v1, v2, entryMarker)) {
+      return false;
+    }
+    //Marking the mirrored entry as well, so traversals can scan a single row instead of a column.
+    return entryMarker.markEntry(Math.min(v1, v2), getBucketEntry(Math.max(v1, v2)), createMask(Math.max(v1, v2)));
   }
 
   private boolean handleEdge(int v1, int v2, EntryMarker entryMarker) {
@@ -153,29 +301,347 @@ public class NeighborsMatrixGraph implements SimpleGraph {
   }
 
   @Override public Collection<SimpleGraph> createConnectedComponents() {
-    Collection<SimpleGraph> connectedComponents = new HashSet<>();
+    return buildConnectedComponents(labelConnectedComponents());
+  }
+
+  @Override public ConnectedComponentsLabels labelConnectedComponents() {
+    int[] labels = new int[maxVertex + 1];
+    Arrays.fill(labels, ConnectedComponentsLabels.NO_COMPONENT);
+    IntStack componentSizes = new IntStack();
     long[] visited = new long[vertices.length]; // A bit wise boolean visited array used for DFS traversal
-    int firstExistingVertex = 0;
-    for (int nextVertex = firstExistingVertex; nextVertex < maxVertex; nextVertex++) {
-      if (!vertexDiscovered(nextVertex, visited)) {
-        SimpleGraph connectedComponent = runDfs(nextVertex, visited);
-        connectedComponents.add(connectedComponent);
+    IntStack verticesStack = new IntStack(maxVertex + 1);
+    for (int bucketEntry = 0; bucketEntry < vertices.length; bucketEntry++) {
+      long undiscovered = vertices[bucketEntry] & ~visited[bucketEntry];
+      while (undiscovered != 0) {
+        int nextVertex = bucketEntry * Long.SIZE + Long.numberOfTrailingZeros(undiscovered);
+        componentSizes.push(runDfs(nextVertex, visited, verticesStack, labels, componentSizes.size()));
+        undiscovered = vertices[bucketEntry] & ~visited[bucketEntry];
       }
     }
+    return new ConnectedComponentsLabels(labels, Arrays.copyOf(componentSizes.stack, componentSizes.size()));
+  }
+
+  /**
+   * Creates all connected components sub graphs of this graph, using multiple threads for finding the components.
+   *
+   * @param parallelism Number of threads to use.
+   * @return A collection of the connected components.
+   */
+  public Collection<SimpleGraph> createConnectedComponents(int parallelism) {
+    return buildConnectedComponents(labelConnectedComponents(parallelism));
+  }
+
+  /**
+   * Creates read only views of all connected components, instead of copying their edges into new graphs.
+   * The views share the rows of a snapshot of this graph, see {@link NeighborsMatrixComponentView}.
+   *
+   * @return The components views, in the order of their first vertex.
+   */
+  public List<NeighborsMatrixComponentView> createConnectedComponentViews() {
+    return buildConnectedComponentViews(labelConnectedComponents());
+  }
+
+  /**
+   * Same as {@link #createConnectedComponentViews()}, using multiple threads for finding the components.
+   *
+   * @param parallelism Number of threads to use.
+   */
+  public List<NeighborsMatrixComponentView> createConnectedComponentViews(int parallelism) {
+    return buildConnectedComponentViews(labelConnectedComponents(parallelism));
+  }
+
+  /**
+   * Labels all vertices by their connected component, using multiple threads.
+   * Components are found by a lock-free union find over the rows, see {@link ParallelUnionFind}.
+   *
+   * @param parallelism Number of threads to use.
+   * @return The component of each vertex, and the size of each component.
+   */
+  public ConnectedComponentsLabels labelConnectedComponents(int parallelism) {
+    return new ParallelUnionFind(maxVertex + 1, vertices) {
+      @Override protected void unionNeighbors(int vertex) {
+        long[] row = neighborsMatrix[vertex];
+        int lastBucketEntry = getBucketEntry(vertex);
+        for (int bucketEntry = 0; bucketEntry <= lastBucketEntry; bucketEntry++) {
+          long neighbors = row[bucketEntry] & vertices[bucketEntry];
+          while (neighbors != 0) {
+            union(vertex, bucketEntry * Long.SIZE + Long.numberOfTrailingZeros(neighbors));
+            neighbors &= neighbors - 1;
+          }
+        }
+      }
+    }.label(parallelism);
+  }
+
+  /**
+   * Labels all vertices by their connected component, using a direction optimizing breadth first search instead of a
+   * depth first search. Faster on dense graphs with a small diameter, see {@link DirectionOptimizingBfs}.
+   *
+   * @return The component of each vertex, and the size of each component.
+   */
+  public ConnectedComponentsLabels labelConnectedComponentsBfs() {
+    int[] labels = new int[maxVertex + 1];
+    Arrays.fill(labels, ConnectedComponentsLabels.NO_COMPONENT);
+    IntStack componentSizes = new IntStack();
+    long[] visited = new long[vertices.length];
+    DirectionOptimizingBfs bfs = new DirectionOptimizingBfs(neighborsMatrix, vertices);
+    for (int bucketEntry = 0; bucketEntry < vertices.length; bucketEntry++) {
+      long undiscovered = vertices[bucketEntry] & ~visited[bucketEntry];
+      while (undiscovered != 0) {
+        int nextVertex = bucketEntry * Long.SIZE + Long.numberOfTrailingZeros(undiscovered);
+        int label = componentSizes.size();
+        componentSizes.push(bfs.run(nextVertex, visited, (vertex, level) -> labels[vertex] = label));
+        undiscovered = vertices[bucketEntry] & ~visited[bucketEntry];
+      }
+    }
+    return new ConnectedComponentsLabels(labels, Arrays.copyOf(componentSizes.stack, componentSizes.size()));
+  }
+
+  /**
+   * Finds the hop distance of all vertices from a source vertex, using a direction optimizing breadth first search.
+   *
+   * @param source The vertex to start from.
+   * @return levels[v] is the number of edges on the shortest path from source to v, or {@link #UNREACHABLE} if v doesn't
+   * exist or isn't connected to the source.
+   */
+  public int[] bfsLevels(int source) {
+    int[] levels = new int[maxVertex + 1];
+    Arrays.fill(levels, UNREACHABLE);
+    if (vertexExists(source)) {
+      DirectionOptimizingBfs bfs = new DirectionOptimizingBfs(neighborsMatrix, vertices);
+      bfs.run(source, new long[vertices.length], (vertex, level) -> levels[vertex] = level);
+    }
+    return levels;
+  }
+
+  /**
+   * Counts the triangles of the graph by intersecting the rows of each edge vertices, a word at a time.
+   * See {@link TriangleCounter}.
+   *
+   * @return The number of triangles.
+   */
+  public long countTriangles() {
+    return new TriangleCounter(neighborsMatrix, vertices, maxVertex + 1).countTriangles();
+  }
+
+  /**
+   * Counts the triangles of the graph, using multiple threads over ranges of rows.
+   *
+   * @param parallelism Number of threads to use.
+   * @return The number of triangles.
+   */
+  public long countTriangles(int parallelism) {
+    return new TriangleCounter(neighborsMatrix, vertices, maxVertex + 1).countTriangles(parallelism);
+  }
+
+  /**
+   * The local clustering coefficient of a vertex is the fraction of its neighbors pairs which are connected.
+   *
+   * @param vertex The vertex.
+   * @return The number of triangles of the vertex divided by deg * (deg - 1) / 2, or 0 if the vertex has less than two
+   * neighbors or doesn't exist.
+   */
+  public double localClusteringCoefficient(int vertex) {
+    long degree = degree(vertex);
+    if (degree < 2) {
+      return 0;
+    }
+    long triangles = new TriangleCounter(neighborsMatrix, vertices, maxVertex + 1).countVertexTriangles(vertex);
+    return triangles / (degree * (degree - 1) / 2.0);
+  }
+
+  /**
+   * The global clustering coefficient (transitivity) is the fraction of connected triplets which are closed.
+   *
+   * @return 3 * triangles / connected triplets, or 0 if there are no connected triplets.
+   */
+  public double globalClusteringCoefficient() {
+    return globalClusteringCoefficient(countTriangles());
+  }
+
+  /**
+   * Same as {@link #globalClusteringCoefficient()}, counting the triangles using multiple threads.
+   *
+   * @param parallelism Number of threads to use.
+   */
+  public double globalClusteringCoefficient(int parallelism) {
+    return globalClusteringCoefficient(countTriangles(parallelism));
+  }
+
+  /**
+   * Enumerates the maximal cliques of the graph, see {@link CliqueEnumerator}.
+   * The cliques are streamed to the consumer as they are found, and aren't collected.
+   *
+   * @param cliqueConsumer Receives the vertices of each maximal clique, in no particular order.
+   * @return The number of maximal cliques.
+   */
+  public long forEachMaximalClique(Consumer<int[]> cliqueConsumer) {
+    return new CliqueEnumerator(neighborsMatrix, vertices, maxVertex + 1).enumerate(cliqueConsumer);
+  }
+
+  /**
+   * Same as {@link #forEachMaximalClique(Consumer)}, searching from multiple vertices in parallel.
+   *
+   * @param cliqueConsumer Receives the vertices of each maximal clique, from multiple threads.
+   * @param parallelism    Number of threads to use.
+   * @return The number of maximal cliques.
+   */
+  public long forEachMaximalClique(Consumer<int[]> cliqueConsumer, int parallelism) {
+    return new CliqueEnumerator(neighborsMatrix, vertices, maxVertex + 1).enumerate(cliqueConsumer, parallelism);
+  }
+
+  /**
+   * @return The number of maximal cliques, without creating them.
+   */
+  public long countMaximalCliques() {
+    return forEachMaximalClique(null);
+  }
+
+  /**
+   * @param parallelism Number of threads to use.
+   * @return The number of maximal cliques, without creating them.
+   */
+  public long countMaximalCliques(int parallelism) {
+    return forEachMaximalClique(null, parallelism);
+  }
+
+  /**
+   * @return The degeneracy of the graph, which bounds the size of the candidates set of each clique search.
+   */
+  public int degeneracy() {
+    return new CliqueEnumerator(neighborsMatrix, vertices, maxVertex + 1).degeneracy();
+  }
+
+  private double globalClusteringCoefficient(long triangles) {
+    long[] triplets = new long[1];
+    forEachVertex(vertex -> {
+      long degree = degree(vertex);
+      triplets[0] += degree * (degree - 1) / 2;
+    });
+    return triplets[0] == 0 ? 0 : 3.0 * triangles / triplets[0];
+  }
+
+  private Collection<SimpleGraph> buildConnectedComponents(ConnectedComponentsLabels labels) {
+    //A list, since the hash code of a component changes with its content
+    Collection<SimpleGraph> connectedComponents = new ArrayList<>(labels.numberOfComponents());
+    labels.forEachComponent((componentsVertices, from, to) ->
+                                connectedComponents.add(buildConnectedComponent(componentsVertices, from, to)));
     return connectedComponents;
   }
 
+  /**
+   * Checks if two vertices are in the same connected component.
+   * Connectivity tracking starts on the first query: from then on additions are applied incrementally to a union find
+   * forest, and removals trigger a lazy rebuild on the next query.
+   *
+   * @param v1 First vertex
+   * @param v2 Second vertex
+   * @return True if both vertices exist and there is a path between them, false otherwise.
+   */
+  public boolean connected(int v1, int v2) {
+    return updatedConnectivityTracker().connected(v1, v2);
+  }
+
+  /**
+   * Counts the connected components. See {@link #connected(int, int)} for the tracking details.
+   *
+   * @return The number of connected components.
+   */
+  public int componentCount() {
+    return updatedConnectivityTracker().componentCount();
+  }
+
+  private ConnectivityTracker updatedConnectivityTracker() {
+    if (connectivityTracker == null) {
+      connectivityTracker = new ConnectivityTracker(maxVertex + 1);
+      connectivityTracker.markDirty();
+    }
+    if (connectivityTracker.isDirty()) {
+      connectivityTracker.reset();
+      for (int bucketEntry = 0; bucketEntry < vertices.length; bucketEntry++) {
+        long existingVertices = vertices[bucketEntry];
+        while (existingVertices != 0) {
+          int vertex = bucketEntry * Long.SIZE + Long.numberOfTrailingZeros(existingVertices);
+          connectivityTracker.addVertex(vertex);
+          unionNeighbors(vertex);
+          existingVertices &= existingVertices - 1;
+        }
+      }
+    }
+    return connectivityTracker;
+  }
+
+  private void unionNeighbors(int vertex) {
+    long[] row = neighborsMatrix[vertex];
+    for (int bucketEntry = 0; bucketEntry < row.length; bucketEntry++) {
+      long neighbors = row[bucketEntry] & vertices[bucketEntry];
+      while (neighbors != 0) {
+        //Neighbors which aren't tracked yet are ignored, and merged once they are added
+        connectivityTracker.union(vertex, bucketEntry * Long.SIZE + Long.numberOfTrailingZeros(neighbors));
+        neighbors &= neighbors - 1;
+      }
+    }
+  }
+
   @Override public Set<Integer> vertexSet() {
     Set<Integer> vertexSet = new HashSet<>();
-    for (int vertex = 0; vertex < maxVertex; vertex++) {
-      if (vertexExists(vertex)) {
-        vertexSet.add(vertex);
+    forEachVertex(vertexSet::add);
+    return vertexSet;
+  }
+
+  @Override public void forEachVertex(IntConsumer vertexConsumer) {
+    for (int bucketEntry = 0; bucketEntry < vertices.length; bucketEntry++) {
+      long word = vertices[bucketEntry];
+      while (word != 0) {
+        vertexConsumer.accept(bucketEntry * Long.SIZE + Long.numberOfTrailingZeros(word));
+        word &= word - 1;
       }
     }
-    return vertexSet;
+  }
+
+  @Override public void forEachNeighbor(int vertex, IntConsumer neighborConsumer) {
+    if (!vertexExists(vertex)) {
+      return;
+    }
+    long[] row = neighborsMatrix[vertex];
+    for (int bucketEntry = 0; bucketEntry < vertices.length; bucketEntry++) {
+      long neighbors = getNeighborsWord(vertex, row, bucketEntry);
+      while (neighbors != 0) {
+        neighborConsumer.accept(bucketEntry * Long.SIZE + Long.numberOfTrailingZeros(neighbors));
+        neighbors &= neighbors - 1;
+      }
+    }
+  }
+
+  @Override public int degree(int vertex) {
+    if (!vertexExists(vertex)) {
+      return 0;
+    }
+    long[] row = neighborsMatrix[vertex];
+    int degree = 0;
+    for (int bucketEntry = 0; bucketEntry < vertices.length; bucketEntry++) {
+      degree += Long.bitCount(getNeighborsWord(vertex, row, bucketEntry));
+    }
+    return degree;
+  }
+
+  @Override public PrimitiveIterator.OfInt vertexIterator() {
+    return new BitSetVertexIterator(vertices);
+  }
+
+  /**
+   * @return The existing neighbors of the vertex in a word of its row, without the vertex itself.
+   */
+  private long getNeighborsWord(int vertex, long[] row, int bucketEntry) {
+    long neighbors = row[bucketEntry] & vertices[bucketEntry];
+    if (bucketEntry == getBucketEntry(vertex)) {
+      neighbors &= ~createMask(vertex); //A self loop may be marked on the diagonal
+    }
+    return neighbors;
   }
 
   @Override public void randomizeEdges(Random random, int maxVertex, double loadFactor) {
+    ensureWritable();
     for (int vertex = 0; vertex < maxVertex; vertex++) {
       for (int neighbor = vertex; neighbor < maxVertex; neighbor++) {
         double lucky = random.nextDouble();
@@ -186,39 +652,91 @@ public class NeighborsMatrixGraph implements SimpleGraph {
     }
   }
 
-  private boolean vertexDiscovered(int vertex, long[] bitSet) {
-    long mask = createMask(vertex);
-    int bucketEntry = getBucketEntry(vertex);
-    return (bitSet[bucketEntry] & mask) != 0;
-  }
-
   private void setVertexDiscovered(int vertex, long[] bitSet) {
     long mask = createMask(vertex);
     int bucketEntry = getBucketEntry(vertex);
     bitSet[bucketEntry] |= mask;
   }
 
-  private SimpleGraph runDfs(int firstVertex, long[] visited) {
-    SimpleGraph simpleGraph = new NeighborsMatrixGraph();
-    IntStack verticesStack = new IntStack(maxVertex);
+  /**
+   * Labels all vertices reachable from the first vertex.
+   * Neighbors are extracted a word at a time: each row word is masked with the existing vertices and the complement of
+   * the visited set, so a sparse row costs only (maxVertex / 64) reads.
+   *
+   * @param firstVertex   The vertex to start from.
+   * @param visited       Bitwise visited set. Vertices are marked as visited once pushed to the stack.
+   * @param verticesStack An empty stack used for the traversal.
+   * @param labels        Components labels, updated with the label of all the component vertices.
+   * @param label         The label of the component.
+   * @return The number of vertices in the component.
+   */
+  private int runDfs(int firstVertex, long[] visited, IntStack verticesStack, int[] labels, int label) {
+    int componentSize = 0;
+    setVertexDiscovered(firstVertex, visited);
     verticesStack.push(firstVertex);
     while (!verticesStack.isEmpty()) {
       int vertex = verticesStack.pop();
-      long mask = createMask(vertex);
-      int bucketEntry = getBucketEntry(vertex);
-      boolean vertexDiscovered = (vertices[bucketEntry] & mask) != 0;
-      if (vertexDiscovered) {
-        continue;
+      labels[vertex] = label;
+      componentSize++;
+      long[] row = neighborsMatrix[vertex];
+      for (int bucketEntry = 0; bucketEntry < row.length; bucketEntry++) {
+        long undiscoveredNeighbors = row[bucketEntry] & vertices[bucketEntry] & ~visited[bucketEntry];
+        visited[bucketEntry] |= undiscoveredNeighbors;
+        while (undiscoveredNeighbors != 0) {
+          verticesStack.push(bucketEntry * Long.SIZE + Long.numberOfTrailingZeros(undiscoveredNeighbors));
+          undiscoveredNeighbors &= undiscoveredNeighbors - 1; //Clearing the lowest bit
+        }
       }
-      setVertexDiscovered(vertex, visited);
-      for (int neighbor = 0; neighbor < maxVertex; neighbor++) {
-        if (edgeExists(vertex, neighbor) && !vertexDiscovered(neighbor, visited)) {
-          verticesStack.push(neighbor);
-          simpleGraph.addEdge(vertex, neighbor);
+    }
+    return componentSize;
+  }
+
+  private List<NeighborsMatrixComponentView> buildConnectedComponentViews(ConnectedComponentsLabels labels) {
+    NeighborsMatrixGraph snapshot = snapshot();
+    List<NeighborsMatrixComponentView> views = new ArrayList<>(labels.numberOfComponents());
+    labels.forEachComponent((componentsVertices, from, to) ->
+                                views.add(new NeighborsMatrixComponentView(snapshot, componentsVertices, from, to)));
+    return views;
+  }
+
+  private SimpleGraph buildConnectedComponent(int[] componentVertices, int from, int to) {
+    NeighborsMatrixGraph connectedComponent = new NeighborsMatrixGraph();
+    int lastVertex = 0;
+    for (int index = from; index < to; index++) {
+      lastVertex = Math.max(lastVertex, componentVertices[index]);
+    }
+    connectedComponent.addVertex(lastVertex); //Allocating the whole matrix at once
+    for (int index = from; index < to; index++) {
+      connectedComponent.addVertex(componentVertices[index]);
+    }
+    for (int index = from; index < to; index++) {
+      int vertex = componentVertices[index];
+      long[] row = neighborsMatrix[vertex];
+      int lastBucketEntry = getBucketEntry(vertex);
+      for (int bucketEntry = 0; bucketEntry <= lastBucketEntry; bucketEntry++) {
+        long neighbors = row[bucketEntry] & vertices[bucketEntry];
+        while (neighbors != 0) {
+          int neighbor = bucketEntry * Long.SIZE + Long.numberOfTrailingZeros(neighbors);
+          if (neighbor < vertex) {
+            connectedComponent.addEdge(vertex, neighbor);
+          }
+          neighbors &= neighbors - 1;
         }
       }
     }
-    return simpleGraph;
+    return connectedComponent;
+  }
+
+  long[] getVertices() {
+    return vertices;
+  }
+
+  long[] getNeighborsRow(int vertex) {
+    return neighborsMatrix[vertex];
+  }
+
+  int getMaxVertex() {
+    return maxVertex;
   }
 
   private long createMask(int vertex) {
@@ -229,19 +747,159 @@ public class NeighborsMatrixGraph implements SimpleGraph {
     boolean markEntry(int rowIndex, int bucketEntry, long mask);
   }
 
+  /**
+   * A 64 bit content fingerprint: the XOR of the hashes of the existing vertices and the edges between them, self loops
+   * excluded. It's updated in O(1) on every edge modification, and in O(n / 64 + degree) on every vertex modification,
+   * so graphs can be validated against a cached or replicated copy without scanning them.
+   * Equal graphs have equal fingerprints, including graphs of other implementations, see
+   * {@link JGraphSimpleGraphImpl#fingerprint()}.
+   */
+  public long fingerprint() {
+    return fingerprint;
+  }
+
+  /**
+   * Compares the vertices and the lower triangle rows a word at a time. Edges of removed vertices, self loops and the
+   * capacity of the matrix are ignored.
+   */
+  @Override public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof NeighborsMatrixGraph other) || fingerprint != other.fingerprint) {
+      return false;
+    }
+    int lastVertex = Math.max(maxVertex, other.maxVertex);
+    for (int bucketEntry = 0; bucketEntry <= getBucketEntry(lastVertex); bucketEntry++) {
+      if (getVerticesWord(bucketEntry) != other.getVerticesWord(bucketEntry)) {
+        return false;
+      }
+    }
+    for (int vertex = 0; vertex <= maxVertex; vertex++) {
+      if (!vertexExists(vertex)) {
+        continue; //Same vertices, so it doesn't exist in the other graph either
+      }
+      for (int bucketEntry = 0; bucketEntry <= getBucketEntry(vertex); bucketEntry++) {
+        if (getLowerNeighborsWord(vertex, bucketEntry) != other.getLowerNeighborsWord(vertex, bucketEntry)) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  @Override public int hashCode() {
+    return Long.hashCode(fingerprint);
+  }
+
+  /**
+   * Streams the edges which differ between this graph and the other graph, by XOR-ing their rows a word at a time.
+   * Edges of a vertex which exists only in one of the graphs are reported as well.
+   *
+   * @param other         The graph to compare to.
+   * @param edgesConsumer Receives each differing edge, with added true if it exists only in the other graph and false if
+   *                      it exists only in this graph.
+   * @return The number of differing edges.
+   */
+  public long diff(NeighborsMatrixGraph other, EdgeDiffConsumer edgesConsumer) {
+    long differences = 0;
+    int lastVertex = Math.max(maxVertex, other.maxVertex);
+    for (int vertex = 0; vertex <= lastVertex; vertex++) {
+      for (int bucketEntry = 0; bucketEntry <= getBucketEntry(vertex); bucketEntry++) {
+        long neighbors = getLowerNeighborsWord(vertex, bucketEntry);
+        long changedNeighbors = neighbors ^ other.getLowerNeighborsWord(vertex, bucketEntry);
+        while (changedNeighbors != 0) {
+          long mask = Long.lowestOneBit(changedNeighbors);
+          edgesConsumer.accept(vertex, bucketEntry * Long.SIZE + Long.numberOfTrailingZeros(mask),
+                               (neighbors & mask) == 0);
+          differences++;
+          changedNeighbors &= changedNeighbors - 1;
+        }
+      }
+    }
+    return differences;
+  }
+
+  /**
+   * Receives the edges found by {@link #diff(NeighborsMatrixGraph, EdgeDiffConsumer)}.
+   */
+  @FunctionalInterface
+  public interface EdgeDiffConsumer {
+
+    /**
+     * @param v1    The higher vertex of the edge.
+     * @param v2    The lower vertex of the edge.
+     * @param added True if the edge exists only in the other graph, false if it exists only in this graph.
+     */
+    void accept(int v1, int v2, boolean added);
+  }
+
+  private long getVerticesWord(int bucketEntry) {
+    return bucketEntry < vertices.length ? vertices[bucketEntry] : 0;
+  }
+
+  /**
+   * @return The existing neighbors of the vertex which are lower than it in a word of its row, or 0 if the vertex
+   * doesn't exist.
+   */
+  private long getLowerNeighborsWord(int vertex, int bucketEntry) {
+    if (!vertexExists(vertex)) {
+      return 0;
+    }
+    long neighbors = neighborsMatrix[vertex][bucketEntry] & vertices[bucketEntry];
+    return bucketEntry == getBucketEntry(vertex) ? neighbors & (createMask(vertex) - 1) : neighbors;
+  }
+
+  /**
+   * @return The hash of all vertices and edges, computed from scratch. Should always equal {@link #fingerprint()}.
+   */
+  private long computeFingerprint() {
+    long hash = 0;
+    for (int vertex = 0; vertex <= maxVertex; vertex++) {
+      if (vertexExists(vertex)) {
+        hash ^= GraphFingerprint.vertexHash(vertex);
+        for (int bucketEntry = 0; bucketEntry <= getBucketEntry(vertex); bucketEntry++) {
+          long neighbors = getLowerNeighborsWord(vertex, bucketEntry);
+          while (neighbors != 0) {
+            hash ^= GraphFingerprint.edgeHash(vertex, bucketEntry * Long.SIZE + Long.numberOfTrailingZeros(neighbors));
+            neighbors &= neighbors - 1;
+          }
+        }
+      }
+    }
+    return hash;
+  }
+
   public boolean equalsJGraphImpl(JGraphSimpleGraphImpl other) {
-    Set<Integer> otherVertexSet = other.vertexSet();
-    if (!otherVertexSet.equals(vertexSet())) {
+    int numberOfOtherVertices = 0;
+    for (PrimitiveIterator.OfInt otherVertexIterator = other.vertexIterator(); otherVertexIterator.hasNext(); ) {
+      int vertex = otherVertexIterator.nextInt();
+      if (!vertexExists(vertex) || degree(vertex) != other.degree(vertex)) {
+        return false;
+      }
+      numberOfOtherVertices++;
+    }
+    int numberOfVertices = 0;
+    for (long word : vertices) {
+      numberOfVertices += Long.bitCount(word);
+    }
+    if (numberOfVertices != numberOfOtherVertices) {
       return false;
     }
-    for (int vertex = 0; vertex < maxVertex; vertex++) {
-      for (int neighbor = 0; neighbor < maxVertex; neighbor++) {
-        if (vertexExists(vertex) && vertexExists(neighbor)) {
-          if (edgeExists(vertex, neighbor) && !other.edgeExists(vertex, neighbor)) {
-            return false;
-          } else if (!edgeExists(vertex, neighbor) && other.edgeExists(vertex, neighbor)) {
+    //Same vertices and degrees, so it's enough to check that all of this graph edges exist in the other graph
+    for (int vertex = 0; vertex <= maxVertex; vertex++) {
+      if (!vertexExists(vertex)) {
+        continue;
+      }
+      long[] row = neighborsMatrix[vertex];
+      for (int bucketEntry = 0; bucketEntry <= getBucketEntry(vertex); bucketEntry++) {
+        long neighbors = getNeighborsWord(vertex, row, bucketEntry);
+        while (neighbors != 0) {
+          int neighbor = bucketEntry * Long.SIZE + Long.numberOfTrailingZeros(neighbors);
+          if (neighbor < vertex && !other.edgeExists(vertex, neighbor)) {
             return false;
           }
+          neighbors &= neighbors - 1;
         }
       }
     }
@@ -272,7 +930,7 @@ public class NeighborsMatrixGraph implements SimpleGraph {
 
     private void push(int value) {
       if (nextEntry == stack.length) {
-        int[] newStack = new int[stack.length];
+        int[] newStack = new int[stack.length * 2];
         System.arraycopy(stack, 0, newStack, 0, stack.length);
         stack = newStack;
       }
@@ -288,6 +946,11 @@ public class NeighborsMatrixGraph implements SimpleGraph {
     private boolean isEmpty() {
       return nextEntry == 0;
     }
+
+    private int size() {
+      return nextEntry;
+    }
+
   }
 
   public static NeighborsMatrixGraph createRandomGraph(Random random, int numberOfVertices, double loadFactor) {
@@ -296,4 +959,16 @@ public class NeighborsMatrixGraph implements SimpleGraph {
     return graph;
   }
 
+  /**
+   * Creates a random graph in parallel, with words level generation instead of a random draw per pair.
+   * See {@link RandomGraphGenerator}. The graph depends only on the seed, regardless of the parallelism.
+   */
+  public static NeighborsMatrixGraph createRandomGraph(long seed, int numberOfVertices, double loadFactor,
+                                                       int parallelism) {
+    NeighborsMatrixGraph graph = new NeighborsMatrixGraph(numberOfVertices);
+    new RandomGraphGenerator(seed, loadFactor, parallelism).fillNeighborsMatrix(graph.neighborsMatrix, numberOfVertices);
+    graph.fingerprint = graph.computeFingerprint(); //The matrix was filled directly
+    return graph;
+  }
+
 }
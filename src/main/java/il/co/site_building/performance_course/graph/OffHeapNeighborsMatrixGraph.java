@@ -0,0 +1,337 @@
+package il.co.site_building.performance_course.graph;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.IntConsumer;
+
+/**
+ * Bit level neighbors matrix graph, with the same semantics as {@link NeighborsMatrixGraph}, where the matrix is stored
+ * off heap in direct buffers. The matrix isn't scanned by the garbage collector, and doesn't take heap space. Direct
+ * memory has its own limit, -XX:MaxDirectMemorySize, which defaults to the maximal heap size (-Xmx), so a matrix larger
+ * than -Xmx requires setting -XX:MaxDirectMemorySize explicitly.
+ * <p>
+ * Rows are stored back to back in fixed size chunks (a single direct buffer is limited to 2GB), each row within one chunk.
+ * The matrix capacity is doubled when a vertex exceeds it, by reallocating the chunks and copying the rows.
+ * The graph should be closed once it isn't needed anymore, and any further access to a closed graph throws an
+ * {@link IllegalStateException}. The old chunks, and the chunks of a closed graph, are released by the cleaners of their
+ * buffers once the garbage collector finds them unreachable. When -XX:MaxDirectMemorySize is reached, allocating a new
+ * chunk triggers a System.gc() to release them first, so -XX:+DisableExplicitGC shouldn't be used with this graph.
+ */
+public class OffHeapNeighborsMatrixGraph implements SimpleGraph, AutoCloseable {
+
+  private static final int MAX_CHUNK_LONGS = 1 << 27; //1GB per chunk
+  private static final int MIN_CAPACITY = Long.SIZE;
+
+  private long[] vertices; //Bitwise array of all vertices. 1 in the relevant position indicates that the vertex exist.
+  private LongBuffer[] chunks; //Bitwise neighbors matrix. Each edge is marked in the rows of both of its vertices.
+  private int rowsPerChunk;
+  private int rowLongs; //Number of longs per row
+  private int capacity; //Number of rows
+  private int maxVertex; //Highest vertex ever added (inclusive), -1 for an empty graph.
+  private boolean closed;
+
+  /**
+   * Creates an empty graph.
+   */
+  public OffHeapNeighborsMatrixGraph() {
+    this(0);
+  }
+
+  /**
+   * Creates a graph where all vertices in the range of [0..numberOfVertices) exist, without edges.
+   *
+   * @param numberOfVertices Number of vertices
+   */
+  public OffHeapNeighborsMatrixGraph(int numberOfVertices) {
+    allocateMatrix(Math.max(MIN_CAPACITY, numberOfVertices));
+    vertices = new long[rowLongs];
+    for (int vertex = 0; vertex < numberOfVertices; vertex++) {
+      vertices[getBucketEntry(vertex)] |= createMask(vertex);
+    }
+    maxVertex = numberOfVertices - 1;
+    closed = false;
+  }
+
+  @Override public void addVertex(int vertex) {
+    ensureOpen();
+    if (vertex >= capacity) {
+      increaseCapacity(Math.max(vertex + 1, capacity * 2));
+    }
+    maxVertex = Math.max(maxVertex, vertex);
+    vertices[getBucketEntry(vertex)] |= createMask(vertex);
+  }
+
+  @Override public void removeVertex(int vertex) {
+    if (!vertexExists(vertex)) {
+      return; //Nothing to do
+    }
+    vertices[getBucketEntry(vertex)] &= ~createMask(vertex);
+  }
+
+  @Override public boolean vertexExists(int vertex) {
+    ensureOpen();
+    if (vertex < 0 || vertex > maxVertex) {
+      return false;
+    }
+    return (vertices[getBucketEntry(vertex)] & createMask(vertex)) != 0;
+  }
+
+  @Override public void addEdge(int v1, int v2) {
+    if (!vertexExists(v1) || !vertexExists(v2)) {
+      return;
+    }
+    setEntry(v1, v2, true);
+    setEntry(v2, v1, true);
+  }
+
+  @Override public void removeEdge(int v1, int v2) {
+    if (!vertexExists(v1) || !vertexExists(v2)) {
+      return;
+    }
+    setEntry(v1, v2, false);
+    setEntry(v2, v1, false);
+  }
+
+  @Override public boolean edgeExists(int v1, int v2) {
+    if (v1 == v2) {
+      return true;
+    }
+    if (!vertexExists(v1) || !vertexExists(v2)) {
+      return false;
+    }
+    return (getRowWord(v1, getBucketEntry(v2)) & createMask(v2)) != 0;
+  }
+
+  /**
+   * Creates all connected components sub graphs of this graph.
+   * The components are on heap {@link NeighborsMatrixGraph} instances, so they don't need to be closed.
+   *
+   * @return A collection of the connected components.
+   */
+  @Override public Collection<SimpleGraph> createConnectedComponents() {
+    ConnectedComponentsLabels labels = labelConnectedComponents();
+    Collection<SimpleGraph> connectedComponents = new ArrayList<>(labels.numberOfComponents());
+    labels.forEachComponent((componentsVertices, from, to) -> {
+      NeighborsMatrixGraph connectedComponent = new NeighborsMatrixGraph();
+      connectedComponent.addVertex(componentsVertices[to - 1]); //Vertices are sorted, allocating the matrix at once
+      for (int index = from; index < to; index++) {
+        connectedComponent.addVertex(componentsVertices[index]);
+      }
+      for (int index = from; index < to; index++) {
+        int vertex = componentsVertices[index];
+        int lastBucketEntry = getBucketEntry(vertex);
+        for (int bucketEntry = 0; bucketEntry <= lastBucketEntry; bucketEntry++) {
+          long neighbors = getRowWord(vertex, bucketEntry) & vertices[bucketEntry];
+          while (neighbors != 0) {
+            int neighbor = bucketEntry * Long.SIZE + Long.numberOfTrailingZeros(neighbors);
+            if (neighbor < vertex) {
+              connectedComponent.addEdge(vertex, neighbor);
+            }
+            neighbors &= neighbors - 1;
+          }
+        }
+      }
+      connectedComponents.add(connectedComponent);
+    });
+    return connectedComponents;
+  }
+
+  @Override public ConnectedComponentsLabels labelConnectedComponents() {
+    ensureOpen();
+    int[] labels = new int[maxVertex + 1];
+    Arrays.fill(labels, ConnectedComponentsLabels.NO_COMPONENT);
+    int[] componentSizes = new int[Math.max(maxVertex + 1, 1)];
+    int numberOfComponents = 0;
+    long[] visited = new long[vertices.length]; // A bit wise boolean visited array used for DFS traversal
+    int[] verticesStack = new int[maxVertex + 1];
+    for (int bucketEntry = 0; bucketEntry < vertices.length; bucketEntry++) {
+      long undiscovered = vertices[bucketEntry] & ~visited[bucketEntry];
+      while (undiscovered != 0) {
+        int nextVertex = bucketEntry * Long.SIZE + Long.numberOfTrailingZeros(undiscovered);
+        componentSizes[numberOfComponents] = runDfs(nextVertex, visited, verticesStack, labels, numberOfComponents);
+        numberOfComponents++;
+        undiscovered = vertices[bucketEntry] & ~visited[bucketEntry];
+      }
+    }
+    return new ConnectedComponentsLabels(labels, Arrays.copyOf(componentSizes, numberOfComponents));
+  }
+
+  @Override public Set<Integer> vertexSet() {
+    Set<Integer> vertexSet = new HashSet<>();
+    for (int vertex = 0; vertex <= maxVertex; vertex++) {
+      if (vertexExists(vertex)) {
+        vertexSet.add(vertex);
+      }
+    }
+    return vertexSet;
+  }
+
+  @Override public void forEachVertex(IntConsumer vertexConsumer) {
+    ensureOpen();
+    for (int bucketEntry = 0; bucketEntry < vertices.length; bucketEntry++) {
+      long word = vertices[bucketEntry];
+      while (word != 0) {
+        vertexConsumer.accept(bucketEntry * Long.SIZE + Long.numberOfTrailingZeros(word));
+        word &= word - 1;
+      }
+    }
+  }
+
+  @Override public void forEachNeighbor(int vertex, IntConsumer neighborConsumer) {
+    if (!vertexExists(vertex)) {
+      return;
+    }
+    for (int bucketEntry = 0; bucketEntry < vertices.length; bucketEntry++) {
+      long neighbors = getNeighborsWord(vertex, bucketEntry);
+      while (neighbors != 0) {
+        neighborConsumer.accept(bucketEntry * Long.SIZE + Long.numberOfTrailingZeros(neighbors));
+        neighbors &= neighbors - 1;
+      }
+    }
+  }
+
+  @Override public int degree(int vertex) {
+    if (!vertexExists(vertex)) {
+      return 0;
+    }
+    int degree = 0;
+    for (int bucketEntry = 0; bucketEntry < vertices.length; bucketEntry++) {
+      degree += Long.bitCount(getNeighborsWord(vertex, bucketEntry));
+    }
+    return degree;
+  }
+
+  @Override public PrimitiveIterator.OfInt vertexIterator() {
+    ensureOpen();
+    return new BitSetVertexIterator(vertices);
+  }
+
+  @Override public void randomizeEdges(Random random, int maxVertex, double loadFactor) {
+    for (int vertex = 0; vertex < maxVertex; vertex++) {
+      for (int neighbor = vertex; neighbor < maxVertex; neighbor++) {
+        double lucky = random.nextDouble();
+        if (lucky <= loadFactor) {
+          addEdge(vertex, neighbor);
+        }
+      }
+    }
+  }
+
+  /**
+   * Releases the off heap matrix. Does nothing if the graph is already closed.
+   */
+  @Override public void close() {
+    closed = true;
+    chunks = null;
+    vertices = null;
+  }
+
+  private int runDfs(int firstVertex, long[] visited, int[] verticesStack, int[] labels, int label) {
+    int stackSize = 0;
+    int componentSize = 0;
+    visited[getBucketEntry(firstVertex)] |= createMask(firstVertex);
+    verticesStack[stackSize++] = firstVertex;
+    while (stackSize > 0) {
+      int vertex = verticesStack[--stackSize];
+      labels[vertex] = label;
+      componentSize++;
+      LongBuffer chunk = chunks[vertex / rowsPerChunk];
+      int rowStart = (vertex % rowsPerChunk) * rowLongs;
+      for (int bucketEntry = 0; bucketEntry < vertices.length; bucketEntry++) {
+        long undiscoveredNeighbors = chunk.get(rowStart + bucketEntry) & vertices[bucketEntry] & ~visited[bucketEntry];
+        visited[bucketEntry] |= undiscoveredNeighbors;
+        while (undiscoveredNeighbors != 0) {
+          verticesStack[stackSize++] = bucketEntry * Long.SIZE + Long.numberOfTrailingZeros(undiscoveredNeighbors);
+          undiscoveredNeighbors &= undiscoveredNeighbors - 1;
+        }
+      }
+    }
+    return componentSize;
+  }
+
+  /**
+   * @return The existing neighbors of the vertex in a word of its row, without the vertex itself.
+   */
+  private long getNeighborsWord(int vertex, int bucketEntry) {
+    long neighbors = getRowWord(vertex, bucketEntry) & vertices[bucketEntry];
+    if (bucketEntry == getBucketEntry(vertex)) {
+      neighbors &= ~createMask(vertex); //A self loop may be marked on the diagonal
+    }
+    return neighbors;
+  }
+
+  private long getRowWord(int row, int bucketEntry) {
+    return chunks[row / rowsPerChunk].get((row % rowsPerChunk) * rowLongs + bucketEntry);
+  }
+
+  private void setEntry(int row, int column, boolean value) {
+    LongBuffer chunk = chunks[row / rowsPerChunk];
+    int index = (row % rowsPerChunk) * rowLongs + getBucketEntry(column);
+    long mask = createMask(column);
+    chunk.put(index, value ? chunk.get(index) | mask : chunk.get(index) & ~mask);
+  }
+
+  private void allocateMatrix(int newCapacity) {
+    rowLongs = getBucketEntry(newCapacity - 1) + 1;
+    capacity = rowLongs * Long.SIZE;
+    rowsPerChunk = Math.max(1, MAX_CHUNK_LONGS / rowLongs);
+    int numberOfChunks = (capacity + rowsPerChunk - 1) / rowsPerChunk;
+    chunks = new LongBuffer[numberOfChunks];
+    for (int chunk = 0; chunk < numberOfChunks; chunk++) {
+      int chunkRows = Math.min(rowsPerChunk, capacity - chunk * rowsPerChunk);
+      chunks[chunk] = ByteBuffer.allocateDirect(chunkRows * rowLongs * Long.BYTES)
+                                .order(ByteOrder.nativeOrder())
+                                .asLongBuffer();
+    }
+  }
+
+  private void increaseCapacity(int newCapacity) {
+    LongBuffer[] oldChunks = chunks;
+    int oldRowsPerChunk = rowsPerChunk;
+    int oldRowLongs = rowLongs;
+    int oldCapacity = capacity;
+    allocateMatrix(newCapacity);
+    for (int row = 0; row < oldCapacity; row++) {
+      LongBuffer oldChunk = oldChunks[row / oldRowsPerChunk];
+      int oldRowStart = (row % oldRowsPerChunk) * oldRowLongs;
+      LongBuffer chunk = chunks[row / rowsPerChunk];
+      int rowStart = (row % rowsPerChunk) * rowLongs;
+      for (int bucketEntry = 0; bucketEntry < oldRowLongs; bucketEntry++) {
+        chunk.put(rowStart + bucketEntry, oldChunk.get(oldRowStart + bucketEntry));
+      }
+    }
+    vertices = Arrays.copyOf(vertices, rowLongs);
+  }
+
+  private void ensureOpen() {
+    if (closed) {
+      throw new IllegalStateException("The graph is closed");
+    }
+  }
+
+  private static long createMask(int vertex) {
+    return 1L << getBucketOffset(vertex);
+  }
+
+  private static int getBucketOffset(int vertex) {
+    return vertex % Long.SIZE;
+  }
+
+  private static int getBucketEntry(int vertex) {
+    return vertex / Long.SIZE;
+  }
+
+  public static OffHeapNeighborsMatrixGraph createRandomGraph(Random random, int numberOfVertices, double loadFactor) {
+    OffHeapNeighborsMatrixGraph graph = new OffHeapNeighborsMatrixGraph(numberOfVertices);
+    graph.randomizeEdges(random, numberOfVertices, loadFactor);
+    return graph;
+  }
+}
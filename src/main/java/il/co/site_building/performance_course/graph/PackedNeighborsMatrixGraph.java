@@ -0,0 +1,297 @@
+package il.co.site_building.performance_course.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.IntConsumer;
+
+/**
+ * Bit level neighbors matrix graph, with the same semantics as {@link NeighborsMatrixGraph}, where only the lower
+ * triangle of the matrix is stored, packed in a single array.
+ * Row r holds the neighbors which are lower than r, in r / 64 + 1 words, and the rows are stored back to back, so the
+ * offset of a row is computed from its index and doesn't depend on the number of vertices. The matrix takes about half
+ * of the memory of the mirrored matrix of {@link NeighborsMatrixGraph}, without an array object per row, and growing
+ * it only appends rows to the end of the array (with capacity doubling), instead of widening all existing rows.
+ * <p>
+ * The neighbors of a vertex which are higher than it are spread over the rows of those neighbors, so iterating over the
+ * neighbors of a single vertex probes one word per higher vertex. The components are labeled with a union find over the
+ * triangle, which scans each stored word once, sequentially.
+ * The array is limited to 2^31 longs, which is about 520K vertices.
+ */
+public class PackedNeighborsMatrixGraph implements SimpleGraph {
+
+  private static final int MIN_MATRIX_LONGS = 64;
+  private static final int MAX_MATRIX_LONGS = Integer.MAX_VALUE - 8;
+
+  private long[] vertices; //Bitwise array of all vertices. 1 in the relevant position indicates that the vertex exist.
+  private long[] matrix; //Packed lower triangle rows. Row r holds the neighbors in [0..r), starting at getRowOffset(r)
+  private int maxVertex; //Highest vertex that has a row in the matrix (inclusive), -1 for an empty graph.
+
+  /**
+   * Creates an empty graph.
+   */
+  public PackedNeighborsMatrixGraph() {
+    this(0);
+  }
+
+  /**
+   * Creates a graph where all vertices in the range of [0..numberOfVertices) exist, without edges.
+   *
+   * @param numberOfVertices Number of vertices
+   */
+  public PackedNeighborsMatrixGraph(int numberOfVertices) {
+    matrix = new long[Math.max(MIN_MATRIX_LONGS, getMatrixLongs(numberOfVertices))];
+    vertices = new long[getBucketEntry(numberOfVertices) + 1];
+    for (int vertex = 0; vertex < numberOfVertices; vertex++) {
+      vertices[getBucketEntry(vertex)] |= createMask(vertex);
+    }
+    maxVertex = numberOfVertices - 1;
+  }
+
+  @Override public void addVertex(int vertex) {
+    if (vertex > maxVertex) {
+      increaseMatrix(vertex);
+    }
+    vertices[getBucketEntry(vertex)] |= createMask(vertex);
+  }
+
+  @Override public void removeVertex(int vertex) {
+    if (!vertexExists(vertex)) {
+      return; //Nothing to do
+    }
+    vertices[getBucketEntry(vertex)] &= ~createMask(vertex);
+  }
+
+  @Override public boolean vertexExists(int vertex) {
+    if (vertex < 0 || vertex > maxVertex) {
+      return false;
+    }
+    return (vertices[getBucketEntry(vertex)] & createMask(vertex)) != 0;
+  }
+
+  /**
+   * Adds an edge. A self loop isn't stored, as a vertex is always connected to itself.
+   */
+  @Override public void addEdge(int v1, int v2) {
+    if (v1 == v2 || !vertexExists(v1) || !vertexExists(v2)) {
+      return;
+    }
+    int row = Math.max(v1, v2);
+    int column = Math.min(v1, v2);
+    matrix[getRowOffset(row) + getBucketEntry(column)] |= createMask(column);
+  }
+
+  @Override public void removeEdge(int v1, int v2) {
+    if (v1 == v2 || !vertexExists(v1) || !vertexExists(v2)) {
+      return;
+    }
+    int row = Math.max(v1, v2);
+    int column = Math.min(v1, v2);
+    matrix[getRowOffset(row) + getBucketEntry(column)] &= ~createMask(column);
+  }
+
+  @Override public boolean edgeExists(int v1, int v2) {
+    if (v1 == v2) {
+      return true;
+    }
+    if (!vertexExists(v1) || !vertexExists(v2)) {
+      return false;
+    }
+    int row = Math.max(v1, v2);
+    int column = Math.min(v1, v2);
+    return (matrix[getRowOffset(row) + getBucketEntry(column)] & createMask(column)) != 0;
+  }
+
+  /**
+   * Creates all connected components sub graphs of this graph.
+   * The components are {@link NeighborsMatrixGraph} instances.
+   *
+   * @return A collection of the connected components.
+   */
+  @Override public Collection<SimpleGraph> createConnectedComponents() {
+    ConnectedComponentsLabels labels = labelConnectedComponents();
+    Collection<SimpleGraph> connectedComponents = new ArrayList<>(labels.numberOfComponents());
+    labels.forEachComponent((componentsVertices, from, to) -> {
+      NeighborsMatrixGraph connectedComponent = new NeighborsMatrixGraph();
+      connectedComponent.addVertex(componentsVertices[to - 1]); //Vertices are sorted, allocating the matrix at once
+      for (int index = from; index < to; index++) {
+        connectedComponent.addVertex(componentsVertices[index]);
+      }
+      for (int index = from; index < to; index++) {
+        int vertex = componentsVertices[index];
+        forEachLowerNeighbor(vertex, neighbor -> connectedComponent.addEdge(vertex, neighbor));
+      }
+      connectedComponents.add(connectedComponent);
+    });
+    return connectedComponents;
+  }
+
+  @Override public ConnectedComponentsLabels labelConnectedComponents() {
+    ConnectivityTracker tracker = new ConnectivityTracker(maxVertex + 1);
+    forEachVertex(tracker::addVertex);
+    forEachVertex(vertex -> forEachLowerNeighbor(vertex, neighbor -> tracker.union(vertex, neighbor)));
+    int[] roots = new int[maxVertex + 1];
+    Arrays.fill(roots, ConnectedComponentsLabels.NO_COMPONENT);
+    forEachVertex(vertex -> roots[vertex] = tracker.find(vertex));
+    return ConnectedComponentsLabels.fromRoots(roots);
+  }
+
+  @Override public Set<Integer> vertexSet() {
+    Set<Integer> vertexSet = new HashSet<>();
+    forEachVertex(vertexSet::add);
+    return vertexSet;
+  }
+
+  @Override public void forEachVertex(IntConsumer vertexConsumer) {
+    for (int bucketEntry = 0; bucketEntry < vertices.length; bucketEntry++) {
+      long word = vertices[bucketEntry];
+      while (word != 0) {
+        vertexConsumer.accept(bucketEntry * Long.SIZE + Long.numberOfTrailingZeros(word));
+        word &= word - 1;
+      }
+    }
+  }
+
+  /**
+   * Visits the lower neighbors by scanning the vertex row, and the higher neighbors by probing one word in each of
+   * their rows.
+   */
+  @Override public void forEachNeighbor(int vertex, IntConsumer neighborConsumer) {
+    forEachLowerNeighbor(vertex, neighborConsumer);
+    if (!vertexExists(vertex)) {
+      return;
+    }
+    int bucketEntry = getBucketEntry(vertex);
+    long mask = createMask(vertex);
+    int rowOffset = getRowOffset(vertex + 1);
+    for (int neighbor = vertex + 1; neighbor <= maxVertex; neighbor++) {
+      if ((matrix[rowOffset + bucketEntry] & mask) != 0 && vertexExists(neighbor)) {
+        neighborConsumer.accept(neighbor);
+      }
+      rowOffset += getBucketEntry(neighbor) + 1;
+    }
+  }
+
+  @Override public int degree(int vertex) {
+    int[] degree = new int[1];
+    forEachNeighbor(vertex, neighbor -> degree[0]++);
+    return degree[0];
+  }
+
+  @Override public PrimitiveIterator.OfInt vertexIterator() {
+    return new BitSetVertexIterator(vertices);
+  }
+
+  @Override public void randomizeEdges(Random random, int maxVertex, double loadFactor) {
+    for (int vertex = 0; vertex < maxVertex; vertex++) {
+      for (int neighbor = vertex; neighbor < maxVertex; neighbor++) {
+        double lucky = random.nextDouble();
+        if (lucky <= loadFactor) {
+          addEdge(vertex, neighbor);
+        }
+      }
+    }
+  }
+
+  /**
+   * @return The number of longs allocated for the matrix.
+   */
+  public int getMatrixCapacity() {
+    return matrix.length;
+  }
+
+  /**
+   * Visits all neighbors of an existing vertex which are lower than it, by scanning its row.
+   */
+  private void forEachLowerNeighbor(int vertex, IntConsumer neighborConsumer) {
+    if (!vertexExists(vertex)) {
+      return;
+    }
+    int rowOffset = getRowOffset(vertex);
+    int lastBucketEntry = getBucketEntry(vertex);
+    for (int bucketEntry = 0; bucketEntry <= lastBucketEntry; bucketEntry++) {
+      long neighbors = matrix[rowOffset + bucketEntry] & vertices[bucketEntry];
+      if (bucketEntry == lastBucketEntry) {
+        neighbors &= createMask(vertex) - 1;
+      }
+      while (neighbors != 0) {
+        neighborConsumer.accept(bucketEntry * Long.SIZE + Long.numberOfTrailingZeros(neighbors));
+        neighbors &= neighbors - 1;
+      }
+    }
+  }
+
+  /**
+   * Appends the rows up to the vertex. The existing rows keep their offsets, so they are copied only if the array has
+   * to be reallocated, at once.
+   */
+  private void increaseMatrix(int vertex) {
+    int requiredLongs = getMatrixLongs(vertex + 1);
+    if (requiredLongs > matrix.length) {
+      int newLength = (int) Math.min(MAX_MATRIX_LONGS, Math.max(requiredLongs, 2L * matrix.length));
+      matrix = Arrays.copyOf(matrix, newLength);
+    }
+    if (getBucketEntry(vertex) >= vertices.length) {
+      vertices = Arrays.copyOf(vertices, getBucketEntry(vertex) + 1);
+    }
+    maxVertex = vertex;
+  }
+
+  /**
+   * @return The number of longs of the rows [0..numberOfRows)
+   * @throws IllegalArgumentException If the rows don't fit in a single array.
+   */
+  private static int getMatrixLongs(int numberOfRows) {
+    long rowOffset = getLongRowOffset(numberOfRows);
+    if (rowOffset > MAX_MATRIX_LONGS) {
+      throw new IllegalArgumentException("Too many vertices for a packed matrix: " + numberOfRows);
+    }
+    return (int) rowOffset;
+  }
+
+  private static int getRowOffset(int row) {
+    return (int) getLongRowOffset(row);
+  }
+
+  /**
+   * The rows of each 64 rows block are one word longer than the rows of the previous block, so the offset is the sum
+   * of all full blocks, 64 * (1 + 2 + ... + blocks), and the rows of the last block.
+   */
+  private static long getLongRowOffset(int row) {
+    long block = getBucketEntry(row);
+    return Long.SIZE * block * (block + 1) / 2 + getBucketOffset(row) * (block + 1);
+  }
+
+  private static long createMask(int vertex) {
+    return 1L << getBucketOffset(vertex);
+  }
+
+  private static int getBucketOffset(int vertex) {
+    return vertex % Long.SIZE;
+  }
+
+  private static int getBucketEntry(int vertex) {
+    return vertex / Long.SIZE;
+  }
+
+  public static PackedNeighborsMatrixGraph createRandomGraph(Random random, int numberOfVertices, double loadFactor) {
+    PackedNeighborsMatrixGraph graph = new PackedNeighborsMatrixGraph(numberOfVertices);
+    graph.randomizeEdges(random, numberOfVertices, loadFactor);
+    return graph;
+  }
+
+  /**
+   * Creates a random graph, where the edges are generated in parallel by a {@link RandomGraphGenerator}.
+   */
+  public static PackedNeighborsMatrixGraph createRandomGraph(long seed, int numberOfVertices, double loadFactor,
+                                                             int parallelism) {
+    PackedNeighborsMatrixGraph graph = new PackedNeighborsMatrixGraph(numberOfVertices);
+    new RandomGraphGenerator(seed, loadFactor, parallelism)
+        .generateEdges(numberOfVertices, false, EdgeListLoader.simpleGraphConsumer(graph));
+    return graph;
+  }
+}
@@ -0,0 +1,119 @@
+package il.co.site_building.performance_course.graph;
+
+import java.util.Arrays;
+
+/**
+ * The lower triangle of the weights matrix, packed row after row: row v holds the weights of the edges (v, u) for all
+ * u &lt; v. So it takes half of the memory of a square matrix. The rows are split into blocks of {@link #BLOCK_ROWS}
+ * consecutive rows, each packed into its own array, so the rows of new vertices are appended in new blocks, and the
+ * existing blocks are kept as is when the storage grows.
+ * <p>
+ * The lower neighbors of a vertex are sequential in its row, and its upper neighbors are strided over the following
+ * rows, see {@link MirroredRowsStorage} for sequential scans of all neighbors.
+ * The blocks are copied on write after a snapshot, like the rows of {@link MirroredRowsStorage}.
+ */
+final class PackedTriangleStorage implements WeightStorage {
+
+  static final int BLOCK_SHIFT = 6;
+  static final int BLOCK_ROWS = 1 << BLOCK_SHIFT;
+
+  private double[][] blocks;
+  private int capacity;
+  private boolean shared; //True if the blocks array is shared with a snapshot
+  private int version; //Increased on every snapshot
+  private int[] blockVersions; //A block belongs only to this storage if its version is the current version
+
+  PackedTriangleStorage(int capacity) {
+    this.capacity = capacity;
+    blocks = new double[numberOfBlocks(capacity)][];
+    for (int block = 0; block < blocks.length; block++) {
+      blocks[block] = new double[blockLength(block, capacity)];
+      Arrays.fill(blocks[block], Double.POSITIVE_INFINITY);
+    }
+    blockVersions = new int[blocks.length];
+  }
+
+  /**
+   * A read only snapshot.
+   */
+  private PackedTriangleStorage(double[][] blocks, int capacity) {
+    this.blocks = blocks;
+    this.capacity = capacity;
+  }
+
+  @Override public int capacity() {
+    return capacity;
+  }
+
+  @Override public double getWeight(int v1, int v2) {
+    int upper = Math.max(v1, v2);
+    return blocks[upper >>> BLOCK_SHIFT][index(upper, Math.min(v1, v2))];
+  }
+
+  @Override public void setWeight(int v1, int v2, double weight) {
+    if (shared) {
+      blocks = blocks.clone(); //Only the blocks references, the blocks are copied once modified
+      shared = false;
+    }
+    int upper = Math.max(v1, v2);
+    getWritableBlock(upper >>> BLOCK_SHIFT)[index(upper, Math.min(v1, v2))] = weight;
+  }
+
+  /**
+   * The capacity is at least doubled. Only the last block, if it isn't full, is copied, and the other blocks are kept.
+   */
+  @Override public void ensureCapacity(int numberOfVertices) {
+    if (numberOfVertices <= capacity) {
+      return;
+    }
+    int newCapacity = Math.max(numberOfVertices, capacity * 2);
+    int numberOfBlocks = blocks.length;
+    blocks = Arrays.copyOf(blocks, numberOfBlocks(newCapacity));
+    blockVersions = Arrays.copyOf(blockVersions, blocks.length);
+    for (int block = capacity >>> BLOCK_SHIFT; block < blocks.length; block++) {
+      int length = block < numberOfBlocks ? blocks[block].length : 0;
+      int newLength = blockLength(block, newCapacity);
+      blocks[block] = block < numberOfBlocks ? Arrays.copyOf(blocks[block], newLength) : new double[newLength];
+      Arrays.fill(blocks[block], length, blocks[block].length, Double.POSITIVE_INFINITY);
+      blockVersions[block] = version;
+    }
+    capacity = newCapacity;
+    shared = false;
+  }
+
+  @Override public WeightStorage snapshot() {
+    shared = true;
+    version++; //All current blocks are now shared with the snapshot
+    return new PackedTriangleStorage(blocks, capacity);
+  }
+
+  private double[] getWritableBlock(int block) {
+    if (blockVersions[block] != version) {
+      blocks[block] = blocks[block].clone();
+      blockVersions[block] = version;
+    }
+    return blocks[block];
+  }
+
+  /**
+   * @return The index of the weight of (upper, lower) in the block of the upper vertex.
+   */
+  static int index(int upper, int lower) {
+    int row = upper & (BLOCK_ROWS - 1); //The row in the block
+    int firstRow = upper - row; //The first row of the block, whose length is firstRow
+    return row * firstRow + row * (row - 1) / 2 + lower;
+  }
+
+  static int numberOfBlocks(int capacity) {
+    return (capacity + BLOCK_ROWS - 1) >>> BLOCK_SHIFT;
+  }
+
+  /**
+   * @return The length of the block, which holds its rows below the capacity.
+   */
+  static int blockLength(int block, int capacity) {
+    int firstRow = block << BLOCK_SHIFT;
+    int rows = Math.min(BLOCK_ROWS, capacity - firstRow);
+    return rows * firstRow + rows * (rows - 1) / 2;
+  }
+}
@@ -0,0 +1,119 @@
+package il.co.site_building.performance_course.graph;
+
+/**
+ * A pairing heap, where the nodes are the vertices, and the tree links are arrays indexed by the vertex instead of node
+ * objects. Insert and decrease key link a single tree to the root in O(1), and extract min merges the children of the
+ * root in two passes, so it's best when there are many decrease keys per extract min.
+ */
+final class PairingHeap implements VertexPriorityQueue {
+
+  private static final int NONE = -1;
+
+  private final double[] keys;
+  private final int[] firstChild;
+  private final int[] nextSibling;
+  private final int[] previous; //The previous sibling, or the parent of a first child
+  private final int[] pairs; //Merged pairs of extract min
+  private int root = NONE;
+
+  PairingHeap(int capacity) {
+    keys = new double[capacity];
+    firstChild = new int[capacity];
+    nextSibling = new int[capacity];
+    previous = new int[capacity];
+    pairs = new int[capacity];
+  }
+
+  @Override public void insert(int vertex, double key) {
+    keys[vertex] = key;
+    firstChild[vertex] = NONE;
+    detach(vertex);
+    root = root == NONE ? vertex : link(root, vertex);
+  }
+
+  @Override public void decreaseKey(int vertex, double key) {
+    keys[vertex] = key;
+    if (vertex == root) {
+      return;
+    }
+    int previousNode = previous[vertex];
+    int nextNode = nextSibling[vertex];
+    if (firstChild[previousNode] == vertex) {
+      firstChild[previousNode] = nextNode;
+    } else {
+      nextSibling[previousNode] = nextNode;
+    }
+    if (nextNode != NONE) {
+      previous[nextNode] = previousNode;
+    }
+    detach(vertex);
+    root = link(root, vertex);
+  }
+
+  @Override public int extractMin() {
+    int minVertex = root;
+    root = mergePairs(firstChild[minVertex]);
+    return minVertex;
+  }
+
+  @Override public boolean isEmpty() {
+    return root == NONE;
+  }
+
+  /**
+   * Links the siblings in pairs from left to right, and then links the pairs into one tree from right to left.
+   *
+   * @return The root of the merged tree, or NONE if there are no siblings.
+   */
+  private int mergePairs(int firstSibling) {
+    int numberOfPairs = 0;
+    int sibling = firstSibling;
+    while (sibling != NONE) {
+      int first = sibling;
+      int second = nextSibling[first];
+      if (second == NONE) {
+        detach(first);
+        pairs[numberOfPairs++] = first;
+        break;
+      }
+      sibling = nextSibling[second];
+      detach(first);
+      detach(second);
+      pairs[numberOfPairs++] = link(first, second);
+    }
+    if (numberOfPairs == 0) {
+      return NONE;
+    }
+    int merged = pairs[numberOfPairs - 1];
+    for (int pair = numberOfPairs - 2; pair >= 0; pair--) {
+      merged = link(pairs[pair], merged);
+    }
+    return merged;
+  }
+
+  /**
+   * Links two detached trees, the root with the larger key becomes the first child of the other.
+   *
+   * @return The root of the linked tree.
+   */
+  private int link(int first, int second) {
+    if (keys[second] < keys[first]) {
+      int temp = first;
+      first = second;
+      second = temp;
+    }
+    int child = firstChild[first];
+    nextSibling[second] = child;
+    if (child != NONE) {
+      previous[child] = second;
+    }
+    previous[second] = first;
+    firstChild[first] = second;
+    return first;
+  }
+
+  private void detach(int vertex) {
+    nextSibling[vertex] = NONE;
+    previous[vertex] = NONE;
+  }
+}
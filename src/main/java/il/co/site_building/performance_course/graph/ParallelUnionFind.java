@@ -0,0 +1,141 @@
+package il.co.site_building.performance_course.graph;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Multi-core connected components labeling, based on a lock-free union find on an {@link AtomicIntegerArray}.
+ * Vertex ranges are processed on a {@link ForkJoinPool}, and each edge is merged with compare-and-set on the roots.
+ * A root is always linked to a lower root, and paths are halved towards lower vertices, so the forest never has cycles.
+ * Once all edges are merged, every vertex is labeled by its root.
+ * Subclasses provide the graph traversal by calling {@link #union(int, int)} for every edge of a vertex.
+ */
+abstract class ParallelUnionFind {
+
+  private static final int MIN_RANGE_SIZE = 256;
+
+  private final long[] vertices;
+  private final int numberOfVertices;
+  private final AtomicIntegerArray parents;
+
+  /**
+   * @param numberOfVertices Number of vertices to label, in the range [0..numberOfVertices)
+   * @param vertices         Bitwise array of all existing vertices.
+   */
+  ParallelUnionFind(int numberOfVertices, long[] vertices) {
+    this.vertices = vertices;
+    this.numberOfVertices = numberOfVertices;
+    this.parents = new AtomicIntegerArray(numberOfVertices);
+    for (int vertex = 0; vertex < numberOfVertices; vertex++) {
+      parents.set(vertex, vertex);
+    }
+  }
+
+  /**
+   * Calls {@link #union(int, int)} for the edges of the vertex. It is enough to handle only the neighbors which are lower
+   * than the vertex, as each edge is reached from both of its vertices. Called concurrently for different vertices.
+   *
+   * @param vertex An existing vertex.
+   */
+  protected abstract void unionNeighbors(int vertex);
+
+  /**
+   * Labels all vertices by their connected component.
+   *
+   * @param parallelism Number of threads to use.
+   * @return The components labels.
+   */
+  ConnectedComponentsLabels label(int parallelism) {
+    int[] roots = new int[numberOfVertices];
+    Arrays.fill(roots, ConnectedComponentsLabels.NO_COMPONENT);
+    int rangeSize = Math.max(MIN_RANGE_SIZE, numberOfVertices / (parallelism * 8) + 1);
+    ForkJoinPool forkJoinPool = new ForkJoinPool(parallelism);
+    try {
+      forkJoinPool.invoke(new VerticesRangeTask(0, numberOfVertices, rangeSize, this::unionNeighbors));
+      //All unions are done, so each vertex finds its final root
+      forkJoinPool.invoke(new VerticesRangeTask(0,
+                                                numberOfVertices,
+                                                rangeSize,
+                                                vertex -> roots[vertex] = find(vertex)));
+    } finally {
+      forkJoinPool.shutdown();
+    }
+    return ConnectedComponentsLabels.fromRoots(roots);
+  }
+
+  protected void union(int v1, int v2) {
+    while (true) {
+      int root1 = find(v1);
+      int root2 = find(v2);
+      if (root1 == root2) {
+        return;
+      }
+      if (root1 < root2) {
+        int rootTemp = root1;
+        root1 = root2;
+        root2 = rootTemp;
+      }
+      if (parents.compareAndSet(root1, root1, root2)) {
+        return;
+      }
+      //Another thread linked root1 in the meanwhile, retrying from the roots
+      v1 = root1;
+      v2 = root2;
+    }
+  }
+
+  private int find(int vertex) {
+    while (true) {
+      int parent = parents.get(vertex);
+      if (parent == vertex) {
+        return vertex;
+      }
+      int grandParent = parents.get(parent);
+      if (parent != grandParent) {
+        parents.compareAndSet(vertex, parent, grandParent); //Path halving, failing is harmless
+      }
+      vertex = grandParent;
+    }
+  }
+
+  private boolean vertexExists(int vertex) {
+    return (vertices[vertex / Long.SIZE] & (1L << (vertex % Long.SIZE))) != 0;
+  }
+
+  private interface VertexTask {
+    void run(int vertex);
+  }
+
+  private class VerticesRangeTask extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int from;
+    private final int to;
+    private final int rangeSize;
+    private final VertexTask vertexTask;
+
+    private VerticesRangeTask(int from, int to, int rangeSize, VertexTask vertexTask) {
+      this.from = from;
+      this.to = to;
+      this.rangeSize = rangeSize;
+      this.vertexTask = vertexTask;
+    }
+
+    @Override protected void compute() {
+      if (to - from <= rangeSize) {
+        for (int vertex = from; vertex < to; vertex++) {
+          if (vertexExists(vertex)) {
+            vertexTask.run(vertex);
+          }
+        }
+      } else {
+        int middle = (from + to) >>> 1;
+        invokeAll(new VerticesRangeTask(from, middle, rangeSize, vertexTask),
+                  new VerticesRangeTask(middle, to, rangeSize, vertexTask));
+      }
+    }
+  }
+}
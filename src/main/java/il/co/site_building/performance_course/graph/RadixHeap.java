@@ -0,0 +1,102 @@
+package il.co.site_building.performance_course.graph;
+
+import java.util.Arrays;
+
+/**
+ * A radix heap, a monotone bucket queue for bounded keys: no key is smaller than the last extracted key, which holds
+ * for Dijkstra with non-negative weights.
+ * The bits of a non-negative double are ordered like the double itself, so the keys are bounded 64 bit integers, and a
+ * key is in bucket i if its highest bit which differs from the last extracted key is bit i-1 (bucket 0 for an equal
+ * key). Insert and decrease key are O(1) list operations, and each key moves down at most 64 buckets over all extract
+ * mins, when the smallest non empty bucket is redistributed around its minimum.
+ */
+final class RadixHeap implements VertexPriorityQueue {
+
+  private static final int NONE = -1;
+  private static final int NUMBER_OF_BUCKETS = Long.SIZE + 1;
+
+  private final long[] keys; //The bits of the key of each vertex
+  private final int[] buckets; //buckets[v] is the bucket of vertex v
+  private final int[] next; //Buckets are doubly linked lists over the vertices
+  private final int[] previous;
+  private final int[] heads = new int[NUMBER_OF_BUCKETS];
+  private long lastKey;
+  private int size;
+
+  RadixHeap(int capacity) {
+    keys = new long[capacity];
+    buckets = new int[capacity];
+    next = new int[capacity];
+    previous = new int[capacity];
+    Arrays.fill(heads, NONE);
+  }
+
+  @Override public void insert(int vertex, double key) {
+    push(vertex, toBits(key));
+    size++;
+  }
+
+  @Override public void decreaseKey(int vertex, double key) {
+    unlink(vertex);
+    push(vertex, toBits(key));
+  }
+
+  @Override public int extractMin() {
+    if (heads[0] == NONE) {
+      int bucket = 1;
+      while (heads[bucket] == NONE) {
+        bucket++;
+      }
+      long minKey = Long.MAX_VALUE;
+      for (int vertex = heads[bucket]; vertex != NONE; vertex = next[vertex]) {
+        minKey = Math.min(minKey, keys[vertex]);
+      }
+      lastKey = minKey;
+      int vertex = heads[bucket];
+      heads[bucket] = NONE;
+      while (vertex != NONE) { //All keys of the bucket move to lower buckets
+        int nextVertex = next[vertex];
+        push(vertex, keys[vertex]);
+        vertex = nextVertex;
+      }
+    }
+    int minVertex = heads[0];
+    unlink(minVertex);
+    size--;
+    return minVertex;
+  }
+
+  @Override public boolean isEmpty() {
+    return size == 0;
+  }
+
+  private void push(int vertex, long key) {
+    int bucket = Long.SIZE - Long.numberOfLeadingZeros(key ^ lastKey);
+    keys[vertex] = key;
+    buckets[vertex] = bucket;
+    previous[vertex] = NONE;
+    next[vertex] = heads[bucket];
+    if (heads[bucket] != NONE) {
+      previous[heads[bucket]] = vertex;
+    }
+    heads[bucket] = vertex;
+  }
+
+  private void unlink(int vertex) {
+    if (previous[vertex] == NONE) {
+      heads[buckets[vertex]] = next[vertex];
+    } else {
+      next[previous[vertex]] = next[vertex];
+    }
+    if (next[vertex] != NONE) {
+      previous[next[vertex]] = previous[vertex];
+    }
+  }
+
+  /**
+   * Adding 0.0 turns -0.0, whose sign bit is set, into 0.0.
+   */
+  private static long toBits(double key) {
+    return Double.doubleToRawLongBits(key + 0.0);
+  }
+}
@@ -0,0 +1,288 @@
+package il.co.site_building.performance_course.graph;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * Parallel and deterministic generator of uniform random graphs, where each pair of distinct vertices is an edge with
+ * probability loadFactor, independently.
+ * Instead of drawing a random number per pair, each row of the lower triangle (the neighbors of vertex v which are lower
+ * than v) is generated in one of two ways:
+ * <ul>
+ *   <li>Sparse: geometric skipping (Batagelj and Brandes), where the gap to the next edge is drawn directly, so a row
+ *   costs O(1 + edges).</li>
+ *   <li>Dense: whole 64 bit words are drawn, where each bit is set with the load factor probability by mixing random words
+ *   according to the binary digits of the load factor, so a row costs O(row / 64).</li>
+ * </ul>
+ * Rows are split into blocks of 64, and every block has its own {@link SplittableRandom}, split from the seed in blocks
+ * order. Blocks are generated in parallel, and the result depends only on the seed, regardless of the parallelism.
+ */
+public class RandomGraphGenerator {
+
+  private static final int ROWS_PER_BLOCK = Long.SIZE;
+  private static final double DENSE_LOAD_FACTOR = 1.0 / 8; //Dense words are cheaper above ~8 edges per 64 pairs
+  private static final int PROBABILITY_BITS = 32; //Precision of the load factor in dense generation
+  private static final int BLOCKS_PER_THREAD = 4; //Number of edge blocks generated per thread before they are consumed
+
+  private final long seed;
+  private final double loadFactor;
+  private final int parallelism;
+  private final long fixedLoadFactor; //The load factor as a PROBABILITY_BITS fixed point fraction
+  private final double logSkipProbability; //log(1 - loadFactor), used by geometric skipping
+
+  /**
+   * @param seed        Seed of the generated graph.
+   * @param loadFactor  Probability of an edge between every two distinct vertices.
+   * @param parallelism Number of threads to use.
+   */
+  public RandomGraphGenerator(long seed, double loadFactor, int parallelism) {
+    if (loadFactor < 0 || loadFactor > 1 || parallelism < 1) {
+      throw new IllegalArgumentException("Load factor must be in [0..1], and parallelism must be positive");
+    }
+    this.seed = seed;
+    this.loadFactor = loadFactor;
+    this.parallelism = parallelism;
+    this.fixedLoadFactor = Math.round(loadFactor * (1L << PROBABILITY_BITS));
+    this.logSkipProbability = Math.log(1 - loadFactor);
+  }
+
+  /**
+   * Generates the edges of a graph with the vertices [0..numberOfVertices), and passes them to the consumer in batches.
+   * Batches are generated in parallel, but consumed by the calling thread, in order.
+   *
+   * @param numberOfVertices Number of vertices.
+   * @param withWeights      True to draw a uniform weight in [0..1) per edge, false for {@link EdgeListLoader#DEFAULT_WEIGHT}.
+   * @param consumer         Receives the edges, such as {@link EdgeListLoader#simpleGraphConsumer(SimpleGraph)}.
+   */
+  public void generateEdges(int numberOfVertices, boolean withWeights, EdgeListLoader.EdgeBatchConsumer consumer) {
+    SplittableRandom[] blockRandoms = createBlockRandoms(numberOfVertices);
+    EdgeBlock[] edgeBlocks = new EdgeBlock[parallelism * BLOCKS_PER_THREAD];
+    for (int index = 0; index < edgeBlocks.length; index++) {
+      edgeBlocks[index] = new EdgeBlock(ROWS_PER_BLOCK);
+    }
+    ForkJoinPool forkJoinPool = new ForkJoinPool(parallelism);
+    try {
+      for (int firstBlock = 0; firstBlock < blockRandoms.length; firstBlock += edgeBlocks.length) {
+        int wave = firstBlock;
+        int numberOfBlocks = Math.min(edgeBlocks.length, blockRandoms.length - firstBlock);
+        forkJoinPool.invoke(new BlocksTask(0, numberOfBlocks, index -> {
+          int block = wave + index;
+          edgeBlocks[index].generate(block, blockRandoms[block], numberOfVertices, withWeights);
+        }));
+        for (int index = 0; index < numberOfBlocks; index++) {
+          EdgeBlock edgeBlock = edgeBlocks[index];
+          if (edgeBlock.size > 0) {
+            consumer.accept(edgeBlock.sources, edgeBlock.targets, edgeBlock.weights, edgeBlock.size);
+          }
+        }
+      }
+    } finally {
+      forkJoinPool.shutdown();
+    }
+  }
+
+  /**
+   * Fills a symmetric bitwise neighbors matrix. The lower triangle rows are generated in parallel, and then mirrored into
+   * the upper triangle by transposing 64x64 bit tiles, also in parallel.
+   *
+   * @param neighborsMatrix  A matrix of at least numberOfVertices rows, each of at least ceil(numberOfVertices / 64)
+   *                         words, where all bits are 0.
+   * @param numberOfVertices Number of vertices.
+   */
+  void fillNeighborsMatrix(long[][] neighborsMatrix, int numberOfVertices) {
+    SplittableRandom[] blockRandoms = createBlockRandoms(numberOfVertices);
+    ForkJoinPool forkJoinPool = new ForkJoinPool(parallelism);
+    try {
+      forkJoinPool.invoke(new BlocksTask(0, blockRandoms.length, block -> {
+        SplittableRandom random = blockRandoms[block];
+        int lastRow = Math.min(numberOfVertices, (block + 1) * ROWS_PER_BLOCK);
+        for (int row = block * ROWS_PER_BLOCK; row < lastRow; row++) {
+          generateRow(random, row, neighborsMatrix[row]);
+        }
+      }));
+      //A block writes only the upper words of its own rows, and reads only lower words of the rows below, so blocks don't
+      //interfere with each other.
+      forkJoinPool.invoke(new BlocksTask(0, blockRandoms.length, block -> {
+        long[] tile = new long[ROWS_PER_BLOCK];
+        for (int lowerBlock = block; lowerBlock < blockRandoms.length; lowerBlock++) {
+          for (int index = 0; index < ROWS_PER_BLOCK; index++) {
+            int row = lowerBlock * ROWS_PER_BLOCK + index;
+            tile[index] = row < numberOfVertices ? neighborsMatrix[row][block] : 0;
+          }
+          transpose(tile);
+          int lastRow = Math.min(numberOfVertices, (block + 1) * ROWS_PER_BLOCK);
+          for (int row = block * ROWS_PER_BLOCK; row < lastRow; row++) {
+            neighborsMatrix[row][lowerBlock] |= tile[row - block * ROWS_PER_BLOCK];
+          }
+        }
+      }));
+    } finally {
+      forkJoinPool.shutdown();
+    }
+  }
+
+  /**
+   * Sets the bits [0..row) of the row words randomly. The words must be 0 beforehand.
+   */
+  private void generateRow(SplittableRandom random, int row, long[] rowWords) {
+    if (loadFactor < DENSE_LOAD_FACTOR) {
+      for (int column = nextEdge(random, -1); column < row; column = nextEdge(random, column)) {
+        rowWords[column / Long.SIZE] |= 1L << (column % Long.SIZE);
+      }
+      return;
+    }
+    for (int bucketEntry = 0; bucketEntry * Long.SIZE < row; bucketEntry++) {
+      long word = nextDenseWord(random);
+      int bits = row - bucketEntry * Long.SIZE;
+      if (bits < Long.SIZE) {
+        word &= (1L << bits) - 1;
+      }
+      rowWords[bucketEntry] = word;
+    }
+  }
+
+  /**
+   * @return The next column which is an edge after the given column, drawn by geometric skipping. Might exceed the row.
+   */
+  private int nextEdge(SplittableRandom random, int column) {
+    if (loadFactor == 0) {
+      return Integer.MAX_VALUE;
+    }
+    if (loadFactor == 1) {
+      return column + 1;
+    }
+    double skip = Math.floor(Math.log(1 - random.nextDouble()) / logSkipProbability);
+    return (int) Math.min(Integer.MAX_VALUE, column + 1 + skip);
+  }
+
+  /**
+   * Mixes random words according to the binary digits of the load factor, from the least significant one: OR for 1 and
+   * AND for 0. Each digit halves the probability of a bit and adds the digit, so every bit is set with the probability of
+   * the load factor (up to PROBABILITY_BITS digits).
+   */
+  private long nextDenseWord(SplittableRandom random) {
+    if (fixedLoadFactor >= 1L << PROBABILITY_BITS) {
+      return -1L;
+    }
+    long word = 0;
+    for (int digit = Long.numberOfTrailingZeros(fixedLoadFactor); digit < PROBABILITY_BITS; digit++) {
+      if ((fixedLoadFactor & (1L << digit)) != 0) {
+        word |= random.nextLong();
+      } else {
+        word &= random.nextLong();
+      }
+    }
+    return word;
+  }
+
+  private SplittableRandom[] createBlockRandoms(int numberOfVertices) {
+    SplittableRandom seedRandom = new SplittableRandom(seed);
+    SplittableRandom[] blockRandoms = new SplittableRandom[(numberOfVertices + ROWS_PER_BLOCK - 1) / ROWS_PER_BLOCK];
+    for (int block = 0; block < blockRandoms.length; block++) {
+      blockRandoms[block] = seedRandom.split();
+    }
+    return blockRandoms;
+  }
+
+  /**
+   * Transposes a 64x64 bit matrix in place, where bit c of tile[r] is the entry (r, c), by swapping sub tiles of halving
+   * sizes.
+   */
+  static void transpose(long[] tile) {
+    long mask = 0x00000000FFFFFFFFL;
+    for (int size = 32; size != 0; size >>>= 1, mask ^= mask << size) {
+      for (int row = 0; row < Long.SIZE; row = ((row | size) + 1) & ~size) {
+        long swapped = ((tile[row] >>> size) ^ tile[row | size]) & mask;
+        tile[row] ^= swapped << size;
+        tile[row | size] ^= swapped;
+      }
+    }
+  }
+
+  /**
+   * The edges of one block of rows, generated into reusable primitive arrays.
+   */
+  private class EdgeBlock {
+
+    private long[] rowWords;
+    private int[] sources;
+    private int[] targets;
+    private double[] weights;
+    private int size;
+
+    EdgeBlock(int initialCapacity) {
+      rowWords = new long[0];
+      sources = new int[initialCapacity];
+      targets = new int[initialCapacity];
+      weights = new double[initialCapacity];
+    }
+
+    void generate(int block, SplittableRandom random, int numberOfVertices, boolean withWeights) {
+      size = 0;
+      int lastRow = Math.min(numberOfVertices, (block + 1) * ROWS_PER_BLOCK);
+      for (int row = block * ROWS_PER_BLOCK; row < lastRow; row++) {
+        if (loadFactor < DENSE_LOAD_FACTOR) { //Adding the edges right away, without scanning the row words
+          for (int column = nextEdge(random, -1); column < row; column = nextEdge(random, column)) {
+            add(row, column, withWeights ? random.nextDouble() : EdgeListLoader.DEFAULT_WEIGHT);
+          }
+          continue;
+        }
+        int rowLongs = (row + Long.SIZE - 1) / Long.SIZE;
+        if (rowWords.length < rowLongs) {
+          rowWords = new long[Math.max(rowLongs, rowWords.length * 2)];
+        }
+        Arrays.fill(rowWords, 0, rowLongs, 0);
+        generateRow(random, row, rowWords);
+        for (int bucketEntry = 0; bucketEntry < rowLongs; bucketEntry++) {
+          long neighbors = rowWords[bucketEntry];
+          while (neighbors != 0) {
+            add(row, bucketEntry * Long.SIZE + Long.numberOfTrailingZeros(neighbors),
+                withWeights ? random.nextDouble() : EdgeListLoader.DEFAULT_WEIGHT);
+            neighbors &= neighbors - 1;
+          }
+        }
+      }
+    }
+
+    private void add(int source, int target, double weight) {
+      if (size == sources.length) {
+        sources = Arrays.copyOf(sources, size * 2);
+        targets = Arrays.copyOf(targets, size * 2);
+        weights = Arrays.copyOf(weights, size * 2);
+      }
+      sources[size] = source;
+      targets[size] = target;
+      weights[size] = weight;
+      size++;
+    }
+  }
+
+  private static class BlocksTask extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int from;
+    private final int to;
+    private final IntConsumer blockConsumer;
+
+    BlocksTask(int from, int to, IntConsumer blockConsumer) {
+      this.from = from;
+      this.to = to;
+      this.blockConsumer = blockConsumer;
+    }
+
+    @Override protected void compute() {
+      if (to - from <= 1) {
+        if (from < to) {
+          blockConsumer.accept(from);
+        }
+        return;
+      }
+      int middle = (from + to) >>> 1;
+      invokeAll(new BlocksTask(from, middle, blockConsumer), new BlocksTask(middle, to, blockConsumer));
+    }
+  }
+}
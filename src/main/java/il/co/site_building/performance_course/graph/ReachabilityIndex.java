@@ -0,0 +1,365 @@
+package il.co.site_building.performance_course.graph;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.IntConsumer;
+
+import gnu.trove.list.array.TIntArrayList;
+
+/**
+ * A {@link SimpleGraph} decorator which answers reachability queries from cached component labels.
+ * All modifications should go through the index, which counts them and keeps the labels up to date:
+ * <ul>
+ *   <li>Adding an edge merges the labels of its components, by relabeling the smaller component.</li>
+ *   <li>Removing an edge or a vertex may split its component, so the component is only marked dirty, and is recomputed
+ *   by a traversal of its own vertices once a query needs it.</li>
+ * </ul>
+ * Each label is a group of vertices which is a union of components, and a clean group is exactly one component.
+ * So vertices with different labels are never reachable from each other, and a query is two array reads unless both
+ * vertices are in the same dirty group.
+ * <p>
+ * The labels are built on the first query. The index counts hits (queries answered from the labels), misses (queries
+ * which had to build or recompute labels) and rebuilds (full builds and components recomputations).
+ */
+public class ReachabilityIndex implements SimpleGraph {
+
+  private static final int NOT_INDEXED = -1;
+  private static final int PENDING = -2; //A vertex of a component which is being recomputed
+  private static final int INITIAL_CAPACITY = 64;
+
+  private final SimpleGraph graph;
+  private long modificationCount;
+  private long hits;
+  private long misses;
+  private long rebuilds;
+  private boolean built;
+  //Per vertex: the label of its component, and its neighbors in a circular doubly linked list of the component vertices
+  private int[] labels;
+  private int[] nextMembers;
+  private int[] previousMembers;
+  //Per label: a vertex of the component, the number of vertices, and whether the component may have been split
+  private int[] firstMembers;
+  private int[] componentSizes;
+  private boolean[] dirtyComponents;
+  private final TIntArrayList freeLabels;
+  private int labelsBound; //All labels ever assigned are in the range [0..labelsBound)
+
+  /**
+   * @param graph The graph to index. It shouldn't be modified directly from now on.
+   */
+  public ReachabilityIndex(SimpleGraph graph) {
+    this.graph = graph;
+    freeLabels = new TIntArrayList();
+    built = false;
+  }
+
+  /**
+   * Checks if there is a path between two vertices.
+   *
+   * @param v1 First vertex
+   * @param v2 Second vertex
+   * @return True if both vertices exist and there is a path between them, false otherwise.
+   */
+  public boolean reachable(int v1, int v2) {
+    if (!graph.vertexExists(v1) || !graph.vertexExists(v2)) {
+      hits++;
+      return false;
+    }
+    boolean hit = built;
+    if (!built) {
+      build();
+    }
+    int label = labels[v1];
+    if (label == labels[v2] && dirtyComponents[label]) {
+      hit = false;
+      recompute(label);
+    }
+    if (hit) {
+      hits++;
+    } else {
+      misses++;
+    }
+    return labels[v1] == labels[v2];
+  }
+
+  public long getModificationCount() {
+    return modificationCount;
+  }
+
+  public long getHits() {
+    return hits;
+  }
+
+  public long getMisses() {
+    return misses;
+  }
+
+  public long getRebuilds() {
+    return rebuilds;
+  }
+
+  @Override public void addVertex(int vertex) {
+    modificationCount++;
+    boolean existed = graph.vertexExists(vertex);
+    graph.addVertex(vertex);
+    if (!built || existed || !graph.vertexExists(vertex)) {
+      return;
+    }
+    ensureCapacity(vertex);
+    createComponent(vertex);
+    //Some graphs keep the edges of a removed vertex, and they are back once it is added again
+    graph.forEachNeighbor(vertex, neighbor -> merge(vertex, neighbor));
+  }
+
+  @Override public void removeVertex(int vertex) {
+    modificationCount++;
+    if (built && graph.vertexExists(vertex)) {
+      int label = labels[vertex];
+      unlink(vertex);
+      labels[vertex] = NOT_INDEXED;
+      if (componentSizes[label] == 0) {
+        //A reused label must start clean, as in a merge
+        firstMembers[label] = NOT_INDEXED;
+        dirtyComponents[label] = false;
+        freeLabels.add(label);
+      } else {
+        dirtyComponents[label] = true;
+      }
+    }
+    graph.removeVertex(vertex);
+  }
+
+  @Override public boolean vertexExists(int vertex) {
+    return graph.vertexExists(vertex);
+  }
+
+  @Override public void addEdge(int v1, int v2) {
+    modificationCount++;
+    graph.addEdge(v1, v2);
+    if (built && v1 != v2 && graph.vertexExists(v1) && graph.vertexExists(v2)) {
+      merge(v1, v2);
+    }
+  }
+
+  @Override public void removeEdge(int v1, int v2) {
+    modificationCount++;
+    graph.removeEdge(v1, v2);
+    if (built && v1 != v2 && graph.vertexExists(v1) && graph.vertexExists(v2) && labels[v1] == labels[v2]) {
+      dirtyComponents[labels[v1]] = true;
+    }
+  }
+
+  @Override public boolean edgeExists(int v1, int v2) {
+    return graph.edgeExists(v1, v2);
+  }
+
+  @Override public Collection<SimpleGraph> createConnectedComponents() {
+    return graph.createConnectedComponents();
+  }
+
+  @Override public ConnectedComponentsLabels labelConnectedComponents() {
+    return graph.labelConnectedComponents();
+  }
+
+  @Override public Set<Integer> vertexSet() {
+    return graph.vertexSet();
+  }
+
+  @Override public void forEachVertex(IntConsumer vertexConsumer) {
+    graph.forEachVertex(vertexConsumer);
+  }
+
+  @Override public void forEachNeighbor(int vertex, IntConsumer neighborConsumer) {
+    graph.forEachNeighbor(vertex, neighborConsumer);
+  }
+
+  @Override public int degree(int vertex) {
+    return graph.degree(vertex);
+  }
+
+  @Override public PrimitiveIterator.OfInt vertexIterator() {
+    return graph.vertexIterator();
+  }
+
+  @Override public void randomizeEdges(Random random, int maxVertex, double loadFactor) {
+    for (int vertex = 0; vertex < maxVertex; vertex++) {
+      for (int neighbor = vertex; neighbor < maxVertex; neighbor++) {
+        double lucky = random.nextDouble();
+        if (lucky <= loadFactor) {
+          addEdge(vertex, neighbor);
+        }
+      }
+    }
+  }
+
+  private void build() {
+    rebuilds++;
+    built = true;
+    ConnectedComponentsLabels components = graph.labelConnectedComponents();
+    int numberOfVertices = components.vertexBound();
+    int capacity = Math.max(INITIAL_CAPACITY, numberOfVertices);
+    labels = new int[capacity];
+    Arrays.fill(labels, NOT_INDEXED);
+    nextMembers = new int[capacity];
+    previousMembers = new int[capacity];
+    int numberOfComponents = components.numberOfComponents();
+    int labelsCapacity = Math.max(INITIAL_CAPACITY, numberOfComponents);
+    firstMembers = new int[labelsCapacity];
+    componentSizes = new int[labelsCapacity];
+    dirtyComponents = new boolean[labelsCapacity];
+    freeLabels.resetQuick();
+    labelsBound = numberOfComponents;
+    Arrays.fill(firstMembers, NOT_INDEXED);
+    int[] label = {0};
+    components.forEachComponent((componentsVertices, from, to) -> {
+      for (int index = from; index < to; index++) {
+        labels[componentsVertices[index]] = label[0];
+        link(componentsVertices[index], label[0]);
+      }
+      label[0]++;
+    });
+  }
+
+  /**
+   * Splits a dirty component into its actual components, by traversing the graph from its vertices.
+   * Edges never cross groups, so the traversal doesn't leave the vertices of the group.
+   */
+  private void recompute(int label) {
+    rebuilds++;
+    int[] members = new int[componentSizes[label]];
+    int vertex = firstMembers[label];
+    for (int index = 0; index < members.length; index++) {
+      members[index] = vertex;
+      labels[vertex] = PENDING;
+      vertex = nextMembers[vertex];
+    }
+    componentSizes[label] = 0;
+    firstMembers[label] = NOT_INDEXED;
+    dirtyComponents[label] = false;
+    int nextLabel = label; //The first component keeps the label
+    TIntArrayList stack = new TIntArrayList();
+    for (int member : members) {
+      if (labels[member] != PENDING) {
+        continue;
+      }
+      int componentLabel = nextLabel == NOT_INDEXED ? allocateLabel() : nextLabel;
+      nextLabel = NOT_INDEXED;
+      labels[member] = componentLabel;
+      link(member, componentLabel);
+      stack.add(member);
+      while (!stack.isEmpty()) {
+        int current = stack.removeAt(stack.size() - 1);
+        graph.forEachNeighbor(current, neighbor -> {
+          if (labels[neighbor] == PENDING) {
+            labels[neighbor] = componentLabel;
+            link(neighbor, componentLabel);
+            stack.add(neighbor);
+          }
+        });
+      }
+    }
+  }
+
+  /**
+   * Merges the groups of two vertices by relabeling the smaller group. The merged group is dirty if one of them is.
+   */
+  private void merge(int v1, int v2) {
+    int label1 = labels[v1];
+    int label2 = labels[v2];
+    if (label1 == label2) {
+      return;
+    }
+    if (componentSizes[label1] < componentSizes[label2]) {
+      int labelTemp = label1;
+      label1 = label2;
+      label2 = labelTemp;
+    }
+    int first1 = firstMembers[label1];
+    int first2 = firstMembers[label2];
+    int vertex = first2;
+    do {
+      labels[vertex] = label1;
+      vertex = nextMembers[vertex];
+    } while (vertex != first2);
+    //Splicing the circular lists
+    int last1 = previousMembers[first1];
+    int last2 = previousMembers[first2];
+    nextMembers[last1] = first2;
+    previousMembers[first2] = last1;
+    nextMembers[last2] = first1;
+    previousMembers[first1] = last2;
+    componentSizes[label1] += componentSizes[label2];
+    dirtyComponents[label1] |= dirtyComponents[label2];
+    componentSizes[label2] = 0;
+    firstMembers[label2] = NOT_INDEXED;
+    dirtyComponents[label2] = false;
+    freeLabels.add(label2);
+  }
+
+  private void createComponent(int vertex) {
+    int label = allocateLabel();
+    labels[vertex] = label;
+    link(vertex, label);
+  }
+
+  private int allocateLabel() {
+    if (!freeLabels.isEmpty()) {
+      return freeLabels.removeAt(freeLabels.size() - 1);
+    }
+    if (labelsBound == firstMembers.length) {
+      int newCapacity = firstMembers.length * 2;
+      firstMembers = Arrays.copyOf(firstMembers, newCapacity);
+      componentSizes = Arrays.copyOf(componentSizes, newCapacity);
+      dirtyComponents = Arrays.copyOf(dirtyComponents, newCapacity);
+    }
+    return labelsBound++;
+  }
+
+  /**
+   * Adds the vertex to the list of the component vertices.
+   */
+  private void link(int vertex, int label) {
+    int first = firstMembers[label];
+    if (first == NOT_INDEXED) {
+      firstMembers[label] = vertex;
+      nextMembers[vertex] = vertex;
+      previousMembers[vertex] = vertex;
+    } else {
+      int last = previousMembers[first];
+      nextMembers[last] = vertex;
+      previousMembers[vertex] = last;
+      nextMembers[vertex] = first;
+      previousMembers[first] = vertex;
+    }
+    componentSizes[label]++;
+  }
+
+  /**
+   * Removes the vertex from the list of its component vertices.
+   */
+  private void unlink(int vertex) {
+    int label = labels[vertex];
+    int next = nextMembers[vertex];
+    int previous = previousMembers[vertex];
+    nextMembers[previous] = next;
+    previousMembers[next] = previous;
+    if (firstMembers[label] == vertex) {
+      firstMembers[label] = next == vertex ? NOT_INDEXED : next;
+    }
+    componentSizes[label]--;
+  }
+
+  private void ensureCapacity(int vertex) {
+    if (vertex >= labels.length) {
+      int newCapacity = Math.max(vertex + 1, labels.length * 2);
+      int oldCapacity = labels.length;
+      labels = Arrays.copyOf(labels, newCapacity);
+      Arrays.fill(labels, oldCapacity, newCapacity, NOT_INDEXED);
+      nextMembers = Arrays.copyOf(nextMembers, newCapacity);
+      previousMembers = Arrays.copyOf(previousMembers, newCapacity);
+    }
+  }
+}
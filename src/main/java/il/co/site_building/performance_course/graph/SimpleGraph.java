@@ -1,8 +1,14 @@
 package il.co.site_building.performance_course.graph;
 
 import java.util.Collection;
+import java.util.PrimitiveIterator;
 import java.util.Random;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
 
 /**
  * Simple Unweighted and Undirected Graph
@@ -58,12 +64,53 @@ public interface SimpleGraph {
    */
   Collection<SimpleGraph> createConnectedComponents();
 
+  /**
+   * Labels all vertices by their connected component, without building the components sub graphs.
+   * @return The component of each vertex, and the size of each component.
+   */
+  ConnectedComponentsLabels labelConnectedComponents();
+
   /**
    * Collects all vertices into a set.
    * @return A set of all vertices.
    */
   Set<Integer> vertexSet();
 
+  /**
+   * Visits all vertices, without boxing them. Bit set based graphs visit the vertices in ascending order.
+   * @param vertexConsumer Called once per vertex.
+   */
+  void forEachVertex(IntConsumer vertexConsumer);
+
+  /**
+   * Visits all neighbors of a vertex, without boxing them. Does nothing if the vertex doesn't exist.
+   * A vertex isn't considered a neighbor of itself.
+   * @param vertex The vertex.
+   * @param neighborConsumer Called once per neighbor.
+   */
+  void forEachNeighbor(int vertex, IntConsumer neighborConsumer);
+
+  /**
+   * @param vertex The vertex.
+   * @return The number of neighbors of the vertex, or 0 if the vertex doesn't exist.
+   */
+  int degree(int vertex);
+
+  /**
+   * @return A primitive iterator over all vertices, in the order of {@link #forEachVertex(IntConsumer)}.
+   * The graph shouldn't be modified while iterating.
+   */
+  PrimitiveIterator.OfInt vertexIterator();
+
+  /**
+   * @return A sequential stream of all vertices, in the order of {@link #vertexIterator()}.
+   */
+  default IntStream vertices() {
+    return StreamSupport.intStream(Spliterators.spliteratorUnknownSize(vertexIterator(),
+                                                                       Spliterator.DISTINCT | Spliterator.NONNULL),
+                                   false);
+  }
+
   /**
    * Fills the graph with edges according to the load factor.
    * @param random The random to fill according to.
@@ -0,0 +1,163 @@
+package il.co.site_building.performance_course.graph;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Triangle counting over a symmetric bit level neighbors matrix.
+ * The common neighbors of an edge (u, v) are the intersection of both rows, so they are counted a word at a time by
+ * Long.bitCount(rowU[i] &amp; rowV[i] &amp; vertices[i]) instead of an edge lookup per vertex.
+ * Each triangle u &gt; v &gt; w is counted once, from its highest vertex u, by intersecting the rows of u and its lower
+ * neighbors v only in the words below v.
+ */
+class TriangleCounter {
+
+  private static final int MIN_RANGE_SIZE = 64;
+
+  private final long[][] neighborsMatrix;
+  private final long[] vertices;
+  private final int numberOfVertices;
+
+  /**
+   * @param neighborsMatrix  Bitwise neighbors matrix, where each row holds all of the vertex neighbors. A self loop may
+   *                         be marked on the diagonal, and is ignored.
+   * @param vertices         Bitwise array of all existing vertices.
+   * @param numberOfVertices Number of rows, all vertices are in the range [0..numberOfVertices)
+   */
+  TriangleCounter(long[][] neighborsMatrix, long[] vertices, int numberOfVertices) {
+    this.neighborsMatrix = neighborsMatrix;
+    this.vertices = vertices;
+    this.numberOfVertices = numberOfVertices;
+  }
+
+  long countTriangles() {
+    return countTriangles(0, numberOfVertices);
+  }
+
+  /**
+   * Counts the triangles of ranges of vertices in parallel. The cost of a vertex grows with its row length, so the
+   * ranges are split finely and balanced by work stealing.
+   */
+  long countTriangles(int parallelism) {
+    int rangeSize = Math.max(MIN_RANGE_SIZE, numberOfVertices / (parallelism * 16) + 1);
+    ForkJoinPool forkJoinPool = new ForkJoinPool(parallelism);
+    try {
+      return forkJoinPool.invoke(new TrianglesTask(0, numberOfVertices, rangeSize));
+    } finally {
+      forkJoinPool.shutdown();
+    }
+  }
+
+  /**
+   * @return The number of triangles which the vertex is one of their vertices.
+   */
+  long countVertexTriangles(int vertex) {
+    if (!vertexExists(vertex)) {
+      return 0;
+    }
+    long[] row = neighborsMatrix[vertex];
+    long commonNeighbors = 0;
+    for (int bucketEntry = 0; bucketEntry < vertices.length; bucketEntry++) {
+      long neighbors = getNeighborsWord(vertex, row, bucketEntry);
+      while (neighbors != 0) {
+        int neighbor = bucketEntry * Long.SIZE + Long.numberOfTrailingZeros(neighbors);
+        long[] neighborRow = neighborsMatrix[neighbor];
+        for (int wordIndex = 0; wordIndex < vertices.length; wordIndex++) {
+          //Ignoring the neighbor itself, which may have a self loop
+          commonNeighbors += Long.bitCount(getNeighborsWord(vertex, row, wordIndex) & neighborRow[wordIndex] &
+                                               ~maskOf(neighbor, wordIndex));
+        }
+        neighbors &= neighbors - 1;
+      }
+    }
+    return commonNeighbors / 2; //Each triangle is reached from both of its other vertices
+  }
+
+  private long countTriangles(int from, int to) {
+    long triangles = 0;
+    for (int vertex = from; vertex < to; vertex++) {
+      if (vertexExists(vertex)) {
+        triangles += countLowerTriangles(vertex);
+      }
+    }
+    return triangles;
+  }
+
+  /**
+   * @return The number of triangles where the vertex is the highest vertex.
+   */
+  private long countLowerTriangles(int vertex) {
+    long[] row = neighborsMatrix[vertex];
+    long triangles = 0;
+    int lastBucketEntry = getBucketEntry(vertex);
+    for (int bucketEntry = 0; bucketEntry <= lastBucketEntry; bucketEntry++) {
+      long neighbors = row[bucketEntry] & vertices[bucketEntry];
+      if (bucketEntry == lastBucketEntry) {
+        neighbors &= createMask(vertex) - 1; //Only the lower neighbors
+      }
+      while (neighbors != 0) {
+        int neighbor = bucketEntry * Long.SIZE + Long.numberOfTrailingZeros(neighbors);
+        long[] neighborRow = neighborsMatrix[neighbor];
+        for (int wordIndex = 0; wordIndex < bucketEntry; wordIndex++) {
+          triangles += Long.bitCount(row[wordIndex] & neighborRow[wordIndex] & vertices[wordIndex]);
+        }
+        long lowerMask = createMask(neighbor) - 1;
+        triangles += Long.bitCount(row[bucketEntry] & neighborRow[bucketEntry] & vertices[bucketEntry] & lowerMask);
+        neighbors &= neighbors - 1;
+      }
+    }
+    return triangles;
+  }
+
+  /**
+   * @return The existing neighbors of the vertex in a word of its row, without the vertex itself.
+   */
+  private long getNeighborsWord(int vertex, long[] row, int bucketEntry) {
+    return row[bucketEntry] & vertices[bucketEntry] & ~maskOf(vertex, bucketEntry);
+  }
+
+  /**
+   * @return The mask of the vertex if it's in the word, 0 otherwise.
+   */
+  private static long maskOf(int vertex, int bucketEntry) {
+    return getBucketEntry(vertex) == bucketEntry ? createMask(vertex) : 0;
+  }
+
+  private boolean vertexExists(int vertex) {
+    return (vertices[getBucketEntry(vertex)] & createMask(vertex)) != 0;
+  }
+
+  private static long createMask(int vertex) {
+    return 1L << (vertex % Long.SIZE);
+  }
+
+  private static int getBucketEntry(int vertex) {
+    return vertex / Long.SIZE;
+  }
+
+  private class TrianglesTask extends RecursiveTask<Long> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int from;
+    private final int to;
+    private final int rangeSize;
+
+    private TrianglesTask(int from, int to, int rangeSize) {
+      this.from = from;
+      this.to = to;
+      this.rangeSize = rangeSize;
+    }
+
+    @Override protected Long compute() {
+      if (to - from <= rangeSize) {
+        return countTriangles(from, to);
+      }
+      int middle = (from + to) >>> 1;
+      TrianglesTask lowerTask = new TrianglesTask(from, middle, rangeSize);
+      lowerTask.fork();
+      long upperTriangles = new TrianglesTask(middle, to, rangeSize).compute();
+      return upperTriangles + lowerTask.join();
+    }
+  }
+}
@@ -1,45 +1,151 @@
 package il.co.site_building.performance_course.graph;
 
-import java.util.Arrays;
-
 /**
  * A class representing an undirected and unweighted graph as a neighbors matrix graph.
  * Each edge is an integer number, and a negative value means that it doesn't exist.
+ * <p>
+ * The weights are kept by a {@link WeightStorage} of the chosen {@link StorageLayout}.
+ * <p>
+ * Supports O(1) read only snapshots, see {@link #snapshot()}. The weights are copied on write by the storage.
  */
 public abstract class UndirectedWeightedNeighborsMatrixGraph {
 
   protected long[] vertices;
       //Bitwise array of all vertices. 1 in the relevant position indicates that the vertex exist.
-  protected double[][] neighborsMatrix;
-  //Neighbors matrix implementation. Each value indicates the weight of an edge. Negative value indicates that the edge doesn't exist.
+  protected WeightStorage weights;
+  //The weight of each edge. POSITIVE_INFINITY indicates that the edge doesn't exist.
   protected int maxVertex;
+  protected long numberOfEdges; //Number of edges in the storage, including the edges of removed vertices
+  private boolean readOnly; //True for snapshots
+  private boolean shared; //True if the vertices are shared with a snapshot
+
+  /**
+   * The layout of the weights in memory.
+   */
+  public enum StorageLayout {
+    /**
+     * Only the lower triangle, packed into blocks of rows, see {@link PackedTriangleStorage}.
+     */
+    PACKED_TRIANGLE,
+    /**
+     * A full matrix, where each edge is in the rows of both of its vertices, see {@link MirroredRowsStorage}.
+     */
+    MIRRORED_ROWS,
+    /**
+     * {@link #PACKED_TRIANGLE} with the weights rounded to float, see {@link FloatPackedTriangleStorage}.
+     */
+    PACKED_TRIANGLE_FLOAT,
+    /**
+     * {@link #MIRRORED_ROWS} with the weights rounded to float, see {@link FloatMirroredRowsStorage}.
+     */
+    MIRRORED_ROWS_FLOAT
+  }
+
+  /**
+   * Consumer of a neighbor and the weight of the edge to it.
+   */
+  @FunctionalInterface
+  public interface WeightedNeighborConsumer {
+    void accept(int neighbor, double weight);
+  }
 
   /**
-   * Initializes an empty distance matrix with minimum of 1 entry
+   * Initializes an empty graph with a packed triangle layout.
    */
   protected UndirectedWeightedNeighborsMatrixGraph() {
+    this(StorageLayout.PACKED_TRIANGLE);
+  }
+
+  /**
+   * Initializes an empty graph.
+   *
+   * @param storageLayout The layout of the weights.
+   */
+  protected UndirectedWeightedNeighborsMatrixGraph(StorageLayout storageLayout) {
     vertices = new long[0];
-    neighborsMatrix = new double[0][0];
+    weights = createStorage(storageLayout, 0);
     maxVertex = -1;
   }
 
   /**
-   * Initialize a graph with distance enough entries, and all edges exist in the range of [0..numberOfVertices)
+   * Initialize a graph with a packed triangle layout, where all vertices exist in the range of [0..numberOfVertices),
+   * without edges.
    *
    * @param numberOfVertices All existing vertices in the graph
    */
   protected UndirectedWeightedNeighborsMatrixGraph(int numberOfVertices) {
+    this(numberOfVertices, StorageLayout.PACKED_TRIANGLE);
+  }
+
+  /**
+   * Initialize a graph where all vertices exist in the range of [0..numberOfVertices), without edges.
+   *
+   * @param numberOfVertices All existing vertices in the graph
+   * @param storageLayout    The layout of the weights.
+   */
+  protected UndirectedWeightedNeighborsMatrixGraph(int numberOfVertices, StorageLayout storageLayout) {
     int lastBucketEntry = getBucketEntry(numberOfVertices);
     int lastBucketOffset = getBucketOffset(numberOfVertices);
     buildVertices(lastBucketEntry, lastBucketOffset);
-    neighborsMatrix = new double[numberOfVertices][numberOfVertices];
-    for (int row = 0; row < numberOfVertices; row++) {
-      Arrays.fill(neighborsMatrix[row], Double.POSITIVE_INFINITY);
+    weights = createStorage(storageLayout, numberOfVertices);
+    maxVertex = numberOfVertices - 1;
+  }
+
+  private static WeightStorage createStorage(StorageLayout storageLayout, int capacity) {
+    return switch (storageLayout) {
+      case PACKED_TRIANGLE -> new PackedTriangleStorage(capacity);
+      case MIRRORED_ROWS -> new MirroredRowsStorage(capacity);
+      case PACKED_TRIANGLE_FLOAT -> new FloatPackedTriangleStorage(capacity);
+      case MIRRORED_ROWS_FLOAT -> new FloatMirroredRowsStorage(capacity);
+    };
+  }
+
+  /**
+   * Creates an empty graph of the same class, used for snapshots. Subclasses which support snapshots override it.
+   */
+  protected UndirectedWeightedNeighborsMatrixGraph createEmptyGraph() {
+    throw new UnsupportedOperationException(getClass().getName() + " doesn't support snapshots");
+  }
+
+  /**
+   * Creates a read only snapshot of the graph in O(1), without copying the weights.
+   * Following modifications of this graph copy the vertices once, and the weights storage copies the rows, or the blocks
+   * of rows for a packed triangle, which they modify once, so the snapshot keeps seeing the graph as it was when the
+   * snapshot was taken. Should be called by the thread which modifies the graph, and the
+   * snapshot may then be read by other threads concurrently with the modifications.
+   *
+   * @return A read only graph of the same class, which throws {@link UnsupportedOperationException} on any modification.
+   */
+  public UndirectedWeightedNeighborsMatrixGraph snapshot() {
+    if (readOnly) {
+      return this;
+    }
+    UndirectedWeightedNeighborsMatrixGraph snapshot = createEmptyGraph();
+    shared = true;
+    snapshot.vertices = vertices;
+    snapshot.weights = weights.snapshot();
+    snapshot.maxVertex = maxVertex;
+    snapshot.numberOfEdges = numberOfEdges;
+    snapshot.readOnly = true;
+    return snapshot;
+  }
+
+  public boolean isReadOnly() {
+    return readOnly;
+  }
+
+  private void ensureWritable() {
+    if (readOnly) {
+      throw new UnsupportedOperationException("Snapshots are read only");
+    }
+    if (shared) {
+      vertices = vertices.clone();
+      shared = false;
     }
-    maxVertex = numberOfVertices;
   }
 
   public void addVertex(int vertex) {
+    ensureWritable();
     verifyEntryExists(vertex);
     addVertex(vertex, vertices);
   }
@@ -51,6 +157,7 @@ public abstract class UndirectedWeightedNeighborsMatrixGraph {
   }
 
   public void removeVertex(int vertex) {
+    ensureWritable();
     if (!vertexExists(vertex)) {
       return; //Nothing to do
     }
@@ -61,6 +168,7 @@ public abstract class UndirectedWeightedNeighborsMatrixGraph {
   }
 
   public void setEdge(int v1, int v2, double weight) {
+    ensureWritable();
     if (!vertexExists(v1) || !vertexExists(v2)) {
       return;
     }
@@ -68,27 +176,63 @@ public abstract class UndirectedWeightedNeighborsMatrixGraph {
       return; //An edge is always 0 distance from itself.
     }
     if (0 <= weight) {
-      if (v1 > v2) {
-        int vTemp = v1;
-        v1 = v2;
-        v2 = vTemp;
-      }
-      neighborsMatrix[v1][v2] = weight;
+      double oldWeight = weights.getWeight(v1, v2);
+      weights.setWeight(v1, v2, weight);
+      double newWeight = weights.getWeight(v1, v2); //Float storages may round a weight to POSITIVE_INFINITY
+      numberOfEdges +=
+          (newWeight < Double.POSITIVE_INFINITY ? 1 : 0) - (oldWeight < Double.POSITIVE_INFINITY ? 1 : 0);
     }
   }
 
   public abstract PathResult findShortestPath(int source, int dest);
 
+  /**
+   * Finds the shortest path using bidirectional Dijkstra, which grows a search from each of the vertices until they
+   * meet, see {@link BidirectionalDijkstra}. Settles fewer vertices than a single search from the source, and returns
+   * the same distance and, unless there are several shortest paths, the same path.
+   *
+   * @param source Source vertex.
+   * @param dest   Destination vertex.
+   * @return The shortest path as an object of the path and its total length.
+   */
+  public PathResult findShortestPathBidirectional(int source, int dest) {
+    if (!vertexExists(source) || !vertexExists(dest)) {
+      return new PathResult();
+    }
+    return new BidirectionalDijkstra(maxVertex + 1, this::forEachNeighbor).findShortestPath(source, dest);
+  }
+
+  /**
+   * Iterates all neighbors of the vertex, with the weights of the edges to them.
+   *
+   * @param vertex           A vertex.
+   * @param neighborConsumer Receives each neighbor and the weight of the edge to it.
+   */
+  public void forEachNeighbor(int vertex, WeightedNeighborConsumer neighborConsumer) {
+    if (!vertexExists(vertex)) {
+      return;
+    }
+    int lastBucketEntry = getBucketEntry(maxVertex);
+    for (int bucketEntry = 0; bucketEntry <= lastBucketEntry; bucketEntry++) {
+      long word = vertices[bucketEntry];
+      while (word != 0) {
+        int neighbor = bucketEntry * Long.SIZE + Long.numberOfTrailingZeros(word);
+        word &= word - 1;
+        if (neighbor != vertex) {
+          double weight = weights.getWeight(vertex, neighbor);
+          if (weight < Double.POSITIVE_INFINITY) {
+            neighborConsumer.accept(neighbor, weight);
+          }
+        }
+      }
+    }
+  }
+
   public boolean containsEdge(int v1, int v2) {
-    if (!vertexExists(v1) || !vertexExists(v2)) {
+    if (!vertexExists(v1) || !vertexExists(v2) || v1 == v2) {
       return false;
     }
-    if (v1 > v2) {
-      int vTemp = v1;
-      v1 = v2;
-      v2 = vTemp;
-    }
-    return neighborsMatrix[v1][v2] < Double.POSITIVE_INFINITY;
+    return weights.getWeight(v1, v2) < Double.POSITIVE_INFINITY;
   }
 
   public double getEdgeWeight(int v1, int v2) {
@@ -98,12 +242,7 @@ public abstract class UndirectedWeightedNeighborsMatrixGraph {
     if (v1 == v2) {
       return 0;
     }
-    if (v1 > v2) {
-      int vTemp = v1;
-      v1 = v2;
-      v2 = vTemp;
-    }
-    return neighborsMatrix[v1][v2];
+    return weights.getWeight(v1, v2);
   }
 
   public boolean vertexExists(int vertex) {
@@ -120,30 +259,20 @@ public abstract class UndirectedWeightedNeighborsMatrixGraph {
     return (array[bucketEntry] & mask) != 0;
   }
 
+  /**
+   * Grows the storage if the vertex doesn't fit in it. The storage at least doubles its capacity, so adding vertices in
+   * ascending order grows it only a logarithmic number of times.
+   */
   private void verifyEntryExists(int vertex) {
     if (vertex > maxVertex) {
-      int bucketEntry = getBucketEntry(vertex);
-      increaseVerticesArray(bucketEntry);
-      increaseNeighborsMatrix(vertex);
-      maxVertex = vertex;
-    }
-  }
-
-  private void increaseNeighborsMatrix(int vertex) {
-    double[][] newNeighborsMatrix = new double[vertex + 1][vertex + 1];
-    for (int row = 0; row < vertex + 1; row++) {
-      for (int column = row + 1; column < vertex + 1; column++) {
-        newNeighborsMatrix[row][column] = Double.POSITIVE_INFINITY;
+      if (vertex >= weights.capacity()) {
+        weights.ensureCapacity(vertex + 1);
       }
+      if (getBucketEntry(vertex) >= vertices.length) {
+        increaseVerticesArray(getBucketEntry(weights.capacity() - 1));
+      }
+      maxVertex = vertex;
     }
-    for (int rowIndex = 0; rowIndex < neighborsMatrix.length; rowIndex++) {
-      System.arraycopy(neighborsMatrix[rowIndex],
-                       0,
-                       newNeighborsMatrix[rowIndex],
-                       0,
-                       neighborsMatrix[rowIndex].length);
-    }
-    neighborsMatrix = newNeighborsMatrix;
   }
 
   private void increaseVerticesArray(int bucketEntry) {
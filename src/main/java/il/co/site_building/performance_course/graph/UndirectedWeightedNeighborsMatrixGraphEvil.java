@@ -20,6 +20,10 @@ public class UndirectedWeightedNeighborsMatrixGraphEvil extends UndirectedWeight
     super(numberOfVertices);
   }
 
+  @Override protected UndirectedWeightedNeighborsMatrixGraphEvil createEmptyGraph() {
+    return new UndirectedWeightedNeighborsMatrixGraphEvil();
+  }
+
   /**
    * Finds the shortest path using Dijkstra's algorithm.
    *
@@ -42,62 +46,6 @@ public class UndirectedWeightedNeighborsMatrixGraphEvil extends UndirectedWeight
     previousNodes[source] = source;
     int currentNeighbor = source;
     while (true) {
-      int closestNeighbor = NOT_FOUND;
-      double minDistance = Double.POSITIVE_INFINITY;
-      for (int neighbor = 0; neighbor < distances.length; neighbor++) {
-        boolean neighborExists;
-        if (neighbor > maxVertex) {
-          neighborExists = false;
-        } else {
-          long neighborMask = 1L << (neighbor % Long.SIZE);
-          int neighborBucketEntry = neighbor / Long.SIZE;
-          neighborExists = ((vertices[neighborBucketEntry] & neighborMask) != 0);
-        }
-        boolean neighborInShortestPathSet;
-        long mask = 1L << neighbor % Long.SIZE;
-        int bucketEntry = neighbor / Long.SIZE;
-        neighborInShortestPathSet = ((shortestPathSet[bucketEntry] & mask) != 0);
-        if (neighbor != currentNeighbor && neighborExists && !neighborInShortestPathSet) {
-          double distance;
-          boolean currentNeighborExists2;
-          if (currentNeighbor > maxVertex) {
-            currentNeighborExists2 = false;
-          } else {
-            long currentNeighborMask2 = 1L << (currentNeighbor % Long.SIZE);
-            int currentNeighborBucketEntry2 = currentNeighbor / Long.SIZE;
-            currentNeighborExists2 = ((vertices[currentNeighborBucketEntry2] & currentNeighborMask2) != 0);
-          }
-          boolean neighborExists2;
-          if (neighbor > maxVertex) {
-            neighborExists2 = false;
-          } else {
-            long neighborMask2 = 1L << (neighbor % Long.SIZE);
-            int neighborBucketEntry2 = neighbor / Long.SIZE;
-            neighborExists2 = ((vertices[neighborBucketEntry2] & neighborMask2) != 0);
-          }
-          if (!currentNeighborExists2 || !neighborExists2) {
-            distance = Double.NaN;
-          } else if (currentNeighbor == neighbor) {
-            distance = 0;
-          } else {
-            int tempNeighbor = neighbor;
-            int tempCurrentNeighbor = currentNeighbor;
-            if (tempCurrentNeighbor > tempNeighbor) {
-              int vTemp = tempCurrentNeighbor;
-              tempCurrentNeighbor = tempNeighbor;
-              tempNeighbor = vTemp;
-            }
-            distance = neighborsMatrix[tempCurrentNeighbor][tempNeighbor];
-          }
-          if (distance < minDistance) {
-            minDistance = distance;
-            closestNeighbor = neighbor;
-          }
-        }
-      }
-      if (closestNeighbor == NOT_FOUND) {
-        break;
-      }
       for (int neighbor = 0; neighbor < maxVertex + 1; neighbor++) {
         boolean neighborExists;
         if (neighbor > maxVertex) {
@@ -124,7 +72,7 @@ public class UndirectedWeightedNeighborsMatrixGraphEvil extends UndirectedWeight
           int neighborBucketEntry3 = neighbor / Long.SIZE;
           neighborExists3 = ((vertices[neighborBucketEntry3] & neighborMask3) != 0);
         }
-        if (!currentNeighborExists3 || !neighborExists3) {
+        if (!currentNeighborExists3 || !neighborExists3 || currentNeighbor == neighbor) {
           containsEdge = false;
         } else {
           int tempCurrentNeighbor = currentNeighbor;
@@ -134,7 +82,7 @@ public class UndirectedWeightedNeighborsMatrixGraphEvil extends UndirectedWeight
             tempCurrentNeighbor = tempNeighbor;
             tempNeighbor = vTemp;
           }
-          containsEdge = neighborsMatrix[tempCurrentNeighbor][tempNeighbor] < Double.POSITIVE_INFINITY;
+          containsEdge = weights.getWeight(tempCurrentNeighbor, tempNeighbor) < Double.POSITIVE_INFINITY;
         }
         boolean neighborInShortestPathSet;
         long mask = 1L << neighbor % Long.SIZE;
@@ -170,7 +118,7 @@ public class UndirectedWeightedNeighborsMatrixGraphEvil extends UndirectedWeight
               tempCurrentNeighbor = tempNeighbor;
               tempNeighbor = vTemp;
             }
-            edgeWeight = neighborsMatrix[tempCurrentNeighbor][tempNeighbor];
+            edgeWeight = weights.getWeight(tempCurrentNeighbor, tempNeighbor);
           }
           double alternativeDistance = distances[currentNeighbor] + edgeWeight;
           if (alternativeDistance < distances[neighbor]) {
@@ -182,6 +130,32 @@ public class UndirectedWeightedNeighborsMatrixGraphEvil extends UndirectedWeight
       int currentNeighborBucketEntry = currentNeighbor / Long.SIZE;
       long currentNeighborMask = 1L << (currentNeighbor % Long.SIZE);
       shortestPathSet[currentNeighborBucketEntry] |= currentNeighborMask;
+      int closestNeighbor = NOT_FOUND;
+      double minDistance = Double.POSITIVE_INFINITY;
+      for (int neighbor = 0; neighbor < distances.length; neighbor++) {
+        boolean neighborExists;
+        if (neighbor > maxVertex) {
+          neighborExists = false;
+        } else {
+          long neighborMask = 1L << (neighbor % Long.SIZE);
+          int neighborBucketEntry = neighbor / Long.SIZE;
+          neighborExists = ((vertices[neighborBucketEntry] & neighborMask) != 0);
+        }
+        boolean neighborInShortestPathSet;
+        long mask = 1L << neighbor % Long.SIZE;
+        int bucketEntry = neighbor / Long.SIZE;
+        neighborInShortestPathSet = ((shortestPathSet[bucketEntry] & mask) != 0);
+        if (neighbor != currentNeighbor && neighborExists && !neighborInShortestPathSet) {
+          double distance = distances[neighbor];
+          if (distance < minDistance) {
+            minDistance = distance;
+            closestNeighbor = neighbor;
+          }
+        }
+      }
+      if (closestNeighbor == NOT_FOUND) {
+        break;
+      }
       if (closestNeighbor == dest) {
         break;
       }
@@ -221,4 +195,24 @@ public class UndirectedWeightedNeighborsMatrixGraphEvil extends UndirectedWeight
     }
     return graph;
   }
+
+  /**
+   * Creates a random graph, where the edges and their weights are generated in parallel by a
+   * {@link RandomGraphGenerator}. The edges' weights are uniformly distributed between 0.0-1.0.
+   *
+   * @param seed             Seed of the generated graph.
+   * @param numberOfVertices Size of the graph
+   * @param loadFactor       Load factor. Represents the probability of having an edge between two vertices.
+   * @param parallelism      Number of threads to use.
+   * @return The generated graph.
+   */
+  public static UndirectedWeightedNeighborsMatrixGraphEvil generateRandomGraph(long seed,
+                                                                               int numberOfVertices,
+                                                                               double loadFactor,
+                                                                               int parallelism) {
+    UndirectedWeightedNeighborsMatrixGraphEvil graph = new UndirectedWeightedNeighborsMatrixGraphEvil(numberOfVertices);
+    new RandomGraphGenerator(seed, loadFactor, parallelism)
+        .generateEdges(numberOfVertices, true, EdgeListLoader.weightedGraphConsumer(graph));
+    return graph;
+  }
 }
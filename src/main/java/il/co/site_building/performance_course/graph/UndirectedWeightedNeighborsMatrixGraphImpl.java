@@ -5,29 +5,84 @@ import java.util.Random;
 
 /**
  * Concrete implementation of a weighted undirected graph.
- * Implements the shortest path using Dijkstra algorithm.
+ * Implements the shortest path using Dijkstra algorithm, over a pluggable priority queue, see {@link QueueType}.
  */
 public class UndirectedWeightedNeighborsMatrixGraphImpl extends UndirectedWeightedNeighborsMatrixGraph {
 
   private static final int UNDEFINED = -1;
-  private static final int NOT_FOUND = -1;
+  private static final int HEAP_ARITY = 4;
+  private static final int HEAP_DEGREE_FACTOR = 16;
+  private static final int RADIX_HEAP_DEGREE_FACTOR = 2;
+
+  /**
+   * The priority queue of the unvisited vertices in Dijkstra's algorithm.
+   */
+  public enum QueueType {
+    /**
+     * Chosen by the density of the graph.
+     */
+    AUTO,
+    /**
+     * The minimum is found by scanning the distances of all vertices, O(V) extract min and O(1) decrease key.
+     */
+    LINEAR_SCAN,
+    /**
+     * An indexed 4-ary heap, O(log V) extract min and decrease key.
+     */
+    D_ARY_HEAP,
+    /**
+     * A pairing heap, O(log V) amortized extract min and O(1) insert and decrease key.
+     */
+    PAIRING_HEAP,
+    /**
+     * A radix heap over the bits of the distances, O(1) insert and decrease key, and O(64) amortized extract min.
+     */
+    RADIX_HEAP
+  }
 
   public UndirectedWeightedNeighborsMatrixGraphImpl() {
     super();
   }
 
+  public UndirectedWeightedNeighborsMatrixGraphImpl(StorageLayout storageLayout) {
+    super(storageLayout);
+  }
+
   public UndirectedWeightedNeighborsMatrixGraphImpl(int numberOfVertices) {
     super(numberOfVertices);
   }
 
+  public UndirectedWeightedNeighborsMatrixGraphImpl(int numberOfVertices, StorageLayout storageLayout) {
+    super(numberOfVertices, storageLayout);
+  }
+
+  @Override protected UndirectedWeightedNeighborsMatrixGraphImpl createEmptyGraph() {
+    return new UndirectedWeightedNeighborsMatrixGraphImpl();
+  }
+
   /**
-   * Finds the shortest path using Dijkstra's algorithm.
+   * Finds the shortest path using Dijkstra's algorithm, with the priority queue which fits the density of the graph.
    *
    * @param source Source vertex.
    * @param dest   Destination vertex.
    * @return The shortest path as an object of the path and its total length.
    */
   @Override public PathResult findShortestPath(int source, int dest) {
+    return findShortestPath(source, dest, QueueType.AUTO);
+  }
+
+  /**
+   * Finds the shortest path using Dijkstra's algorithm with a given priority queue.
+   *
+   * @param source    Source vertex.
+   * @param dest      Destination vertex.
+   * @param queueType The priority queue of the unvisited vertices.
+   * @return The shortest path as an object of the path and its total length.
+   */
+  public PathResult findShortestPath(int source, int dest, QueueType queueType) {
+    if (!vertexExists(source) || !vertexExists(dest)) {
+      return new PathResult();
+    }
     //Initialization
     double[] distances = new double[maxVertex + 1]; //Initial distances
     Arrays.fill(distances, Double.POSITIVE_INFINITY);
@@ -35,25 +90,49 @@ public class UndirectedWeightedNeighborsMatrixGraphImpl extends UndirectedWeight
         new int[maxVertex + 1]; //previousNodes[j] is the node that comes before j in the shortest path from source
     Arrays.fill(previousNodes, UNDEFINED);
     long[] shortestPathSet = new long[maxVertex / Long.SIZE + 1];
-    addVertex(source, shortestPathSet);
+    VertexPriorityQueue queue = createQueue(queueType == QueueType.AUTO ? selectQueueType() : queueType);
     distances[source] = 0.0;
     previousNodes[source] = source;
-    int currentNeighbor = source;
-    while (true) {
-      int closestNeighbor = findClosestNeighbor(distances, shortestPathSet, currentNeighbor);
-      if (closestNeighbor == NOT_FOUND) {
-        break;
-      }
-      updateNeighborsDistances(currentNeighbor, distances, shortestPathSet, previousNodes);
-      addVertex(currentNeighbor, shortestPathSet);
+    queue.insert(source, 0.0);
+    while (!queue.isEmpty()) {
+      int closestNeighbor = queue.extractMin();
+      addVertex(closestNeighbor, shortestPathSet);
       if (closestNeighbor == dest) {
         break;
       }
-      currentNeighbor = closestNeighbor;
+      updateNeighborsDistances(closestNeighbor, distances, shortestPathSet, previousNodes, queue);
     }
     return buildResult(source, dest, distances, previousNodes);
   }
 
+  /**
+   * Every visited vertex scans a whole matrix row, so the queue only changes the cost of extract min, O(V) for a linear
+   * scan, against the cost of decrease key, once for almost every edge, O(log V) for a heap. Sparse graphs pay mostly
+   * for extract min, and dense graphs mostly for decrease key.
+   */
+  private QueueType selectQueueType() {
+    long numberOfVertices = maxVertex + 1;
+    double averageDegree = 2.0 * numberOfEdges / Math.max(numberOfVertices, 1);
+    if (averageDegree * HEAP_DEGREE_FACTOR < numberOfVertices) {
+      return QueueType.D_ARY_HEAP;
+    }
+    if (averageDegree * RADIX_HEAP_DEGREE_FACTOR < numberOfVertices) {
+      return QueueType.RADIX_HEAP;
+    }
+    return QueueType.LINEAR_SCAN;
+  }
+
+  private VertexPriorityQueue createQueue(QueueType queueType) {
+    int capacity = maxVertex + 1;
+    return switch (queueType) {
+      case LINEAR_SCAN -> new LinearScanQueue(capacity);
+      case D_ARY_HEAP -> new IndexedDaryHeap(capacity, HEAP_ARITY);
+      case PAIRING_HEAP -> new PairingHeap(capacity);
+      case RADIX_HEAP -> new RadixHeap(capacity);
+      case AUTO -> createQueue(selectQueueType());
+    };
+  }
+
   private PathResult buildResult(int source, int dest, double[] distances, int[] previousNodes) {
     PathResult result = new PathResult();
     result.distances = distances[dest];
@@ -68,13 +147,31 @@ public class UndirectedWeightedNeighborsMatrixGraphImpl extends UndirectedWeight
     return result;
   }
 
+  /**
+   * Relaxes the edges of the vertex to all unvisited vertices, a word of the vertices at a time. With mirrored rows all
+   * the weights are read sequentially from the row of the vertex. Float weights are accumulated in double distances.
+   */
   private void updateNeighborsDistances(int currentNeighbor, double[] distances, long[] shortestPathSet,
-                                        int[] previousNodes) {
-    for (int neighbor = 0; neighbor < maxVertex + 1; neighbor++) {
-      if (vertexExists(neighbor) && containsEdge(currentNeighbor, neighbor) &&
-          !vertexInArray(neighbor, shortestPathSet)) {
-        double alternativeDistance = distances[currentNeighbor] + getEdgeWeight(neighbor, currentNeighbor);
+                                        int[] previousNodes, VertexPriorityQueue queue) {
+    double currentDistance = distances[currentNeighbor];
+    double[] currentRow = weights instanceof MirroredRowsStorage mirroredRows ? mirroredRows.getRow(currentNeighbor) :
+        null;
+    float[] currentFloatRow =
+        weights instanceof FloatMirroredRowsStorage mirroredRows ? mirroredRows.getRow(currentNeighbor) : null;
+    for (int bucketEntry = 0; bucketEntry < shortestPathSet.length; bucketEntry++) {
+      long unvisited = vertices[bucketEntry] & ~shortestPathSet[bucketEntry];
+      while (unvisited != 0) {
+        int neighbor = bucketEntry * Long.SIZE + Long.numberOfTrailingZeros(unvisited);
+        unvisited &= unvisited - 1;
+        double weight = currentRow != null ? currentRow[neighbor] :
+            currentFloatRow != null ? currentFloatRow[neighbor] : weights.getWeight(currentNeighbor, neighbor);
+        double alternativeDistance = currentDistance + weight;
         if (alternativeDistance < distances[neighbor]) {
+          if (distances[neighbor] == Double.POSITIVE_INFINITY) {
+            queue.insert(neighbor, alternativeDistance);
+          } else {
+            queue.decreaseKey(neighbor, alternativeDistance);
+          }
           distances[neighbor] = alternativeDistance;
           previousNodes[neighbor] = currentNeighbor;
         }
@@ -82,21 +179,6 @@ public class UndirectedWeightedNeighborsMatrixGraphImpl extends UndirectedWeight
     }
   }
 
-  private int findClosestNeighbor(double[] distances, long[] shortestPathSet, int currentNeighbor) {
-    int closestNeighbor = NOT_FOUND;
-    double minDistance = Double.POSITIVE_INFINITY;
-    for (int neighbor = 0; neighbor < distances.length; neighbor++) {
-      if (neighbor != currentNeighbor && vertexExists(neighbor) && !vertexInArray(neighbor, shortestPathSet)) {
-        double distance = getEdgeWeight(currentNeighbor, neighbor);
-        if (distance < minDistance) {
-          minDistance = distance;
-          closestNeighbor = neighbor;
-        }
-      }
-    }
-    return closestNeighbor;
-  }
-
   /**
    * Creates a random graph with the given size and load factor. The edges' weights are unigormally distributed between 0.0-1.0.
    *
@@ -108,7 +190,25 @@ public class UndirectedWeightedNeighborsMatrixGraphImpl extends UndirectedWeight
   public static UndirectedWeightedNeighborsMatrixGraphImpl generateRandomGraph(Random random,
                                                                                int numberOfVertices,
                                                                                double loadFactor) {
-    UndirectedWeightedNeighborsMatrixGraphImpl graph = new UndirectedWeightedNeighborsMatrixGraphImpl(numberOfVertices);
+    return generateRandomGraph(random, numberOfVertices, loadFactor, StorageLayout.PACKED_TRIANGLE);
+  }
+
+  /**
+   * Creates a random graph with the given size, load factor and storage layout. The edges' weights are uniformly
+   * distributed between 0.0-1.0, and the same random generator generates the same graph in all layouts.
+   *
+   * @param random           Random generator
+   * @param numberOfVertices Size of the graph
+   * @param loadFactor       Load factor. Represents the probability of having an edge between two vertices.
+   * @param storageLayout    The layout of the weights.
+   * @return The generated graph.
+   */
+  public static UndirectedWeightedNeighborsMatrixGraphImpl generateRandomGraph(Random random,
+                                                                               int numberOfVertices,
+                                                                               double loadFactor,
+                                                                               StorageLayout storageLayout) {
+    UndirectedWeightedNeighborsMatrixGraphImpl graph =
+        new UndirectedWeightedNeighborsMatrixGraphImpl(numberOfVertices, storageLayout);
     for (int source = 0; source < numberOfVertices; source++) {
       for (int dest = source + 1; dest < numberOfVertices; dest++) {
         if (random.nextDouble() < loadFactor) {
@@ -118,4 +218,24 @@ public class UndirectedWeightedNeighborsMatrixGraphImpl extends UndirectedWeight
     }
     return graph;
   }
+
+  /**
+   * Creates a random graph, where the edges and their weights are generated in parallel by a
+   * {@link RandomGraphGenerator}. The edges' weights are uniformly distributed between 0.0-1.0.
+   *
+   * @param seed             Seed of the generated graph.
+   * @param numberOfVertices Size of the graph
+   * @param loadFactor       Load factor. Represents the probability of having an edge between two vertices.
+   * @param parallelism      Number of threads to use.
+   * @return The generated graph.
+   */
+  public static UndirectedWeightedNeighborsMatrixGraphImpl generateRandomGraph(long seed,
+                                                                               int numberOfVertices,
+                                                                               double loadFactor,
+                                                                               int parallelism) {
+    UndirectedWeightedNeighborsMatrixGraphImpl graph = new UndirectedWeightedNeighborsMatrixGraphImpl(numberOfVertices);
+    new RandomGraphGenerator(seed, loadFactor, parallelism)
+        .generateEdges(numberOfVertices, true, EdgeListLoader.weightedGraphConsumer(graph));
+    return graph;
+  }
 }
@@ -0,0 +1,105 @@
+package il.co.site_building.performance_course.graph;
+
+import java.util.Arrays;
+
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.hash.TLongIntHashMap;
+
+/**
+ * Maps sparse external vertex ids (such as 64 bit hashes) to dense internal indexes, starting from 0.
+ * The ids are kept in a primitive open addressing hash map, and the indexes in a reverse array which grows by capacity
+ * doubling. Indexes of removed ids are reused by the next added ids, so the indexes stay below the maximal number of
+ * ids which existed at once.
+ */
+public class VertexIdMap {
+
+  public static final int NO_INDEX = -1;
+
+  private static final int INITIAL_CAPACITY = 16;
+  private static final float LOAD_FACTOR = 0.5f;
+
+  private final TLongIntHashMap indexes;
+  private final TIntArrayList freeIndexes; //Indexes of removed ids, reused before new indexes
+  private long[] ids; //ids[index] is the id of the index
+  private int indexBound; //All indexes ever assigned are in the range [0..indexBound)
+
+  public VertexIdMap() {
+    this(INITIAL_CAPACITY);
+  }
+
+  /**
+   * @param expectedNumberOfIds Number of ids to allocate the map for.
+   */
+  public VertexIdMap(int expectedNumberOfIds) {
+    int capacity = Math.max(1, expectedNumberOfIds);
+    indexes = new TLongIntHashMap(capacity, LOAD_FACTOR, Long.MIN_VALUE, NO_INDEX);
+    freeIndexes = new TIntArrayList();
+    ids = new long[capacity];
+    indexBound = 0;
+  }
+
+  /**
+   * @return The index of the id, or {@link #NO_INDEX} if the id wasn't added.
+   */
+  public int indexOf(long id) {
+    return indexes.get(id);
+  }
+
+  /**
+   * Assigns an index to the id, reusing the index of a removed id if there is one.
+   *
+   * @return The index of the id, either existing or new.
+   */
+  public int add(long id) {
+    int index = indexes.get(id);
+    if (index != NO_INDEX) {
+      return index;
+    }
+    if (freeIndexes.isEmpty()) {
+      index = indexBound++;
+      if (index == ids.length) {
+        ids = Arrays.copyOf(ids, ids.length * 2);
+      }
+    } else {
+      index = freeIndexes.removeAt(freeIndexes.size() - 1);
+    }
+    ids[index] = id;
+    indexes.put(id, index);
+    return index;
+  }
+
+  /**
+   * Removes the id. Its index may be assigned to another id from now on.
+   *
+   * @return The index of the removed id, or {@link #NO_INDEX} if the id wasn't added.
+   */
+  public int remove(long id) {
+    int index = indexes.remove(id);
+    if (index != NO_INDEX) {
+      freeIndexes.add(index);
+    }
+    return index;
+  }
+
+  /**
+   * @param index An index which is assigned to an id.
+   * @return The id of the index.
+   */
+  public long idOf(int index) {
+    return ids[index];
+  }
+
+  /**
+   * @return The number of ids.
+   */
+  public int size() {
+    return indexes.size();
+  }
+
+  /**
+   * @return An upper bound (exclusive) of all indexes.
+   */
+  public int getIndexBound() {
+    return indexBound;
+  }
+}
@@ -0,0 +1,24 @@
+package il.co.site_building.performance_course.graph;
+
+/**
+ * A min priority queue of vertices in the range [0..capacity), keyed by their tentative distances, over primitive
+ * arrays which are indexed by the vertex. Each vertex is inserted at most once, and its key may only be decreased
+ * while it's in the queue.
+ */
+interface VertexPriorityQueue {
+
+  void insert(int vertex, double key);
+
+  /**
+   * @param vertex A vertex in the queue.
+   * @param key    A key which isn't larger than the current key of the vertex.
+   */
+  void decreaseKey(int vertex, double key);
+
+  /**
+   * @return The vertex with the minimal key, which is removed from the queue.
+   */
+  int extractMin();
+
+  boolean isEmpty();
+}
@@ -0,0 +1,32 @@
+package il.co.site_building.performance_course.graph;
+
+/**
+ * Storage of the edges' weights of an undirected graph over the vertices [0..capacity), where a missing edge has a
+ * weight of POSITIVE_INFINITY. The storage doesn't know which vertices exist, and has no self loops.
+ * <p>
+ * Snapshots are O(1) and share the weights with the storage, so following modifications of the storage copy what they
+ * modify first.
+ */
+interface WeightStorage {
+
+  int capacity();
+
+  /**
+   * @param v1 A vertex in the range [0..capacity)
+   * @param v2 Another vertex in the range [0..capacity)
+   * @return The weight of the edge, POSITIVE_INFINITY if it doesn't exist.
+   */
+  double getWeight(int v1, int v2);
+
+  void setWeight(int v1, int v2, double weight);
+
+  /**
+   * Grows the storage to hold at least the given number of vertices, without any edges to the new vertices.
+   */
+  void ensureCapacity(int numberOfVertices);
+
+  /**
+   * @return A read only storage, which keeps seeing the weights as they are now.
+   */
+  WeightStorage snapshot();
+}
@@ -0,0 +1,122 @@
+package il.co.site_building.performance_course.graph.benchmarking;
+
+import il.co.site_building.performance_course.graph.ConcurrentNeighborsMatrixGraph;
+import il.co.site_building.performance_course.graph.RandomGraphGenerator;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
+
+import com.google.common.base.Stopwatch;
+
+/**
+ * Concurrent edge insertion benchmarking class.
+ * The main method receives the following command line arguments:
+ * 1) Number of vertices - int
+ * 2) Load factor - double
+ * 3) Number of benchmarking cycles - int
+ * 4) Number of warmup cycles - int
+ * 5) Maximal number of threads - int
+ * <p>
+ * The edges of a random graph are generated once, and then inserted into a new {@link ConcurrentNeighborsMatrixGraph}
+ * by 1, 2, 4... threads, each inserting an interleaved share of the edges. Prints the average, STD and 5%, 50%, 95%
+ * percentiles of the insertion throughput (edges per second) for each number of threads.
+ */
+public class ConcurrentInsertBenchmarking {
+
+  private static final double NANOS = 1E9;
+  private static final int STATISTICS_WINDOW_SIZE = 8192;
+  private static final int SEED = 0;
+
+  public static void main(String... args) {
+    try {
+      int numberOfVertices = Integer.parseInt(args[0]);
+      double loadFactor = Double.parseDouble(args[1]);
+      int numberOfBenchmarkingCycles = Integer.parseInt(args[2]);
+      int numberOfWarmupCycles = Integer.parseInt(args[3]);
+      int maxThreads = Integer.parseInt(args[4]);
+      int[][] edges = generateEdges(numberOfVertices, loadFactor);
+      System.out.println("Generated " + edges[0].length + " edges");
+      for (int threads = 1; threads <= maxThreads; threads *= 2) {
+        benchmarkInsertion(numberOfVertices, edges, threads, numberOfWarmupCycles);
+        DescriptiveStatistics statistics =
+            benchmarkInsertion(numberOfVertices, edges, threads, numberOfBenchmarkingCycles);
+        printStatistics(threads + " threads", statistics);
+      }
+    } catch (Exception e) {
+      e.printStackTrace();
+      printUsage();
+    }
+  }
+
+  private static int[][] generateEdges(int numberOfVertices, double loadFactor) {
+    int[][] edges = new int[][]{new int[1024], new int[1024]};
+    int[] numberOfEdges = new int[1];
+    new RandomGraphGenerator(SEED, loadFactor, Runtime.getRuntime().availableProcessors())
+        .generateEdges(numberOfVertices, false, (sources, targets, weights, batchSize) -> {
+          if (numberOfEdges[0] + batchSize > edges[0].length) {
+            int newLength = Math.max(numberOfEdges[0] + batchSize, edges[0].length * 2);
+            edges[0] = Arrays.copyOf(edges[0], newLength);
+            edges[1] = Arrays.copyOf(edges[1], newLength);
+          }
+          System.arraycopy(sources, 0, edges[0], numberOfEdges[0], batchSize);
+          System.arraycopy(targets, 0, edges[1], numberOfEdges[0], batchSize);
+          numberOfEdges[0] += batchSize;
+        });
+    return new int[][]{Arrays.copyOf(edges[0], numberOfEdges[0]), Arrays.copyOf(edges[1], numberOfEdges[0])};
+  }
+
+  private static DescriptiveStatistics benchmarkInsertion(int numberOfVertices,
+                                                          int[][] edges,
+                                                          int threads,
+                                                          int numberOfCycles) throws Exception {
+    DescriptiveStatistics descriptiveStatistics = new DescriptiveStatistics(STATISTICS_WINDOW_SIZE);
+    ExecutorService executorService = Executors.newFixedThreadPool(threads);
+    try {
+      for (int cycle = 1; cycle <= numberOfCycles; cycle++) {
+        ConcurrentNeighborsMatrixGraph graph = new ConcurrentNeighborsMatrixGraph(numberOfVertices, numberOfVertices);
+        System.gc();
+        System.out.print("\rRunning " + threads + " threads insertion cycle " + cycle + "...");
+        Future<?>[] futures = new Future<?>[threads];
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        for (int thread = 0; thread < threads; thread++) {
+          int firstEdge = thread;
+          futures[thread] = executorService.submit(() -> {
+            for (int edge = firstEdge; edge < edges[0].length; edge += threads) {
+              graph.addEdge(edges[0][edge], edges[1][edge]);
+            }
+          });
+        }
+        for (Future<?> future : futures) {
+          future.get();
+        }
+        stopwatch.stop();
+        descriptiveStatistics.addValue(edges[0].length / (stopwatch.elapsed(TimeUnit.NANOSECONDS) / NANOS));
+      }
+    } finally {
+      executorService.shutdown();
+    }
+    System.out.println();
+    return descriptiveStatistics;
+  }
+
+  private static void printStatistics(String name, DescriptiveStatistics statistics) {
+    double average = statistics.getMean();
+    double std = Math.sqrt(statistics.getVariance());
+    System.out.println(name + " average insertions per second: " + average);
+    System.out.println(name + " std insertions per second: " + std);
+    System.out.println(name + " std insertions per second (percent) : " + std / average * 100.0 + "%");
+    System.out.println(name + " 5 percentile insertions per second: " + statistics.getPercentile(5));
+    System.out.println(name + " 50 percentile insertions per second: " + statistics.getPercentile(50));
+    System.out.println(name + " 95 percentile insertions per second: " + statistics.getPercentile(95));
+  }
+
+  private static void printUsage() {
+    System.err.println(
+        "Command line arguments usage: <number of vertices> <load factor> <number of benchmarking cycles> <number of warmup cycles> <max threads>");
+  }
+}
@@ -1,13 +1,21 @@
 package il.co.site_building.performance_course.graph.benchmarking;
 
+import il.co.site_building.performance_course.graph.CsrSimpleGraph;
 import il.co.site_building.performance_course.graph.data_structures.GraphBenchmarkStatistics;
 import il.co.site_building.performance_course.graph.JGraphSimpleGraphImpl;
 import il.co.site_building.performance_course.graph.NeighborsMatrixGraph;
+import il.co.site_building.performance_course.graph.OffHeapNeighborsMatrixGraph;
+import il.co.site_building.performance_course.graph.PackedNeighborsMatrixGraph;
+import il.co.site_building.performance_course.graph.SimpleGraph;
 
 import java.io.FileWriter;
 import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Random;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVPrinter;
@@ -23,8 +31,9 @@ import com.google.common.base.Stopwatch;
  * 3) Number of benchmarking cycles - int
  * 4) Number of warmup cycles - int
  * 5) CSV output file name - String
+ * 6) Parallelism of the parallel connected components (optional, defaults to the number of processors) - int
  * <p>
- * Then for both graph types prints avg time, number of benchmarks, STD (by value and percent), 95%, 50%, 5% both for building and finding the components.
+ * Then for all graph types prints avg time, number of benchmarks, STD (by value and percent), 95%, 50%, 5% both for building and finding the components.
  */
 public class ConnectedComponentsBenchmarking {
 
@@ -41,28 +50,106 @@ public class ConnectedComponentsBenchmarking {
       int numberOfBenchmarkingCycles = Integer.parseInt(args[2]);
       int numberOfWarmupCycles = Integer.parseInt(args[3]);
       String csvFileName = args[4];
-      warmup(numberOfVertices, loadFactor, numberOfWarmupCycles);
-      GraphBenchmarkStatistics neighborsMatrixBenchmarkStatistics =
-          benchmarkNeighborsMatrix(SEED, numberOfBenchmarkingCycles, loadFactor, numberOfVertices);
-      GraphBenchmarkStatistics connectedComponentsBenchmarkStatistics =
-          benchmarkJGraphMatrix(SEED, numberOfBenchmarkingCycles, loadFactor, numberOfVertices);
-      saveStatistics(neighborsMatrixBenchmarkStatistics, connectedComponentsBenchmarkStatistics, csvFileName);
+      int parallelism = args.length > 5 ? Integer.parseInt(args[5]) : Runtime.getRuntime().availableProcessors();
+      warmup(numberOfVertices, loadFactor, numberOfWarmupCycles, parallelism);
+      Map<String, GraphBenchmarkStatistics> benchmarkStatistics = new LinkedHashMap<>();
+      benchmarkStatistics.put("Neighbors Matrix",
+                              benchmarkNeighborsMatrix(SEED, numberOfBenchmarkingCycles, loadFactor, numberOfVertices));
+      benchmarkStatistics.put("JGraph",
+                              benchmarkJGraphMatrix(SEED, numberOfBenchmarkingCycles, loadFactor, numberOfVertices));
+      benchmarkStatistics.put("CSR",
+                              benchmarkGraph("CSR",
+                                             SEED,
+                                             numberOfBenchmarkingCycles,
+                                             random -> CsrSimpleGraph.createRandomGraph(random,
+                                                                                        numberOfVertices,
+                                                                                        loadFactor),
+                                             CsrSimpleGraph::createConnectedComponents));
+      benchmarkStatistics.put("Neighbors Matrix Parallel",
+                              benchmarkGraph("Neighbors matrix parallel",
+                                             SEED,
+                                             numberOfBenchmarkingCycles,
+                                             random -> NeighborsMatrixGraph.createRandomGraph(random,
+                                                                                              numberOfVertices,
+                                                                                              loadFactor),
+                                             graph -> graph.createConnectedComponents(parallelism)));
+      benchmarkStatistics.put("Neighbors Matrix DFS Labels",
+                              benchmarkGraph("Neighbors matrix DFS labels",
+                                             SEED,
+                                             numberOfBenchmarkingCycles,
+                                             random -> NeighborsMatrixGraph.createRandomGraph(random,
+                                                                                              numberOfVertices,
+                                                                                              loadFactor),
+                                             NeighborsMatrixGraph::labelConnectedComponents));
+      benchmarkStatistics.put("Neighbors Matrix BFS Labels",
+                              benchmarkGraph("Neighbors matrix BFS labels",
+                                             SEED,
+                                             numberOfBenchmarkingCycles,
+                                             random -> NeighborsMatrixGraph.createRandomGraph(random,
+                                                                                              numberOfVertices,
+                                                                                              loadFactor),
+                                             NeighborsMatrixGraph::labelConnectedComponentsBfs));
+      benchmarkStatistics.put("Off Heap Neighbors Matrix",
+                              benchmarkGraph("Off heap neighbors matrix",
+                                             SEED,
+                                             numberOfBenchmarkingCycles,
+                                             random -> OffHeapNeighborsMatrixGraph.createRandomGraph(random,
+                                                                                                     numberOfVertices,
+                                                                                                     loadFactor),
+                                             graph -> {
+                                               graph.createConnectedComponents();
+                                               graph.close(); //Closing is only releasing references
+                                             }));
+      benchmarkStatistics.put("CSR Parallel",
+                              benchmarkGraph("CSR parallel",
+                                             SEED,
+                                             numberOfBenchmarkingCycles,
+                                             random -> CsrSimpleGraph.createRandomGraph(random,
+                                                                                        numberOfVertices,
+                                                                                        loadFactor),
+                                             graph -> graph.createConnectedComponents(parallelism)));
+      benchmarkStatistics.put("Neighbors Matrix Generated",
+                              benchmarkGraph("Neighbors matrix generated",
+                                             SEED,
+                                             numberOfBenchmarkingCycles,
+                                             random -> NeighborsMatrixGraph.createRandomGraph(random.nextLong(),
+                                                                                              numberOfVertices,
+                                                                                              loadFactor,
+                                                                                              parallelism),
+                                             NeighborsMatrixGraph::createConnectedComponents));
+      benchmarkStatistics.put("Packed Neighbors Matrix",
+                              benchmarkGraph("Packed neighbors matrix",
+                                             SEED,
+                                             numberOfBenchmarkingCycles,
+                                             random -> PackedNeighborsMatrixGraph.createRandomGraph(random,
+                                                                                                    numberOfVertices,
+                                                                                                    loadFactor),
+                                             PackedNeighborsMatrixGraph::createConnectedComponents));
+      benchmarkStatistics.put("Neighbors Matrix Component Views",
+                              benchmarkGraph("Neighbors matrix component views",
+                                             SEED,
+                                             numberOfBenchmarkingCycles,
+                                             random -> NeighborsMatrixGraph.createRandomGraph(random,
+                                                                                              numberOfVertices,
+                                                                                              loadFactor),
+                                             NeighborsMatrixGraph::createConnectedComponentViews));
+      saveStatistics(benchmarkStatistics, csvFileName);
     } catch (Exception e) {
       e.printStackTrace();
       printUsage();
     }
   }
 
-  private static void saveStatistics(GraphBenchmarkStatistics neighborsMatrixBenchmarkStatistics,
-                                     GraphBenchmarkStatistics connectedComponentsBenchmarkStatistics,
+  private static void saveStatistics(Map<String, GraphBenchmarkStatistics> benchmarkStatistics,
                                      String csvFileName) throws IOException {
     FileWriter csvFile = new FileWriter(csvFileName);
     CSVFormat csvFormat =
         CSVFormat.Builder.create(CSVFormat.EXCEL).setHeader(CSV_RECORDS_HEADERS).setSkipHeaderRecord(true).build();
     try (CSVPrinter csvPrinter = new CSVPrinter(csvFile, csvFormat)) {
       csvPrinter.printRecord((Object[]) CSV_RECORDS_HEADERS);
-      saveStatistics(neighborsMatrixBenchmarkStatistics, "Neighbors Matrix", csvPrinter);
-      saveStatistics(connectedComponentsBenchmarkStatistics, "JGraph", csvPrinter);
+      for (Map.Entry<String, GraphBenchmarkStatistics> graphStatistics : benchmarkStatistics.entrySet()) {
+        saveStatistics(graphStatistics.getValue(), graphStatistics.getKey(), csvPrinter);
+      }
     }
     csvFile.close();
   }
@@ -166,7 +253,35 @@ public class ConnectedComponentsBenchmarking {
     return new GraphBenchmarkStatistics(buildStatistics, connectedComponentsStatistics);
   }
 
-  private static void warmup(int numberOfVertices, double loadFactor, int numberOfWarmupCycles) {
+  private static <G extends SimpleGraph> GraphBenchmarkStatistics benchmarkGraph(String graphName,
+                                                                                  int seed,
+                                                                                  int numberOfBenchmarkingCycles,
+                                                                                  Function<Random, G> graphFactory,
+                                                                                  Consumer<G> connectedComponentsFinder) {
+    Random random = new Random(seed);
+    DescriptiveStatistics buildStatistics = new DescriptiveStatistics(STATISTICS_WINDOW_SIZE);
+    DescriptiveStatistics connectedComponentsStatistics = new DescriptiveStatistics(STATISTICS_WINDOW_SIZE);
+    System.out.println("Starting benchmark for " + graphName + " graph");
+    for (int cycle = 1; cycle <= numberOfBenchmarkingCycles; cycle++) {
+      System.gc(); //Cleanup
+      System.out.print("\r" + graphName + " build cycle number " + cycle);
+      Stopwatch buildStopwatch = Stopwatch.createStarted();
+      G graph = graphFactory.apply(random);
+      buildStopwatch.stop();
+      System.out.print("\r" + graphName + " connected components cycle number " + cycle);
+      double buildTimeSeconds = buildStopwatch.elapsed(TimeUnit.NANOSECONDS) / NANOS;
+      buildStatistics.addValue(buildTimeSeconds);
+      Stopwatch connectedComponentsStopwatch = Stopwatch.createStarted();
+      connectedComponentsFinder.accept(graph);
+      connectedComponentsStopwatch.stop();
+      double connectedComponentsTime = connectedComponentsStopwatch.elapsed(TimeUnit.NANOSECONDS) / NANOS;
+      connectedComponentsStatistics.addValue(connectedComponentsTime);
+    }
+    System.out.println();
+    return new GraphBenchmarkStatistics(buildStatistics, connectedComponentsStatistics);
+  }
+
+  private static void warmup(int numberOfVertices, double loadFactor, int numberOfWarmupCycles, int parallelism) {
     Random random = new Random();
     System.out.println("Starting warmup cycles for connected components graph...");
     for (int cycle = 1; cycle <= numberOfWarmupCycles; cycle++) {
@@ -174,6 +289,8 @@ public class ConnectedComponentsBenchmarking {
       NeighborsMatrixGraph graph = NeighborsMatrixGraph.createRandomGraph(random, numberOfVertices, loadFactor);
       System.out.print("\rNeighbors Matrix Graph warmup cycle " + cycle + " connected components...");
       graph.createConnectedComponents();
+      System.out.print("\rNeighbors Matrix Graph warmup cycle " + cycle + " parallel connected components...");
+      graph.createConnectedComponents(parallelism);
     }
     System.out.println();
     for (int cycle = 1; cycle <= numberOfWarmupCycles; cycle++) {
@@ -183,11 +300,20 @@ public class ConnectedComponentsBenchmarking {
       graph.createConnectedComponents();
     }
     System.out.println();
+    for (int cycle = 1; cycle <= numberOfWarmupCycles; cycle++) {
+      System.out.print("\rCSR Graph warmup cycle " + cycle + " build graph...");
+      CsrSimpleGraph graph = CsrSimpleGraph.createRandomGraph(random, numberOfVertices, loadFactor);
+      System.out.print("\rCSR Graph warmup cycle " + cycle + " connected components...");
+      graph.createConnectedComponents();
+      System.out.print("\rCSR Graph warmup cycle " + cycle + " parallel connected components...");
+      graph.createConnectedComponents(parallelism);
+    }
+    System.out.println();
     System.out.println("Finished Warmup");
   }
 
   private static void printUsage() {
     System.err.println(
-        "Command line arguments sage: <number of vertices> <load factor> <number of benchmarking cycles> <number of warmup cycles> <CSV file name>");
+        "Command line arguments sage: <number of vertices> <load factor> <number of benchmarking cycles> <number of warmup cycles> <CSV file name> [parallelism]");
   }
 }
@@ -0,0 +1,275 @@
+package il.co.site_building.performance_course.graph.benchmarking;
+
+import il.co.site_building.performance_course.graph.ConnectedComponentsLabels;
+import il.co.site_building.performance_course.graph.DynamicConnectivityGraph;
+import il.co.site_building.performance_course.graph.NeighborsMatrixGraph;
+import il.co.site_building.performance_course.graph.ReachabilityIndex;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
+
+import com.google.common.base.Stopwatch;
+
+import gnu.trove.list.array.TLongArrayList;
+import gnu.trove.set.hash.TLongHashSet;
+
+/**
+ * Connectivity under a mixed stream of updates and queries benchmarking class.
+ * The main method receives the following command line arguments:
+ * 1) Number of vertices - int
+ * 2) Load factor - double
+ * 3) Number of operations in the stream - int
+ * 4) Queries ratio, the fraction of the operations which are connectivity queries - double
+ * 5) Number of benchmarking cycles - int
+ * 6) Number of warmup cycles - int
+ * <p>
+ * The stream starts from a random graph, which is generated again for each cycle. Half of the updates insert a random
+ * new edge and half of them delete a random existing edge, so deletions do split components. The same stream is run on:
+ * <ul>
+ *   <li>Rebuilding the labels from scratch with {@link NeighborsMatrixGraph#labelConnectedComponents()} on the first
+ *   query after a modification.</li>
+ *   <li>The connectivity tracker of {@link NeighborsMatrixGraph#connected(int, int)}.</li>
+ *   <li>{@link ReachabilityIndex}.</li>
+ *   <li>{@link DynamicConnectivityGraph}.</li>
+ * </ul>
+ * Prints the average, STD and 5%, 50%, 95% percentiles of the stream time in seconds for each of them.
+ */
+public class DynamicConnectivityBenchmarking {
+
+  private static final double NANOS = 1E9;
+  private static final int STATISTICS_WINDOW_SIZE = 8192;
+  private static final long SEED = 0;
+  private static final byte QUERY = 0;
+  private static final byte INSERT = 1;
+  private static final byte DELETE = 2;
+
+  public static void main(String... args) {
+    try {
+      int numberOfVertices = Integer.parseInt(args[0]);
+      double loadFactor = Double.parseDouble(args[1]);
+      int numberOfOperations = Integer.parseInt(args[2]);
+      double queriesRatio = Double.parseDouble(args[3]);
+      int numberOfBenchmarkingCycles = Integer.parseInt(args[4]);
+      int numberOfWarmupCycles = Integer.parseInt(args[5]);
+      Supplier<NeighborsMatrixGraph> graphFactory =
+          () -> NeighborsMatrixGraph.createRandomGraph(new Random(SEED), numberOfVertices, loadFactor);
+      OperationsStream stream =
+          createStream(graphFactory.get(), new Random(SEED + 1), numberOfOperations, queriesRatio);
+      benchmark("Rebuild labels", graphFactory, stream, RebuildingConnectivity::new, numberOfWarmupCycles,
+                numberOfBenchmarkingCycles);
+      benchmark("Connectivity tracker", graphFactory, stream, TrackerConnectivity::new, numberOfWarmupCycles,
+                numberOfBenchmarkingCycles);
+      benchmark("Reachability index", graphFactory, stream, IndexConnectivity::new, numberOfWarmupCycles,
+                numberOfBenchmarkingCycles);
+      benchmark("Dynamic connectivity", graphFactory, stream, DynamicConnectivityOracle::new, numberOfWarmupCycles,
+                numberOfBenchmarkingCycles);
+    } catch (Exception e) {
+      e.printStackTrace();
+      printUsage();
+    }
+  }
+
+  private static OperationsStream createStream(NeighborsMatrixGraph graph, Random random, int numberOfOperations,
+                                               double queriesRatio) {
+    int numberOfVertices = graph.vertexSet().size();
+    TLongArrayList edges = new TLongArrayList();
+    TLongHashSet edgesSet = new TLongHashSet();
+    graph.forEachVertex(vertex -> graph.forEachNeighbor(vertex, neighbor -> {
+      if (neighbor < vertex) {
+        edges.add(getKey(vertex, neighbor));
+        edgesSet.add(getKey(vertex, neighbor));
+      }
+    }));
+    OperationsStream stream = new OperationsStream(new byte[numberOfOperations], new int[numberOfOperations],
+                                                   new int[numberOfOperations]);
+    int queries = 0;
+    for (int operation = 0; operation < numberOfOperations; operation++) {
+      if (random.nextDouble() < queriesRatio) {
+        stream.types[operation] = QUERY;
+        stream.v1s[operation] = random.nextInt(numberOfVertices);
+        stream.v2s[operation] = random.nextInt(numberOfVertices);
+        queries++;
+      } else if (random.nextBoolean() || edges.isEmpty()) {
+        int v1 = random.nextInt(numberOfVertices);
+        int v2 = random.nextInt(numberOfVertices);
+        stream.types[operation] = INSERT;
+        stream.v1s[operation] = v1;
+        stream.v2s[operation] = v2;
+        if (v1 != v2 && edgesSet.add(getKey(v1, v2))) {
+          edges.add(getKey(v1, v2));
+        }
+      } else {
+        int edgeIndex = random.nextInt(edges.size());
+        long edge = edges.get(edgeIndex);
+        edges.set(edgeIndex, edges.get(edges.size() - 1));
+        edges.removeAt(edges.size() - 1);
+        edgesSet.remove(edge);
+        stream.types[operation] = DELETE;
+        stream.v1s[operation] = (int) (edge >>> Integer.SIZE);
+        stream.v2s[operation] = (int) edge;
+      }
+    }
+    System.out.println("Stream has " + queries + " queries and " + (numberOfOperations - queries) + " updates");
+    return stream;
+  }
+
+  private static void benchmark(String name, Supplier<NeighborsMatrixGraph> graphFactory, OperationsStream stream,
+                                Function<NeighborsMatrixGraph, ConnectivityOracle> oracleFactory,
+                                int numberOfWarmupCycles, int numberOfBenchmarkingCycles) {
+    for (int cycle = 1; cycle <= numberOfWarmupCycles; cycle++) {
+      System.out.print("\r" + name + " warmup cycle " + cycle + "...");
+      run(oracleFactory.apply(graphFactory.get()), stream);
+    }
+    DescriptiveStatistics statistics = new DescriptiveStatistics(STATISTICS_WINDOW_SIZE);
+    long connectedQueries = 0;
+    for (int cycle = 1; cycle <= numberOfBenchmarkingCycles; cycle++) {
+      ConnectivityOracle oracle = oracleFactory.apply(graphFactory.get());
+      System.gc(); //Cleanup
+      System.out.print("\r" + name + " benchmarking cycle " + cycle + "...");
+      Stopwatch stopwatch = Stopwatch.createStarted();
+      connectedQueries = run(oracle, stream);
+      stopwatch.stop();
+      statistics.addValue(stopwatch.elapsed(TimeUnit.NANOSECONDS) / NANOS);
+    }
+    System.out.println();
+    System.out.println(name + " connected queries: " + connectedQueries);
+    printStatistics(name, statistics);
+  }
+
+  /**
+   * @return The number of queries which were answered with true, so the results can be compared.
+   */
+  private static long run(ConnectivityOracle oracle, OperationsStream stream) {
+    long connectedQueries = 0;
+    for (int operation = 0; operation < stream.types.length; operation++) {
+      int v1 = stream.v1s[operation];
+      int v2 = stream.v2s[operation];
+      switch (stream.types[operation]) {
+        case QUERY -> connectedQueries += oracle.connected(v1, v2) ? 1 : 0;
+        case INSERT -> oracle.addEdge(v1, v2);
+        case DELETE -> oracle.removeEdge(v1, v2);
+      }
+    }
+    return connectedQueries;
+  }
+
+  private static long getKey(int v1, int v2) {
+    return ((long) Math.max(v1, v2) << Integer.SIZE) | Math.min(v1, v2);
+  }
+
+  private static void printStatistics(String name, DescriptiveStatistics statistics) {
+    double average = statistics.getMean();
+    double std = Math.sqrt(statistics.getVariance());
+    System.out.println(name + " average time: " + average);
+    System.out.println(name + " std time: " + std);
+    System.out.println(name + " std time (percent) : " + std / average * 100.0 + "%");
+    System.out.println(name + " 5 percentile time: " + statistics.getPercentile(5));
+    System.out.println(name + " 50 percentile time: " + statistics.getPercentile(50));
+    System.out.println(name + " 95 percentile time: " + statistics.getPercentile(95));
+  }
+
+  private static void printUsage() {
+    System.err.println(
+        "Command line arguments usage: <number of vertices> <load factor> <number of operations> <queries ratio> <number of benchmarking cycles> <number of warmup cycles>");
+  }
+
+  private record OperationsStream(byte[] types, int[] v1s, int[] v2s) {
+  }
+
+  private interface ConnectivityOracle {
+
+    void addEdge(int v1, int v2);
+
+    void removeEdge(int v1, int v2);
+
+    boolean connected(int v1, int v2);
+  }
+
+  private static class RebuildingConnectivity implements ConnectivityOracle {
+
+    private final NeighborsMatrixGraph graph;
+    private ConnectedComponentsLabels labels;
+
+    private RebuildingConnectivity(NeighborsMatrixGraph graph) {
+      this.graph = graph;
+    }
+
+    @Override public void addEdge(int v1, int v2) {
+      graph.addEdge(v1, v2);
+      labels = null;
+    }
+
+    @Override public void removeEdge(int v1, int v2) {
+      graph.removeEdge(v1, v2);
+      labels = null;
+    }
+
+    @Override public boolean connected(int v1, int v2) {
+      if (labels == null) {
+        labels = graph.labelConnectedComponents();
+      }
+      return labels.sameComponent(v1, v2);
+    }
+  }
+
+  private record TrackerConnectivity(NeighborsMatrixGraph graph) implements ConnectivityOracle {
+
+    @Override public void addEdge(int v1, int v2) {
+      graph.addEdge(v1, v2);
+    }
+
+    @Override public void removeEdge(int v1, int v2) {
+      graph.removeEdge(v1, v2);
+    }
+
+    @Override public boolean connected(int v1, int v2) {
+      return graph.connected(v1, v2);
+    }
+  }
+
+  private static class IndexConnectivity implements ConnectivityOracle {
+
+    private final ReachabilityIndex index;
+
+    private IndexConnectivity(NeighborsMatrixGraph graph) {
+      index = new ReachabilityIndex(graph);
+    }
+
+    @Override public void addEdge(int v1, int v2) {
+      index.addEdge(v1, v2);
+    }
+
+    @Override public void removeEdge(int v1, int v2) {
+      index.removeEdge(v1, v2);
+    }
+
+    @Override public boolean connected(int v1, int v2) {
+      return index.reachable(v1, v2);
+    }
+  }
+
+  private static class DynamicConnectivityOracle implements ConnectivityOracle {
+
+    private final DynamicConnectivityGraph dynamicGraph;
+
+    private DynamicConnectivityOracle(NeighborsMatrixGraph graph) {
+      dynamicGraph = new DynamicConnectivityGraph(graph);
+    }
+
+    @Override public void addEdge(int v1, int v2) {
+      dynamicGraph.addEdge(v1, v2);
+    }
+
+    @Override public void removeEdge(int v1, int v2) {
+      dynamicGraph.removeEdge(v1, v2);
+    }
+
+    @Override public boolean connected(int v1, int v2) {
+      return dynamicGraph.connected(v1, v2);
+    }
+  }
+}
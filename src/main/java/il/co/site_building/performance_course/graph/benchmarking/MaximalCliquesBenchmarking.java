@@ -0,0 +1,110 @@
+package il.co.site_building.performance_course.graph.benchmarking;
+
+import il.co.site_building.performance_course.graph.JGraphSimpleGraphImpl;
+import il.co.site_building.performance_course.graph.NeighborsMatrixGraph;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
+
+import com.google.common.base.Stopwatch;
+
+/**
+ * Maximal cliques enumeration benchmarking class.
+ * The main method receives the following command line arguments:
+ * 1) Number of vertices - int
+ * 2) Load factor - double
+ * 3) Number of benchmarking cycles - int
+ * 4) Number of warmup cycles - int
+ * 5) Parallelism of the parallel enumeration (optional, defaults to the number of processors) - int
+ * <p>
+ * The maximal cliques of the same random graph are enumerated by the bitset Bron-Kerbosch of
+ * {@link NeighborsMatrixGraph}, counting only and streaming the cliques to a callback (single threaded and parallel),
+ * and by JGraphT's DegeneracyBronKerboschCliqueFinder. Prints the average, STD and 5%, 50%, 95% percentiles of the
+ * enumeration time in seconds, and the throughput in cliques per second, for each of them.
+ */
+public class MaximalCliquesBenchmarking {
+
+  private static final double NANOS = 1E9;
+  private static final int STATISTICS_WINDOW_SIZE = 8192;
+  private static final long SEED = 0;
+  private static final LongAdder CLIQUE_SIZES_SUM = new LongAdder();
+
+  public static void main(String... args) {
+    try {
+      int numberOfVertices = Integer.parseInt(args[0]);
+      double loadFactor = Double.parseDouble(args[1]);
+      int numberOfBenchmarkingCycles = Integer.parseInt(args[2]);
+      int numberOfWarmupCycles = Integer.parseInt(args[3]);
+      int parallelism = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+      NeighborsMatrixGraph graph =
+          NeighborsMatrixGraph.createRandomGraph(SEED, numberOfVertices, loadFactor, parallelism);
+      JGraphSimpleGraphImpl jGraph =
+          JGraphSimpleGraphImpl.createRandomGraph(SEED, numberOfVertices, loadFactor, parallelism);
+      System.out.println("Graph degeneracy is " + graph.degeneracy());
+      benchmark("Neighbors matrix", graph, NeighborsMatrixGraph::countMaximalCliques, numberOfWarmupCycles,
+                numberOfBenchmarkingCycles);
+      benchmark("Neighbors matrix streaming", graph,
+                matrixGraph -> matrixGraph.forEachMaximalClique(MaximalCliquesBenchmarking::consumeClique),
+                numberOfWarmupCycles, numberOfBenchmarkingCycles);
+      benchmark("Neighbors matrix parallel", graph, matrixGraph -> matrixGraph.countMaximalCliques(parallelism),
+                numberOfWarmupCycles, numberOfBenchmarkingCycles);
+      benchmark("Neighbors matrix parallel streaming", graph,
+                matrixGraph -> matrixGraph.forEachMaximalClique(MaximalCliquesBenchmarking::consumeClique,
+                                                                parallelism),
+                numberOfWarmupCycles, numberOfBenchmarkingCycles);
+      benchmark("JGraph", jGraph, JGraphSimpleGraphImpl::countMaximalCliques, numberOfWarmupCycles,
+                numberOfBenchmarkingCycles);
+    } catch (Exception e) {
+      e.printStackTrace();
+      printUsage();
+    }
+  }
+
+  private static <G> void benchmark(String name, G graph, ToLongFunction<G> cliquesEnumerator, int numberOfWarmupCycles,
+                                    int numberOfBenchmarkingCycles) {
+    for (int cycle = 1; cycle <= numberOfWarmupCycles; cycle++) {
+      System.out.print("\r" + name + " warmup cycle " + cycle + "...");
+      cliquesEnumerator.applyAsLong(graph);
+    }
+    DescriptiveStatistics statistics = new DescriptiveStatistics(STATISTICS_WINDOW_SIZE);
+    long cliques = 0;
+    for (int cycle = 1; cycle <= numberOfBenchmarkingCycles; cycle++) {
+      System.gc(); //Cleanup
+      System.out.print("\r" + name + " benchmarking cycle " + cycle + "...");
+      Stopwatch stopwatch = Stopwatch.createStarted();
+      cliques = cliquesEnumerator.applyAsLong(graph);
+      stopwatch.stop();
+      statistics.addValue(stopwatch.elapsed(TimeUnit.NANOSECONDS) / NANOS);
+    }
+    System.out.println();
+    System.out.println(name + " maximal cliques: " + cliques);
+    printStatistics(name, statistics);
+    System.out.println(name + " average throughput (cliques per second): " + cliques / statistics.getMean());
+  }
+
+  /**
+   * Reads the clique, so streaming it isn't optimized away.
+   */
+  private static void consumeClique(int[] clique) {
+    CLIQUE_SIZES_SUM.add(clique.length);
+  }
+
+  private static void printStatistics(String name, DescriptiveStatistics statistics) {
+    double average = statistics.getMean();
+    double std = Math.sqrt(statistics.getVariance());
+    System.out.println(name + " average time: " + average);
+    System.out.println(name + " std time: " + std);
+    System.out.println(name + " std time (percent) : " + std / average * 100.0 + "%");
+    System.out.println(name + " 5 percentile time: " + statistics.getPercentile(5));
+    System.out.println(name + " 50 percentile time: " + statistics.getPercentile(50));
+    System.out.println(name + " 95 percentile time: " + statistics.getPercentile(95));
+  }
+
+  private static void printUsage() {
+    System.err.println(
+        "Command line arguments usage: <number of vertices> <load factor> <number of benchmarking cycles> <number of warmup cycles> [parallelism]");
+  }
+}
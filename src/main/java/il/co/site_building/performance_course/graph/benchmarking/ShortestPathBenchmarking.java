@@ -1,10 +1,13 @@
 package il.co.site_building.performance_course.graph.benchmarking;
 
 import il.co.site_building.performance_course.graph.UndirectedWeightedNeighborsMatrixGraph;
+import il.co.site_building.performance_course.graph.UndirectedWeightedNeighborsMatrixGraph.StorageLayout;
 import il.co.site_building.performance_course.graph.UndirectedWeightedNeighborsMatrixGraphImpl;
 import il.co.site_building.performance_course.graph.UndirectedWeightedNeighborsMatrixGraphEvil;
+import il.co.site_building.performance_course.graph.UndirectedWeightedNeighborsMatrixGraphImpl.QueueType;
 import il.co.site_building.performance_course.graph.data_structures.ShortesPathResult;
 
+import java.util.Arrays;
 import java.util.Random;
 import java.util.concurrent.TimeUnit;
 
@@ -20,8 +23,14 @@ import com.google.common.base.Stopwatch;
  * 3) Number of benchmarking cycles - int
  * 4) Number of warmup cycles - int
  * 5) CSV output file name - String
+ * 6) Storage layouts - comma separated {@link StorageLayout} names, optional, all layouts by default. For example
+ * MIRRORED_ROWS,MIRRORED_ROWS_FLOAT at a large number of vertices measures the memory bandwidth of float weights.
+ * 7) Queue types - comma separated {@link QueueType} names, optional, all queues by default.
  * <p>
  * Then for both graph types prints avg time, number of benchmarks, STD (by value and percent), 95%, 50%, 5% both for finding the shortest path from first vertex (0) to the last ont (number of vertices - 1);.
+ * Then prints the same statistics for each priority queue of Dijkstra's algorithm, see
+ * {@link QueueType}, and for bidirectional Dijkstra, in each storage layout, see {@link StorageLayout}, where all of them
+ * run on the same seeded graphs.
  */
 public class ShortestPathBenchmarking {
 
@@ -35,10 +44,30 @@ public class ShortestPathBenchmarking {
     int numberOfBenchmarkingCycles = Integer.parseInt(args[2]);
     int numberOfWarmupCycles = Integer.parseInt(args[3]);
     String csvFileName = args[4];
+    StorageLayout[] storageLayouts = args.length > 5 ?
+        Arrays.stream(args[5].split(",")).map(StorageLayout::valueOf).toArray(StorageLayout[]::new) :
+        StorageLayout.values();
+    QueueType[] queueTypes = args.length > 6 ?
+        Arrays.stream(args[6].split(",")).map(QueueType::valueOf).toArray(QueueType[]::new) :
+        QueueType.values();
     warmup(numberOfVertices, loadFactor, numberOfWarmupCycles);
     ShortesPathResult resultStatistics =
         benchmarkShortestPath(numberOfVertices, loadFactor, numberOfBenchmarkingCycles);
     saveStatistics(resultStatistics);
+    warmupQueues(numberOfVertices, loadFactor, numberOfWarmupCycles, storageLayouts, queueTypes);
+    for (StorageLayout storageLayout : storageLayouts) {
+      for (QueueType queueType : queueTypes) {
+        DescriptiveStatistics queueStatistics = benchmarkShortestPathQueue(numberOfVertices,
+                                                                           loadFactor,
+                                                                           numberOfBenchmarkingCycles,
+                                                                           queueType,
+                                                                           storageLayout);
+        saveShortestPathStatistics("Shortest Path " + storageLayout + " " + queueType + " ", queueStatistics);
+      }
+      DescriptiveStatistics bidirectionalStatistics =
+          benchmarkShortestPathBidirectional(numberOfVertices, loadFactor, numberOfBenchmarkingCycles, storageLayout);
+      saveShortestPathStatistics("Shortest Path " + storageLayout + " Bidirectional ", bidirectionalStatistics);
+    }
   }
 
   private static void saveStatistics(ShortesPathResult resultStatistics) {
@@ -113,6 +142,72 @@ public class ShortestPathBenchmarking {
     return descriptiveStatistics;
   }
 
+  private static DescriptiveStatistics benchmarkShortestPathQueue(int numberOfVertices,
+                                                                  double loadFactor,
+                                                                  int numberOfBenchmarkingCycles,
+                                                                  QueueType queueType,
+                                                                  StorageLayout storageLayout) {
+    Random random = new Random(SEED);
+    System.out.println("Starting benchmarking on shortest path with " + storageLayout + " " + queueType + "...");
+    DescriptiveStatistics descriptiveStatistics = new DescriptiveStatistics(STATISTICS_WINDOW_SIZE);
+    for (int cycle = 1; cycle <= numberOfBenchmarkingCycles; cycle++) {
+      UndirectedWeightedNeighborsMatrixGraphImpl graph = UndirectedWeightedNeighborsMatrixGraphImpl
+          .generateRandomGraph(random, numberOfVertices, loadFactor, storageLayout);
+      System.gc();
+      System.out.print("\rRunning shortest path " + storageLayout + " " + queueType + " cycle " + cycle + "...");
+      Stopwatch stopwatch = Stopwatch.createStarted();
+      graph.findShortestPath(0, numberOfVertices - 1, queueType);
+      stopwatch.stop();
+      double buildTimeSeconds = stopwatch.elapsed(TimeUnit.NANOSECONDS) / NANOS;
+      descriptiveStatistics.addValue(buildTimeSeconds);
+    }
+    System.out.println();
+    return descriptiveStatistics;
+  }
+
+  private static DescriptiveStatistics benchmarkShortestPathBidirectional(int numberOfVertices,
+                                                                         double loadFactor,
+                                                                         int numberOfBenchmarkingCycles,
+                                                                         StorageLayout storageLayout) {
+    Random random = new Random(SEED);
+    System.out.println("Starting benchmarking on bidirectional shortest path with " + storageLayout + "...");
+    DescriptiveStatistics descriptiveStatistics = new DescriptiveStatistics(STATISTICS_WINDOW_SIZE);
+    for (int cycle = 1; cycle <= numberOfBenchmarkingCycles; cycle++) {
+      UndirectedWeightedNeighborsMatrixGraphImpl graph = UndirectedWeightedNeighborsMatrixGraphImpl
+          .generateRandomGraph(random, numberOfVertices, loadFactor, storageLayout);
+      System.gc();
+      System.out.print("\rRunning bidirectional shortest path " + storageLayout + " cycle " + cycle + "...");
+      Stopwatch stopwatch = Stopwatch.createStarted();
+      graph.findShortestPathBidirectional(0, numberOfVertices - 1);
+      stopwatch.stop();
+      double buildTimeSeconds = stopwatch.elapsed(TimeUnit.NANOSECONDS) / NANOS;
+      descriptiveStatistics.addValue(buildTimeSeconds);
+    }
+    System.out.println();
+    return descriptiveStatistics;
+  }
+
+  private static void warmupQueues(int numberOfVertices,
+                                   double loadFactor,
+                                   int numberOfWarmupCycles,
+                                   StorageLayout[] storageLayouts,
+                                   QueueType[] queueTypes) {
+    Random random = new Random();
+    System.out.println("Staring warmup for shortest path priority queues...");
+    for (int cycle = 1; cycle <= numberOfWarmupCycles; cycle++) {
+      System.out.print("\rQueues warmup cycle " + cycle + "....");
+      for (StorageLayout storageLayout : storageLayouts) {
+        UndirectedWeightedNeighborsMatrixGraphImpl graph = UndirectedWeightedNeighborsMatrixGraphImpl
+            .generateRandomGraph(random, numberOfVertices, loadFactor, storageLayout);
+        for (QueueType queueType : queueTypes) {
+          graph.findShortestPath(0, numberOfVertices - 1, queueType);
+        }
+        graph.findShortestPathBidirectional(0, numberOfVertices - 1);
+      }
+    }
+    System.out.println();
+  }
+
   private static void warmup(int numberOfVertices, double loadFactor, int numberOfWarmupCycles) {
     Random random = new Random();
     System.out.println("Staring warmup for shortest path benchmarking...");
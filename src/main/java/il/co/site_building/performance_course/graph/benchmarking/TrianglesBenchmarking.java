@@ -0,0 +1,112 @@
+package il.co.site_building.performance_course.graph.benchmarking;
+
+import il.co.site_building.performance_course.graph.JGraphSimpleGraphImpl;
+import il.co.site_building.performance_course.graph.NeighborsMatrixGraph;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
+
+import com.google.common.base.Stopwatch;
+
+/**
+ * Triangle counting benchmarking class.
+ * The main method receives the following command line arguments:
+ * 1) Number of vertices - int
+ * 2) Load factor - double
+ * 3) Number of benchmarking cycles - int
+ * 4) Number of warmup cycles - int
+ * 5) Parallelism of the parallel triangle counting (optional, defaults to the number of processors) - int
+ * <p>
+ * The same random graph is counted by a naive edgeExists triple loop, by the word level rows intersection of
+ * {@link NeighborsMatrixGraph} (single threaded and parallel) and by JGraphT's GraphMetrics. Prints the average, STD
+ * and 5%, 50%, 95% percentiles of the counting time in seconds for each of them.
+ */
+public class TrianglesBenchmarking {
+
+  private static final double NANOS = 1E9;
+  private static final int STATISTICS_WINDOW_SIZE = 8192;
+  private static final long SEED = 0;
+
+  public static void main(String... args) {
+    try {
+      int numberOfVertices = Integer.parseInt(args[0]);
+      double loadFactor = Double.parseDouble(args[1]);
+      int numberOfBenchmarkingCycles = Integer.parseInt(args[2]);
+      int numberOfWarmupCycles = Integer.parseInt(args[3]);
+      int parallelism = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+      NeighborsMatrixGraph graph =
+          NeighborsMatrixGraph.createRandomGraph(SEED, numberOfVertices, loadFactor, parallelism);
+      JGraphSimpleGraphImpl jGraph =
+          JGraphSimpleGraphImpl.createRandomGraph(SEED, numberOfVertices, loadFactor, parallelism);
+      System.out.println("Graph has " + graph.countTriangles() + " triangles");
+      benchmark("Naive", graph, TrianglesBenchmarking::countTrianglesNaive, numberOfWarmupCycles,
+                numberOfBenchmarkingCycles);
+      benchmark("Neighbors matrix", graph, NeighborsMatrixGraph::countTriangles, numberOfWarmupCycles,
+                numberOfBenchmarkingCycles);
+      benchmark("Neighbors matrix parallel", graph, matrixGraph -> matrixGraph.countTriangles(parallelism),
+                numberOfWarmupCycles, numberOfBenchmarkingCycles);
+      benchmark("JGraph", jGraph, JGraphSimpleGraphImpl::countTriangles, numberOfWarmupCycles,
+                numberOfBenchmarkingCycles);
+    } catch (Exception e) {
+      e.printStackTrace();
+      printUsage();
+    }
+  }
+
+  private static <G> void benchmark(String name, G graph, ToLongFunction<G> triangleCounter, int numberOfWarmupCycles,
+                                    int numberOfBenchmarkingCycles) {
+    for (int cycle = 1; cycle <= numberOfWarmupCycles; cycle++) {
+      System.out.print("\r" + name + " warmup cycle " + cycle + "...");
+      triangleCounter.applyAsLong(graph);
+    }
+    DescriptiveStatistics statistics = new DescriptiveStatistics(STATISTICS_WINDOW_SIZE);
+    long triangles = 0;
+    for (int cycle = 1; cycle <= numberOfBenchmarkingCycles; cycle++) {
+      System.gc(); //Cleanup
+      System.out.print("\r" + name + " benchmarking cycle " + cycle + "...");
+      Stopwatch stopwatch = Stopwatch.createStarted();
+      triangles = triangleCounter.applyAsLong(graph);
+      stopwatch.stop();
+      statistics.addValue(stopwatch.elapsed(TimeUnit.NANOSECONDS) / NANOS);
+    }
+    System.out.println();
+    System.out.println(name + " triangles: " + triangles);
+    printStatistics(name, statistics);
+  }
+
+  private static long countTrianglesNaive(NeighborsMatrixGraph graph) {
+    int numberOfVertices = graph.vertexSet().size();
+    long triangles = 0;
+    for (int v1 = 0; v1 < numberOfVertices; v1++) {
+      for (int v2 = 0; v2 < v1; v2++) {
+        if (!graph.edgeExists(v1, v2)) {
+          continue;
+        }
+        for (int v3 = 0; v3 < v2; v3++) {
+          if (graph.edgeExists(v1, v3) && graph.edgeExists(v2, v3)) {
+            triangles++;
+          }
+        }
+      }
+    }
+    return triangles;
+  }
+
+  private static void printStatistics(String name, DescriptiveStatistics statistics) {
+    double average = statistics.getMean();
+    double std = Math.sqrt(statistics.getVariance());
+    System.out.println(name + " average time: " + average);
+    System.out.println(name + " std time: " + std);
+    System.out.println(name + " std time (percent) : " + std / average * 100.0 + "%");
+    System.out.println(name + " 5 percentile time: " + statistics.getPercentile(5));
+    System.out.println(name + " 50 percentile time: " + statistics.getPercentile(50));
+    System.out.println(name + " 95 percentile time: " + statistics.getPercentile(95));
+  }
+
+  private static void printUsage() {
+    System.err.println(
+        "Command line arguments usage: <number of vertices> <load factor> <number of benchmarking cycles> <number of warmup cycles> [parallelism]");
+  }
+}
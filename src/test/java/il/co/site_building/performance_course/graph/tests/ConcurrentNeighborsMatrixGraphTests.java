@@ -0,0 +1,74 @@
+package il.co.site_building.performance_course.graph.tests;
+
+import il.co.site_building.performance_course.graph.ConcurrentNeighborsMatrixGraph;
+import il.co.site_building.performance_course.graph.NeighborsMatrixGraph;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ConcurrentNeighborsMatrixGraphTests {
+
+  @Test
+  public void testCapacity() {
+    ConcurrentNeighborsMatrixGraph graph = new ConcurrentNeighborsMatrixGraph(100, 10);
+    Assertions.assertTrue(graph.vertexExists(9));
+    Assertions.assertFalse(graph.vertexExists(10));
+    graph.addVertex(99);
+    graph.addEdge(99, 0);
+    Assertions.assertTrue(graph.edgeExists(0, 99));
+    Assertions.assertThrows(IllegalArgumentException.class, () -> graph.addVertex(100));
+    Assertions.assertFalse(graph.vertexExists(100));
+    graph.removeEdge(0, 99);
+    Assertions.assertFalse(graph.edgeExists(99, 0));
+    Assertions.assertEquals(11, graph.labelConnectedComponents().numberOfComponents());
+  }
+
+  @Test
+  public void testConcurrentInsertion() throws Exception {
+    int numberOfVertices = 500;
+    int threads = 4;
+    NeighborsMatrixGraph expected = NeighborsMatrixGraph.createRandomGraph(1L, numberOfVertices, 0.05, 1);
+    ConcurrentNeighborsMatrixGraph graph = new ConcurrentNeighborsMatrixGraph(numberOfVertices);
+    ExecutorService executorService = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int thread = 0; thread < threads; thread++) {
+        int firstVertex = thread;
+        futures.add(executorService.submit(() -> {
+          //Each thread adds its vertices, and the edges to all lower vertices, so words are shared between threads
+          for (int vertex = firstVertex; vertex < numberOfVertices; vertex += threads) {
+            graph.addVertex(vertex);
+          }
+          for (int vertex = firstVertex; vertex < numberOfVertices; vertex += threads) {
+            int row = vertex;
+            expected.forEachNeighbor(row, neighbor -> {
+              while (!graph.vertexExists(neighbor)) {
+                Thread.onSpinWait(); //Waiting for the thread which adds the neighbor
+              }
+              graph.addEdge(row, neighbor);
+            });
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executorService.shutdown();
+    }
+    for (int vertex = 0; vertex < numberOfVertices; vertex++) {
+      Assertions.assertEquals(expected.degree(vertex), graph.degree(vertex));
+      for (int neighbor = 0; neighbor < numberOfVertices; neighbor++) {
+        Assertions.assertEquals(expected.edgeExists(vertex, neighbor), graph.edgeExists(vertex, neighbor));
+      }
+    }
+    Assertions.assertEquals(expected.labelConnectedComponents().numberOfComponents(),
+                            graph.labelConnectedComponents().numberOfComponents());
+  }
+}
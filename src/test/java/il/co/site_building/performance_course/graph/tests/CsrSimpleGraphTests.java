@@ -0,0 +1,102 @@
+package il.co.site_building.performance_course.graph.tests;
+
+import il.co.site_building.performance_course.graph.CsrSimpleGraph;
+import il.co.site_building.performance_course.graph.JGraphSimpleGraphImpl;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class CsrSimpleGraphTests {
+
+  @Test
+  public void testEmptyGraph() {
+    CsrSimpleGraph graph = new CsrSimpleGraph();
+    Assertions.assertFalse(graph.edgeExists(0, 2));
+    Assertions.assertFalse(graph.edgeExists(1000, 2));
+    Assertions.assertFalse(graph.vertexExists(0));
+    Assertions.assertFalse(graph.vertexExists(1000));
+    Assertions.assertTrue(graph.vertexSet().isEmpty());
+    Assertions.assertTrue(graph.createConnectedComponents().isEmpty());
+  }
+
+  @Test
+  public void testAddRemoveVertex() {
+    CsrSimpleGraph graph = new CsrSimpleGraph(70);
+    graph.addVertex(1000);
+    graph.removeVertex(30);
+    graph.removeVertex(2000);
+    Assertions.assertTrue(graph.vertexExists(0));
+    Assertions.assertFalse(graph.vertexExists(30));
+    Assertions.assertTrue(graph.vertexExists(69));
+    Assertions.assertFalse(graph.vertexExists(70));
+    Assertions.assertTrue(graph.vertexExists(1000));
+    Assertions.assertEquals(70, graph.vertexSet().size());
+    Assertions.assertTrue(graph.vertexSet().contains(1000));
+    Assertions.assertFalse(graph.vertexSet().contains(30));
+  }
+
+  @Test
+  public void testAddRemoveEdge() {
+    CsrSimpleGraph graph = new CsrSimpleGraph(130);
+    graph.addEdge(0, 1);
+    graph.addEdge(2, 1);
+    graph.addEdge(1, 2);
+    graph.addEdge(129, 1);
+    graph.addEdge(150, 1000);
+    Assertions.assertTrue(graph.edgeExists(0, 0));
+    Assertions.assertTrue(graph.edgeExists(1, 0));
+    Assertions.assertTrue(graph.edgeExists(1, 2));
+    Assertions.assertTrue(graph.edgeExists(1, 129));
+    Assertions.assertFalse(graph.edgeExists(150, 1000));
+    Assertions.assertFalse(graph.edgeExists(0, 129));
+    graph.addEdge(80, 90);
+    graph.removeEdge(2, 1);
+    Assertions.assertFalse(graph.edgeExists(1, 2));
+    Assertions.assertTrue(graph.edgeExists(90, 80));
+    graph.removeVertex(129);
+    graph.addVertex(129);
+    Assertions.assertFalse(graph.edgeExists(1, 129));
+  }
+
+  @Test
+  public void testRandomGraphs() {
+    Random jGraphRandom = new Random(0);
+    Random csrRandom = new Random(0);
+    int numberOfVertices = 500;
+    double loadFactor = 0.003;
+    JGraphSimpleGraphImpl jGraphSimpleGraph =
+        JGraphSimpleGraphImpl.createRandomGraph(jGraphRandom, numberOfVertices, loadFactor);
+    CsrSimpleGraph csrGraph = CsrSimpleGraph.createRandomGraph(csrRandom, numberOfVertices, loadFactor);
+    Assertions.assertEquals(jGraphSimpleGraph.vertexSet(), csrGraph.vertexSet());
+    for (int vertex = 0; vertex < numberOfVertices; vertex++) {
+      for (int neighbor = 0; neighbor < numberOfVertices; neighbor++) {
+        Assertions.assertEquals(jGraphSimpleGraph.edgeExists(vertex, neighbor), csrGraph.edgeExists(vertex, neighbor));
+      }
+    }
+    Set<Set<Integer>> jGraphComponents = new HashSet<>();
+    jGraphSimpleGraph.createConnectedComponents().forEach(component -> jGraphComponents.add(component.vertexSet()));
+    Set<Set<Integer>> csrComponents = new HashSet<>();
+    csrGraph.createConnectedComponents().forEach(component -> csrComponents.add(component.vertexSet()));
+    Assertions.assertEquals(jGraphComponents, csrComponents);
+  }
+
+  @Test
+  public void testParallelConnectedComponents() {
+    int numberOfVertices = 3000;
+    double loadFactor = 0.0005;
+    CsrSimpleGraph graph = CsrSimpleGraph.createRandomGraph(new Random(0), numberOfVertices, loadFactor);
+    graph.removeVertex(17);
+    graph.removeVertex(2999);
+    Set<Set<Integer>> sequentialComponents = new HashSet<>();
+    graph.createConnectedComponents().forEach(component -> sequentialComponents.add(component.vertexSet()));
+    for (int parallelism = 1; parallelism <= 4; parallelism++) {
+      Set<Set<Integer>> parallelComponents = new HashSet<>();
+      graph.createConnectedComponents(parallelism).forEach(component -> parallelComponents.add(component.vertexSet()));
+      Assertions.assertEquals(sequentialComponents, parallelComponents);
+    }
+  }
+}
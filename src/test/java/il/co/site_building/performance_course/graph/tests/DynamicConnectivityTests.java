@@ -0,0 +1,78 @@
+package il.co.site_building.performance_course.graph.tests;
+
+import il.co.site_building.performance_course.graph.ConnectedComponentsLabels;
+import il.co.site_building.performance_course.graph.DynamicConnectivity;
+import il.co.site_building.performance_course.graph.DynamicConnectivityGraph;
+import il.co.site_building.performance_course.graph.JGraphSimpleGraphImpl;
+import il.co.site_building.performance_course.graph.NeighborsMatrixGraph;
+import il.co.site_building.performance_course.graph.SimpleGraph;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class DynamicConnectivityTests {
+
+  @Test
+  public void testReplacementEdges() {
+    DynamicConnectivity connectivity = new DynamicConnectivity();
+    //A cycle of 0..5, so every deleted cycle edge has a replacement
+    for (int vertex = 0; vertex < 6; vertex++) {
+      Assertions.assertTrue(connectivity.insertEdge(vertex, (vertex + 1) % 6));
+    }
+    Assertions.assertFalse(connectivity.insertEdge(1, 0));
+    Assertions.assertFalse(connectivity.insertEdge(3, 3));
+    connectivity.insertEdge(7, 8);
+    Assertions.assertEquals(6, connectivity.componentSize(2));
+    Assertions.assertEquals(1, connectivity.componentSize(6));
+    Assertions.assertTrue(connectivity.connected(0, 3));
+    Assertions.assertFalse(connectivity.connected(0, 7));
+    Assertions.assertTrue(connectivity.deleteEdge(2, 3));
+    Assertions.assertFalse(connectivity.deleteEdge(2, 3));
+    Assertions.assertTrue(connectivity.connected(2, 3)); //Through the other side of the cycle
+    Assertions.assertTrue(connectivity.deleteEdge(5, 0));
+    Assertions.assertFalse(connectivity.connected(2, 3));
+    Assertions.assertTrue(connectivity.connected(0, 2));
+    Assertions.assertTrue(connectivity.connected(3, 5));
+    Assertions.assertEquals(3, connectivity.componentSize(4));
+    connectivity.insertEdge(5, 7);
+    Assertions.assertTrue(connectivity.connected(3, 8));
+    Assertions.assertEquals(6, connectivity.numberOfEdges());
+  }
+
+  @Test
+  public void testRandomModifications() {
+    int numberOfVertices = 120;
+    for (SimpleGraph graph : new SimpleGraph[]{new NeighborsMatrixGraph(numberOfVertices),
+                                               new JGraphSimpleGraphImpl(numberOfVertices)}) {
+      graph.randomizeEdges(new Random(5), numberOfVertices, 0.01);
+      DynamicConnectivityGraph dynamicGraph = new DynamicConnectivityGraph(graph);
+      Random random = new Random(3);
+      for (int step = 0; step < 5000; step++) {
+        int v1 = random.nextInt(numberOfVertices);
+        int v2 = random.nextInt(numberOfVertices);
+        int operation = random.nextInt(20);
+        if (operation < 9) {
+          if (dynamicGraph.vertexExists(v1) && dynamicGraph.vertexExists(v2)) {
+            dynamicGraph.addEdge(v1, v2);
+          }
+        } else if (operation < 17) {
+          dynamicGraph.removeEdge(v1, v2);
+        } else if (operation < 18) {
+          dynamicGraph.removeVertex(v1);
+        } else {
+          dynamicGraph.addVertex(v1);
+        }
+        if (step % 10 == 0) {
+          ConnectedComponentsLabels labels = graph.labelConnectedComponents();
+          for (int query = 0; query < 20; query++) {
+            int u = random.nextInt(numberOfVertices);
+            int v = random.nextInt(numberOfVertices);
+            Assertions.assertEquals(labels.sameComponent(u, v), dynamicGraph.connected(u, v));
+          }
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,105 @@
+package il.co.site_building.performance_course.graph.tests;
+
+import il.co.site_building.performance_course.graph.CsrSimpleGraph;
+import il.co.site_building.performance_course.graph.EdgeListLoader;
+import il.co.site_building.performance_course.graph.NeighborsMatrixGraph;
+import il.co.site_building.performance_course.graph.UndirectedWeightedNeighborsMatrixGraph;
+import il.co.site_building.performance_course.graph.UndirectedWeightedNeighborsMatrixGraphImpl;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.apache.commons.csv.CSVFormat;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class EdgeListLoaderTests {
+
+  @TempDir
+  Path directory;
+
+  @Test
+  public void testCsv() throws IOException {
+    Path path = directory.resolve("edges.csv");
+    Files.writeString(path, "source,target\r\n# A comment\n0,1\r\n 1 , 70 \n\n5,3");
+    NeighborsMatrixGraph graph = new NeighborsMatrixGraph();
+    CSVFormat format = CSVFormat.DEFAULT.builder().setCommentMarker('#').setSkipHeaderRecord(true).build();
+    EdgeListLoader.LoadStatistics statistics = new EdgeListLoader().loadCsv(path, format, graph);
+    Assertions.assertEquals(3, statistics.numberOfEdges());
+    Assertions.assertEquals(Files.size(path), statistics.numberOfBytes());
+    Assertions.assertTrue(graph.edgeExists(1, 0));
+    Assertions.assertTrue(graph.edgeExists(70, 1));
+    Assertions.assertTrue(graph.edgeExists(3, 5));
+    Assertions.assertFalse(graph.edgeExists(0, 70));
+    Assertions.assertFalse(graph.vertexExists(2));
+  }
+
+  @Test
+  public void testWeightedCsv() throws IOException {
+    Path path = directory.resolve("weighted.tsv");
+    Files.writeString(path, "0\t1\t2.5\n1\t2\n2\t3\t0.125\n");
+    UndirectedWeightedNeighborsMatrixGraph graph = new UndirectedWeightedNeighborsMatrixGraphImpl();
+    new EdgeListLoader().loadCsv(path, CSVFormat.TDF, graph);
+    Assertions.assertEquals(2.5, graph.getEdgeWeight(1, 0));
+    Assertions.assertEquals(EdgeListLoader.DEFAULT_WEIGHT, graph.getEdgeWeight(1, 2));
+    Assertions.assertEquals(0.125, graph.getEdgeWeight(2, 3));
+  }
+
+  @Test
+  public void testInvalidCsv() throws IOException {
+    Path path = directory.resolve("invalid.csv");
+    Files.writeString(path, "0,1\n2\n");
+    Assertions.assertThrows(IOException.class,
+                            () -> new EdgeListLoader().loadCsv(path, CSVFormat.DEFAULT, new NeighborsMatrixGraph()));
+    Files.writeString(path, "0,x\n");
+    Assertions.assertThrows(IOException.class,
+                            () -> new EdgeListLoader().loadCsv(path, CSVFormat.DEFAULT, new NeighborsMatrixGraph()));
+  }
+
+  @Test
+  public void testRandomGraphWithSmallBuffers() throws IOException {
+    int numberOfVertices = 200;
+    NeighborsMatrixGraph expected = NeighborsMatrixGraph.createRandomGraph(new Random(0), numberOfVertices, 0.05);
+    StringBuilder text = new StringBuilder();
+    ByteBuffer binary = ByteBuffer.allocate(numberOfVertices * numberOfVertices * 2 * Integer.BYTES)
+                                  .order(ByteOrder.LITTLE_ENDIAN);
+    for (int vertex = 0; vertex < numberOfVertices; vertex++) {
+      for (int neighbor = 0; neighbor < vertex; neighbor++) {
+        if (expected.edgeExists(vertex, neighbor)) {
+          text.append(vertex).append(',').append(neighbor).append('\n');
+          binary.putInt(vertex).putInt(neighbor);
+        }
+      }
+    }
+    Path csvPath = directory.resolve("random.csv");
+    Files.writeString(csvPath, text);
+    Path binaryPath = directory.resolve("random.bin");
+    Files.write(binaryPath, Arrays.copyOf(binary.array(), binary.position()));
+    EdgeListLoader loader = new EdgeListLoader(13, 7); //Values and edges cross the buffer boundaries
+    NeighborsMatrixGraph csvGraph = new NeighborsMatrixGraph();
+    loader.loadCsv(csvPath, CSVFormat.DEFAULT, csvGraph);
+    CsrSimpleGraph binaryGraph = new CsrSimpleGraph();
+    EdgeListLoader.LoadStatistics statistics = loader.loadBinary(binaryPath, binaryGraph);
+    Assertions.assertEquals(binary.position() / (2 * Integer.BYTES), statistics.numberOfEdges());
+    for (int vertex = 0; vertex < numberOfVertices; vertex++) {
+      for (int neighbor = 0; neighbor < vertex; neighbor++) {
+        Assertions.assertEquals(expected.edgeExists(vertex, neighbor), csvGraph.edgeExists(vertex, neighbor));
+        Assertions.assertEquals(expected.edgeExists(vertex, neighbor), binaryGraph.edgeExists(vertex, neighbor));
+      }
+    }
+  }
+
+  @Test
+  public void testTruncatedBinary() throws IOException {
+    Path path = directory.resolve("truncated.bin");
+    Files.write(path, new byte[12]);
+    Assertions.assertThrows(IOException.class,
+                            () -> new EdgeListLoader().loadBinary(path, new NeighborsMatrixGraph()));
+  }
+}
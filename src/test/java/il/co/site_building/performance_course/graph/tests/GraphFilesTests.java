@@ -0,0 +1,95 @@
+package il.co.site_building.performance_course.graph.tests;
+
+import il.co.site_building.performance_course.graph.CsrSimpleGraph;
+import il.co.site_building.performance_course.graph.GraphFiles;
+import il.co.site_building.performance_course.graph.MappedSimpleGraph;
+import il.co.site_building.performance_course.graph.NeighborsMatrixGraph;
+import il.co.site_building.performance_course.graph.SimpleGraph;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class GraphFilesTests {
+
+  @TempDir
+  Path directory;
+
+  @Test
+  public void testNeighborsMatrixRoundTrip() throws IOException {
+    int numberOfVertices = 300;
+    NeighborsMatrixGraph graph = NeighborsMatrixGraph.createRandomGraph(new Random(0), numberOfVertices, 0.004);
+    graph.removeVertex(17);
+    Path path = directory.resolve("matrix.graph");
+    GraphFiles.write(graph, path);
+    try (MappedSimpleGraph mappedGraph = GraphFiles.open(path)) {
+      assertSameGraphs(graph, mappedGraph, numberOfVertices);
+    }
+  }
+
+  @Test
+  public void testCsrRoundTrip() throws IOException {
+    int numberOfVertices = 300;
+    CsrSimpleGraph graph = CsrSimpleGraph.createRandomGraph(new Random(0), numberOfVertices, 0.004);
+    graph.removeVertex(17);
+    Path path = directory.resolve("csr.graph");
+    GraphFiles.write(graph, path);
+    try (MappedSimpleGraph mappedGraph = GraphFiles.open(path)) {
+      assertSameGraphs(graph, mappedGraph, numberOfVertices);
+    }
+  }
+
+  @Test
+  public void testEmptyGraph() throws IOException {
+    Path path = directory.resolve("empty.graph");
+    GraphFiles.write(new NeighborsMatrixGraph(), path);
+    try (MappedSimpleGraph mappedGraph = GraphFiles.open(path)) {
+      Assertions.assertTrue(mappedGraph.vertexSet().isEmpty());
+      Assertions.assertEquals(0, mappedGraph.labelConnectedComponents().numberOfComponents());
+    }
+  }
+
+  @Test
+  public void testReadOnly() throws IOException {
+    Path path = directory.resolve("read_only.graph");
+    GraphFiles.write(new CsrSimpleGraph(10), path);
+    try (MappedSimpleGraph mappedGraph = GraphFiles.open(path)) {
+      Assertions.assertThrows(UnsupportedOperationException.class, () -> mappedGraph.addVertex(11));
+      Assertions.assertThrows(UnsupportedOperationException.class, () -> mappedGraph.addEdge(0, 1));
+      Assertions.assertThrows(UnsupportedOperationException.class, () -> mappedGraph.removeVertex(0));
+    }
+  }
+
+  @Test
+  public void testInvalidFile() throws IOException {
+    Path path = directory.resolve("invalid.graph");
+    Files.write(path, new byte[64]);
+    Assertions.assertThrows(IOException.class, () -> GraphFiles.open(path));
+  }
+
+  private static void assertSameGraphs(SimpleGraph expected, MappedSimpleGraph actual, int numberOfVertices) {
+    Assertions.assertEquals(expected.vertexSet(), actual.vertexSet());
+    long numberOfEdges = 0;
+    for (int vertex = 0; vertex < numberOfVertices; vertex++) {
+      for (int neighbor = 0; neighbor < numberOfVertices; neighbor++) {
+        Assertions.assertEquals(expected.edgeExists(vertex, neighbor), actual.edgeExists(vertex, neighbor));
+        if (neighbor < vertex && expected.edgeExists(vertex, neighbor)) {
+          numberOfEdges++;
+        }
+      }
+    }
+    Assertions.assertEquals(numberOfEdges, actual.numberOfEdges());
+    Set<Set<Integer>> expectedComponents = new HashSet<>();
+    expected.createConnectedComponents().forEach(component -> expectedComponents.add(component.vertexSet()));
+    Set<Set<Integer>> actualComponents = new HashSet<>();
+    actual.createConnectedComponents().forEach(component -> actualComponents.add(component.vertexSet()));
+    Assertions.assertEquals(expectedComponents, actualComponents);
+  }
+}
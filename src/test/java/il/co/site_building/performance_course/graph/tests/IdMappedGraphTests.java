@@ -0,0 +1,83 @@
+package il.co.site_building.performance_course.graph.tests;
+
+import il.co.site_building.performance_course.graph.IdMappedSimpleGraph;
+import il.co.site_building.performance_course.graph.IdMappedWeightedGraph;
+import il.co.site_building.performance_course.graph.VertexIdMap;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class IdMappedGraphTests {
+
+  @Test
+  public void testVertexIdMap() {
+    VertexIdMap idMap = new VertexIdMap(1);
+    for (int id = 0; id < 100; id++) {
+      Assertions.assertEquals(id, idMap.add(id * 1_000_000_007L));
+    }
+    Assertions.assertEquals(5, idMap.add(5 * 1_000_000_007L));
+    Assertions.assertEquals(7, idMap.remove(7 * 1_000_000_007L));
+    Assertions.assertEquals(VertexIdMap.NO_INDEX, idMap.remove(7 * 1_000_000_007L));
+    Assertions.assertEquals(VertexIdMap.NO_INDEX, idMap.indexOf(7 * 1_000_000_007L));
+    Assertions.assertEquals(7, idMap.add(-1L)); //Reusing the removed index
+    Assertions.assertEquals(-1L, idMap.idOf(7));
+    Assertions.assertEquals(100, idMap.size());
+    Assertions.assertEquals(100, idMap.getIndexBound());
+  }
+
+  @Test
+  public void testSparseIds() {
+    IdMappedSimpleGraph graph = new IdMappedSimpleGraph();
+    long hugeId = 1_000_000_000_000L;
+    graph.addVertex(hugeId);
+    graph.addVertex(-5);
+    graph.addVertex(Long.MAX_VALUE);
+    graph.addVertex(42);
+    graph.addEdge(hugeId, -5);
+    graph.addEdge(-5, Long.MAX_VALUE);
+    graph.addEdge(42, 43); //43 doesn't exist
+    Assertions.assertTrue(graph.edgeExists(Long.MAX_VALUE, -5));
+    Assertions.assertFalse(graph.edgeExists(hugeId, Long.MAX_VALUE));
+    Assertions.assertEquals(2, graph.degree(-5));
+    Set<Long> neighbors = new HashSet<>();
+    graph.forEachNeighbor(-5, neighbors::add);
+    Assertions.assertEquals(Set.of(hugeId, Long.MAX_VALUE), neighbors);
+    List<long[]> components = graph.connectedComponents();
+    Set<Set<Long>> componentSets = new HashSet<>();
+    for (long[] component : components) {
+      componentSets.add(new HashSet<>(Arrays.asList(Arrays.stream(component).boxed().toArray(Long[]::new))));
+    }
+    Assertions.assertEquals(Set.of(Set.of(hugeId, -5L, Long.MAX_VALUE), Set.of(42L)), componentSets);
+    graph.removeVertex(-5);
+    graph.addVertex(7); //Reusing the index of -5, without its edges
+    Assertions.assertFalse(graph.vertexExists(-5));
+    Assertions.assertEquals(0, graph.degree(7));
+    Assertions.assertFalse(graph.edgeExists(7, hugeId));
+    Assertions.assertEquals(4, graph.numberOfVertices());
+  }
+
+  @Test
+  public void testWeightedSparseIds() {
+    IdMappedWeightedGraph graph = new IdMappedWeightedGraph();
+    graph.addVertex(3_000_000_000L);
+    graph.addVertex(-1);
+    graph.addVertex(99);
+    graph.setEdge(3_000_000_000L, -1, 2.0);
+    graph.setEdge(-1, 99, 3.0);
+    graph.setEdge(3_000_000_000L, 99, 10.0);
+    IdMappedWeightedGraph.IdPathResult pathResult = graph.findShortestPath(3_000_000_000L, 99);
+    Assertions.assertEquals(5.0, pathResult.distance());
+    Assertions.assertArrayEquals(new long[]{99, -1, 3_000_000_000L}, pathResult.path());
+    Assertions.assertEquals(Double.NaN, graph.getEdgeWeight(1, 99));
+    graph.removeVertex(-1);
+    graph.addVertex(1); //Reusing the index of -1, without its edges
+    Assertions.assertFalse(graph.containsEdge(1, 99));
+    Assertions.assertEquals(10.0, graph.findShortestPath(99, 3_000_000_000L).distance());
+    Assertions.assertEquals(Double.POSITIVE_INFINITY, graph.findShortestPath(99, 12345).distance());
+  }
+}
@@ -1,9 +1,21 @@
 package il.co.site_building.performance_course.graph.tests;
 
+import il.co.site_building.performance_course.graph.ConnectedComponentsLabels;
 import il.co.site_building.performance_course.graph.JGraphSimpleGraphImpl;
+import il.co.site_building.performance_course.graph.NeighborsMatrixComponentView;
 import il.co.site_building.performance_course.graph.NeighborsMatrixGraph;
+import il.co.site_building.performance_course.graph.SimpleGraph;
 
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -169,4 +181,511 @@ public class NeighborsMatrixGraphTests {
         NeighborsMatrixGraph.createRandomGraph(neighborMatrixRandom, numberOfVertices, loadFactor);
     Assertions.assertTrue(neighborsMatrixGraph.equalsJGraphImpl(jGraphSimpleGraph));
   }
+
+  @Test
+  public void testRandomGraphsNeighborsIteration() {
+    int numberOfVertices = 300;
+    double loadFactor = 0.05;
+    JGraphSimpleGraphImpl jGraphSimpleGraph =
+        JGraphSimpleGraphImpl.createRandomGraph(new Random(0), numberOfVertices, loadFactor);
+    NeighborsMatrixGraph neighborsMatrixGraph =
+        NeighborsMatrixGraph.createRandomGraph(new Random(0), numberOfVertices, loadFactor);
+    neighborsMatrixGraph.removeVertex(7);
+    jGraphSimpleGraph.removeVertex(7);
+    Assertions.assertArrayEquals(jGraphSimpleGraph.vertices().sorted().toArray(),
+                                 neighborsMatrixGraph.vertices().toArray());
+    neighborsMatrixGraph.forEachVertex(vertex -> {
+      Set<Integer> neighbors = new HashSet<>();
+      neighborsMatrixGraph.forEachNeighbor(vertex, neighbors::add);
+      Set<Integer> jGraphNeighbors = new HashSet<>();
+      jGraphSimpleGraph.forEachNeighbor(vertex, jGraphNeighbors::add);
+      Assertions.assertEquals(jGraphNeighbors, neighbors);
+      Assertions.assertEquals(neighbors.size(), neighborsMatrixGraph.degree(vertex));
+      Assertions.assertEquals(neighbors.size(), jGraphSimpleGraph.degree(vertex));
+      Assertions.assertFalse(neighbors.contains(vertex));
+    });
+    Assertions.assertEquals(0, neighborsMatrixGraph.degree(7));
+    Assertions.assertTrue(neighborsMatrixGraph.equalsJGraphImpl(jGraphSimpleGraph));
+  }
+
+  @Test
+  public void testConnectedComponents() {
+    NeighborsMatrixGraph graph = new NeighborsMatrixGraph(130);
+    graph.addEdge(0, 1);
+    graph.addEdge(1, 129);
+    graph.addEdge(64, 65);
+    graph.addEdge(65, 3);
+    graph.removeVertex(100);
+    Collection<SimpleGraph> connectedComponents = graph.createConnectedComponents();
+    Assertions.assertEquals(125, connectedComponents.size());
+    Set<Set<Integer>> componentsVertices = new HashSet<>();
+    for (SimpleGraph connectedComponent : connectedComponents) {
+      componentsVertices.add(connectedComponent.vertexSet());
+    }
+    Assertions.assertTrue(componentsVertices.contains(Set.of(0, 1, 129)));
+    Assertions.assertTrue(componentsVertices.contains(Set.of(3, 64, 65)));
+    Assertions.assertFalse(componentsVertices.contains(Set.of(100)));
+    for (SimpleGraph connectedComponent : connectedComponents) {
+      if (connectedComponent.vertexExists(129)) {
+        Assertions.assertTrue(connectedComponent.edgeExists(129, 1));
+        Assertions.assertTrue(connectedComponent.edgeExists(0, 1));
+        Assertions.assertFalse(connectedComponent.edgeExists(0, 129));
+      }
+    }
+  }
+
+  @Test
+  public void testRandomGraphsConnectedComponents() {
+    Random jGraphRandom = new Random(0);
+    Random neighborMatrixRandom = new Random(0);
+    int numberOfVertices = 500;
+    double loadFactor = 0.003;
+    JGraphSimpleGraphImpl jGraphSimpleGraph =
+        JGraphSimpleGraphImpl.createRandomGraph(jGraphRandom, numberOfVertices, loadFactor);
+    NeighborsMatrixGraph neighborsMatrixGraph =
+        NeighborsMatrixGraph.createRandomGraph(neighborMatrixRandom, numberOfVertices, loadFactor);
+    Set<Set<Integer>> jGraphComponents = new HashSet<>();
+    jGraphSimpleGraph.createConnectedComponents().forEach(component -> jGraphComponents.add(component.vertexSet()));
+    Set<Set<Integer>> neighborsMatrixComponents = new HashSet<>();
+    neighborsMatrixGraph.createConnectedComponents()
+                        .forEach(component -> neighborsMatrixComponents.add(component.vertexSet()));
+    Assertions.assertTrue(jGraphComponents.size() > 1);
+    Assertions.assertEquals(jGraphComponents, neighborsMatrixComponents);
+  }
+
+  @Test
+  public void testConnectedComponentViews() {
+    NeighborsMatrixGraph graph = NeighborsMatrixGraph.createRandomGraph(new Random(2), 300, 0.004);
+    graph.addEdge(7, 7);
+    graph.removeVertex(100);
+    List<NeighborsMatrixComponentView> views = graph.createConnectedComponentViews();
+    Collection<SimpleGraph> copies = graph.createConnectedComponents();
+    Assertions.assertEquals(copies.size(), views.size());
+    Assertions.assertEquals(copies.size(), graph.createConnectedComponentViews(3).size());
+    Set<NeighborsMatrixGraph> materializedCopies = new HashSet<>();
+    copies.forEach(copy -> materializedCopies.add((NeighborsMatrixGraph) copy));
+    int numberOfVertices = 0;
+    for (NeighborsMatrixComponentView view : views) {
+      NeighborsMatrixGraph materialized = view.materialize();
+      Assertions.assertTrue(materializedCopies.contains(materialized));
+      Assertions.assertEquals(materialized.vertexSet(), view.vertexSet());
+      Assertions.assertEquals(view.numberOfVertices(), view.vertices().count());
+      view.forEachVertex(vertex -> {
+        Assertions.assertEquals(graph.degree(vertex), view.degree(vertex));
+        Set<Integer> neighbors = new HashSet<>();
+        view.forEachNeighbor(vertex, neighbors::add);
+        Set<Integer> graphNeighbors = new HashSet<>();
+        graph.forEachNeighbor(vertex, graphNeighbors::add);
+        Assertions.assertEquals(graphNeighbors, neighbors);
+      });
+      Assertions.assertEquals(1, view.labelConnectedComponents().numberOfComponents());
+      numberOfVertices += view.numberOfVertices();
+    }
+    Assertions.assertEquals(299, numberOfVertices);
+    NeighborsMatrixComponentView view = views.get(0);
+    Assertions.assertThrows(UnsupportedOperationException.class, () -> view.addEdge(0, 1));
+    Assertions.assertThrows(UnsupportedOperationException.class, () -> view.removeVertex(0));
+    //The views keep seeing the graph as it was
+    int vertex = view.vertexIterator().nextInt();
+    int degree = view.degree(vertex);
+    graph.removeVertex(vertex == 0 ? 1 : 0);
+    graph.addEdge(vertex, 299);
+    Assertions.assertTrue(view.vertexExists(vertex));
+    Assertions.assertEquals(degree, view.degree(vertex));
+    Assertions.assertFalse(view.vertexExists(100));
+    Assertions.assertFalse(view.vertexExists(-1));
+  }
+
+  @Test
+  public void testConnectivityTracking() {
+    NeighborsMatrixGraph graph = new NeighborsMatrixGraph(130);
+    Assertions.assertEquals(130, graph.componentCount());
+    graph.addEdge(0, 1);
+    graph.addEdge(1, 129);
+    Assertions.assertTrue(graph.connected(0, 129));
+    Assertions.assertFalse(graph.connected(0, 2));
+    Assertions.assertEquals(128, graph.componentCount());
+    graph.removeEdge(1, 129);
+    Assertions.assertFalse(graph.connected(0, 129));
+    Assertions.assertEquals(129, graph.componentCount());
+    graph.removeVertex(1);
+    Assertions.assertFalse(graph.connected(0, 1));
+    Assertions.assertEquals(129, graph.componentCount());
+    graph.addVertex(1);
+    Assertions.assertTrue(graph.connected(0, 1));
+    graph.addVertex(200);
+    Assertions.assertEquals(130, graph.componentCount());
+    Assertions.assertFalse(graph.connected(0, 150));
+  }
+
+  @Test
+  public void testJGraphConnectivityTrackingWithNegativeVertices() {
+    JGraphSimpleGraphImpl graph = new JGraphSimpleGraphImpl();
+    graph.addVertex(-3);
+    graph.addVertex(-1);
+    graph.addVertex(Integer.MAX_VALUE);
+    Assertions.assertFalse(graph.connected(-3, -1)); //Starts the tracking
+    Assertions.assertEquals(3, graph.componentCount());
+    graph.addEdge(-3, -1);
+    graph.addVertex(-7);
+    graph.addEdge(-7, Integer.MAX_VALUE);
+    Assertions.assertTrue(graph.connected(-1, -3));
+    Assertions.assertTrue(graph.connected(-7, Integer.MAX_VALUE));
+    Assertions.assertFalse(graph.connected(-5, -5));
+    Assertions.assertEquals(2, graph.componentCount());
+    graph.removeEdge(-3, -1);
+    Assertions.assertFalse(graph.connected(-3, -1));
+    Assertions.assertEquals(3, graph.componentCount());
+    graph.addEdge(-1, Integer.MAX_VALUE);
+    Assertions.assertTrue(graph.connected(-1, -7));
+  }
+
+  @Test
+  public void testRandomConnectivityTracking() {
+    Random random = new Random(0);
+    int numberOfVertices = 200;
+    NeighborsMatrixGraph neighborsMatrixGraph = new NeighborsMatrixGraph(numberOfVertices);
+    JGraphSimpleGraphImpl jGraphSimpleGraph = new JGraphSimpleGraphImpl(numberOfVertices);
+    for (int operation = 0; operation < 2000; operation++) {
+      int v1 = random.nextInt(numberOfVertices);
+      int v2 = random.nextInt(numberOfVertices);
+      double lucky = random.nextDouble();
+      if (lucky < 0.85) {
+        neighborsMatrixGraph.addEdge(v1, v2);
+        if (jGraphSimpleGraph.vertexExists(v1) && jGraphSimpleGraph.vertexExists(v2)) {
+          jGraphSimpleGraph.addEdge(v1, v2);
+        }
+      } else if (lucky < 0.95) {
+        neighborsMatrixGraph.removeEdge(v1, v2);
+        jGraphSimpleGraph.removeEdge(v1, v2);
+      } else {
+        neighborsMatrixGraph.removeVertex(v1);
+        jGraphSimpleGraph.removeVertex(v1);
+      }
+      if (operation % 50 == 0) {
+        Collection<SimpleGraph> connectedComponents = jGraphSimpleGraph.createConnectedComponents();
+        Assertions.assertEquals(connectedComponents.size(), jGraphSimpleGraph.componentCount());
+        Assertions.assertEquals(connectedComponents.size(), neighborsMatrixGraph.componentCount());
+      }
+      Assertions.assertEquals(jGraphSimpleGraph.connected(v1, v2), neighborsMatrixGraph.connected(v1, v2));
+    }
+  }
+
+  @Test
+  public void testParallelConnectedComponents() {
+    int numberOfVertices = 3000;
+    double loadFactor = 0.0005;
+    NeighborsMatrixGraph graph = NeighborsMatrixGraph.createRandomGraph(new Random(0), numberOfVertices, loadFactor);
+    graph.removeVertex(17);
+    graph.removeVertex(2999);
+    Set<Set<Integer>> sequentialComponents = new HashSet<>();
+    graph.createConnectedComponents().forEach(component -> sequentialComponents.add(component.vertexSet()));
+    for (int parallelism = 1; parallelism <= 4; parallelism++) {
+      Set<Set<Integer>> parallelComponents = new HashSet<>();
+      graph.createConnectedComponents(parallelism).forEach(component -> parallelComponents.add(component.vertexSet()));
+      Assertions.assertEquals(sequentialComponents, parallelComponents);
+    }
+  }
+
+  @Test
+  public void testLabelConnectedComponents() {
+    NeighborsMatrixGraph graph = new NeighborsMatrixGraph(130);
+    graph.addEdge(0, 1);
+    graph.addEdge(1, 129);
+    graph.addEdge(64, 65);
+    graph.removeVertex(100);
+    ConnectedComponentsLabels labels = graph.labelConnectedComponents();
+    Assertions.assertEquals(126, labels.numberOfComponents());
+    Assertions.assertEquals(129, Arrays.stream(labels.componentSizes()).sum());
+    Assertions.assertEquals(3, labels.componentSizes()[labels.componentOf(129)]);
+    Assertions.assertTrue(labels.sameComponent(0, 129));
+    Assertions.assertTrue(labels.sameComponent(65, 64));
+    Assertions.assertFalse(labels.sameComponent(0, 64));
+    Assertions.assertFalse(labels.sameComponent(100, 100));
+    Assertions.assertEquals(ConnectedComponentsLabels.NO_COMPONENT, labels.componentOf(100));
+    Assertions.assertEquals(ConnectedComponentsLabels.NO_COMPONENT, labels.componentOf(1000));
+  }
+
+  @Test
+  public void testRandomGraphsLabelConnectedComponents() {
+    int numberOfVertices = 500;
+    double loadFactor = 0.003;
+    JGraphSimpleGraphImpl jGraphSimpleGraph =
+        JGraphSimpleGraphImpl.createRandomGraph(new Random(0), numberOfVertices, loadFactor);
+    NeighborsMatrixGraph neighborsMatrixGraph =
+        NeighborsMatrixGraph.createRandomGraph(new Random(0), numberOfVertices, loadFactor);
+    ConnectedComponentsLabels jGraphLabels = jGraphSimpleGraph.labelConnectedComponents();
+    ConnectedComponentsLabels neighborsMatrixLabels = neighborsMatrixGraph.labelConnectedComponents();
+    ConnectedComponentsLabels parallelLabels = neighborsMatrixGraph.labelConnectedComponents(2);
+    Assertions.assertEquals(jGraphLabels.numberOfComponents(), neighborsMatrixLabels.numberOfComponents());
+    Assertions.assertEquals(jGraphLabels.numberOfComponents(), parallelLabels.numberOfComponents());
+    for (int vertex = 0; vertex < numberOfVertices; vertex++) {
+      int neighbor = (vertex * 31) % numberOfVertices;
+      Assertions.assertEquals(jGraphLabels.sameComponent(vertex, neighbor),
+                              neighborsMatrixLabels.sameComponent(vertex, neighbor));
+      Assertions.assertEquals(jGraphLabels.sameComponent(vertex, neighbor),
+                              parallelLabels.sameComponent(vertex, neighbor));
+    }
+  }
+
+  @Test
+  public void testJGraphLabelsWithNegativeAndSparseVertices() {
+    JGraphSimpleGraphImpl graph = new JGraphSimpleGraphImpl();
+    for (int vertex : new int[]{-3, 5, 1_000_000_000, Integer.MIN_VALUE, 7}) {
+      graph.addVertex(vertex);
+    }
+    graph.addEdge(-3, 1_000_000_000);
+    graph.addEdge(5, 7);
+    ConnectedComponentsLabels labels = graph.labelConnectedComponents();
+    Assertions.assertEquals(3, labels.numberOfComponents());
+    Assertions.assertEquals(5, labels.labels().length);
+    Assertions.assertTrue(labels.sameComponent(-3, 1_000_000_000));
+    Assertions.assertTrue(labels.sameComponent(7, 5));
+    Assertions.assertFalse(labels.sameComponent(-3, 5));
+    Assertions.assertEquals(1, labels.componentSizes()[labels.componentOf(Integer.MIN_VALUE)]);
+    Assertions.assertEquals(ConnectedComponentsLabels.NO_COMPONENT, labels.componentOf(6));
+    Set<Set<Integer>> components = new HashSet<>();
+    graph.createConnectedComponents().forEach(component -> components.add(component.vertexSet()));
+    Assertions.assertEquals(Set.of(Set.of(-3, 1_000_000_000), Set.of(5, 7), Set.of(Integer.MIN_VALUE)), components);
+  }
+
+  @Test
+  public void testBfsLevels() {
+    NeighborsMatrixGraph graph = new NeighborsMatrixGraph(130);
+    graph.addEdge(0, 1);
+    graph.addEdge(1, 129);
+    graph.addEdge(129, 64);
+    graph.addEdge(0, 64);
+    graph.addEdge(64, 65);
+    graph.removeVertex(100);
+    int[] levels = graph.bfsLevels(0);
+    Assertions.assertEquals(0, levels[0]);
+    Assertions.assertEquals(1, levels[1]);
+    Assertions.assertEquals(1, levels[64]);
+    Assertions.assertEquals(2, levels[129]);
+    Assertions.assertEquals(2, levels[65]);
+    Assertions.assertEquals(NeighborsMatrixGraph.UNREACHABLE, levels[2]);
+    Assertions.assertEquals(NeighborsMatrixGraph.UNREACHABLE, levels[100]);
+    Assertions.assertEquals(NeighborsMatrixGraph.UNREACHABLE, graph.bfsLevels(100)[0]);
+  }
+
+  @Test
+  public void testRandomGraphsBfsLevels() {
+    int numberOfVertices = 300;
+    for (double loadFactor : new double[]{0.002, 0.01, 0.3}) {
+      NeighborsMatrixGraph graph = NeighborsMatrixGraph.createRandomGraph(new Random(0), numberOfVertices, loadFactor);
+      Assertions.assertArrayEquals(naiveBfsLevels(graph, 0, numberOfVertices), graph.bfsLevels(0));
+      ConnectedComponentsLabels dfsLabels = graph.labelConnectedComponents();
+      ConnectedComponentsLabels bfsLabels = graph.labelConnectedComponentsBfs();
+      Assertions.assertArrayEquals(dfsLabels.labels(), bfsLabels.labels());
+      Assertions.assertArrayEquals(dfsLabels.componentSizes(), bfsLabels.componentSizes());
+    }
+  }
+
+  @Test
+  public void testEqualsAndFingerprint() {
+    NeighborsMatrixGraph generated = NeighborsMatrixGraph.createRandomGraph(8L, 200, 0.05, 2);
+    JGraphSimpleGraphImpl jGraph = JGraphSimpleGraphImpl.createRandomGraph(8L, 200, 0.05, 2);
+    NeighborsMatrixGraph built = new NeighborsMatrixGraph();
+    for (int vertex = 199; vertex >= 0; vertex--) {
+      built.addVertex(vertex);
+    }
+    generated.forEachVertex(vertex -> generated.forEachNeighbor(vertex, neighbor -> built.addEdge(vertex, neighbor)));
+    Assertions.assertEquals(generated, built);
+    Assertions.assertEquals(generated.hashCode(), built.hashCode());
+    Assertions.assertEquals(generated.fingerprint(), built.fingerprint());
+    Assertions.assertEquals(jGraph.fingerprint(), built.fingerprint());
+    NeighborsMatrixGraph snapshot = built.snapshot();
+    built.addEdge(3, 3); //Self loops are ignored
+    built.addEdge(0, 1);
+    built.addEdge(0, 1);
+    Assertions.assertEquals(generated.edgeExists(0, 1), built.equals(generated));
+    built.removeEdge(0, 1);
+    Assertions.assertEquals(generated.edgeExists(0, 1) ? 1 : 0, built.diff(generated, (v1, v2, added) -> {}));
+    if (generated.edgeExists(0, 1)) {
+      built.addEdge(1, 0);
+    }
+    Assertions.assertEquals(generated, built);
+    built.removeVertex(150);
+    Assertions.assertNotEquals(generated.fingerprint(), built.fingerprint());
+    Assertions.assertNotEquals(generated, built);
+    built.addVertex(150); //The edges of the removed vertex are back
+    Assertions.assertEquals(generated.fingerprint(), built.fingerprint());
+    Assertions.assertEquals(generated, built);
+    Assertions.assertEquals(snapshot, built);
+    Assertions.assertNotEquals(new NeighborsMatrixGraph(5), new NeighborsMatrixGraph(6));
+    Assertions.assertNotEquals(null, new NeighborsMatrixGraph());
+    NeighborsMatrixGraph large = new NeighborsMatrixGraph(1000);
+    for (int vertex = 0; vertex < 1000; vertex++) {
+      large.removeVertex(vertex);
+    }
+    Assertions.assertEquals(new NeighborsMatrixGraph(), large); //The capacity is ignored
+  }
+
+  @Test
+  public void testDiff() {
+    NeighborsMatrixGraph graph = new NeighborsMatrixGraph(100);
+    graph.addEdge(1, 2);
+    graph.addEdge(70, 3);
+    graph.addEdge(99, 98);
+    NeighborsMatrixGraph other = new NeighborsMatrixGraph(130);
+    other.addEdge(1, 2);
+    other.addEdge(70, 4);
+    other.addEdge(128, 5);
+    other.removeVertex(99);
+    Set<String> changes = new HashSet<>();
+    long differences = graph.diff(other, (v1, v2, added) -> changes.add((added ? "+" : "-") + v1 + "-" + v2));
+    Assertions.assertEquals(Set.of("-70-3", "+70-4", "-99-98", "+128-5"), changes);
+    Assertions.assertEquals(4, differences);
+    Assertions.assertEquals(0, graph.diff(graph.snapshot(), (v1, v2, added) -> Assertions.fail()));
+  }
+
+  @Test
+  public void testSnapshot() {
+    NeighborsMatrixGraph graph = NeighborsMatrixGraph.createRandomGraph(new Random(1), 200, 0.01);
+    NeighborsMatrixGraph copy = NeighborsMatrixGraph.createRandomGraph(new Random(1), 200, 0.01);
+    NeighborsMatrixGraph snapshot = graph.snapshot();
+    Assertions.assertTrue(snapshot.isReadOnly());
+    Assertions.assertSame(snapshot, snapshot.snapshot());
+    Assertions.assertThrows(UnsupportedOperationException.class, () -> snapshot.addEdge(0, 1));
+    Assertions.assertThrows(UnsupportedOperationException.class, () -> snapshot.removeVertex(0));
+    Random random = new Random(2);
+    for (int edge = 0; edge < 500; edge++) {
+      graph.addEdge(random.nextInt(200), random.nextInt(200));
+      graph.removeEdge(random.nextInt(200), random.nextInt(200));
+    }
+    NeighborsMatrixGraph secondSnapshot = graph.snapshot();
+    graph.removeVertex(5);
+    graph.addVertex(300); //Growing the matrix
+    graph.addEdge(300, 0);
+    for (int vertex = 0; vertex < 200; vertex++) {
+      for (int neighbor = 0; neighbor < 200; neighbor++) {
+        Assertions.assertEquals(copy.edgeExists(vertex, neighbor), snapshot.edgeExists(vertex, neighbor));
+      }
+    }
+    Assertions.assertFalse(snapshot.vertexExists(300));
+    Assertions.assertTrue(secondSnapshot.vertexExists(5));
+    Assertions.assertFalse(secondSnapshot.vertexExists(300));
+    Assertions.assertTrue(graph.edgeExists(0, 300));
+    Assertions.assertArrayEquals(copy.labelConnectedComponents().labels(), snapshot.labelConnectedComponents().labels());
+    Assertions.assertEquals(copy.componentCount(), snapshot.componentCount());
+  }
+
+  @Test
+  public void testTriangles() {
+    NeighborsMatrixGraph graph = new NeighborsMatrixGraph(5);
+    graph.addEdge(0, 1);
+    graph.addEdge(1, 2);
+    graph.addEdge(2, 0);
+    graph.addEdge(2, 3);
+    graph.addEdge(2, 2); //Self loops aren't part of triangles
+    Assertions.assertEquals(1, graph.countTriangles());
+    Assertions.assertEquals(1.0, graph.localClusteringCoefficient(0));
+    Assertions.assertEquals(1.0 / 3.0, graph.localClusteringCoefficient(2), 1E-12);
+    Assertions.assertEquals(0.0, graph.localClusteringCoefficient(3));
+    Assertions.assertEquals(0.0, graph.localClusteringCoefficient(4));
+    Assertions.assertEquals(3.0 / 5.0, graph.globalClusteringCoefficient(), 1E-12);
+    graph.removeVertex(1);
+    Assertions.assertEquals(0, graph.countTriangles());
+  }
+
+  @Test
+  public void testRandomGraphsTriangles() {
+    int numberOfVertices = 300;
+    for (double loadFactor : new double[]{0.01, 0.1, 0.5}) {
+      NeighborsMatrixGraph graph = NeighborsMatrixGraph.createRandomGraph(4L, numberOfVertices, loadFactor, 2);
+      JGraphSimpleGraphImpl jGraph = JGraphSimpleGraphImpl.createRandomGraph(4L, numberOfVertices, loadFactor, 2);
+      long triangles = 0;
+      for (int v1 = 0; v1 < numberOfVertices; v1++) {
+        for (int v2 = 0; v2 < v1; v2++) {
+          for (int v3 = 0; v3 < v2; v3++) {
+            if (graph.edgeExists(v1, v2) && graph.edgeExists(v2, v3) && graph.edgeExists(v1, v3)) {
+              triangles++;
+            }
+          }
+        }
+      }
+      Assertions.assertEquals(triangles, graph.countTriangles());
+      Assertions.assertEquals(triangles, graph.countTriangles(3));
+      Assertions.assertEquals(triangles, jGraph.countTriangles());
+      Assertions.assertEquals(jGraph.globalClusteringCoefficient(), graph.globalClusteringCoefficient(), 1E-9);
+      Assertions.assertEquals(jGraph.globalClusteringCoefficient(), graph.globalClusteringCoefficient(3), 1E-9);
+      for (int vertex = 0; vertex < numberOfVertices; vertex += 7) {
+        Assertions.assertEquals(jGraph.localClusteringCoefficient(vertex), graph.localClusteringCoefficient(vertex), 1E-9);
+      }
+    }
+  }
+
+  @Test
+  public void testMaximalCliques() {
+    NeighborsMatrixGraph graph = new NeighborsMatrixGraph(8);
+    //A 4 clique 0..3, a triangle 3, 4, 5 sharing vertex 3, an edge 5-6 and an isolated vertex 7
+    for (int v1 = 0; v1 < 4; v1++) {
+      for (int v2 = v1 + 1; v2 < 4; v2++) {
+        graph.addEdge(v1, v2);
+      }
+    }
+    graph.addEdge(3, 4);
+    graph.addEdge(4, 5);
+    graph.addEdge(5, 3);
+    graph.addEdge(5, 6);
+    graph.addEdge(1, 1); //Self loops aren't part of cliques
+    Set<Set<Integer>> cliques = ConcurrentHashMap.newKeySet();
+    Assertions.assertEquals(4, graph.forEachMaximalClique(clique -> cliques.add(toSet(clique))));
+    Assertions.assertEquals(Set.of(Set.of(0, 1, 2, 3), Set.of(3, 4, 5), Set.of(5, 6), Set.of(7)), cliques);
+    cliques.clear();
+    Assertions.assertEquals(4, graph.forEachMaximalClique(clique -> cliques.add(toSet(clique)), 2));
+    Assertions.assertEquals(Set.of(Set.of(0, 1, 2, 3), Set.of(3, 4, 5), Set.of(5, 6), Set.of(7)), cliques);
+    Assertions.assertEquals(3, graph.degeneracy());
+    graph.removeVertex(3);
+    Assertions.assertEquals(4, graph.countMaximalCliques()); //{0, 1, 2}, {4, 5}, {5, 6}, {7}
+  }
+
+  @Test
+  public void testRandomGraphsMaximalCliques() {
+    int numberOfVertices = 100;
+    for (double loadFactor : new double[]{0.01, 0.1, 0.3}) {
+      NeighborsMatrixGraph graph = NeighborsMatrixGraph.createRandomGraph(6L, numberOfVertices, loadFactor, 2);
+      JGraphSimpleGraphImpl jGraph = JGraphSimpleGraphImpl.createRandomGraph(6L, numberOfVertices, loadFactor, 2);
+      Set<Set<Integer>> cliques = ConcurrentHashMap.newKeySet();
+      long numberOfCliques = graph.forEachMaximalClique(clique -> cliques.add(toSet(clique)), 3);
+      Assertions.assertEquals(cliques.size(), numberOfCliques);
+      Assertions.assertEquals(jGraph.countMaximalCliques(), numberOfCliques);
+      Assertions.assertEquals(numberOfCliques, graph.countMaximalCliques());
+      for (Set<Integer> clique : cliques) {
+        for (int v1 : clique) {
+          for (int v2 : clique) {
+            Assertions.assertTrue(v1 == v2 || graph.edgeExists(v1, v2));
+          }
+        }
+        for (int vertex = 0; vertex < numberOfVertices; vertex++) {
+          int candidate = vertex;
+          Assertions.assertFalse(!clique.contains(candidate) &&
+                                     clique.stream().allMatch(member -> graph.edgeExists(member, candidate)));
+        }
+      }
+    }
+  }
+
+  private static Set<Integer> toSet(int[] clique) {
+    return Arrays.stream(clique).boxed().collect(Collectors.toSet());
+  }
+
+  private int[] naiveBfsLevels(NeighborsMatrixGraph graph, int source, int numberOfVertices) {
+    int[] levels = new int[numberOfVertices];
+    Arrays.fill(levels, NeighborsMatrixGraph.UNREACHABLE);
+    Deque<Integer> queue = new ArrayDeque<>();
+    levels[source] = 0;
+    queue.add(source);
+    while (!queue.isEmpty()) {
+      int vertex = queue.poll();
+      for (int neighbor = 0; neighbor < numberOfVertices; neighbor++) {
+        if (levels[neighbor] == NeighborsMatrixGraph.UNREACHABLE && graph.edgeExists(vertex, neighbor)) {
+          levels[neighbor] = levels[vertex] + 1;
+          queue.add(neighbor);
+        }
+      }
+    }
+    return levels;
+  }
 }
@@ -0,0 +1,109 @@
+package il.co.site_building.performance_course.graph.tests;
+
+import il.co.site_building.performance_course.graph.NeighborsMatrixGraph;
+import il.co.site_building.performance_course.graph.OffHeapNeighborsMatrixGraph;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class OffHeapNeighborsMatrixGraphTests {
+
+  @Test
+  public void testAddRemoveVertex() {
+    try (OffHeapNeighborsMatrixGraph graph = new OffHeapNeighborsMatrixGraph(70)) {
+      Assertions.assertTrue(graph.vertexExists(0));
+      Assertions.assertTrue(graph.vertexExists(69));
+      Assertions.assertFalse(graph.vertexExists(70));
+      graph.removeVertex(30);
+      graph.addVertex(1000);
+      Assertions.assertFalse(graph.vertexExists(30));
+      Assertions.assertTrue(graph.vertexExists(1000));
+      Assertions.assertFalse(graph.vertexExists(999));
+      Assertions.assertEquals(70, graph.vertexSet().size());
+    }
+  }
+
+  @Test
+  public void testAddRemoveEdgeWithGrowth() {
+    try (OffHeapNeighborsMatrixGraph graph = new OffHeapNeighborsMatrixGraph()) {
+      graph.addVertex(0);
+      graph.addVertex(1);
+      graph.addVertex(63);
+      graph.addEdge(0, 63);
+      graph.addEdge(1, 150);
+      Assertions.assertTrue(graph.edgeExists(63, 0));
+      Assertions.assertFalse(graph.edgeExists(1, 150));
+      graph.addVertex(150);
+      graph.addVertex(5000);
+      graph.addEdge(1, 150);
+      graph.addEdge(5000, 0);
+      Assertions.assertTrue(graph.edgeExists(0, 63));
+      Assertions.assertTrue(graph.edgeExists(150, 1));
+      Assertions.assertTrue(graph.edgeExists(0, 5000));
+      Assertions.assertFalse(graph.edgeExists(1, 63));
+      graph.removeEdge(63, 0);
+      Assertions.assertFalse(graph.edgeExists(0, 63));
+      Assertions.assertEquals(3, graph.labelConnectedComponents().numberOfComponents());
+    }
+  }
+
+  @Test
+  public void testClosedGraph() {
+    OffHeapNeighborsMatrixGraph graph = new OffHeapNeighborsMatrixGraph(10);
+    graph.close();
+    graph.close();
+    Assertions.assertThrows(IllegalStateException.class, () -> graph.vertexExists(0));
+    Assertions.assertThrows(IllegalStateException.class, () -> graph.addVertex(0));
+  }
+
+  /**
+   * The chunks of a closed graph aren't referenced anymore, so a garbage collection releases them.
+   */
+  @Test
+  public void testDirectMemoryIsReleased() throws InterruptedException {
+    BufferPoolMXBean directPool = ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class).stream()
+                                                   .filter(pool -> pool.getName().equals("direct"))
+                                                   .findFirst()
+                                                   .orElseThrow();
+    long usedBefore = directPool.getMemoryUsed();
+    OffHeapNeighborsMatrixGraph graph = new OffHeapNeighborsMatrixGraph(1024);
+    graph.addEdge(0, 1023);
+    graph.addVertex(2047); //Doubles the capacity to 2048 rows of 32 longs
+    Assertions.assertTrue(graph.edgeExists(1023, 0));
+    graph.close();
+    for (int attempt = 0; attempt < 50 && directPool.getMemoryUsed() > usedBefore; attempt++) {
+      System.gc(); //The cleaners run on their own thread after the collection
+      Thread.sleep(20);
+    }
+    Assertions.assertTrue(directPool.getMemoryUsed() <= usedBefore);
+  }
+
+  @Test
+  public void testRandomGraphs() {
+    int numberOfVertices = 500;
+    double loadFactor = 0.003;
+    NeighborsMatrixGraph neighborsMatrixGraph =
+        NeighborsMatrixGraph.createRandomGraph(new Random(0), numberOfVertices, loadFactor);
+    try (OffHeapNeighborsMatrixGraph offHeapGraph =
+             OffHeapNeighborsMatrixGraph.createRandomGraph(new Random(0), numberOfVertices, loadFactor)) {
+      for (int vertex = 0; vertex < numberOfVertices; vertex++) {
+        for (int neighbor = 0; neighbor < numberOfVertices; neighbor++) {
+          Assertions.assertEquals(neighborsMatrixGraph.edgeExists(vertex, neighbor),
+                                  offHeapGraph.edgeExists(vertex, neighbor));
+        }
+      }
+      Set<Set<Integer>> neighborsMatrixComponents = new HashSet<>();
+      neighborsMatrixGraph.createConnectedComponents()
+                          .forEach(component -> neighborsMatrixComponents.add(component.vertexSet()));
+      Set<Set<Integer>> offHeapComponents = new HashSet<>();
+      offHeapGraph.createConnectedComponents().forEach(component -> offHeapComponents.add(component.vertexSet()));
+      Assertions.assertEquals(neighborsMatrixComponents, offHeapComponents);
+    }
+  }
+}
@@ -0,0 +1,80 @@
+package il.co.site_building.performance_course.graph.tests;
+
+import il.co.site_building.performance_course.graph.NeighborsMatrixGraph;
+import il.co.site_building.performance_course.graph.PackedNeighborsMatrixGraph;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class PackedNeighborsMatrixGraphTests {
+
+  @Test
+  public void testAddRemoveEdgeWithGrowth() {
+    PackedNeighborsMatrixGraph graph = new PackedNeighborsMatrixGraph();
+    Assertions.assertFalse(graph.vertexExists(0));
+    graph.addVertex(0);
+    graph.addVertex(1);
+    graph.addVertex(63);
+    graph.addEdge(0, 63);
+    graph.addEdge(1, 150);
+    Assertions.assertTrue(graph.edgeExists(63, 0));
+    Assertions.assertFalse(graph.edgeExists(1, 150));
+    graph.addVertex(150);
+    graph.addVertex(5000);
+    graph.addEdge(1, 150);
+    graph.addEdge(5000, 0);
+    graph.addEdge(64 * 70, 0); //Vertex doesn't exist
+    Assertions.assertTrue(graph.edgeExists(0, 63));
+    Assertions.assertTrue(graph.edgeExists(150, 1));
+    Assertions.assertTrue(graph.edgeExists(0, 5000));
+    Assertions.assertFalse(graph.edgeExists(1, 63));
+    Assertions.assertEquals(2, graph.degree(0));
+    graph.removeEdge(63, 0);
+    Assertions.assertFalse(graph.edgeExists(0, 63));
+    Assertions.assertEquals(3, graph.labelConnectedComponents().numberOfComponents());
+    graph.removeVertex(150);
+    Assertions.assertEquals(0, graph.degree(1));
+    graph.addVertex(150); //Edges are back once the vertex is added again
+    Assertions.assertTrue(graph.edgeExists(1, 150));
+  }
+
+  @Test
+  public void testHalfMemory() {
+    int numberOfVertices = 6400;
+    PackedNeighborsMatrixGraph graph = new PackedNeighborsMatrixGraph(numberOfVertices);
+    long fullMatrixLongs = (long) numberOfVertices * (numberOfVertices / Long.SIZE);
+    Assertions.assertTrue(graph.getMatrixCapacity() < fullMatrixLongs * 0.51);
+  }
+
+  @Test
+  public void testRandomGraphs() {
+    int numberOfVertices = 500;
+    for (double loadFactor : new double[]{0.003, 0.05}) {
+      NeighborsMatrixGraph neighborsMatrixGraph =
+          NeighborsMatrixGraph.createRandomGraph(new Random(0), numberOfVertices, loadFactor);
+      PackedNeighborsMatrixGraph packedGraph =
+          PackedNeighborsMatrixGraph.createRandomGraph(new Random(0), numberOfVertices, loadFactor);
+      for (int vertex = 0; vertex < numberOfVertices; vertex++) {
+        for (int neighbor = 0; neighbor < numberOfVertices; neighbor++) {
+          Assertions.assertEquals(neighborsMatrixGraph.edgeExists(vertex, neighbor),
+                                  packedGraph.edgeExists(vertex, neighbor));
+        }
+        Set<Integer> neighbors = new HashSet<>();
+        neighborsMatrixGraph.forEachNeighbor(vertex, neighbors::add);
+        Set<Integer> packedNeighbors = new HashSet<>();
+        packedGraph.forEachNeighbor(vertex, packedNeighbors::add);
+        Assertions.assertEquals(neighbors, packedNeighbors);
+      }
+      Set<Set<Integer>> neighborsMatrixComponents = new HashSet<>();
+      neighborsMatrixGraph.createConnectedComponents()
+                          .forEach(component -> neighborsMatrixComponents.add(component.vertexSet()));
+      Set<Set<Integer>> packedComponents = new HashSet<>();
+      packedGraph.createConnectedComponents().forEach(component -> packedComponents.add(component.vertexSet()));
+      Assertions.assertEquals(neighborsMatrixComponents, packedComponents);
+    }
+  }
+}
@@ -0,0 +1,85 @@
+package il.co.site_building.performance_course.graph.tests;
+
+import il.co.site_building.performance_course.graph.CsrSimpleGraph;
+import il.co.site_building.performance_course.graph.NeighborsMatrixGraph;
+import il.co.site_building.performance_course.graph.UndirectedWeightedNeighborsMatrixGraphImpl;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class RandomGraphGeneratorTests {
+
+  @Test
+  public void testDeterministicAcrossParallelism() {
+    for (double loadFactor : new double[]{0.01, 0.4}) {
+      int numberOfVertices = 300;
+      NeighborsMatrixGraph sequentialGraph = NeighborsMatrixGraph.createRandomGraph(7L, numberOfVertices, loadFactor, 1);
+      NeighborsMatrixGraph parallelGraph = NeighborsMatrixGraph.createRandomGraph(7L, numberOfVertices, loadFactor, 4);
+      CsrSimpleGraph csrGraph = CsrSimpleGraph.createRandomGraph(7L, numberOfVertices, loadFactor, 3);
+      for (int vertex = 0; vertex < numberOfVertices; vertex++) {
+        for (int neighbor = 0; neighbor < numberOfVertices; neighbor++) {
+          Assertions.assertEquals(sequentialGraph.edgeExists(vertex, neighbor), parallelGraph.edgeExists(vertex, neighbor));
+          Assertions.assertEquals(sequentialGraph.edgeExists(vertex, neighbor), csrGraph.edgeExists(vertex, neighbor));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testSymmetricRows() {
+    int numberOfVertices = 200;
+    NeighborsMatrixGraph graph = NeighborsMatrixGraph.createRandomGraph(3L, numberOfVertices, 0.3, 2);
+    for (int vertex = 0; vertex < numberOfVertices; vertex++) {
+      Set<Integer> neighbors = new HashSet<>();
+      graph.forEachNeighbor(vertex, neighbors::add);
+      for (int neighbor = 0; neighbor < numberOfVertices; neighbor++) {
+        Assertions.assertEquals(vertex != neighbor && graph.edgeExists(vertex, neighbor), neighbors.contains(neighbor));
+      }
+    }
+  }
+
+  @Test
+  public void testLoadFactor() {
+    int numberOfVertices = 1000;
+    double numberOfPairs = numberOfVertices * (numberOfVertices - 1) / 2.0;
+    for (double loadFactor : new double[]{0.005, 0.05, 0.3, 0.7}) {
+      NeighborsMatrixGraph graph = NeighborsMatrixGraph.createRandomGraph(11L, numberOfVertices, loadFactor, 2);
+      long degrees = 0;
+      for (int vertex = 0; vertex < numberOfVertices; vertex++) {
+        degrees += graph.degree(vertex);
+      }
+      double expectedEdges = loadFactor * numberOfPairs;
+      Assertions.assertEquals(expectedEdges, degrees / 2.0, expectedEdges * 0.05);
+    }
+    NeighborsMatrixGraph emptyGraph = NeighborsMatrixGraph.createRandomGraph(11L, 100, 0, 2);
+    NeighborsMatrixGraph completeGraph = NeighborsMatrixGraph.createRandomGraph(11L, 100, 1, 2);
+    for (int vertex = 0; vertex < 100; vertex++) {
+      Assertions.assertEquals(0, emptyGraph.degree(vertex));
+      Assertions.assertEquals(99, completeGraph.degree(vertex));
+    }
+  }
+
+  @Test
+  public void testWeightedGraph() {
+    int numberOfVertices = 150;
+    UndirectedWeightedNeighborsMatrixGraphImpl graph =
+        UndirectedWeightedNeighborsMatrixGraphImpl.generateRandomGraph(5L, numberOfVertices, 0.1, 3);
+    UndirectedWeightedNeighborsMatrixGraphImpl sequentialGraph =
+        UndirectedWeightedNeighborsMatrixGraphImpl.generateRandomGraph(5L, numberOfVertices, 0.1, 1);
+    int numberOfEdges = 0;
+    for (int vertex = 0; vertex < numberOfVertices; vertex++) {
+      for (int neighbor = vertex + 1; neighbor < numberOfVertices; neighbor++) {
+        Assertions.assertEquals(sequentialGraph.getEdgeWeight(vertex, neighbor), graph.getEdgeWeight(vertex, neighbor));
+        if (graph.containsEdge(vertex, neighbor)) {
+          double weight = graph.getEdgeWeight(vertex, neighbor);
+          Assertions.assertTrue(0 <= weight && weight < 1);
+          numberOfEdges++;
+        }
+      }
+    }
+    Assertions.assertTrue(numberOfEdges > 0);
+  }
+}
@@ -0,0 +1,100 @@
+package il.co.site_building.performance_course.graph.tests;
+
+import il.co.site_building.performance_course.graph.ConnectedComponentsLabels;
+import il.co.site_building.performance_course.graph.JGraphSimpleGraphImpl;
+import il.co.site_building.performance_course.graph.NeighborsMatrixGraph;
+import il.co.site_building.performance_course.graph.ReachabilityIndex;
+import il.co.site_building.performance_course.graph.SimpleGraph;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ReachabilityIndexTests {
+
+  @Test
+  public void testCounters() {
+    ReachabilityIndex index = new ReachabilityIndex(new NeighborsMatrixGraph(10));
+    index.addEdge(0, 1);
+    index.addEdge(1, 2);
+    index.addEdge(5, 6);
+    Assertions.assertEquals(3, index.getModificationCount());
+    Assertions.assertTrue(index.reachable(0, 2)); //Building the labels
+    Assertions.assertEquals(1, index.getMisses());
+    Assertions.assertEquals(1, index.getRebuilds());
+    Assertions.assertFalse(index.reachable(0, 5));
+    Assertions.assertTrue(index.reachable(5, 6));
+    Assertions.assertFalse(index.reachable(0, 20));
+    Assertions.assertEquals(3, index.getHits());
+    index.addEdge(2, 5); //Merged incrementally
+    Assertions.assertTrue(index.reachable(0, 6));
+    Assertions.assertEquals(4, index.getHits());
+    index.removeEdge(1, 2); //Only this component is recomputed, on the next query
+    Assertions.assertFalse(index.reachable(3, 4));
+    Assertions.assertEquals(5, index.getHits());
+    Assertions.assertFalse(index.reachable(0, 6));
+    Assertions.assertEquals(2, index.getMisses());
+    Assertions.assertEquals(2, index.getRebuilds());
+    Assertions.assertTrue(index.reachable(2, 6));
+    Assertions.assertTrue(index.reachable(0, 1));
+    Assertions.assertEquals(7, index.getHits());
+    index.removeVertex(5);
+    Assertions.assertFalse(index.reachable(2, 6));
+    Assertions.assertFalse(index.reachable(2, 5));
+    index.addVertex(5); //The neighbors matrix graph keeps the edges of a removed vertex
+    Assertions.assertTrue(index.reachable(2, 6));
+  }
+
+  @Test
+  public void testReusedLabelIsClean() {
+    ReachabilityIndex index = new ReachabilityIndex(new NeighborsMatrixGraph(4));
+    for (int vertex = 0; vertex < 4; vertex++) {
+      index.addVertex(vertex);
+    }
+    index.addEdge(0, 1);
+    Assertions.assertTrue(index.reachable(0, 1)); //Building the labels
+    index.removeEdge(0, 1); //The component of 0 and 1 is dirty
+    index.removeVertex(0);
+    index.removeVertex(1); //The label of the dirty component is free
+    index.addVertex(10); //Takes the free label
+    Assertions.assertTrue(index.reachable(10, 10));
+    Assertions.assertEquals(1, index.getRebuilds());
+    Assertions.assertEquals(1, index.getMisses());
+  }
+
+  @Test
+  public void testRandomModifications() {
+    int numberOfVertices = 120;
+    for (SimpleGraph graph : new SimpleGraph[]{new NeighborsMatrixGraph(numberOfVertices),
+                                               new JGraphSimpleGraphImpl(numberOfVertices)}) {
+      ReachabilityIndex index = new ReachabilityIndex(graph);
+      Random random = new Random(3);
+      for (int step = 0; step < 3000; step++) {
+        int v1 = random.nextInt(numberOfVertices);
+        int v2 = random.nextInt(numberOfVertices);
+        int operation = random.nextInt(20);
+        if (operation < 9) {
+          if (index.vertexExists(v1) && index.vertexExists(v2)) {
+            index.addEdge(v1, v2);
+          }
+        } else if (operation < 17) {
+          index.removeEdge(v1, v2);
+        } else if (operation < 18) {
+          index.removeVertex(v1);
+        } else {
+          index.addVertex(v1);
+        }
+        if (step % 10 == 0) {
+          ConnectedComponentsLabels labels = graph.labelConnectedComponents();
+          for (int query = 0; query < 20; query++) {
+            int u = random.nextInt(numberOfVertices);
+            int v = random.nextInt(numberOfVertices);
+            Assertions.assertEquals(labels.sameComponent(u, v), index.reachable(u, v));
+          }
+        }
+      }
+      Assertions.assertTrue(index.getHits() > index.getMisses());
+    }
+  }
+}
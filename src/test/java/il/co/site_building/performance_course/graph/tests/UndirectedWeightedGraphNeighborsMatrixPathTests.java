@@ -1,11 +1,19 @@
 package il.co.site_building.performance_course.graph.tests;
 
+import com.sun.management.ThreadMXBean;
+
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
 import il.co.site_building.performance_course.graph.PathResult;
 import il.co.site_building.performance_course.graph.UndirectedWeightedNeighborsMatrixGraph;
+import il.co.site_building.performance_course.graph.UndirectedWeightedNeighborsMatrixGraph.StorageLayout;
 import il.co.site_building.performance_course.graph.UndirectedWeightedNeighborsMatrixGraphImpl;
+import il.co.site_building.performance_course.graph.UndirectedWeightedNeighborsMatrixGraphImpl.QueueType;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Random;
 
 public class UndirectedWeightedGraphNeighborsMatrixPathTests {
 
@@ -72,6 +80,29 @@ public class UndirectedWeightedGraphNeighborsMatrixPathTests {
     Assertions.assertArrayEquals(new int[]{2,0}, pathResult.path.toArray());
   }
 
+  @Test
+  public void testSnapshot() {
+    UndirectedWeightedNeighborsMatrixGraph graph = new UndirectedWeightedNeighborsMatrixGraphImpl();
+    graph.addVertex(0);
+    graph.addVertex(1);
+    graph.addVertex(2);
+    graph.setEdge(0, 1, 1.0);
+    graph.setEdge(1, 2, 1.0);
+    UndirectedWeightedNeighborsMatrixGraph snapshot = graph.snapshot();
+    Assertions.assertTrue(snapshot instanceof UndirectedWeightedNeighborsMatrixGraphImpl);
+    Assertions.assertThrows(UnsupportedOperationException.class, () -> snapshot.setEdge(0, 2, 1.0));
+    graph.setEdge(0, 2, 0.5);
+    graph.setEdge(0, 1, 10.0);
+    graph.addVertex(100);
+    Assertions.assertEquals(0.5, graph.findShortestPath(0, 2).distances);
+    Assertions.assertEquals(1.0, snapshot.getEdgeWeight(0, 1));
+    Assertions.assertFalse(snapshot.containsEdge(0, 2));
+    Assertions.assertFalse(snapshot.vertexExists(100));
+    PathResult pathResult = snapshot.findShortestPath(0, 2);
+    Assertions.assertEquals(2.0, pathResult.distances);
+    Assertions.assertArrayEquals(new int[]{2, 1, 0}, pathResult.path.toArray());
+  }
+
   @Test
   public void testLargeGraph(){
     UndirectedWeightedNeighborsMatrixGraph graph = new UndirectedWeightedNeighborsMatrixGraphImpl(9);
@@ -92,4 +123,219 @@ public class UndirectedWeightedGraphNeighborsMatrixPathTests {
     Assertions.assertEquals(21.0, pathResult.distances);
     Assertions.assertArrayEquals(new int[]{4,5,6,7,0}, pathResult.path.toArray());
   }
+
+  @Test
+  public void testLargeGraphAllQueues() {
+    UndirectedWeightedNeighborsMatrixGraphImpl graph = new UndirectedWeightedNeighborsMatrixGraphImpl(9);
+    graph.setEdge(0, 1, 4);
+    graph.setEdge(0, 7, 8);
+    graph.setEdge(1, 7, 11);
+    graph.setEdge(2, 3, 7);
+    graph.setEdge(2, 5, 4);
+    graph.setEdge(2, 8, 2);
+    graph.setEdge(3, 4, 9);
+    graph.setEdge(3, 5, 14);
+    graph.setEdge(4, 5, 10);
+    graph.setEdge(5, 6, 2);
+    graph.setEdge(6, 8, 6);
+    graph.setEdge(6, 7, 1);
+    graph.setEdge(7, 8, 7);
+    for (QueueType queueType : QueueType.values()) {
+      PathResult pathResult = graph.findShortestPath(0, 4, queueType);
+      Assertions.assertEquals(21.0, pathResult.distances, queueType.name());
+      Assertions.assertArrayEquals(new int[]{4, 5, 6, 7, 0}, pathResult.path.toArray(), queueType.name());
+      Assertions.assertEquals(Double.POSITIVE_INFINITY, graph.findShortestPath(0, 9, queueType).distances);
+    }
+  }
+
+  @Test
+  public void testRandomGraphsAllQueues() {
+    Random random = new Random(0);
+    for (double loadFactor : new double[]{0.005, 0.02, 0.1, 0.5}) {
+      int numberOfVertices = 300;
+      UndirectedWeightedNeighborsMatrixGraphImpl graph =
+          UndirectedWeightedNeighborsMatrixGraphImpl.generateRandomGraph(random, numberOfVertices, loadFactor);
+      double[] expectedDistances = bellmanFord(graph, numberOfVertices, 0);
+      for (QueueType queueType : QueueType.values()) {
+        for (int dest = 0; dest < numberOfVertices; dest += 7) {
+          PathResult pathResult = graph.findShortestPath(0, dest, queueType);
+          Assertions.assertEquals(expectedDistances[dest], pathResult.distances, 1e-9, queueType.name());
+          verifyPath(graph, pathResult, 0, dest);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testStorageLayouts() {
+    int numberOfVertices = 200;
+    UndirectedWeightedNeighborsMatrixGraphImpl packedGraph = UndirectedWeightedNeighborsMatrixGraphImpl
+        .generateRandomGraph(new Random(1), numberOfVertices, 0.05, StorageLayout.PACKED_TRIANGLE);
+    UndirectedWeightedNeighborsMatrixGraphImpl mirroredGraph = UndirectedWeightedNeighborsMatrixGraphImpl
+        .generateRandomGraph(new Random(1), numberOfVertices, 0.05, StorageLayout.MIRRORED_ROWS);
+    for (int v1 = 0; v1 < numberOfVertices; v1++) {
+      for (int v2 = 0; v2 < numberOfVertices; v2++) {
+        Assertions.assertEquals(packedGraph.getEdgeWeight(v1, v2), mirroredGraph.getEdgeWeight(v1, v2));
+        Assertions.assertEquals(packedGraph.getEdgeWeight(v1, v2), packedGraph.getEdgeWeight(v2, v1));
+      }
+    }
+    for (int dest = 0; dest < numberOfVertices; dest += 11) {
+      Assertions.assertEquals(packedGraph.findShortestPath(0, dest), mirroredGraph.findShortestPath(0, dest));
+    }
+  }
+
+  @Test
+  public void testFloatWeights() {
+    for (StorageLayout storageLayout : new StorageLayout[]{StorageLayout.PACKED_TRIANGLE_FLOAT,
+                                                           StorageLayout.MIRRORED_ROWS_FLOAT}) {
+      UndirectedWeightedNeighborsMatrixGraphImpl graph = new UndirectedWeightedNeighborsMatrixGraphImpl(4, storageLayout);
+      graph.setEdge(0, 1, 0.1);
+      graph.setEdge(1, 2, 0.2);
+      graph.setEdge(0, 2, 1e300); //Too large for a float
+      graph.setEdge(2, 3, 0.5);
+      Assertions.assertEquals((float) 0.1, graph.getEdgeWeight(1, 0), storageLayout.name());
+      Assertions.assertFalse(graph.containsEdge(0, 2), storageLayout.name());
+      PathResult pathResult = graph.findShortestPath(0, 3);
+      Assertions.assertEquals((double) (float) 0.1 + (float) 0.2 + 0.5, pathResult.distances, storageLayout.name());
+      Assertions.assertArrayEquals(new int[]{3, 2, 1, 0}, pathResult.path.toArray(), storageLayout.name());
+    }
+    UndirectedWeightedNeighborsMatrixGraphImpl doubleGraph = UndirectedWeightedNeighborsMatrixGraphImpl
+        .generateRandomGraph(new Random(2), 200, 0.05, StorageLayout.PACKED_TRIANGLE);
+    UndirectedWeightedNeighborsMatrixGraphImpl floatGraph = UndirectedWeightedNeighborsMatrixGraphImpl
+        .generateRandomGraph(new Random(2), 200, 0.05, StorageLayout.MIRRORED_ROWS_FLOAT);
+    for (int dest = 0; dest < 200; dest += 13) {
+      Assertions.assertEquals(doubleGraph.findShortestPath(0, dest).distances,
+                              floatGraph.findShortestPath(0, dest).distances,
+                              1e-5);
+    }
+  }
+
+  @Test
+  public void testStorageGrowthAndSnapshots() {
+    for (StorageLayout storageLayout : StorageLayout.values()) {
+      UndirectedWeightedNeighborsMatrixGraphImpl graph = new UndirectedWeightedNeighborsMatrixGraphImpl(storageLayout);
+      for (int vertex = 0; vertex < 300; vertex++) {
+        graph.addVertex(vertex);
+        if (vertex > 0) {
+          graph.setEdge(vertex - 1, vertex, 1.0);
+        }
+      }
+      UndirectedWeightedNeighborsMatrixGraph snapshot = graph.snapshot();
+      graph.setEdge(0, 299, 0.5);
+      graph.addVertex(1000);
+      graph.setEdge(1000, 150, 2.0);
+      Assertions.assertEquals(1.0, graph.getEdgeWeight(10, 11), storageLayout.name());
+      Assertions.assertEquals(0.5, graph.getEdgeWeight(299, 0), storageLayout.name());
+      Assertions.assertEquals(2.0, graph.getEdgeWeight(150, 1000), storageLayout.name());
+      Assertions.assertEquals(151.5, graph.findShortestPath(0, 1000).distances, storageLayout.name());
+      Assertions.assertEquals(299.0, snapshot.findShortestPath(0, 299).distances, storageLayout.name());
+      Assertions.assertFalse(snapshot.containsEdge(0, 299), storageLayout.name());
+      Assertions.assertFalse(snapshot.vertexExists(1000), storageLayout.name());
+    }
+  }
+
+  @Test
+  public void testPackedSnapshotCopiesOnlyModifiedBlocks() {
+    int numberOfVertices = 4000;
+    long triangleBytes = (long) numberOfVertices * (numberOfVertices - 1) / 2 * Double.BYTES;
+    UndirectedWeightedNeighborsMatrixGraphImpl graph = new UndirectedWeightedNeighborsMatrixGraphImpl(numberOfVertices);
+    graph.setEdge(0, 3999, 1.0);
+    graph.snapshot();
+    graph.setEdge(1, 3999, 1.0); //Warm up
+    ThreadMXBean threadBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    UndirectedWeightedNeighborsMatrixGraph snapshot = graph.snapshot();
+    long allocatedBefore = threadBean.getCurrentThreadAllocatedBytes();
+    graph.setEdge(0, 3999, 2.0);
+    graph.setEdge(5, 3990, 2.0); //The same block
+    long allocated = threadBean.getCurrentThreadAllocatedBytes() - allocatedBefore;
+    Assertions.assertTrue(allocated < triangleBytes / 16, allocated + " bytes copied");
+    Assertions.assertEquals(2.0, graph.getEdgeWeight(0, 3999));
+    Assertions.assertEquals(1.0, snapshot.getEdgeWeight(0, 3999));
+    Assertions.assertFalse(snapshot.containsEdge(5, 3990));
+  }
+
+  @Test
+  public void testBidirectional() {
+    UndirectedWeightedNeighborsMatrixGraphImpl graph = new UndirectedWeightedNeighborsMatrixGraphImpl(10);
+    graph.setEdge(0, 1, 4);
+    graph.setEdge(0, 7, 8);
+    graph.setEdge(1, 7, 11);
+    graph.setEdge(2, 3, 7);
+    graph.setEdge(2, 5, 4);
+    graph.setEdge(2, 8, 2);
+    graph.setEdge(3, 4, 9);
+    graph.setEdge(3, 5, 14);
+    graph.setEdge(4, 5, 10);
+    graph.setEdge(5, 6, 2);
+    graph.setEdge(6, 8, 6);
+    graph.setEdge(6, 7, 1);
+    graph.setEdge(7, 8, 7);
+    PathResult pathResult = graph.findShortestPathBidirectional(0, 4);
+    Assertions.assertEquals(21.0, pathResult.distances);
+    Assertions.assertArrayEquals(new int[]{4, 5, 6, 7, 0}, pathResult.path.toArray());
+    Assertions.assertArrayEquals(new int[]{3}, graph.findShortestPathBidirectional(3, 3).path.toArray());
+    Assertions.assertEquals(0, graph.findShortestPathBidirectional(3, 3).distances);
+    Assertions.assertEquals(Double.POSITIVE_INFINITY, graph.findShortestPathBidirectional(0, 9).distances);
+    Assertions.assertTrue(graph.findShortestPathBidirectional(0, 9).path.isEmpty());
+    Assertions.assertEquals(Double.POSITIVE_INFINITY, graph.findShortestPathBidirectional(0, 10).distances);
+  }
+
+  @Test
+  public void testRandomGraphsBidirectional() {
+    Random random = new Random(3);
+    for (StorageLayout storageLayout : StorageLayout.values()) {
+      for (double loadFactor : new double[]{0.005, 0.02, 0.1, 0.5}) {
+        int numberOfVertices = 150;
+        UndirectedWeightedNeighborsMatrixGraphImpl graph = UndirectedWeightedNeighborsMatrixGraphImpl
+            .generateRandomGraph(random, numberOfVertices, loadFactor, storageLayout);
+        for (int source = 0; source < numberOfVertices; source += 17) {
+          for (int dest = 0; dest < numberOfVertices; dest += 7) {
+            Assertions.assertEquals(graph.findShortestPath(source, dest),
+                                    graph.findShortestPathBidirectional(source, dest),
+                                    storageLayout.name());
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Verifies that the path goes from the destination to the source over existing edges, and sums to the distance.
+   */
+  private static void verifyPath(UndirectedWeightedNeighborsMatrixGraph graph, PathResult pathResult, int source,
+                                 int dest) {
+    if (pathResult.distances == Double.POSITIVE_INFINITY) {
+      Assertions.assertTrue(pathResult.path.isEmpty());
+      return;
+    }
+    int[] path = pathResult.path.toArray();
+    Assertions.assertEquals(dest, path[0]);
+    Assertions.assertEquals(source, path[path.length - 1]);
+    double length = 0;
+    for (int index = 1; index < path.length; index++) {
+      Assertions.assertTrue(graph.containsEdge(path[index - 1], path[index]));
+      length += graph.getEdgeWeight(path[index - 1], path[index]);
+    }
+    Assertions.assertEquals(pathResult.distances, length, 1e-9);
+  }
+
+  private static double[] bellmanFord(UndirectedWeightedNeighborsMatrixGraph graph, int numberOfVertices, int source) {
+    double[] distances = new double[numberOfVertices];
+    Arrays.fill(distances, Double.POSITIVE_INFINITY);
+    distances[source] = 0;
+    boolean changed = true;
+    while (changed) {
+      changed = false;
+      for (int v1 = 0; v1 < numberOfVertices; v1++) {
+        for (int v2 = 0; v2 < numberOfVertices; v2++) {
+          if (v1 != v2 && graph.containsEdge(v1, v2) &&
+              distances[v1] + graph.getEdgeWeight(v1, v2) < distances[v2]) {
+            distances[v2] = distances[v1] + graph.getEdgeWeight(v1, v2);
+            changed = true;
+          }
+        }
+      }
+    }
+    return distances;
+  }
 }